@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.internal.text.html.HTMLPrinter;
+import org.eclipse.jface.preference.JFacePreferences;
+import org.eclipse.jface.resource.ColorRegistry;
+import org.eclipse.jface.resource.JFaceResources;
+
+/**
+ * Tests the page prologs inserted by {@link HTMLPrinter}.
+ *
+ * @since 3.15
+ */
+public class HTMLPrinterTest {
+
+	private static final String STYLE_SHEET= "html { color: InfoText; background-color: InfoBackground; } a { color: hyperlinkColor; } a:hover { color: activeHyperlinkColor; }";
+
+	private static final RGB FG= new RGB(1, 2, 3);
+	private static final RGB BG= new RGB(250, 251, 252);
+
+	private RGB fLinkRGB;
+	private RGB fActiveLinkRGB;
+
+	@Before
+	public void setUp() {
+		ColorRegistry registry= JFaceResources.getColorRegistry();
+		fLinkRGB= registry.getRGB(JFacePreferences.HYPERLINK_COLOR);
+		fActiveLinkRGB= registry.getRGB(JFacePreferences.ACTIVE_HYPERLINK_COLOR);
+		// let the printer install its color updater
+		HTMLPrinter.insertPageProlog(new StringBuilder(), 0);
+		runEventQueue();
+	}
+
+	@After
+	public void tearDown() {
+		setLinkColors(fLinkRGB != null ? fLinkRGB : new RGB(0, 0, 255), fActiveLinkRGB != null ? fActiveLinkRGB : new RGB(0, 0, 128));
+	}
+
+	private static void runEventQueue() {
+		Display display= Display.getDefault();
+		while (display.readAndDispatch()) {
+			// do nothing
+		}
+	}
+
+	private static void setLinkColors(RGB linkRGB, RGB activeLinkRGB) {
+		ColorRegistry registry= JFaceResources.getColorRegistry();
+		registry.put(JFacePreferences.HYPERLINK_COLOR, linkRGB);
+		registry.put(JFacePreferences.ACTIVE_HYPERLINK_COLOR, activeLinkRGB);
+	}
+
+	private static String toHex(RGB rgb) {
+		return String.format("#%02x%02x%02x", Integer.valueOf(rgb.red), Integer.valueOf(rgb.green), Integer.valueOf(rgb.blue));
+	}
+
+	/**
+	 * Builds the prolog the way it was built before the prologs were cached.
+	 */
+	private static String expectedProlog(String styleSheet, RGB linkRGB, RGB activeLinkRGB) {
+		StringBuilder prolog= new StringBuilder("<html>");
+		if (styleSheet != null) {
+			String styles= styleSheet.replaceAll("InfoText", toHex(FG)).replaceAll("InfoBackground", toHex(BG))
+					.replaceAll("hyperlinkColor", toHex(linkRGB)).replaceAll("activeHyperlinkColor", toHex(activeLinkRGB));
+			prolog.append("<head><style CHARSET=\"ISO-8859-1\" TYPE=\"text/css\">").append(styles).append("</style></head>");
+		}
+		prolog.append("<body text=\"").append(toHex(FG)).append("\" bgcolor=\"").append(toHex(BG)).append("\">");
+		return prolog.toString();
+	}
+
+	private static String insert(String styleSheet) {
+		StringBuilder buffer= new StringBuilder("before|after");
+		HTMLPrinter.insertPageProlog(buffer, 7, FG, BG, styleSheet);
+		return buffer.toString();
+	}
+
+	@SuppressWarnings("deprecation")
+	private static String insertIntoBuffer(String styleSheet) {
+		StringBuffer buffer= new StringBuffer("before|after");
+		HTMLPrinter.insertPageProlog(buffer, 7, FG, BG, styleSheet);
+		return buffer.toString();
+	}
+
+	@Test
+	public void testStyleSheetProlog() {
+		RGB linkRGB= new RGB(10, 20, 30);
+		RGB activeLinkRGB= new RGB(40, 50, 60);
+		setLinkColors(linkRGB, activeLinkRGB);
+
+		String expected= "before|" + expectedProlog(STYLE_SHEET, linkRGB, activeLinkRGB) + "after";
+		assertEquals(expected, insert(STYLE_SHEET));
+		assertEquals(expected, insertIntoBuffer(STYLE_SHEET));
+		// the cached prolog is the same
+		assertEquals(expected, insert(STYLE_SHEET));
+		assertEquals(expected, insertIntoBuffer(STYLE_SHEET));
+	}
+
+	@Test
+	public void testChangedLinkColors() {
+		setLinkColors(new RGB(10, 20, 30), new RGB(40, 50, 60));
+		insert(STYLE_SHEET);
+
+		RGB linkRGB= new RGB(70, 80, 90);
+		RGB activeLinkRGB= new RGB(100, 110, 120);
+		setLinkColors(linkRGB, activeLinkRGB);
+		String expected= "before|" + expectedProlog(STYLE_SHEET, linkRGB, activeLinkRGB) + "after";
+		assertEquals(expected, insert(STYLE_SHEET));
+		assertEquals(expected, insertIntoBuffer(STYLE_SHEET));
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testPrologWithoutStyleSheet() {
+		String expected= "before|" + expectedProlog(null, null, null) + "after";
+		assertEquals(expected, insert(null));
+		assertEquals(expected, insertIntoBuffer(null));
+
+		StringBuilder builder= new StringBuilder();
+		HTMLPrinter.insertPageProlog(builder, 0);
+		StringBuffer buffer= new StringBuffer();
+		HTMLPrinter.insertPageProlog(buffer, 0);
+		assertEquals(builder.toString(), buffer.toString());
+		assertTrue(builder.toString(), builder.toString().matches("<html><body text=\"#[0-9a-f]{6}\" bgcolor=\"#[0-9a-f]{6}\">"));
+	}
+}
@@ -17,13 +17,30 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import org.eclipse.jface.text.tests.codemining.CodeMiningIncrementalUpdateTest;
+import org.eclipse.jface.text.tests.codemining.CodeMiningLineGroupsTest;
+import org.eclipse.jface.text.tests.codemining.CodeMiningViewportTest;
+import org.eclipse.jface.text.tests.contentassist.AdditionalInfoTimerTest;
+import org.eclipse.jface.text.tests.contentassist.CompletionProposalFilterIndexTest;
+import org.eclipse.jface.text.tests.contentassist.CompletionSessionReuseTest;
+import org.eclipse.jface.text.tests.contentassist.ProcessorLatencyTest;
+import org.eclipse.jface.text.tests.contentassist.RankedProposalBufferTest;
+import org.eclipse.jface.text.tests.presentation.PresentationReconcilerLazyRepairTest;
+import org.eclipse.jface.text.tests.reconciler.AbstractReconcilerExecutorTest;
 import org.eclipse.jface.text.tests.reconciler.AbstractReconcilerTest;
+import org.eclipse.jface.text.tests.reconciler.AdaptiveReconcilerDelayTest;
+import org.eclipse.jface.text.tests.reconciler.DirtyRegionMergingTest;
+import org.eclipse.jface.text.tests.reconciler.ReconcilerSchedulerTest;
+import org.eclipse.jface.text.tests.reconciler.ReconcilerStrategyExecutorTest;
 import org.eclipse.jface.text.tests.rules.DefaultPartitionerTest;
 import org.eclipse.jface.text.tests.rules.DefaultPartitionerZeroLengthTest;
 import org.eclipse.jface.text.tests.rules.FastPartitionerTest;
 import org.eclipse.jface.text.tests.rules.ScannerColumnTest;
+import org.eclipse.jface.text.tests.rules.TokenCacheTest;
 import org.eclipse.jface.text.tests.rules.WordRuleTest;
 import org.eclipse.jface.text.tests.source.LineNumberRulerColumnTest;
+import org.eclipse.jface.text.tests.source.OverviewRulerTest;
+import org.eclipse.jface.text.tests.source.TextExtentCacheTest;
 import org.eclipse.jface.text.tests.templates.persistence.TemplatePersistenceDataTest;
 
 
@@ -35,8 +52,12 @@ import org.eclipse.jface.text.tests.templates.persistence.TemplatePersistenceDat
 @RunWith(Suite.class)
 @SuiteClasses({
 		LineNumberRulerColumnTest.class,
+		TextExtentCacheTest.class,
+		OverviewRulerTest.class,
 		HTML2TextReaderTest.class,
+		HTMLPrinterTest.class,
 		TextHoverPopupTest.class,
+		TextHoverInfoCacheTest.class,
 		TextPresentationTest.class,
 		DefaultUndoManagerTest.class,
 		TextViewerTest.class,
@@ -44,12 +65,30 @@ import org.eclipse.jface.text.tests.templates.persistence.TemplatePersistenceDat
 		DefaultPairMatcherTest.class,
 		DefaultPairMatcherTest2.class,
 
+		CompletionProposalFilterIndexTest.class,
+		CompletionSessionReuseTest.class,
+		ProcessorLatencyTest.class,
+		RankedProposalBufferTest.class,
+		AdditionalInfoTimerTest.class,
+
+		CodeMiningIncrementalUpdateTest.class,
+		CodeMiningLineGroupsTest.class,
+		CodeMiningViewportTest.class,
+
+		PresentationReconcilerLazyRepairTest.class,
+
 		AbstractReconcilerTest.class,
+		AbstractReconcilerExecutorTest.class,
+		AdaptiveReconcilerDelayTest.class,
+		ReconcilerSchedulerTest.class,
+		ReconcilerStrategyExecutorTest.class,
+		DirtyRegionMergingTest.class,
 
 		DefaultPartitionerTest.class,
 		DefaultPartitionerZeroLengthTest.class,
 		FastPartitionerTest.class,
 		ScannerColumnTest.class,
+		TokenCacheTest.class,
 		WordRuleTest.class,
 
 		TemplatePersistenceDataTest.class,
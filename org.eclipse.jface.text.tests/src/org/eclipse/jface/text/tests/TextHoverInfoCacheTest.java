@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.eclipse.jface.internal.text.TextHoverInfoCache;
+import org.eclipse.jface.internal.text.TextHoverInfoCache.HoverInfo;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextHover;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.Region;
+
+/**
+ * Tests the cache of the information computed by text hovers.
+ *
+ * @since 3.15
+ */
+public class TextHoverInfoCacheTest {
+
+	private static final int CAPACITY= 4;
+
+	private static class Hover implements ITextHover {
+
+		@Override
+		public String getHoverInfo(ITextViewer textViewer, IRegion hoverRegion) {
+			return null;
+		}
+
+		@Override
+		public IRegion getHoverRegion(ITextViewer textViewer, int offset) {
+			return null;
+		}
+	}
+
+	private final ITextHover fHover= new Hover();
+
+	private final Object fModelStamp= new Object();
+
+	private HoverInfo createHoverInfo(int offset, long documentStamp) {
+		return new HoverInfo(fHover, new Region(offset, 3), documentStamp, fModelStamp);
+	}
+
+	@Test
+	public void testHit() {
+		TextHoverInfoCache cache= new TextHoverInfoCache(CAPACITY);
+		HoverInfo info= createHoverInfo(10, 1);
+		assertNull(cache.get(info));
+		cache.put(info);
+		assertFalse(info.isComputed());
+		info.complete("information", null);
+		assertTrue(info.isComputed());
+		assertTrue(info.getComputation().isDone());
+
+		HoverInfo cached= cache.get(createHoverInfo(10, 1));
+		assertSame(info, cached);
+		assertEquals("information", cached.getInformation());
+	}
+
+	@Test
+	public void testMiss() {
+		TextHoverInfoCache cache= new TextHoverInfoCache(CAPACITY);
+		cache.put(createHoverInfo(10, 1));
+
+		assertNull(cache.get(createHoverInfo(11, 1)));
+		assertNull(cache.get(new HoverInfo(new Hover(), new Region(10, 3), 1, fModelStamp)));
+		assertNull(cache.get(new HoverInfo(fHover, new Region(10, 3), 1, new Object())));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testEviction() {
+		TextHoverInfoCache cache= new TextHoverInfoCache(CAPACITY);
+		HoverInfo first= createHoverInfo(0, 1);
+		cache.put(first);
+		for (int i= 1; i < CAPACITY; i++)
+			cache.put(createHoverInfo(i * 10, 1));
+		assertEquals(CAPACITY, cache.size());
+
+		// using the first hover info makes the second one the least recently used
+		assertSame(first, cache.get(createHoverInfo(0, 1)));
+		cache.put(createHoverInfo(100, 1));
+		assertEquals(CAPACITY, cache.size());
+		assertSame(first, cache.get(createHoverInfo(0, 1)));
+		assertNull(cache.get(createHoverInfo(10, 1)));
+		assertEquals(CAPACITY, cache.size());
+	}
+
+	@Test
+	public void testInvalidationOnDocumentChange() throws Exception {
+		Document document= new Document("hover me");
+		TextHoverInfoCache cache= new TextHoverInfoCache(CAPACITY);
+		cache.put(createHoverInfo(0, document.getModificationStamp()));
+		cache.put(createHoverInfo(6, document.getModificationStamp()));
+
+		document.replace(0, 0, "x");
+		assertNull(cache.get(createHoverInfo(0, document.getModificationStamp())));
+		// the hover infos of the old document state are evicted
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testRemoveFailedComputation() {
+		TextHoverInfoCache cache= new TextHoverInfoCache(CAPACITY);
+		HoverInfo info= createHoverInfo(10, 1);
+		cache.put(info);
+		info.getComputation().completeExceptionally(new IllegalStateException());
+		assertFalse(info.isComputed());
+		cache.remove(info);
+		assertNull(cache.get(createHoverInfo(10, 1)));
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.codemining;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.internal.text.codemining.ICodeMiningAnnotation;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.codemining.AbstractCodeMiningProvider;
+import org.eclipse.jface.text.codemining.ICodeMining;
+import org.eclipse.jface.text.codemining.ICodeMiningProvider;
+import org.eclipse.jface.text.codemining.ICodeMiningProviderExtension;
+import org.eclipse.jface.text.codemining.LineHeaderCodeMining;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+import org.eclipse.jface.text.source.AnnotationPainter;
+import org.eclipse.jface.text.source.IAnnotationAccess;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.SourceViewer;
+import org.eclipse.jface.text.tests.util.DisplayHelper;
+
+/**
+ * Tests the incremental update of the code minings after a change of the document.
+ *
+ * @since 3.15
+ */
+public class CodeMiningIncrementalUpdateTest {
+
+	private static final int LINES= 30;
+
+	private static final int STEP= 10;
+
+	/**
+	 * Provides a code mining every {@link #STEP} lines of the requested region.
+	 */
+	private static class Provider extends AbstractCodeMiningProvider implements ICodeMiningProviderExtension {
+
+		final List<IRegion> fRegions= Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IProgressMonitor monitor) {
+			return provideCodeMinings(viewer, null, monitor);
+		}
+
+		@Override
+		public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IRegion region, IProgressMonitor monitor) {
+			fRegions.add(region);
+			IDocument document= viewer.getDocument();
+			List<ICodeMining> minings= new ArrayList<>();
+			try {
+				int firstLine= region != null ? document.getLineOfOffset(region.getOffset()) : 0;
+				int lastLine= region != null ? document.getLineOfOffset(region.getOffset() + region.getLength()) : document.getNumberOfLines() - 1;
+				for (int line= (firstLine + STEP - 1) / STEP * STEP; line <= lastLine; line+= STEP) {
+					LineHeaderCodeMining mining= new LineHeaderCodeMining(line, document, this) {
+						// a line header code mining of the test
+					};
+					mining.setLabel("mining");
+					minings.add(mining);
+				}
+			} catch (BadLocationException e) {
+				// no more lines
+			}
+			return CompletableFuture.completedFuture(minings);
+		}
+	}
+
+	private Shell fShell;
+	private SourceViewer fViewer;
+	private Provider fProvider;
+
+	@Before
+	public void setUp() {
+		fShell= new Shell();
+		fShell.setLayout(new FillLayout());
+		fShell.setSize(500, 800);
+		fViewer= new SourceViewer(fShell, null, SWT.V_SCROLL);
+		StringBuilder content= new StringBuilder();
+		for (int i= 0; i < LINES; i++) {
+			content.append("line ").append(i).append('\n');
+		}
+		fViewer.setDocument(new Document(content.toString()), new AnnotationModel());
+		AnnotationPainter painter= new AnnotationPainter(fViewer, new IAnnotationAccess() {
+
+			@Override
+			public Object getType(Annotation annotation) {
+				return annotation.getType();
+			}
+
+			@Override
+			public boolean isMultiLine(Annotation annotation) {
+				return true;
+			}
+
+			@Override
+			public boolean isTemporary(Annotation annotation) {
+				return true;
+			}
+		});
+		fViewer.addPainter(painter);
+		fViewer.setCodeMiningAnnotationPainter(painter);
+		fShell.open();
+		fProvider= new Provider();
+		fViewer.setCodeMiningProviders(new ICodeMiningProvider[] { fProvider });
+		waitFor(() -> fProvider.fRegions.size() == 1 && findAnnotation(20) != null);
+	}
+
+	@After
+	public void tearDown() {
+		fShell.dispose();
+	}
+
+	private void waitFor(BooleanSupplier condition) {
+		assertTrue(new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return condition.getAsBoolean();
+			}
+		}.waitForCondition(fShell.getDisplay(), 5000));
+	}
+
+	private ICodeMiningAnnotation findAnnotation(int line) {
+		IAnnotationModel model= fViewer.getAnnotationModel();
+		try {
+			int offset= fViewer.getDocument().getLineOffset(line);
+			for (Iterator<Annotation> iter= model.getAnnotationIterator(); iter.hasNext();) {
+				Annotation annotation= iter.next();
+				Position position= model.getPosition(annotation);
+				if (annotation instanceof ICodeMiningAnnotation && position != null && !position.isDeleted() && position.getOffset() == offset) {
+					return (ICodeMiningAnnotation) annotation;
+				}
+			}
+		} catch (BadLocationException e) {
+			// no annotation
+		}
+		return null;
+	}
+
+	private void updateAfter(int line, String text, int removedLines) throws BadLocationException {
+		IDocument document= fViewer.getDocument();
+		int offset= document.getLineOffset(line);
+		document.replace(offset, document.getLineOffset(line + removedLines) - offset, text);
+		fViewer.updateCodeMinings();
+		waitFor(() -> fProvider.fRegions.size() == 2);
+	}
+
+	private void assertMiningsAt(ICodeMiningAnnotation annotation, int line) throws BadLocationException {
+		assertNotNull(annotation);
+		int offset= fViewer.getDocument().getLineOffset(line);
+		for (ICodeMining mining : annotation.getMinings()) {
+			assertEquals(offset, mining.getPosition().getOffset());
+		}
+	}
+
+	@Test
+	public void testKeptMiningsMoveAfterInsert() throws Exception {
+		ICodeMiningAnnotation annotation= findAnnotation(20);
+		updateAfter(5, "inserted\ninserted\n", 0);
+
+		// only the changed lines are requested
+		IRegion region= fProvider.fRegions.get(1);
+		assertNotNull(region);
+		assertEquals(fViewer.getDocument().getLineOffset(5), region.getOffset());
+		assertSame(annotation, findAnnotation(22));
+		assertMiningsAt(annotation, 22);
+	}
+
+	@Test
+	public void testKeptMiningsMoveAfterDelete() throws Exception {
+		ICodeMiningAnnotation annotation= findAnnotation(20);
+		updateAfter(12, "", 3);
+
+		IRegion region= fProvider.fRegions.get(1);
+		assertNotNull(region);
+		assertEquals(fViewer.getDocument().getLineOffset(12), region.getOffset());
+		assertSame(annotation, findAnnotation(17));
+		assertMiningsAt(annotation, 17);
+		// the code minings before the change are unchanged
+		assertMiningsAt(findAnnotation(10), 10);
+	}
+
+	@Test
+	public void testRefreshUpdatesAllLines() throws Exception {
+		ICodeMiningAnnotation annotation= findAnnotation(20);
+		IDocument document= fViewer.getDocument();
+		document.replace(document.getLineOffset(5), 0, "inserted\n");
+		fViewer.refreshCodeMinings();
+		waitFor(() -> fProvider.fRegions.size() == 2);
+
+		// the code minings of all lines are requested although only one line changed
+		IRegion region= fProvider.fRegions.get(1);
+		assertNotNull(region);
+		assertEquals(0, region.getOffset());
+		assertSame(annotation, findAnnotation(21));
+		assertMiningsAt(annotation, 21);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.codemining;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.internal.text.codemining.CodeMiningLineGroups;
+
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.codemining.ICodeMining;
+import org.eclipse.jface.text.codemining.ICodeMiningProvider;
+import org.eclipse.jface.text.codemining.LineContentCodeMining;
+
+public class CodeMiningLineGroupsTest {
+
+	private static class TestProvider implements ICodeMiningProvider {
+
+		@Override
+		public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IProgressMonitor monitor) {
+			return null;
+		}
+
+		@Override
+		public void dispose() {
+		}
+	}
+
+	private static class TestMining extends LineContentCodeMining {
+
+		TestMining(int offset, ICodeMiningProvider provider) {
+			super(new Position(offset, 1), provider);
+		}
+	}
+
+	private final List<ICodeMiningProvider> fProviders= Arrays.asList(new TestProvider(), new TestProvider(), new TestProvider());
+
+	@Test
+	public void testGroupsByOffsetAndProviderRank() {
+		TestMining m1= new TestMining(20, fProviders.get(2));
+		TestMining m2= new TestMining(10, fProviders.get(1));
+		TestMining m3= new TestMining(20, fProviders.get(0));
+		TestMining m4= new TestMining(10, fProviders.get(0));
+		TestMining m5= new TestMining(30, new TestProvider());
+		CodeMiningLineGroups groups= new CodeMiningLineGroups(Arrays.asList(m1, m2, m3, m4, m5), fProviders);
+
+		assertEquals(3, groups.size());
+		assertEquals(10, groups.getPosition(0).getOffset());
+		assertEquals(Arrays.asList(m4, m2), groups.getMinings(0));
+		assertEquals(20, groups.getPosition(1).getOffset());
+		assertEquals(Arrays.asList(m3, m1), groups.getMinings(1));
+		assertEquals(Arrays.asList(m5), groups.getMinings(2));
+	}
+
+	@Test
+	public void testKeepsOrderOfSameProvider() {
+		TestMining m1= new TestMining(5, fProviders.get(0));
+		TestMining m2= new TestMining(5, fProviders.get(0));
+		CodeMiningLineGroups groups= new CodeMiningLineGroups(Arrays.asList(m1, m2), fProviders);
+
+		assertEquals(1, groups.size());
+		assertSame(m1, groups.getMinings(0).get(0));
+		assertSame(m2, groups.getMinings(0).get(1));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, new CodeMiningLineGroups(Collections.emptyList(), fProviders).size());
+	}
+
+	@Test
+	public void testGroup10k() {
+		checkGroups(10000);
+	}
+
+	@Test
+	public void testGroup100k() {
+		checkGroups(100000);
+	}
+
+	private void checkGroups(int count) {
+		Random random= new Random(count);
+		List<ICodeMining> minings= new ArrayList<>(count);
+		for (int i= 0; i < count; i++) {
+			minings.add(new TestMining(random.nextInt(count / 2), fProviders.get(random.nextInt(fProviders.size()))));
+		}
+
+		long start= System.nanoTime();
+		CodeMiningLineGroups groups= new CodeMiningLineGroups(minings, fProviders);
+		long time= (System.nanoTime() - start) / 1000000;
+
+		int total= 0;
+		int lastOffset= -1;
+		for (int i= 0; i < groups.size(); i++) {
+			int offset= groups.getPosition(i).getOffset();
+			assertTrue(offset > lastOffset);
+			int lastRank= -1;
+			for (ICodeMining mining : groups.getMinings(i)) {
+				assertEquals(offset, mining.getPosition().getOffset());
+				int rank= fProviders.indexOf(mining.getProvider());
+				assertTrue(rank >= lastRank);
+				lastRank= rank;
+			}
+			total+= groups.getMinings(i).size();
+			lastOffset= offset;
+		}
+		assertEquals(count, total);
+		assertTrue("grouping " + count + " code minings took " + time + "ms", time < 5000);
+	}
+}
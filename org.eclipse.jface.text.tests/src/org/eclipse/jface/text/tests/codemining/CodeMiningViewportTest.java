@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.codemining;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.internal.text.codemining.ICodeMiningAnnotation;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.codemining.AbstractCodeMiningProvider;
+import org.eclipse.jface.text.codemining.ICodeMining;
+import org.eclipse.jface.text.codemining.ICodeMiningProvider;
+import org.eclipse.jface.text.codemining.ICodeMiningProviderExtension;
+import org.eclipse.jface.text.codemining.LineHeaderCodeMining;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+import org.eclipse.jface.text.source.AnnotationPainter;
+import org.eclipse.jface.text.source.IAnnotationAccess;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.SourceViewer;
+import org.eclipse.jface.text.tests.util.DisplayHelper;
+
+/**
+ * Tests the update of the code minings when the viewer is scrolled.
+ *
+ * @since 3.15
+ */
+public class CodeMiningViewportTest {
+
+	private static final int LINES= 300;
+
+	private static final int STEP= 10;
+
+	/**
+	 * Provides a code mining every {@link #STEP} lines of the whole document.
+	 */
+	private static class DocumentProvider extends AbstractCodeMiningProvider {
+
+		volatile int fCount;
+
+		@Override
+		public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IProgressMonitor monitor) {
+			fCount++;
+			return CompletableFuture.completedFuture(createMinings(viewer.getDocument(), 0, LINES - 1, this, "document"));
+		}
+	}
+
+	/**
+	 * Provides a code mining every {@link #STEP} lines of the requested region.
+	 */
+	private static class ViewportProvider extends AbstractCodeMiningProvider implements ICodeMiningProviderExtension {
+
+		final List<IRegion> fRegions= Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IProgressMonitor monitor) {
+			return provideCodeMinings(viewer, null, monitor);
+		}
+
+		@Override
+		public CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IRegion region, IProgressMonitor monitor) {
+			fRegions.add(region);
+			IDocument document= viewer.getDocument();
+			try {
+				int firstLine= region != null ? document.getLineOfOffset(region.getOffset()) : 0;
+				int lastLine= region != null ? document.getLineOfOffset(region.getOffset() + region.getLength()) : LINES - 1;
+				return CompletableFuture.completedFuture(createMinings(document, firstLine, lastLine, this, "viewport"));
+			} catch (BadLocationException e) {
+				return CompletableFuture.completedFuture(Collections.emptyList());
+			}
+		}
+	}
+
+	private static List<ICodeMining> createMinings(IDocument document, int firstLine, int lastLine, ICodeMiningProvider provider, String label) {
+		List<ICodeMining> minings= new ArrayList<>();
+		try {
+			for (int line= (firstLine + STEP - 1) / STEP * STEP; line <= lastLine; line+= STEP) {
+				LineHeaderCodeMining mining= new LineHeaderCodeMining(line, document, provider) {
+					// a line header code mining of the test
+				};
+				mining.setLabel(label);
+				minings.add(mining);
+			}
+		} catch (BadLocationException e) {
+			// no more lines
+		}
+		return minings;
+	}
+
+	private Shell fShell;
+	private SourceViewer fViewer;
+	private DocumentProvider fDocumentProvider;
+	private ViewportProvider fViewportProvider;
+
+	@Before
+	public void setUp() {
+		fShell= new Shell();
+		fShell.setLayout(new FillLayout());
+		fShell.setSize(500, 200);
+		fViewer= new SourceViewer(fShell, null, SWT.V_SCROLL);
+		StringBuilder content= new StringBuilder();
+		for (int i= 0; i < LINES; i++) {
+			content.append("line ").append(i).append('\n');
+		}
+		fViewer.setDocument(new Document(content.toString()), new AnnotationModel());
+		AnnotationPainter painter= new AnnotationPainter(fViewer, new IAnnotationAccess() {
+
+			@Override
+			public Object getType(Annotation annotation) {
+				return annotation.getType();
+			}
+
+			@Override
+			public boolean isMultiLine(Annotation annotation) {
+				return true;
+			}
+
+			@Override
+			public boolean isTemporary(Annotation annotation) {
+				return true;
+			}
+		});
+		fViewer.addPainter(painter);
+		fViewer.setCodeMiningAnnotationPainter(painter);
+		fShell.open();
+		fDocumentProvider= new DocumentProvider();
+		fViewportProvider= new ViewportProvider();
+		fViewer.setCodeMiningProviders(new ICodeMiningProvider[] { fDocumentProvider, fViewportProvider });
+		waitFor(() -> fViewportProvider.fRegions.size() == 1 && findAnnotation(0) != null);
+	}
+
+	@After
+	public void tearDown() {
+		fShell.dispose();
+	}
+
+	private void waitFor(BooleanSupplier condition) {
+		assertTrue(new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return condition.getAsBoolean();
+			}
+		}.waitForCondition(fShell.getDisplay(), 5000));
+	}
+
+	private ICodeMiningAnnotation findAnnotation(int line) {
+		IAnnotationModel model= fViewer.getAnnotationModel();
+		try {
+			int offset= fViewer.getDocument().getLineOffset(line);
+			for (Iterator<Annotation> iter= model.getAnnotationIterator(); iter.hasNext();) {
+				Annotation annotation= iter.next();
+				Position position= model.getPosition(annotation);
+				if (annotation instanceof ICodeMiningAnnotation && position != null && position.getOffset() == offset) {
+					return (ICodeMiningAnnotation) annotation;
+				}
+			}
+		} catch (BadLocationException e) {
+			// no annotation
+		}
+		return null;
+	}
+
+	private static List<String> getLabels(ICodeMiningAnnotation annotation) {
+		List<String> labels= new ArrayList<>();
+		for (ICodeMining mining : annotation.getMinings()) {
+			labels.add(mining.getLabel());
+		}
+		return labels;
+	}
+
+	@Test
+	public void testScrollRequestsOnlyViewportProviders() {
+		assertEquals(1, fDocumentProvider.fCount);
+		ICodeMiningAnnotation annotation= findAnnotation(250);
+		assertNotNull(annotation);
+		// the viewport provider was not asked for the lines out of view
+		assertEquals(Collections.singletonList("document"), getLabels(annotation));
+		ICodeMining documentMining= annotation.getMinings().get(0);
+
+		fViewer.setTopIndex(250);
+		waitFor(() -> fViewportProvider.fRegions.size() == 2 && findAnnotation(250) != null && getLabels(findAnnotation(250)).size() == 2);
+
+		assertEquals(1, fDocumentProvider.fCount);
+		IRegion region= fViewportProvider.fRegions.get(1);
+		assertNotNull(region);
+		assertTrue(region.getOffset() > 0);
+		// the code minings of the document provider are kept and sorted first
+		annotation= findAnnotation(250);
+		List<String> labels= getLabels(annotation);
+		assertEquals("document", labels.get(0));
+		assertEquals("viewport", labels.get(1));
+		assertSame(documentMining, annotation.getMinings().get(0));
+		// the code minings of the lines above are kept
+		assertNotNull(findAnnotation(0));
+	}
+
+	@Test
+	public void testScrollInRequestedRegion() {
+		fViewer.setTopIndex(2);
+		// process the viewport change
+		assertFalse(new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				return fViewportProvider.fRegions.size() > 1;
+			}
+		}.waitForCondition(fShell.getDisplay(), 500));
+		assertEquals(1, fDocumentProvider.fCount);
+	}
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.contentassist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.internal.text.AdditionalInfoTimer;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalExtension5;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+
+/**
+ * Tests the computation, cancellation and caching of additional proposal info by the
+ * {@link AdditionalInfoTimer}.
+ *
+ * @since 3.15
+ */
+public class AdditionalInfoTimerTest {
+
+	private static final int DELAY= 100;
+
+	private static class Proposal implements ICompletionProposal, ICompletionProposalExtension5 {
+
+		private final String fName;
+		volatile int fComputeCount;
+
+		Proposal(String name) {
+			fName= name;
+		}
+
+		@Override
+		public Object getAdditionalProposalInfo(IProgressMonitor monitor) {
+			fComputeCount++;
+			return "info of " + fName;
+		}
+
+		@Override
+		public void apply(IDocument document) {
+		}
+
+		@Override
+		public Point getSelection(IDocument document) {
+			return null;
+		}
+
+		@Override
+		public String getAdditionalProposalInfo() {
+			return null;
+		}
+
+		@Override
+		public String getDisplayString() {
+			return fName;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public IContextInformation getContextInformation() {
+			return null;
+		}
+	}
+
+	/**
+	 * Computes its info until the computation is canceled.
+	 */
+	private static class BlockingProposal extends Proposal {
+
+		volatile boolean fStarted;
+		volatile boolean fCanceled;
+
+		BlockingProposal(String name) {
+			super(name);
+		}
+
+		@Override
+		public Object getAdditionalProposalInfo(IProgressMonitor monitor) {
+			fStarted= true;
+			long start= System.currentTimeMillis();
+			while (!monitor.isCanceled() && System.currentTimeMillis() < start + 5000) {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+			fCanceled= monitor.isCanceled();
+			return super.getAdditionalProposalInfo(monitor);
+		}
+	}
+
+	private static class FailingProposal extends Proposal {
+
+		FailingProposal(String name) {
+			super(name);
+		}
+
+		@Override
+		public Object getAdditionalProposalInfo(IProgressMonitor monitor) {
+			super.getAdditionalProposalInfo(monitor);
+			throw new IllegalStateException();
+		}
+	}
+
+	private final List<ICompletionProposal> fShownProposals= new ArrayList<>();
+	private final List<Object> fShownInfos= new ArrayList<>();
+	private AdditionalInfoTimer fTimer;
+
+	@Before
+	public void setUp() {
+		fTimer= new AdditionalInfoTimer(null, DELAY, "test timer", "test job") {
+			@Override
+			protected void asyncExec(Runnable runnable) {
+				runnable.run();
+			}
+
+			@Override
+			protected void showInformation(ICompletionProposal proposal, Object info) {
+				synchronized (fShownProposals) {
+					fShownProposals.add(proposal);
+					fShownInfos.add(info);
+				}
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		fTimer.terminate();
+	}
+
+	private int getShownCount() {
+		synchronized (fShownProposals) {
+			return fShownProposals.size();
+		}
+	}
+
+	private void assertShown(int index, ICompletionProposal proposal) {
+		synchronized (fShownProposals) {
+			assertSame(proposal, fShownProposals.get(index));
+			assertEquals("info of " + proposal.getDisplayString(), fShownInfos.get(index));
+		}
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long start= System.currentTimeMillis();
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > start + 5000)
+				fail("waited > 5s for additional info");
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testCacheHit() throws Exception {
+		Proposal first= new Proposal("first");
+		Proposal second= new Proposal("second");
+
+		fTimer.reset(first);
+		waitFor(() -> getShownCount() == 1);
+		assertShown(0, first);
+		fTimer.reset(second);
+		waitFor(() -> getShownCount() == 2);
+		assertShown(1, second);
+
+		// the info of the first proposal is shown again without computing it
+		fTimer.reset(first);
+		waitFor(() -> getShownCount() == 3);
+		assertShown(2, first);
+		assertEquals(1, first.fComputeCount);
+		assertEquals(1, second.fComputeCount);
+	}
+
+	@Test
+	public void testCancelOnReselection() throws Exception {
+		BlockingProposal blocking= new BlockingProposal("blocking");
+		Proposal other= new Proposal("other");
+
+		fTimer.reset(blocking);
+		waitFor(() -> blocking.fStarted);
+		fTimer.reset(other);
+		waitFor(() -> blocking.fCanceled);
+		waitFor(() -> getShownCount() == 1);
+		assertShown(0, other);
+
+		// the info of a canceled computation is not cached
+		Thread.sleep(50);
+		assertSame(AdditionalInfoTimer.NO_INFO, fTimer.getCachedInfo(blocking));
+	}
+
+	@Test
+	public void testPrefetchContinuesAfterFailure() throws Exception {
+		Proposal selected= new Proposal("selected");
+		FailingProposal failing= new FailingProposal("failing");
+		Proposal next= new Proposal("next");
+
+		fTimer.reset(selected, new ICompletionProposal[] { failing, next });
+		waitFor(() -> fTimer.getCachedInfo(next) != AdditionalInfoTimer.NO_INFO);
+		assertEquals("info of next", fTimer.getCachedInfo(next));
+		assertEquals(1, failing.fComputeCount);
+		assertSame(AdditionalInfoTimer.NO_INFO, fTimer.getCachedInfo(failing));
+	}
+
+	@Test
+	public void testEviction() {
+		List<Proposal> proposals= new ArrayList<>();
+		for (int i= 0; i < AdditionalInfoTimer.CACHE_SIZE; i++) {
+			Proposal proposal= new Proposal(String.valueOf(i));
+			proposals.add(proposal);
+			fTimer.cacheInfo(proposal, "info " + i);
+		}
+
+		// using the first proposal makes the second one the least recently used
+		assertEquals("info 0", fTimer.getCachedInfo(proposals.get(0)));
+		fTimer.cacheInfo(new Proposal("new"), "new info");
+		assertEquals("info 0", fTimer.getCachedInfo(proposals.get(0)));
+		assertSame(AdditionalInfoTimer.NO_INFO, fTimer.getCachedInfo(proposals.get(1)));
+		for (int i= 2; i < AdditionalInfoTimer.CACHE_SIZE; i++)
+			assertNotSame(AdditionalInfoTimer.NO_INFO, fTimer.getCachedInfo(proposals.get(i)));
+
+		// caching the info of a cached proposal replaces its info
+		fTimer.cacheInfo(proposals.get(2), "changed");
+		assertEquals("changed", fTimer.getCachedInfo(proposals.get(2)));
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.contentassist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+
+import org.eclipse.jface.internal.text.CompletionProposalFilterIndex;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+
+public class CompletionProposalFilterIndexTest {
+
+	private static class TestProposal implements ICompletionProposal {
+
+		private final String fDisplayString;
+
+		TestProposal(String displayString) {
+			fDisplayString= displayString;
+		}
+
+		@Override
+		public void apply(IDocument document) {
+		}
+
+		@Override
+		public Point getSelection(IDocument document) {
+			return null;
+		}
+
+		@Override
+		public String getAdditionalProposalInfo() {
+			return null;
+		}
+
+		@Override
+		public String getDisplayString() {
+			return fDisplayString;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public IContextInformation getContextInformation() {
+			return null;
+		}
+	}
+
+	private static List<ICompletionProposal> createProposals(String... displayStrings) {
+		List<ICompletionProposal> proposals= new ArrayList<>();
+		for (String displayString : displayStrings)
+			proposals.add(new TestProposal(displayString));
+		return proposals;
+	}
+
+	private static List<String> toDisplayStrings(List<ICompletionProposal> proposals) {
+		List<String> displayStrings= new ArrayList<>();
+		for (ICompletionProposal proposal : proposals)
+			displayStrings.add(proposal.getDisplayString());
+		return displayStrings;
+	}
+
+	@Test
+	public void testCandidatesKeepOrder() {
+		CompletionProposalFilterIndex index= new CompletionProposalFilterIndex(createProposals("toString()", "hashCode()", "NullPointerException", "notify()", "equals(Object)"));
+		assertEquals(Arrays.asList("toString()", "NullPointerException", "notify()"), toDisplayStrings(index.getCandidates("ti")));
+		assertEquals(Arrays.asList("NullPointerException"), toDisplayStrings(index.getCandidates("NPE")));
+		assertEquals(Collections.emptyList(), toDisplayStrings(index.getCandidates("xyz")));
+	}
+
+	@Test
+	public void testRankedCandidates() {
+		CompletionProposalFilterIndex index= new CompletionProposalFilterIndex(createProposals("ignoreNullPointer()", "NullPointerException", "nullPointer", "NumberFormatException", "NPE"));
+		assertEquals(Arrays.asList("NPE", "NullPointerException", "nullPointer", "ignoreNullPointer()"), toDisplayStrings(index.getRankedCandidates("NPE")));
+		assertEquals(Arrays.asList("nullPointer", "NullPointerException", "ignoreNullPointer()"), toDisplayStrings(index.getRankedCandidates("nullp")));
+	}
+
+	@Test
+	public void testScore() {
+		assertTrue(CompletionProposalFilterIndex.score("Null", "NullPointerException") > CompletionProposalFilterIndex.score("null", "NullPointerException"));
+		assertTrue(CompletionProposalFilterIndex.score("null", "NullPointerException") > CompletionProposalFilterIndex.score("NuPoE", "NullPointerException"));
+		assertTrue(CompletionProposalFilterIndex.score("NuPoE", "NullPointerException") > CompletionProposalFilterIndex.score("llter", "NullPointerException"));
+		assertTrue(CompletionProposalFilterIndex.score("llter", "NullPointerException") > 0);
+		assertEquals(0, CompletionProposalFilterIndex.score("xNull", "NullPointerException"));
+		assertTrue(CompletionProposalFilterIndex.score("Null", "Null") > CompletionProposalFilterIndex.score("Null", "NullPointerException"));
+	}
+
+	@Test
+	public void testIncrementalNarrowing() {
+		CompletionProposalFilterIndex index= new CompletionProposalFilterIndex(createProposals("abc", "abd", "axc", "bcd"));
+		assertEquals(Arrays.asList("abc", "abd", "axc"), toDisplayStrings(index.getCandidates("a")));
+		assertEquals(Arrays.asList("abc", "abd"), toDisplayStrings(index.getCandidates("ab")));
+		assertEquals(Arrays.asList("abc"), toDisplayStrings(index.getCandidates("abc")));
+		// deleting characters restores the candidates of the shorter prefix
+		assertEquals(Arrays.asList("abc", "abd", "axc"), toDisplayStrings(index.getCandidates("a")));
+		assertEquals(Arrays.asList("abc", "axc"), toDisplayStrings(index.getCandidates("ac")));
+		assertEquals(Arrays.asList("abc", "bcd"), toDisplayStrings(index.getCandidates("bc")));
+	}
+
+	@Test
+	public void testProposalWithoutDisplayString() {
+		List<ICompletionProposal> proposals= createProposals("abc");
+		proposals.add(new TestProposal("xyz") {
+			@Override
+			public String getDisplayString() {
+				throw new IllegalStateException();
+			}
+		});
+		CompletionProposalFilterIndex index= new CompletionProposalFilterIndex(proposals);
+		assertEquals(1, index.getCandidates("x").size());
+		assertEquals(2, index.getCandidates("ab").size());
+		assertEquals(1, index.getRankedCandidates("abc").indexOf(proposals.get(1)));
+	}
+}
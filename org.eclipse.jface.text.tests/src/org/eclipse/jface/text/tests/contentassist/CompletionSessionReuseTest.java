@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.contentassist;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.TextViewer;
+import org.eclipse.jface.text.contentassist.ContentAssistant;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalExtension2;
+import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
+import org.eclipse.jface.text.contentassist.IContentAssistProcessorExtension;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+
+/**
+ * Tests the reuse of the proposals of a closed completion session.
+ *
+ * @since 3.15
+ */
+public class CompletionSessionReuseTest {
+
+	private static final String CONTENT= "foo ";
+
+	private static class Proposal implements ICompletionProposal, ICompletionProposalExtension2 {
+
+		private final String fString;
+		private final int fOffset;
+
+		Proposal(String string, int offset) {
+			fString= string;
+			fOffset= offset;
+		}
+
+		@Override
+		public void apply(IDocument document) {
+		}
+
+		@Override
+		public Point getSelection(IDocument document) {
+			return null;
+		}
+
+		@Override
+		public String getAdditionalProposalInfo() {
+			return null;
+		}
+
+		@Override
+		public String getDisplayString() {
+			return fString;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public IContextInformation getContextInformation() {
+			return null;
+		}
+
+		@Override
+		public void apply(ITextViewer viewer, char trigger, int stateMask, int offset) {
+		}
+
+		@Override
+		public void selected(ITextViewer viewer, boolean smartToggle) {
+		}
+
+		@Override
+		public void unselected(ITextViewer viewer) {
+		}
+
+		@Override
+		public boolean validate(IDocument document, int offset, DocumentEvent event) {
+			try {
+				return offset >= fOffset && fString.startsWith(document.get(fOffset, offset - fOffset));
+			} catch (BadLocationException e) {
+				return false;
+			}
+		}
+	}
+
+	private static class Processor implements IContentAssistProcessor, IContentAssistProcessorExtension {
+
+		int fCount;
+
+		@Override
+		public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
+			++fCount;
+			return new ICompletionProposal[] { new Proposal("alpha", offset), new Proposal("another", offset), new Proposal("beta", offset) };
+		}
+
+		@Override
+		public boolean isCompletionSessionReusable() {
+			return true;
+		}
+
+		@Override
+		public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
+			return null;
+		}
+
+		@Override
+		public char[] getCompletionProposalAutoActivationCharacters() {
+			return null;
+		}
+
+		@Override
+		public char[] getContextInformationAutoActivationCharacters() {
+			return null;
+		}
+
+		@Override
+		public String getErrorMessage() {
+			return null;
+		}
+
+		@Override
+		public IContextInformationValidator getContextInformationValidator() {
+			return null;
+		}
+	}
+
+	private static class Assistant extends ContentAssistant {
+
+		void close() {
+			hide();
+		}
+	}
+
+	private Shell fShell;
+	private TextViewer fViewer;
+	private Assistant fAssistant;
+	private Processor fProcessor;
+
+	@Before
+	public void setUp() {
+		fShell= new Shell();
+		fShell.setSize(400, 300);
+		fViewer= new TextViewer(fShell, SWT.NONE);
+		fViewer.getTextWidget().setSize(400, 300);
+		fViewer.setDocument(new Document(CONTENT));
+		fShell.open();
+		fAssistant= new Assistant();
+		fProcessor= new Processor();
+		fAssistant.setContentAssistProcessor(fProcessor, IDocument.DEFAULT_CONTENT_TYPE);
+		fAssistant.install(fViewer);
+		fViewer.setSelectedRange(CONTENT.length(), 0);
+	}
+
+	@After
+	public void tearDown() {
+		fAssistant.uninstall();
+		fShell.dispose();
+	}
+
+	private void invokeAndClose() {
+		fAssistant.showPossibleCompletions();
+		fAssistant.close();
+	}
+
+	@Test
+	public void testReuseAtSameOffset() {
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+	}
+
+	@Test
+	public void testReuseAtAdvancedOffset() throws Exception {
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+
+		fViewer.getDocument().replace(CONTENT.length(), 0, "a");
+		fViewer.setSelectedRange(CONTENT.length() + 1, 0);
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+
+		fViewer.getDocument().replace(CONTENT.length() + 1, 0, "n");
+		fViewer.setSelectedRange(CONTENT.length() + 2, 0);
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+	}
+
+	@Test
+	public void testEditBeforeOffsetInvalidates() throws Exception {
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+
+		fViewer.getDocument().replace(0, 0, "x");
+		fViewer.setSelectedRange(CONTENT.length() + 1, 0);
+		invokeAndClose();
+		assertEquals(2, fProcessor.fCount);
+	}
+
+	@Test
+	public void testNonIdentifierInvalidates() throws Exception {
+		invokeAndClose();
+		assertEquals(1, fProcessor.fCount);
+
+		fViewer.getDocument().replace(CONTENT.length(), 0, ".");
+		fViewer.setSelectedRange(CONTENT.length() + 1, 0);
+		invokeAndClose();
+		assertEquals(2, fProcessor.fCount);
+	}
+}
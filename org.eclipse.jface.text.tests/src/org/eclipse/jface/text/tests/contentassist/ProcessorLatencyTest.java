@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.contentassist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.TextViewer;
+import org.eclipse.jface.text.contentassist.CompletionProposal;
+import org.eclipse.jface.text.contentassist.ContentAssistant;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+import org.eclipse.jface.text.contentassist.ProcessorLatencyHistogram;
+import org.eclipse.jface.text.tests.util.DisplayHelper;
+
+/**
+ * Tests the latency histograms of asynchronous content assist.
+ *
+ * @since 3.15
+ */
+public class ProcessorLatencyTest {
+
+	private static final long DELAY= 200;
+
+	private static class Processor implements IContentAssistProcessor {
+
+		private final long fDelay;
+
+		Processor(long delay) {
+			fDelay= delay;
+		}
+
+		@Override
+		public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
+			try {
+				Thread.sleep(fDelay);
+			} catch (InterruptedException e) {
+				// return early
+			}
+			return new ICompletionProposal[] { new CompletionProposal("proposal", offset, 0, 8) };
+		}
+
+		@Override
+		public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
+			return null;
+		}
+
+		@Override
+		public char[] getCompletionProposalAutoActivationCharacters() {
+			return null;
+		}
+
+		@Override
+		public char[] getContextInformationAutoActivationCharacters() {
+			return null;
+		}
+
+		@Override
+		public String getErrorMessage() {
+			return null;
+		}
+
+		@Override
+		public IContextInformationValidator getContextInformationValidator() {
+			return null;
+		}
+	}
+
+	private Shell fShell;
+	private ContentAssistant fAssistant;
+
+	@Before
+	public void setUp() {
+		fShell= new Shell();
+		fShell.setSize(400, 300);
+		TextViewer viewer= new TextViewer(fShell, SWT.NONE);
+		viewer.getTextWidget().setSize(400, 300);
+		viewer.setDocument(new Document("abc"));
+		fShell.open();
+		fAssistant= new ContentAssistant(true);
+		fAssistant.install(viewer);
+	}
+
+	@After
+	public void tearDown() {
+		if (fAssistant != null)
+			fAssistant.uninstall();
+		fShell.dispose();
+	}
+
+	private ProcessorLatencyHistogram computeProposals(IContentAssistProcessor processor) {
+		fAssistant.showPossibleCompletions();
+		new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				ProcessorLatencyHistogram histogram= fAssistant.getProcessorLatencyHistogram(processor);
+				return histogram != null && histogram.getCount() > 0;
+			}
+		}.waitForCondition(fShell.getDisplay(), 5000);
+		return fAssistant.getProcessorLatencyHistogram(processor);
+	}
+
+	@Test
+	public void testLatencyIsRecorded() {
+		Processor processor= new Processor(DELAY);
+		fAssistant.setContentAssistProcessor(processor, IDocument.DEFAULT_CONTENT_TYPE);
+
+		ProcessorLatencyHistogram histogram= computeProposals(processor);
+		assertNotNull(histogram);
+		assertEquals(1, histogram.getCount());
+		assertTrue(histogram.getMaxLatency() >= DELAY);
+		assertEquals(1, histogram.getOverBudgetCount());
+	}
+
+	@Test
+	public void testLatencyExcludesQueueWait() {
+		Processor fast= new Processor(0);
+		int count= 4 * Runtime.getRuntime().availableProcessors();
+		// occupy the pool, so that the fast processor waits for a worker
+		for (int i= 0; i < count; i++)
+			fAssistant.addContentAssistProcessor(new Processor(DELAY), IDocument.DEFAULT_CONTENT_TYPE);
+		fAssistant.addContentAssistProcessor(fast, IDocument.DEFAULT_CONTENT_TYPE);
+
+		ProcessorLatencyHistogram histogram= computeProposals(fast);
+		assertNotNull(histogram);
+		assertTrue(histogram.getMaxLatency() < DELAY);
+	}
+
+	@Test
+	public void testHistogramIsDiscardedWithProcessor() {
+		Processor processor= new Processor(0);
+		fAssistant.setContentAssistProcessor(processor, IDocument.DEFAULT_CONTENT_TYPE);
+		assertNotNull(computeProposals(processor));
+
+		fAssistant.setContentAssistProcessor(new Processor(0), IDocument.DEFAULT_CONTENT_TYPE);
+		assertNull(fAssistant.getProcessorLatencyHistogram(processor));
+	}
+
+	@Test
+	public void testHistogramsAreDiscardedOnUninstall() {
+		Processor processor= new Processor(0);
+		fAssistant.setContentAssistProcessor(processor, IDocument.DEFAULT_CONTENT_TYPE);
+		assertNotNull(computeProposals(processor));
+
+		ContentAssistant assistant= fAssistant;
+		fAssistant= null;
+		assistant.uninstall();
+		assertNull(assistant.getProcessorLatencyHistogram(processor));
+	}
+}
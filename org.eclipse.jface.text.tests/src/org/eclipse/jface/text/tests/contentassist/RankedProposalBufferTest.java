@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.contentassist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+
+import org.eclipse.jface.internal.text.RankedProposalBuffer;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalSorter;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+
+public class RankedProposalBufferTest {
+
+	private static class TestProposal implements ICompletionProposal {
+
+		private final String fDisplayString;
+		private final int fRank;
+
+		TestProposal(String displayString, int rank) {
+			fDisplayString= displayString;
+			fRank= rank;
+		}
+
+		@Override
+		public void apply(IDocument document) {
+		}
+
+		@Override
+		public Point getSelection(IDocument document) {
+			return null;
+		}
+
+		@Override
+		public String getAdditionalProposalInfo() {
+			return null;
+		}
+
+		@Override
+		public String getDisplayString() {
+			return fDisplayString;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public IContextInformation getContextInformation() {
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return fDisplayString;
+		}
+	}
+
+	/** Sorts by rank only, proposals of the same rank are equal. */
+	private static final ICompletionProposalSorter SORTER= (p1, p2) -> Integer.compare(((TestProposal) p1).fRank, ((TestProposal) p2).fRank);
+
+	private static List<ICompletionProposal> createProposals(String prefix, int... ranks) {
+		List<ICompletionProposal> proposals= new ArrayList<>();
+		for (int i= 0; i < ranks.length; i++)
+			proposals.add(new TestProposal(prefix + i, ranks[i]));
+		return proposals;
+	}
+
+	private static List<String> getDisplayStrings(List<ICompletionProposal> proposals) {
+		List<String> strings= new ArrayList<>();
+		for (ICompletionProposal proposal : proposals)
+			strings.add(proposal.getDisplayString());
+		return strings;
+	}
+
+	@Test
+	public void testWithoutSorterKeepsArrivalOrder() {
+		RankedProposalBuffer buffer= new RankedProposalBuffer(null, 2);
+		buffer.addAll(createProposals("a", 3, 1));
+		buffer.addAll(createProposals("b", 2, 0));
+
+		assertEquals(Arrays.asList("a0", "a1", "b0", "b1"), getDisplayStrings(buffer.getProposals()));
+		assertEquals(Arrays.asList("a0", "a1", "b0", "b1"), getDisplayStrings(buffer.sortAll()));
+	}
+
+	@Test
+	public void testTopProposalsAreSortedFirst() {
+		RankedProposalBuffer buffer= new RankedProposalBuffer(SORTER, 2);
+		buffer.addAll(createProposals("a", 5, 3, 4, 1));
+
+		List<String> proposals= getDisplayStrings(buffer.getProposals());
+		assertEquals(4, proposals.size());
+		// the two best in order, the others in arrival order
+		assertEquals(Arrays.asList("a3", "a1", "a0", "a2"), proposals);
+		assertEquals(Arrays.asList("a3", "a1", "a2", "a0"), getDisplayStrings(buffer.sortAll()));
+	}
+
+	@Test
+	public void testLateProposalsMergeIntoTop() {
+		RankedProposalBuffer buffer= new RankedProposalBuffer(SORTER, 3);
+		buffer.addAll(createProposals("a", 10, 20, 30, 40));
+		assertEquals(Arrays.asList("a0", "a1", "a2", "a3"), getDisplayStrings(buffer.getProposals()));
+
+		// a late processor delivers better proposals
+		buffer.addAll(createProposals("b", 25, 5));
+		assertEquals(6, buffer.size());
+		List<String> proposals= getDisplayStrings(buffer.getProposals());
+		assertEquals(Arrays.asList("b1", "a0", "a1"), proposals.subList(0, 3));
+		assertEquals(Arrays.asList("b1", "a0", "a1", "b0", "a2", "a3"), getDisplayStrings(buffer.sortAll()));
+	}
+
+	@Test
+	public void testOrderOfEqualProposalsIsStable() {
+		RankedProposalBuffer buffer= new RankedProposalBuffer(SORTER, 10);
+		buffer.addAll(createProposals("a", 1, 2, 1));
+		buffer.addAll(createProposals("b", 1, 2));
+
+		List<String> expected= Arrays.asList("a0", "a2", "b0", "a1", "b1");
+		assertEquals(expected, getDisplayStrings(buffer.getProposals()));
+		// repeated queries do not reorder
+		assertEquals(expected, getDisplayStrings(buffer.getProposals()));
+		assertEquals(expected, getDisplayStrings(buffer.sortAll()));
+	}
+
+	@Test
+	public void testIndexOfFirstChange() {
+		List<ICompletionProposal> oldProposals= createProposals("a", 1, 2, 3);
+		List<ICompletionProposal> newProposals= new ArrayList<>(oldProposals);
+		assertEquals(3, RankedProposalBuffer.indexOfFirstChange(oldProposals, newProposals));
+
+		newProposals.addAll(createProposals("b", 4));
+		assertEquals(3, RankedProposalBuffer.indexOfFirstChange(oldProposals, newProposals));
+
+		newProposals.add(1, new TestProposal("c", 0));
+		assertEquals(1, RankedProposalBuffer.indexOfFirstChange(oldProposals, newProposals));
+		assertSame(oldProposals.get(0), newProposals.get(0));
+
+		assertEquals(0, RankedProposalBuffer.indexOfFirstChange(oldProposals, new ArrayList<>()));
+	}
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.presentation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.custom.StyleRange;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.jface.text.presentation.IPresentationRepairer;
+import org.eclipse.jface.text.presentation.PresentationReconciler;
+import org.eclipse.jface.text.rules.DefaultDamagerRepairer;
+import org.eclipse.jface.text.rules.RuleBasedScanner;
+import org.eclipse.jface.text.tests.TestTextViewer;
+
+/**
+ * Tests the lazy repair of large damage by {@link PresentationReconciler}.
+ *
+ * @since 3.15
+ */
+public class PresentationReconcilerLazyRepairTest {
+
+	private static final int LINE_COUNT= 1000;
+	private static final int VISIBLE_LINES= 10;
+
+	/**
+	 * A viewer showing a fixed range of lines.
+	 */
+	private static class ScrollableTextViewer extends TestTextViewer {
+
+		final List<IViewportListener> fViewportListeners= new ArrayList<>();
+		int fTopLine;
+
+		@Override
+		public int getTopIndex() {
+			return fTopLine;
+		}
+
+		@Override
+		public int getBottomIndex() {
+			return fTopLine + VISIBLE_LINES - 1;
+		}
+
+		@Override
+		public int getTopIndexStartOffset() {
+			try {
+				return fDocument.getLineOffset(getTopIndex());
+			} catch (BadLocationException e) {
+				return 0;
+			}
+		}
+
+		@Override
+		public int getBottomIndexEndOffset() {
+			try {
+				IRegion line= fDocument.getLineInformation(getBottomIndex());
+				return line.getOffset() + line.getLength() - 1;
+			} catch (BadLocationException e) {
+				return fDocument.getLength();
+			}
+		}
+
+		@Override
+		public void addViewportListener(IViewportListener listener) {
+			fViewportListeners.add(listener);
+		}
+
+		@Override
+		public void removeViewportListener(IViewportListener listener) {
+			fViewportListeners.remove(listener);
+		}
+
+		void scrollTo(int line) {
+			fTopLine= line;
+			for (IViewportListener listener : new ArrayList<>(fViewportListeners))
+				listener.viewportChanged(line);
+		}
+	}
+
+	/**
+	 * A repairer recording the repaired regions.
+	 */
+	private static class RecordingRepairer implements IPresentationRepairer {
+
+		final List<IRegion> fRepaired= new ArrayList<>();
+
+		@Override
+		public void setDocument(IDocument document) {
+		}
+
+		@Override
+		public void createPresentation(TextPresentation presentation, ITypedRegion damage) {
+			fRepaired.add(damage);
+			presentation.addStyleRange(new StyleRange(damage.getOffset(), damage.getLength(), null, null));
+		}
+
+		int repairedLength() {
+			int length= 0;
+			for (IRegion region : fRepaired)
+				length+= region.getLength();
+			return length;
+		}
+
+		boolean isRepaired(int offset) {
+			for (IRegion region : fRepaired) {
+				if (region.getOffset() <= offset && offset < region.getOffset() + region.getLength())
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private ScrollableTextViewer fViewer;
+	private PresentationReconciler fReconciler;
+	private RecordingRepairer fRepairer;
+	private IDocument fDocument;
+
+	@Before
+	public void setUp() {
+		fViewer= new ScrollableTextViewer();
+		fReconciler= new PresentationReconciler();
+		fRepairer= new RecordingRepairer();
+		fReconciler.setDamager(new DefaultDamagerRepairer(new RuleBasedScanner()), IDocument.DEFAULT_CONTENT_TYPE);
+		fReconciler.setRepairer(fRepairer, IDocument.DEFAULT_CONTENT_TYPE);
+		fReconciler.setLazyRepairThreshold(500);
+		fReconciler.install(fViewer);
+
+		StringBuilder content= new StringBuilder();
+		for (int i= 0; i < LINE_COUNT; i++)
+			content.append("line ").append(i).append('\n');
+		fDocument= new Document(content.toString());
+	}
+
+	@After
+	public void tearDown() {
+		fReconciler.uninstall();
+	}
+
+	@Test
+	public void testOnlyVisibleDamageIsRepaired() throws Exception {
+		fViewer.setDocument(fDocument);
+
+		assertTrue(fRepairer.isRepaired(fDocument.getLineOffset(0)));
+		assertTrue(fRepairer.isRepaired(fDocument.getLineOffset(VISIBLE_LINES - 1)));
+		assertTrue(!fRepairer.isRepaired(fDocument.getLineOffset(500)));
+		assertTrue(fRepairer.repairedLength() < fDocument.getLength() / 10);
+	}
+
+	@Test
+	public void testPendingDamageIsRepairedWhenScrolledIntoView() throws Exception {
+		fViewer.setDocument(fDocument);
+		int repaired= fRepairer.fRepaired.size();
+
+		fViewer.scrollTo(500);
+		assertTrue(fRepairer.fRepaired.size() > repaired);
+		assertTrue(fRepairer.isRepaired(fDocument.getLineOffset(500)));
+		assertTrue(fRepairer.isRepaired(fDocument.getLineOffset(500 + VISIBLE_LINES - 1)));
+		assertTrue(!fRepairer.isRepaired(fDocument.getLineOffset(800)));
+
+		repaired= fRepairer.fRepaired.size();
+		fViewer.scrollTo(500);
+		assertEquals(repaired, fRepairer.fRepaired.size());
+	}
+
+	@Test
+	public void testPendingDamageFollowsDocumentChanges() throws Exception {
+		fViewer.setDocument(fDocument);
+
+		fDocument.replace(0, 0, "inserted\n");
+		fRepairer.fRepaired.clear();
+		fViewer.scrollTo(501);
+		assertTrue(fRepairer.isRepaired(fDocument.getLineOffset(501)));
+		assertTrue(fRepairer.isRepaired(fDocument.getLineOffset(501 + VISIBLE_LINES - 1)));
+	}
+
+	@Test
+	public void testPendingDamageIsDroppedOnInputChange() throws Exception {
+		fViewer.setDocument(fDocument);
+
+		IDocument other= new Document("other\n");
+		fViewer.setDocument(other);
+		fRepairer.fRepaired.clear();
+		fViewer.scrollTo(0);
+		assertTrue(fRepairer.fRepaired.isEmpty());
+	}
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.reconciler;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.eclipse.jface.text.reconciler.AbstractReconciler;
+import org.eclipse.jface.text.reconciler.ReconcilerScheduler;
+
+
+/**
+ * Runs the reconciler tests with a reconciler running on the shared executor.
+ *
+ * @since 3.15
+ */
+public class AbstractReconcilerExecutorTest extends AbstractReconcilerTest {
+
+	@Override
+	protected void configureReconciler(AbstractReconciler reconciler) {
+		reconciler.setExecutor(AbstractReconciler.getSharedExecutor());
+	}
+
+	@Test
+	public void testSchedulerMetrics() throws InterruptedException {
+		ReconcilerScheduler scheduler= ReconcilerScheduler.getDefault();
+		long completed= scheduler.getCompletedCount();
+
+		installDocument();
+
+		// the task may still be finishing after the reconciler became clean
+		long start= System.currentTimeMillis();
+		while (scheduler.getCompletedCount() == completed && System.currentTimeMillis() < start + 5000)
+			Thread.sleep(10);
+
+		assertTrue(scheduler.getCompletedCount() > completed);
+		assertTrue(scheduler.getMaxWaitTime() >= scheduler.getAverageWaitTime());
+		assertTrue(scheduler.getRunningCount() <= scheduler.getMaxRunning());
+	}
+}
@@ -182,6 +182,7 @@ public class AbstractReconcilerTest {
 		
 		fProgressMonitor= new NullProgressMonitor();
 		fReconciler.setProgressMonitor(fProgressMonitor);
+		configureReconciler(fReconciler);
 
 		fViewer= new TestTextViewer();
 		fReconciler.install(fViewer);
@@ -191,6 +192,14 @@ public class AbstractReconcilerTest {
 		fAccessor= new Accessor(object, object.getClass());
 	}
 
+	/**
+	 * Hook to configure the reconciler before it is installed.
+	 *
+	 * @param reconciler the reconciler to configure
+	 */
+	protected void configureReconciler(AbstractReconciler reconciler) {
+	}
+
 	@After
 	public void tearDown() throws Exception {
 		fBarrier.shutdown();
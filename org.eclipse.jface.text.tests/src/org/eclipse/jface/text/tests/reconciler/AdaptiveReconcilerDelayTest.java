@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.reconciler;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.reconciler.DirtyRegion;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
+import org.eclipse.jface.text.reconciler.MonoReconciler;
+import org.eclipse.jface.text.tests.TestTextViewer;
+
+
+/**
+ * Tests the adaptive delay of the reconciler.
+ *
+ * @since 3.15
+ */
+public class AdaptiveReconcilerDelayTest {
+
+	private static class Strategy implements IReconcilingStrategy {
+
+		private final long fCost;
+		final AtomicInteger fFullCount= new AtomicInteger();
+		final AtomicInteger fRegionCount= new AtomicInteger();
+
+		Strategy(long cost) {
+			fCost= cost;
+		}
+
+		@Override
+		public void setDocument(IDocument document) {
+		}
+
+		@Override
+		public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
+			work();
+			fRegionCount.incrementAndGet();
+		}
+
+		@Override
+		public void reconcile(IRegion partition) {
+			work();
+			fFullCount.incrementAndGet();
+		}
+
+		private void work() {
+			try {
+				Thread.sleep(fCost);
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+	}
+
+	private static class Reconciler extends MonoReconciler {
+
+		Reconciler(IReconcilingStrategy strategy, boolean isIncremental) {
+			super(strategy, isIncremental);
+		}
+
+		@Override
+		public int getCurrentDelay() {
+			return super.getCurrentDelay();
+		}
+	}
+
+	private Reconciler fReconciler;
+	private Document fDocument;
+
+	@After
+	public void tearDown() {
+		if (fReconciler != null)
+			fReconciler.uninstall();
+	}
+
+	private Strategy install(long cost, boolean isIncremental, int minDelay, int maxDelay) {
+		Strategy strategy= new Strategy(cost);
+		fReconciler= new Reconciler(strategy, isIncremental);
+		fReconciler.setAdaptiveDelay(minDelay, maxDelay);
+		TestTextViewer viewer= new TestTextViewer();
+		fReconciler.install(viewer);
+		fDocument= new Document(new String(new char[100]).replace('\0', ' '));
+		viewer.setDocument(fDocument);
+		return strategy;
+	}
+
+	private static void waitFor(AtomicInteger counter, int count) throws InterruptedException {
+		long start= System.currentTimeMillis();
+		while (counter.get() < count) {
+			if (System.currentTimeMillis() > start + 5000)
+				fail("waited > 5s for reconciler");
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testExpensiveStrategyIncreasesDelay() throws Exception {
+		Strategy strategy= install(100, false, 10, 2000);
+		fDocument.replace(0, 0, "x");
+		waitFor(strategy.fFullCount, 1);
+		Thread.sleep(50);
+
+		assertTrue(fReconciler.getCurrentDelay() >= 150);
+	}
+
+	@Test
+	public void testCheapStrategyKeepsShortDelay() throws Exception {
+		Strategy strategy= install(0, false, 10, 2000);
+		fDocument.replace(0, 0, "x");
+		waitFor(strategy.fFullCount, 1);
+		Thread.sleep(50);
+
+		assertTrue(fReconciler.getCurrentDelay() < 100);
+	}
+
+	@Test
+	public void testManyDirtyRegionsProcessedAtOnce() throws Exception {
+		Strategy strategy= install(0, true, 300, 2000);
+		// scattered edits which cannot be merged
+		for (int i= 0; i < 40; i++)
+			fDocument.replace(2 * i, 0, "x");
+		waitFor(strategy.fFullCount, 1);
+
+		assertTrue(strategy.fRegionCount.get() < 40);
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.reconciler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.reconciler.DirtyRegion;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension2;
+import org.eclipse.jface.text.reconciler.MonoReconciler;
+import org.eclipse.jface.text.tests.TestTextViewer;
+
+
+/**
+ * Tests the merging of dirty regions by incremental reconcilers.
+ *
+ * @since 3.15
+ */
+public class DirtyRegionMergingTest {
+
+	private static class Strategy implements IReconcilingStrategy {
+
+		final List<String> fLog= Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public void setDocument(IDocument document) {
+		}
+
+		@Override
+		public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
+			fLog.add(toString(dirtyRegion));
+		}
+
+		@Override
+		public void reconcile(IRegion partition) {
+			fLog.add("full");
+		}
+
+		static String toString(DirtyRegion region) {
+			String type= region.getType() == DirtyRegion.INSERT ? "insert" : "remove";
+			return type + " " + region.getOffset() + " " + region.getLength() + (region.getText() != null ? " " + region.getText() : "");
+		}
+	}
+
+	private static class BatchStrategy extends Strategy implements IReconcilingStrategyExtension2 {
+
+		@Override
+		public void reconcile(DirtyRegion[] dirtyRegions) {
+			List<String> batch= new ArrayList<>();
+			for (DirtyRegion region : dirtyRegions)
+				batch.add(toString(region));
+			fLog.add(batch.toString());
+		}
+	}
+
+	/**
+	 * Checks that the text of the insert regions matches the document.
+	 */
+	private static class CheckingStrategy extends BatchStrategy {
+
+		private IDocument fDocument;
+		final List<String> fErrors= Collections.synchronizedList(new ArrayList<String>());
+
+		@Override
+		public void setDocument(IDocument document) {
+			fDocument= document;
+		}
+
+		@Override
+		public void reconcile(DirtyRegion[] dirtyRegions) {
+			for (DirtyRegion region : dirtyRegions)
+				check(region);
+			super.reconcile(dirtyRegions);
+		}
+
+		@Override
+		public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
+			check(dirtyRegion);
+			super.reconcile(dirtyRegion, subRegion);
+		}
+
+		private void check(DirtyRegion region) {
+			if (region.getType() != DirtyRegion.INSERT)
+				return;
+			try {
+				String text= fDocument.get(region.getOffset(), region.getLength());
+				if (!text.equals(region.getText()))
+					fErrors.add(toString(region) + " != " + text);
+			} catch (BadLocationException e) {
+				fErrors.add(toString(region) + ": " + e);
+			}
+		}
+	}
+
+	private MonoReconciler fReconciler;
+	private Document fDocument;
+
+	@After
+	public void tearDown() {
+		if (fReconciler != null)
+			fReconciler.uninstall();
+	}
+
+	private void install(Strategy strategy) {
+		fReconciler= new MonoReconciler(strategy, true);
+		fReconciler.setDelay(200);
+		TestTextViewer viewer= new TestTextViewer();
+		fReconciler.install(viewer);
+		fDocument= new Document("0123456789");
+		viewer.setDocument(fDocument);
+	}
+
+	private static void assertLog(Strategy strategy, String... expected) throws InterruptedException {
+		long start= System.currentTimeMillis();
+		while (strategy.fLog.size() < expected.length) {
+			if (System.currentTimeMillis() > start + 5000)
+				fail("waited > 5s for reconciler, log: " + strategy.fLog);
+			Thread.sleep(10);
+		}
+		Thread.sleep(300);
+		assertEquals(Arrays.asList(expected), strategy.fLog);
+	}
+
+	@Test
+	public void testInsertsAtSameOffset() throws Exception {
+		Strategy strategy= new Strategy();
+		install(strategy);
+		for (int i= 0; i < 10; i++)
+			fDocument.replace(2, 0, "x");
+
+		assertLog(strategy, "insert 2 10 xxxxxxxxxx");
+	}
+
+	@Test
+	public void testRemoveInsertedText() throws Exception {
+		Strategy strategy= new Strategy();
+		install(strategy);
+		fDocument.replace(2, 0, "abc");
+		fDocument.replace(3, 1, "");
+		fDocument.replace(6, 0, "x");
+		fDocument.replace(6, 1, "");
+
+		assertLog(strategy, "insert 2 2 ac");
+	}
+
+	@Test
+	public void testReplace() throws Exception {
+		Strategy strategy= new Strategy();
+		install(strategy);
+		fDocument.replace(2, 3, "ab");
+		fDocument.replace(4, 1, "c");
+
+		assertLog(strategy, "remove 2 4", "insert 2 3 abc");
+	}
+
+	@Test
+	public void testScatteredEdits() throws Exception {
+		Strategy strategy= new Strategy();
+		install(strategy);
+		fDocument.replace(8, 0, "y");
+		fDocument.replace(1, 0, "x");
+		fDocument.replace(5, 1, "");
+
+		assertLog(strategy, "insert 1 1 x", "remove 5 1", "insert 8 1 y");
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		BatchStrategy strategy= new BatchStrategy();
+		install(strategy);
+		fDocument.replace(8, 0, "y");
+		fDocument.replace(1, 0, "x");
+		fDocument.replace(5, 1, "");
+
+		assertLog(strategy, "[insert 1 1 x, remove 5 1, insert 8 1 y]");
+	}
+
+	@Test
+	public void testRandomEdits() throws Exception {
+		CheckingStrategy strategy= new CheckingStrategy();
+		install(strategy);
+		Random random= new Random(1234);
+		for (int i= 0; i < 200; i++) {
+			int offset= random.nextInt(fDocument.getLength() + 1);
+			int length= Math.min(random.nextInt(4), fDocument.getLength() - offset);
+			String text= random.nextInt(3) == 0 ? "" : "abc".substring(random.nextInt(3));
+			fDocument.replace(offset, length, text);
+		}
+
+		long start= System.currentTimeMillis();
+		while (strategy.fLog.isEmpty() && System.currentTimeMillis() < start + 5000)
+			Thread.sleep(10);
+		Thread.sleep(300);
+		assertEquals(1, strategy.fLog.size());
+		assertEquals(Collections.emptyList(), strategy.fErrors);
+	}
+}
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.reconciler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.reconciler.DirtyRegion;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
+import org.eclipse.jface.text.reconciler.MonoReconciler;
+import org.eclipse.jface.text.reconciler.ReconcilerScheduler;
+import org.eclipse.jface.text.tests.TestTextViewer;
+
+
+/**
+ * Tests the ranking of reconciler tasks by the {@link ReconcilerScheduler}.
+ *
+ * @since 3.15
+ */
+public class ReconcilerSchedulerTest {
+
+	private static class Strategy implements IReconcilingStrategy {
+
+		@Override
+		public void setDocument(IDocument document) {
+		}
+
+		@Override
+		public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
+		}
+
+		@Override
+		public void reconcile(IRegion partition) {
+		}
+	}
+
+	/**
+	 * A reconciler with a fixed scheduling priority.
+	 */
+	private static class Reconciler extends MonoReconciler {
+
+		private final int fPriority;
+
+		Reconciler(int priority) {
+			super(new Strategy(), false);
+			fPriority= priority;
+		}
+
+		@Override
+		protected int getSchedulingPriority() {
+			return fPriority;
+		}
+	}
+
+	/**
+	 * An executor holding the tasks until they are released, and recording in which order
+	 * the tasks of the reconcilers were handed to it.
+	 */
+	private class HoldingExecutor implements Executor {
+
+		private final String fName;
+
+		HoldingExecutor(String name) {
+			fName= name;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			synchronized (fDispatched) {
+				fDispatched.add(fName);
+				fHeld.add(command);
+			}
+		}
+	}
+
+	/**
+	 * An executor rejecting the first task and holding the later ones.
+	 */
+	private class RejectingExecutor extends HoldingExecutor {
+
+		private volatile boolean fRejected;
+
+		RejectingExecutor(String name) {
+			super(name);
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			if (!fRejected) {
+				fRejected= true;
+				throw new RejectedExecutionException();
+			}
+			super.execute(command);
+		}
+	}
+
+	private final List<String> fDispatched= new ArrayList<>();
+	private final List<Runnable> fHeld= new ArrayList<>();
+	private final List<Reconciler> fReconcilers= new ArrayList<>();
+	private ReconcilerScheduler fScheduler;
+	private long fAgingInterval;
+	private long fHiddenDeferral;
+
+	@Before
+	public void setUp() {
+		fScheduler= ReconcilerScheduler.getDefault();
+		fAgingInterval= fScheduler.getAgingInterval();
+		fHiddenDeferral= fScheduler.getHiddenDeferral();
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		for (Reconciler reconciler : fReconcilers)
+			reconciler.uninstall();
+		// free the slots of the shared scheduler, deferred tasks are dispatched late
+		fScheduler.setHiddenDeferral(0);
+		waitFor(() -> {
+			while (releaseOne()) {
+				// continue
+			}
+			if (!getQueuedPriorities().isEmpty())
+				return false;
+			synchronized (fDispatched) {
+				return fHeld.isEmpty();
+			}
+		});
+		fScheduler.setAgingInterval(fAgingInterval);
+		fScheduler.setHiddenDeferral(fHiddenDeferral);
+	}
+
+	private void install(String name, int priority) {
+		install(new HoldingExecutor(name), name, priority);
+	}
+
+	private TestTextViewer install(Executor executor, String name, int priority) {
+		Reconciler reconciler= new Reconciler(priority);
+		reconciler.setDelay(0);
+		reconciler.setExecutor(executor);
+		fReconcilers.add(reconciler);
+		TestTextViewer viewer= new TestTextViewer();
+		reconciler.install(viewer);
+		viewer.setDocument(new Document(name));
+		return viewer;
+	}
+
+	private boolean releaseOne() {
+		Runnable task;
+		synchronized (fDispatched) {
+			if (fHeld.isEmpty())
+				return false;
+			task= fHeld.remove(0);
+		}
+		task.run();
+		return true;
+	}
+
+	private List<String> getDispatched() {
+		synchronized (fDispatched) {
+			return new ArrayList<>(fDispatched);
+		}
+	}
+
+	/**
+	 * Occupies all slots of the scheduler with held tasks.
+	 *
+	 * @throws InterruptedException if interrupted
+	 */
+	private void block() throws InterruptedException {
+		int max= fScheduler.getMaxRunning();
+		for (int i= 0; i < max; i++)
+			install("blocker" + i, ReconcilerScheduler.FOCUSED);
+		waitFor(() -> getDispatched().size() == max);
+		synchronized (fDispatched) {
+			fDispatched.clear();
+		}
+	}
+
+	private List<Integer> getQueuedPriorities() {
+		List<Integer> priorities= new ArrayList<>();
+		for (ReconcilerScheduler.TaskInfo info : fScheduler.getQueue()) {
+			if (fReconcilers.contains(info.getReconciler()))
+				priorities.add(Integer.valueOf(info.getPriority()));
+		}
+		return priorities;
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long start= System.currentTimeMillis();
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > start + 5000)
+				fail("waited > 5s for scheduler");
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testPriorityOrdering() throws Exception {
+		fScheduler.setAgingInterval(60000);
+		block();
+
+		install("hidden", ReconcilerScheduler.HIDDEN);
+		install("visible", ReconcilerScheduler.VISIBLE);
+		install("focused", ReconcilerScheduler.FOCUSED);
+		waitFor(() -> getQueuedPriorities().size() == 3);
+
+		List<Integer> expected= new ArrayList<>();
+		expected.add(Integer.valueOf(ReconcilerScheduler.FOCUSED));
+		expected.add(Integer.valueOf(ReconcilerScheduler.VISIBLE));
+		expected.add(Integer.valueOf(ReconcilerScheduler.HIDDEN));
+		assertEquals(expected, getQueuedPriorities());
+
+		// each finished task frees one slot for the best ranked pending task
+		releaseOne();
+		waitFor(() -> getDispatched().size() == 1);
+		releaseOne();
+		waitFor(() -> getDispatched().size() == 2);
+		assertEquals("focused", getDispatched().get(0));
+		assertEquals("visible", getDispatched().get(1));
+	}
+
+	@Test
+	public void testAging() throws Exception {
+		fScheduler.setAgingInterval(50);
+		fScheduler.setHiddenDeferral(0);
+		block();
+
+		install("hidden", ReconcilerScheduler.HIDDEN);
+		waitFor(() -> getQueuedPriorities().size() == 1);
+		Thread.sleep(300);
+		install("focused", ReconcilerScheduler.FOCUSED);
+		waitFor(() -> getQueuedPriorities().size() == 2);
+
+		// the hidden task has waited longer than two aging intervals
+		assertEquals(Integer.valueOf(ReconcilerScheduler.HIDDEN), getQueuedPriorities().get(0));
+
+		releaseOne();
+		waitFor(() -> getDispatched().size() == 1);
+		assertEquals("hidden", getDispatched().get(0));
+	}
+
+	@Test
+	public void testHiddenDeferral() throws Exception {
+		fScheduler.setHiddenDeferral(500);
+		long start= System.currentTimeMillis();
+		install("hidden", ReconcilerScheduler.HIDDEN);
+		install("visible", ReconcilerScheduler.VISIBLE);
+
+		waitFor(() -> getDispatched().contains("visible"));
+		if (System.currentTimeMillis() - start < 400)
+			assertFalse(getDispatched().contains("hidden"));
+
+		waitFor(() -> getDispatched().contains("hidden"));
+		assertTrue(System.currentTimeMillis() - start >= 500);
+	}
+
+	@Test
+	public void testRejectedTask() throws Exception {
+		RejectingExecutor executor= new RejectingExecutor("rejecting");
+		TestTextViewer viewer= install(executor, "rejecting", ReconcilerScheduler.VISIBLE);
+		waitFor(() -> executor.fRejected);
+
+		// the next change schedules a task again
+		viewer.getDocument().replace(0, 0, "x");
+		waitFor(() -> getDispatched().contains("rejecting"));
+	}
+}
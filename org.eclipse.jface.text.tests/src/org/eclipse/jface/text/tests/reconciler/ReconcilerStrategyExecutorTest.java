@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.reconciler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.reconciler.AbstractReconciler;
+import org.eclipse.jface.text.reconciler.DirtyRegion;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension;
+import org.eclipse.jface.text.reconciler.Reconciler;
+import org.eclipse.jface.text.rules.FastPartitioner;
+import org.eclipse.jface.text.rules.IPredicateRule;
+import org.eclipse.jface.text.rules.MultiLineRule;
+import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
+import org.eclipse.jface.text.rules.Token;
+import org.eclipse.jface.text.tests.TestTextViewer;
+
+
+/**
+ * Tests the reconciling strategies of a {@link Reconciler} run on a strategy executor.
+ *
+ * @since 3.15
+ */
+public class ReconcilerStrategyExecutorTest {
+
+	private static final String COMMENT= "comment";
+
+	private static class Strategy implements IReconcilingStrategy, IReconcilingStrategyExtension {
+
+		volatile int fReconcileCount;
+		volatile Thread fThread;
+		IProgressMonitor fMonitor;
+
+		@Override
+		public void setDocument(IDocument document) {
+		}
+
+		@Override
+		public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
+			reconcile(subRegion);
+		}
+
+		@Override
+		public void reconcile(IRegion partition) {
+			fThread= Thread.currentThread();
+			fReconcileCount++;
+		}
+
+		@Override
+		public void setProgressMonitor(IProgressMonitor monitor) {
+			fMonitor= monitor;
+		}
+
+		@Override
+		public void initialReconcile() {
+		}
+	}
+
+	/**
+	 * Waits on its first reconcile until the other strategy reconciles at the same time.
+	 */
+	private static class MeetingStrategy extends Strategy {
+
+		private final CyclicBarrier fBarrier;
+		volatile boolean fMet;
+
+		MeetingStrategy(CyclicBarrier barrier) {
+			fBarrier= barrier;
+		}
+
+		@Override
+		public void reconcile(IRegion partition) {
+			super.reconcile(partition);
+			if (fMet)
+				return;
+			try {
+				fBarrier.await(5, TimeUnit.SECONDS);
+				fMet= true;
+			} catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+				// not run concurrently
+			}
+		}
+	}
+
+	/**
+	 * Cancels the progress monitor on its first reconcile.
+	 */
+	private static class CancelingStrategy extends Strategy {
+
+		private final AtomicBoolean fCanceled= new AtomicBoolean();
+
+		@Override
+		public void reconcile(IRegion partition) {
+			super.reconcile(partition);
+			if (fCanceled.compareAndSet(false, true))
+				fMonitor.setCanceled(true);
+		}
+	}
+
+	/** Does not run the tasks, they are run by the reconciler's thread. */
+	private static final Executor IDLE_EXECUTOR= runnable -> {
+		// never started
+	};
+
+	private Reconciler fReconciler;
+	private Document fDocument;
+
+	@After
+	public void tearDown() {
+		if (fReconciler != null)
+			fReconciler.uninstall();
+	}
+
+	private void install(Executor executor, Strategy codeStrategy, Strategy commentStrategy) {
+		fReconciler= new Reconciler();
+		fReconciler.setIsIncrementalReconciler(false);
+		fReconciler.setDelay(50);
+		fReconciler.setStrategyExecutor(executor);
+		fReconciler.setReconcilingStrategy(codeStrategy, IDocument.DEFAULT_CONTENT_TYPE);
+		fReconciler.setReconcilingStrategy(commentStrategy, COMMENT);
+		TestTextViewer viewer= new TestTextViewer();
+		fReconciler.install(viewer);
+
+		fDocument= new Document("code /* comment */ code /* comment */ code");
+		RuleBasedPartitionScanner scanner= new RuleBasedPartitionScanner();
+		scanner.setPredicateRules(new IPredicateRule[] { new MultiLineRule("/*", "*/", new Token(COMMENT)) });
+		IDocumentPartitioner partitioner= new FastPartitioner(scanner, new String[] { COMMENT });
+		partitioner.connect(fDocument);
+		fDocument.setDocumentPartitioner(partitioner);
+		viewer.setDocument(fDocument);
+		fDocument.set(fDocument.get());
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long start= System.currentTimeMillis();
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > start + 5000)
+				fail("waited > 5s for reconciler");
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testConcurrentStrategies() throws Exception {
+		CyclicBarrier barrier= new CyclicBarrier(2);
+		MeetingStrategy codeStrategy= new MeetingStrategy(barrier);
+		MeetingStrategy commentStrategy= new MeetingStrategy(barrier);
+		install(AbstractReconciler.getSharedExecutor(), codeStrategy, commentStrategy);
+
+		waitFor(() -> codeStrategy.fMet && commentStrategy.fMet);
+		assertNotSame(codeStrategy.fThread, commentStrategy.fThread);
+		waitFor(() -> fReconciler.getStrategyTimings().size() == 2);
+	}
+
+	@Test
+	public void testSameStrategyForSeveralPartitions() throws Exception {
+		Strategy strategy= new Strategy();
+		install(AbstractReconciler.getSharedExecutor(), strategy, strategy);
+
+		// the strategy reconciles the five partitions in one task
+		waitFor(() -> strategy.fReconcileCount >= 5);
+		waitFor(() -> fReconciler.getStrategyTimings().size() == 1);
+		assertEquals(5, strategy.fReconcileCount);
+	}
+
+	@Test
+	public void testNotStartedStrategiesRunInReconcilerThread() throws Exception {
+		Strategy codeStrategy= new Strategy();
+		Strategy commentStrategy= new Strategy();
+		install(IDLE_EXECUTOR, codeStrategy, commentStrategy);
+
+		waitFor(() -> fReconciler.getStrategyTimings().size() == 2);
+		assertEquals(codeStrategy.fThread, commentStrategy.fThread);
+		assertEquals(Arrays.asList(codeStrategy, commentStrategy), Arrays.asList(fReconciler.getStrategyTimings().keySet().toArray()));
+	}
+
+	@Test
+	public void testCanceledStrategiesAreSkipped() throws Exception {
+		CancelingStrategy codeStrategy= new CancelingStrategy();
+		Strategy commentStrategy= new Strategy();
+		install(IDLE_EXECUTOR, codeStrategy, commentStrategy);
+
+		// the canceled processing is repeated
+		waitFor(() -> commentStrategy.fReconcileCount > 0);
+		assertTrue(codeStrategy.fReconcileCount >= 4);
+		waitFor(() -> fReconciler.getStrategyTimings().size() == 2);
+	}
+
+	@Test
+	public void testSequentialTimings() throws Exception {
+		Strategy codeStrategy= new Strategy();
+		Strategy commentStrategy= new Strategy();
+		install(null, codeStrategy, commentStrategy);
+
+		waitFor(() -> fReconciler.getStrategyTimings().size() == 2);
+		Map<IReconcilingStrategy, Long> timings= fReconciler.getStrategyTimings();
+		assertTrue(timings.get(codeStrategy).longValue() >= 0);
+		assertTrue(timings.get(commentStrategy).longValue() >= 0);
+		assertEquals(codeStrategy.fThread, commentStrategy.fThread);
+	}
+}
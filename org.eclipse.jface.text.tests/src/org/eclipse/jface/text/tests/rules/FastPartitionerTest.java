@@ -20,7 +20,10 @@ import org.junit.Test;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentRewriteSession;
+import org.eclipse.jface.text.DocumentRewriteSessionType;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.jface.text.ITypedRegion;
 import org.eclipse.jface.text.rules.FastPartitioner;
@@ -321,6 +324,50 @@ public class FastPartitionerTest {
 
 	}
 
+	@Test
+	public void testSequentialRewriteSession() throws Exception {
+		fDoc.set("docu     ment/* comment */docu     ment/* comment */docu     ment");
+
+		IDocumentExtension4 extension= (IDocumentExtension4) fDoc;
+		DocumentRewriteSession session= extension.startRewriteSession(DocumentRewriteSessionType.SEQUENTIAL);
+		fDoc.replace(0, 4, "doc");
+		fDoc.replace(4, 0, "/* x */");
+		extension.stopRewriteSession(session);
+
+		int[] offsets= new int[] { 4, 11, 19, 32, 45, 58 };
+		assertComputePartitioning_InterleavingPartitions(offsets);
+		assertGetPartition_InterleavingPartitions(offsets);
+	}
+
+	@Test
+	public void testSequentialRewriteSessionMergingPartitions() throws Exception {
+		fDoc.set("docu     ment/* comment */docu     ment/* comment */docu     ment");
+
+		IDocumentExtension4 extension= (IDocumentExtension4) fDoc;
+		DocumentRewriteSession session= extension.startRewriteSession(DocumentRewriteSessionType.STRICTLY_SEQUENTIAL);
+		fDoc.replace(24, 2, "");
+		extension.stopRewriteSession(session);
+
+		int[] offsets= new int[] { 13, 50 };
+		assertComputePartitioning_InterleavingPartitions(offsets);
+		assertGetPartition_InterleavingPartitions(offsets);
+	}
+
+	@Test
+	public void testUnrestrictedRewriteSession() throws Exception {
+		fDoc.set("docu     ment/* comment */docu     ment/* comment */docu     ment");
+
+		IDocumentExtension4 extension= (IDocumentExtension4) fDoc;
+		DocumentRewriteSession session= extension.startRewriteSession(DocumentRewriteSessionType.UNRESTRICTED);
+		fDoc.replace(39, 13, "");
+		fDoc.replace(0, 4, "doc");
+		extension.stopRewriteSession(session);
+
+		int[] offsets= new int[] { 12, 25 };
+		assertComputePartitioning_InterleavingPartitions(offsets);
+		assertGetPartition_InterleavingPartitions(offsets);
+	}
+
 	private void assertComputePartitioning_InterleavingPartitions(int[] offsets) {
 		assertComputePartitioning_InterleavingPartitions(0, fDoc.getLength(), offsets, DEFAULT);
 	}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.rules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.EndOfLineRule;
+import org.eclipse.jface.text.rules.IRule;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.ITokenScanner;
+import org.eclipse.jface.text.rules.IWhitespaceDetector;
+import org.eclipse.jface.text.rules.IWordDetector;
+import org.eclipse.jface.text.rules.RuleBasedScanner;
+import org.eclipse.jface.text.rules.Token;
+import org.eclipse.jface.text.rules.TokenCache;
+import org.eclipse.jface.text.rules.WhitespaceRule;
+import org.eclipse.jface.text.rules.WordRule;
+
+/**
+ * @since 3.15
+ */
+public class TokenCacheTest {
+
+	private static final IToken KEYWORD= new Token("keyword");
+	private static final IToken WORD= new Token("word");
+	private static final IToken COMMENT= new Token("comment");
+	private static final IToken WHITESPACE= new Token("whitespace");
+
+	/**
+	 * A scanner counting the tokens it returns.
+	 */
+	private static class CountingScanner implements ITokenScanner {
+
+		private final ITokenScanner fScanner;
+		int fCount;
+
+		CountingScanner(ITokenScanner scanner) {
+			fScanner= scanner;
+		}
+
+		@Override
+		public void setRange(IDocument document, int offset, int length) {
+			fScanner.setRange(document, offset, length);
+		}
+
+		@Override
+		public IToken nextToken() {
+			IToken token= fScanner.nextToken();
+			if (!token.isEOF())
+				++fCount;
+			return token;
+		}
+
+		@Override
+		public int getTokenOffset() {
+			return fScanner.getTokenOffset();
+		}
+
+		@Override
+		public int getTokenLength() {
+			return fScanner.getTokenLength();
+		}
+	}
+
+	private IDocument fDocument;
+	private CountingScanner fScanner;
+	private ITokenScanner fCachingScanner;
+
+	@Before
+	public void setUp() {
+		fDocument= new Document();
+		fScanner= new CountingScanner(createScanner());
+		fCachingScanner= TokenCache.getTokenCache(fDocument).getScanner(fScanner);
+	}
+
+	private static RuleBasedScanner createScanner() {
+		WordRule wordRule= new WordRule(new IWordDetector() {
+			@Override
+			public boolean isWordStart(char c) {
+				return Character.isLetter(c);
+			}
+
+			@Override
+			public boolean isWordPart(char c) {
+				return Character.isLetterOrDigit(c);
+			}
+		}, WORD);
+		wordRule.addWord("class", KEYWORD);
+		wordRule.addWord("int", KEYWORD);
+
+		WhitespaceRule whitespaceRule= new WhitespaceRule(new IWhitespaceDetector() {
+			@Override
+			public boolean isWhitespace(char c) {
+				return Character.isWhitespace(c);
+			}
+		}, WHITESPACE);
+
+		RuleBasedScanner scanner= new RuleBasedScanner();
+		scanner.setRules(new IRule[] { new EndOfLineRule("//", COMMENT), wordRule, whitespaceRule });
+		return scanner;
+	}
+
+	@Test
+	public void testSameTokensAsScanner() throws Exception {
+		fDocument.set("class A {\n  int x; // comment\n}\n");
+		assertSameTokens(0, fDocument.getLength());
+		assertSameTokens(12, 10);
+	}
+
+	@Test
+	public void testNoRescanOfUnchangedText() throws Exception {
+		fDocument.set("class A {\n  int x; // comment\n}\n");
+		assertSameTokens(0, fDocument.getLength());
+
+		int count= fScanner.fCount;
+		assertSameTokens(0, fDocument.getLength());
+		assertEquals(count, fScanner.fCount);
+	}
+
+	@Test
+	public void testIncrementalUpdate() throws Exception {
+		StringBuilder buffer= new StringBuilder();
+		for (int i= 0; i < 200; i++)
+			buffer.append("class A").append(i).append(" int x // comment\n");
+		fDocument.set(buffer.toString());
+		assertSameTokens(0, fDocument.getLength());
+
+		fDocument.replace(fDocument.getLineOffset(100) + 6, 1, "Bint");
+		fScanner.fCount= 0;
+		List<Object> cached= scan(fCachingScanner, 0, fDocument.getLength());
+		assertTrue(fScanner.fCount < 20);
+		assertEquals(scan(createScanner(), 0, fDocument.getLength()), cached);
+	}
+
+	@Test
+	public void testRandomEdits() throws Exception {
+		String[] fragments= { "class", "int", " ", "\n", "//", "x", "A1", "  ", "\n\n" };
+		Random random= new Random(4711);
+
+		fDocument.set("class A {\n  int x; // comment\n}\n");
+		for (int i= 0; i < 500; i++) {
+			int offset= random.nextInt(fDocument.getLength() + 1);
+			int length= Math.min(random.nextInt(4), fDocument.getLength() - offset);
+			String text= random.nextInt(3) == 0 ? "" : fragments[random.nextInt(fragments.length)];
+			fDocument.replace(offset, length, text);
+
+			assertSameTokens(0, fDocument.getLength());
+			int start= random.nextInt(fDocument.getLength() + 1);
+			assertSameTokens(start, random.nextInt(fDocument.getLength() - start + 1));
+		}
+	}
+
+	@Test
+	public void testOtherDocument() throws Exception {
+		IDocument document= new Document("int x");
+		fCachingScanner.setRange(document, 0, document.getLength());
+		assertSame(KEYWORD, fCachingScanner.nextToken());
+	}
+
+	@Test
+	public void testInvalidatedWhenRulesChange() throws Exception {
+		fDocument.set("class A {\n  int x; // comment\n}\n");
+		RuleBasedScanner scanner= createScanner();
+		ITokenScanner cachingScanner= TokenCache.getTokenCache(fDocument).getScanner(scanner);
+		assertEquals(scan(createScanner(), 0, fDocument.getLength()), scan(cachingScanner, 0, fDocument.getLength()));
+
+		scanner.setRules(new IRule[] { new EndOfLineRule("//", KEYWORD) });
+		List<Object> cached= scan(cachingScanner, 0, fDocument.getLength());
+		assertEquals(scan(scanner, 0, fDocument.getLength()), cached);
+		assertTrue(cached.contains(KEYWORD.getData()));
+		assertTrue(!cached.contains(COMMENT.getData()));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		fDocument.set("class A {\n  int x; // comment\n}\n");
+		assertSameTokens(0, fDocument.getLength());
+
+		int count= fScanner.fCount;
+		TokenCache.invalidate(fScanner);
+		assertSameTokens(0, fDocument.getLength());
+		assertTrue(fScanner.fCount > count);
+	}
+
+	private void assertSameTokens(int offset, int length) {
+		List<Object> expected= scan(createScanner(), 0, fDocument.getLength());
+		List<Object> clipped= new ArrayList<>();
+		for (int i= 0; i < expected.size(); i+= 3) {
+			int tokenOffset= (Integer) expected.get(i);
+			int tokenEnd= tokenOffset + (Integer) expected.get(i + 1);
+			if (length > 0 && tokenEnd > offset && tokenOffset < offset + length) {
+				int start= Math.max(offset, tokenOffset);
+				clipped.add(Integer.valueOf(start));
+				clipped.add(Integer.valueOf(Math.min(offset + length, tokenEnd) - start));
+				clipped.add(expected.get(i + 2));
+			}
+		}
+		assertEquals(clipped, scan(fCachingScanner, offset, length));
+	}
+
+	private List<Object> scan(ITokenScanner scanner, int offset, int length) {
+		List<Object> tokens= new ArrayList<>();
+		scanner.setRange(fDocument, offset, length);
+		IToken token= scanner.nextToken();
+		while (!token.isEOF()) {
+			tokens.add(Integer.valueOf(scanner.getTokenOffset()));
+			tokens.add(Integer.valueOf(scanner.getTokenLength()));
+			tokens.add(token.getData());
+			token= scanner.nextToken();
+		}
+		return tokens;
+	}
+}
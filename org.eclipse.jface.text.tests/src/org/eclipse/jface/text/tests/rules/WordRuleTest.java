@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.jface.text.tests.rules;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -211,5 +212,74 @@ public class WordRuleTest {
 
 	}
 
+	@Test
+	public void testTrieMatching() throws Exception {
+		IToken defaultToken= new Token("default");
+		IToken intToken= new Token("int");
+		IToken integerToken= new Token("integer");
+		IToken inToken= new Token("in");
+
+		WordRule rule= new WordRule(new SimpleWordDetector(), defaultToken, false, true);
+		rule.addWord("int", intToken);
+		rule.addWord("integer", integerToken);
+		rule.addWord("in", inToken);
+
+		RuleBasedScanner scanner= new RuleBasedScanner();
+		scanner.setRules(new IRule[] { rule });
+		scanner.setRange(new Document("in int integer integers i INT"), 0, 29);
+
+		assertSame(inToken, scanner.nextToken());
+		scanner.nextToken();
+		assertSame(intToken, scanner.nextToken());
+		scanner.nextToken();
+		assertSame(integerToken, scanner.nextToken());
+		scanner.nextToken();
+		assertSame(defaultToken, scanner.nextToken());
+		assertEquals(8, scanner.getTokenLength());
+		scanner.nextToken();
+		assertSame(defaultToken, scanner.nextToken());
+		scanner.nextToken();
+		assertSame(defaultToken, scanner.nextToken());
+		assertSame(Token.EOF, scanner.nextToken());
+	}
+
+	@Test
+	public void testTrieMatchingIgnoreCase() throws Exception {
+		IToken defaultToken= new Token("default");
+		IToken keywordToken= new Token("keyword");
+
+		WordRule rule= new WordRule(new SimpleWordDetector(), defaultToken, true, true);
+		rule.addWord("Select", keywordToken);
+
+		RuleBasedScanner scanner= new RuleBasedScanner();
+		scanner.setRules(new IRule[] { rule });
+		scanner.setRange(new Document("SELECT select Selected"), 0, 22);
+
+		assertSame(keywordToken, scanner.nextToken());
+		scanner.nextToken();
+		assertSame(keywordToken, scanner.nextToken());
+		scanner.nextToken();
+		assertSame(defaultToken, scanner.nextToken());
+	}
+
+	@Test
+	public void testTrieMatchingUndefinedDefaultToken() throws Exception {
+		IToken keywordToken= new Token("keyword");
+		IToken otherToken= new Token("other");
+
+		WordRule rule= new WordRule(new SimpleWordDetector(), Token.UNDEFINED, false, true);
+		rule.addWord("keyword", keywordToken);
 
+		RuleBasedScanner scanner= new RuleBasedScanner();
+		scanner.setRules(new IRule[] { rule });
+		scanner.setDefaultReturnToken(otherToken);
+		scanner.setRange(new Document("keywords keyword"), 0, 16);
+
+		for (int i= 0; i < 9; i++) {
+			assertSame(otherToken, scanner.nextToken());
+			assertEquals(i, scanner.getTokenOffset());
+		}
+		assertSame(keywordToken, scanner.nextToken());
+		assertEquals(7, scanner.getTokenLength());
+	}
 }
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationAccess;
+import org.eclipse.jface.text.source.ISharedTextColors;
+import org.eclipse.jface.text.source.OverviewRuler;
+import org.eclipse.jface.text.source.SourceViewer;
+import org.eclipse.jface.text.tests.util.DisplayHelper;
+
+/**
+ * Tests that the overview ruler reads the annotations of its model only when the model or the
+ * geometry of its rows changes.
+ *
+ * @since 3.15
+ */
+public class OverviewRulerTest {
+
+	private static final String TYPE= "org.eclipse.jface.text.tests.overview";
+
+	private static final int LINES= 1000;
+
+	/**
+	 * Counts how often the annotations are iterated.
+	 */
+	private static class CountingAnnotationModel extends AnnotationModel {
+
+		int fIterations;
+
+		@Override
+		public Iterator<Annotation> getAnnotationIterator() {
+			fIterations++;
+			return super.getAnnotationIterator();
+		}
+	}
+
+	private static class SharedColors implements ISharedTextColors {
+
+		private final Map<RGB, Color> fColors= new HashMap<>();
+
+		@Override
+		public Color getColor(RGB rgb) {
+			return fColors.computeIfAbsent(rgb, key -> new Color(Display.getCurrent(), key));
+		}
+
+		@Override
+		public void dispose() {
+			for (Color color : fColors.values())
+				color.dispose();
+			fColors.clear();
+		}
+	}
+
+	private Shell fShell;
+	private SourceViewer fViewer;
+	private OverviewRuler fRuler;
+	private SharedColors fColors;
+	private CountingAnnotationModel fModel;
+
+	@Before
+	public void setUp() throws Exception {
+		fShell= new Shell();
+		fShell.setLayout(new FillLayout());
+		fShell.setSize(500, 400);
+		fColors= new SharedColors();
+		fRuler= new OverviewRuler(new IAnnotationAccess() {
+
+			@Override
+			public Object getType(Annotation annotation) {
+				return annotation.getType();
+			}
+
+			@Override
+			public boolean isMultiLine(Annotation annotation) {
+				return true;
+			}
+
+			@Override
+			public boolean isTemporary(Annotation annotation) {
+				return !annotation.isPersistent();
+			}
+		}, 12, fColors);
+		fRuler.addAnnotationType(TYPE);
+		fRuler.addHeaderAnnotationType(TYPE);
+		fRuler.setAnnotationTypeColor(TYPE, fColors.getColor(new RGB(255, 0, 0)));
+		fRuler.setAnnotationTypeLayer(TYPE, 1);
+		fViewer= new SourceViewer(fShell, null, fRuler, true, SWT.V_SCROLL);
+
+		StringBuilder content= new StringBuilder();
+		for (int i= 0; i < LINES; i++)
+			content.append("line ").append(i).append('\n');
+		Document document= new Document(content.toString());
+		fModel= new CountingAnnotationModel();
+		for (int i= 0; i < LINES; i+= 10)
+			fModel.addAnnotation(new Annotation(TYPE, false, "annotation " + i), new Position(document.getLineOffset(i), 4));
+		fViewer.setDocument(document);
+		// count only the iterations of the ruler
+		fModel.connect(document);
+		fRuler.setModel(fModel);
+		fShell.open();
+		waitForPaint();
+	}
+
+	@After
+	public void tearDown() {
+		fModel.disconnect(fViewer.getDocument());
+		fShell.dispose();
+		fColors.dispose();
+	}
+
+	private void waitForPaint() {
+		fRuler.getControl().redraw();
+		DisplayHelper.sleep(fShell.getDisplay(), 200);
+	}
+
+	@Test
+	public void testUpdateWithoutModelChange() {
+		int iterations= fModel.fIterations;
+		for (int i= 0; i < 5; i++) {
+			fRuler.update();
+			waitForPaint();
+		}
+		assertEquals(iterations, fModel.fIterations);
+	}
+
+	@Test
+	public void testModelChange() throws Exception {
+		int iterations= fModel.fIterations;
+		fModel.addAnnotation(new Annotation(TYPE, false, "added"), new Position(fViewer.getDocument().getLineOffset(5), 4));
+		waitForPaint();
+		// the annotations are cached again for the header, the rows are updated incrementally
+		assertEquals(iterations + 1, fModel.fIterations);
+	}
+
+	@Test
+	public void testScroll() {
+		int iterations= fModel.fIterations;
+		for (int topIndex : new int[] { 1, 100, 500, LINES - 20, 0 }) {
+			fViewer.setTopIndex(topIndex);
+			waitForPaint();
+		}
+		fViewer.getTextWidget().setTopPixel(fViewer.getTextWidget().getLineHeight() / 2);
+		waitForPaint();
+		assertEquals(iterations, fModel.fIterations);
+	}
+
+	@Test
+	public void testResize() {
+		int iterations= fModel.fIterations;
+		fShell.setSize(500, 600);
+		waitForPaint();
+		// the rows are computed again for the new height
+		assertTrue(fModel.fIterations > iterations);
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.tests.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.internal.text.source.TextExtentCache;
+
+/**
+ * Tests the cache of the text extents of inlined annotations.
+ *
+ * @since 3.15
+ */
+public class TextExtentCacheTest {
+
+	private static final String TEXT= "12 references";
+
+	private Image fImage;
+	private Font fFont;
+	private GC fGC;
+
+	@Before
+	public void setUp() {
+		Display display= Display.getDefault();
+		fImage= new Image(display, 200, 50);
+		FontData fontData= display.getSystemFont().getFontData()[0];
+		fFont= new Font(display, fontData.getName(), fontData.getHeight() * 2, SWT.BOLD);
+		fGC= new GC(fImage);
+	}
+
+	@After
+	public void tearDown() {
+		fGC.dispose();
+		fFont.dispose();
+		fImage.dispose();
+	}
+
+	@Test
+	public void testHit() {
+		TextExtentCache cache= new TextExtentCache();
+		Point extent= cache.getExtent(fGC, TEXT);
+		assertEquals(fGC.stringExtent(TEXT), extent);
+		int width= cache.getPaddedWidth(fGC, TEXT);
+		assertTrue(width > extent.x);
+
+		assertSame(extent, cache.getExtent(fGC, TEXT));
+		assertEquals(width, cache.getPaddedWidth(fGC, TEXT));
+		assertEquals(width, cache.getLastPaddedWidth(TEXT));
+	}
+
+	@Test
+	public void testHitWithOtherGCWithSameFont() {
+		TextExtentCache cache= new TextExtentCache();
+		Point extent= cache.getExtent(fGC, TEXT);
+
+		GC gc= new GC(fImage);
+		try {
+			gc.setFont(fGC.getFont());
+			assertSame(extent, cache.getExtent(gc, TEXT));
+		} finally {
+			gc.dispose();
+		}
+	}
+
+	@Test
+	public void testMissWhenTextChanges() {
+		TextExtentCache cache= new TextExtentCache();
+		Point extent= cache.getExtent(fGC, TEXT);
+
+		Point other= cache.getExtent(fGC, TEXT + TEXT);
+		assertNotSame(extent, other);
+		assertEquals(fGC.stringExtent(TEXT + TEXT), other);
+		assertEquals(-1, cache.getLastPaddedWidth(TEXT));
+	}
+
+	@Test
+	public void testMissWhenFontChanges() {
+		TextExtentCache cache= new TextExtentCache();
+		Point extent= cache.getExtent(fGC, TEXT);
+
+		fGC.setFont(fFont);
+		Point other= cache.getExtent(fGC, TEXT);
+		assertNotSame(extent, other);
+		assertEquals(fGC.stringExtent(TEXT), other);
+		assertTrue(other.x > extent.x);
+	}
+
+	@Test
+	public void testMissWhenGCChanges() {
+		TextExtentCache cache= new TextExtentCache();
+		Point extent= cache.getExtent(fGC, TEXT);
+
+		GC gc= new GC(fImage);
+		try {
+			gc.setFont(fFont);
+			Point other= cache.getExtent(gc, TEXT);
+			assertNotSame(extent, other);
+			assertEquals(gc.stringExtent(TEXT), other);
+		} finally {
+			gc.dispose();
+		}
+	}
+}
@@ -0,0 +1,542 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal.text;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalExtension5;
+
+
+/**
+ * A timer thread which allows showing the additional info of the selected completion proposal
+ * after a delay. The info of an {@link ICompletionProposalExtension5} is computed in a job, which
+ * is canceled when another proposal is selected. Computed infos are cached, and the infos of the
+ * proposals next to the selected one may be computed in advance.
+ *
+ * @since 3.15
+ */
+public abstract class AdditionalInfoTimer {
+	private static final int DELAY_UNTIL_JOB_IS_SCHEDULED= 50;
+	/**
+	 * The number of computed infos kept in the cache.
+	 */
+	public static final int CACHE_SIZE= 16;
+	/**
+	 * Marker for a proposal without cached info.
+	 */
+	public static final Object NO_INFO= new Object();
+
+	/**
+	 * Computes the additional info of an {@link ICompletionProposalExtension5} and, if
+	 * prefetching is enabled, of its neighbors in the proposal table. The job is canceled
+	 * when another proposal is selected, unless it is just computing the info of that
+	 * proposal.
+	 */
+	private class InfoJob extends Job {
+
+		private final ICompletionProposal[] fProposals;
+		/** The proposal whose info is being computed, <code>null</code> if none. */
+		private volatile ICompletionProposal fComputing;
+
+		/**
+		 * Creates a new job.
+		 *
+		 * @param proposals the proposals whose info is computed, the selected one first
+		 */
+		InfoJob(ICompletionProposal[] proposals) {
+			super(fJobName);
+			fProposals= proposals;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			IStatus status= Status.OK_STATUS;
+			for (ICompletionProposal proposal : fProposals) {
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				if (!isExt5(proposal) || getCachedInfo(proposal) != NO_INFO)
+					continue;
+
+				fComputing= proposal;
+				Object info;
+				try {
+					info= ((ICompletionProposalExtension5) proposal).getAdditionalProposalInfo(monitor);
+				} catch (RuntimeException x) {
+					/*
+					 * XXX: This is the safest fix at this point so close to end of 3.2.
+					 *		Will be revisited when fixing https://bugs.eclipse.org/bugs/show_bug.cgi?id=101033
+					 */
+					fComputing= null;
+					if (status.isOK())
+						status= new Status(IStatus.WARNING, "org.eclipse.jface.text", IStatus.OK, "", x); //$NON-NLS-1$ //$NON-NLS-2$
+					// still compute the info of the other proposals
+					continue;
+				}
+				fComputing= null;
+				if (!monitor.isCanceled())
+					setInfo(proposal, info);
+			}
+			return status;
+		}
+
+		boolean isComputing(ICompletionProposal proposal) {
+			return fComputing == proposal;
+		}
+	}
+
+	/**
+	 * A <code>Task</code> is {@link Task#run() run} when {@link #delay()} milliseconds have
+	 * elapsed after it was scheduled without a {@link #reset(ICompletionProposal) reset}
+	 * to occur.
+	 */
+	private abstract class Task implements Runnable {
+		/**
+		 * @return the delay in milliseconds before this task should be run
+		 */
+		public abstract long delay();
+		/**
+		 * Runs this task.
+		 */
+		@Override
+		public abstract void run();
+		/**
+		 * @return the task to be scheduled after this task has been run
+		 */
+		public abstract Task nextTask();
+	}
+
+	/**
+	 * IDLE: the initial task, and active whenever the info has been shown. It cannot be run,
+	 * but specifies an infinite delay.
+	 */
+	private final Task IDLE= new Task() {
+		@Override
+		public void run() {
+			Assert.isTrue(false);
+		}
+
+		@Override
+		public Task nextTask() {
+			Assert.isTrue(false);
+			return null;
+		}
+
+		@Override
+		public long delay() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public String toString() {
+			return "IDLE"; //$NON-NLS-1$
+		}
+	};
+	/**
+	 * FIRST_WAIT: Schedules a platform {@link Job} to fetch additional info from an {@link ICompletionProposalExtension5}.
+	 */
+	private final Task FIRST_WAIT= new Task() {
+		@Override
+		public void run() {
+			ICompletionProposal[] proposals= new ICompletionProposal[fNeighbors.length + 1];
+			proposals[0]= (ICompletionProposal) getCurrentProposalEx();
+			System.arraycopy(fNeighbors, 0, proposals, 1, fNeighbors.length);
+			fJob= new InfoJob(proposals);
+			fJob.schedule();
+		}
+
+		@Override
+		public Task nextTask() {
+			return SECOND_WAIT;
+		}
+
+		@Override
+		public long delay() {
+			return DELAY_UNTIL_JOB_IS_SCHEDULED;
+		}
+
+		@Override
+		public String toString() {
+			return "FIRST_WAIT"; //$NON-NLS-1$
+		}
+	};
+	/**
+	 * SECOND_WAIT: Allows display of additional info obtained from an
+	 * {@link ICompletionProposalExtension5}.
+	 */
+	private final Task SECOND_WAIT= new Task() {
+		@Override
+		public void run() {
+			// show the info
+			allowShowing();
+		}
+
+		@Override
+		public Task nextTask() {
+			return IDLE;
+		}
+
+		@Override
+		public long delay() {
+			return fDelay - DELAY_UNTIL_JOB_IS_SCHEDULED;
+		}
+
+		@Override
+		public String toString() {
+			return "SECOND_WAIT"; //$NON-NLS-1$
+		}
+	};
+	/**
+	 * CACHED_WAIT: Allows display of cached additional info.
+	 */
+	private final Task CACHED_WAIT= new Task() {
+		@Override
+		public void run() {
+			allowShowing();
+		}
+
+		@Override
+		public Task nextTask() {
+			return IDLE;
+		}
+
+		@Override
+		public long delay() {
+			return fDelay;
+		}
+
+		@Override
+		public String toString() {
+			return "CACHED_WAIT"; //$NON-NLS-1$
+		}
+	};
+	/**
+	 * LEGACY_WAIT: Posts a runnable into the display thread to fetch additional info from non-{@link ICompletionProposalExtension5}s.
+	 */
+	private final Task LEGACY_WAIT= new Task() {
+		@Override
+		public void run() {
+			final ICompletionProposal proposal= getCurrentProposal();
+			asyncExec(() -> {
+				synchronized (AdditionalInfoTimer.this) {
+					if (proposal == getCurrentProposal()) {
+						Object info= proposal.getAdditionalProposalInfo();
+						cacheInfo(proposal, info);
+						showInformation(proposal, info);
+					}
+				}
+			});
+		}
+
+		@Override
+		public Task nextTask() {
+			return IDLE;
+		}
+
+		@Override
+		public long delay() {
+			return fDelay;
+		}
+
+		@Override
+		public String toString() {
+			return "LEGACY_WAIT"; //$NON-NLS-1$
+		}
+	};
+	/**
+	 * EXIT: The task that triggers termination of the timer thread.
+	 */
+	private final Task EXIT= new Task() {
+		@Override
+		public long delay() {
+			return 1;
+		}
+
+		@Override
+		public Task nextTask() {
+			Assert.isTrue(false);
+			return EXIT;
+		}
+
+		@Override
+		public void run() {
+			Assert.isTrue(false);
+		}
+
+		@Override
+		public String toString() {
+			return "EXIT"; //$NON-NLS-1$
+		}
+	};
+
+	/** The timer thread. */
+	private final Thread fThread;
+
+	/** The currently waiting / active task. */
+	private Task fTask;
+	/** The next wake up time. */
+	private long fNextWakeup;
+
+	private ICompletionProposal fCurrentProposal= null;
+	private Object fCurrentInfo= null;
+	private boolean fAllowShowing= false;
+	/**
+	 * The neighbors of the current proposal whose info is prefetched.
+	 */
+	private ICompletionProposal[] fNeighbors= new ICompletionProposal[0];
+	/**
+	 * The job computing additional info, <code>null</code> if none.
+	 */
+	private InfoJob fJob;
+	/**
+	 * The most recently computed proposals and infos, the most recent last.
+	 */
+	private final ICompletionProposal[] fCachedProposals= new ICompletionProposal[CACHE_SIZE];
+	private final Object[] fCachedInfos= new Object[CACHE_SIZE];
+	private int fCacheCount;
+
+	private final Display fDisplay;
+	private final int fDelay;
+	/** The name of the jobs computing additional info. */
+	private final String fJobName;
+
+	/**
+	 * Creates a new timer.
+	 *
+	 * @param display the display to use for display thread posting, may be <code>null</code>
+	 *            if {@link #asyncExec(Runnable)} is reimplemented
+	 * @param delay the delay until to show additional info
+	 * @param threadName the name of the timer thread
+	 * @param jobName the name of the jobs computing additional info
+	 */
+	public AdditionalInfoTimer(Display display, int delay, String threadName, String jobName) {
+		fDisplay= display;
+		fDelay= delay;
+		fJobName= jobName;
+		long current= System.currentTimeMillis();
+		schedule(IDLE, current);
+
+		fThread= new Thread((Runnable) () -> {
+			try {
+				loop();
+			} catch (InterruptedException x) {
+			}
+		}, threadName);
+		fThread.start();
+	}
+
+	/**
+	 * Terminates the timer thread.
+	 */
+	public synchronized final void terminate() {
+		cancelJob(null);
+		schedule(EXIT, System.currentTimeMillis());
+		notifyAll();
+	}
+
+	/**
+	 * Resets the timer thread as the selection has changed to a new proposal.
+	 *
+	 * @param p the new proposal
+	 */
+	public synchronized final void reset(ICompletionProposal p) {
+		reset(p, new ICompletionProposal[0]);
+	}
+
+	/**
+	 * Resets the timer thread as the selection has changed to a new proposal.
+	 *
+	 * @param p the new proposal
+	 * @param neighbors the proposals whose info is prefetched after the info of the new
+	 *            proposal has been computed
+	 */
+	public synchronized final void reset(ICompletionProposal p, ICompletionProposal[] neighbors) {
+		if (fCurrentProposal != p) {
+			fCurrentProposal= p;
+			fCurrentInfo= null;
+			fAllowShowing= false;
+			fNeighbors= neighbors;
+			cancelJob(p);
+
+			Object info= p == null ? NO_INFO : getCachedInfo(p);
+			if (info != NO_INFO)
+				fCurrentInfo= info;
+
+			long oldWakeup= fNextWakeup;
+			Task task= taskOnReset(p, info != NO_INFO);
+			schedule(task, System.currentTimeMillis());
+			if (fNextWakeup < oldWakeup)
+				notifyAll();
+		}
+	}
+
+	private Task taskOnReset(ICompletionProposal p, boolean isCached) {
+		if (p == null)
+			return IDLE;
+		if (isCached)
+			return CACHED_WAIT;
+		if (isExt5(p))
+			return fJob != null ? SECOND_WAIT : FIRST_WAIT;
+		return LEGACY_WAIT;
+	}
+
+	/**
+	 * Cancels the job computing additional info unless it computes the info of the given
+	 * proposal.
+	 *
+	 * @param p the proposal whose info is still needed, may be <code>null</code>
+	 */
+	private void cancelJob(ICompletionProposal p) {
+		if (fJob != null && (p == null || !fJob.isComputing(p))) {
+			fJob.cancel();
+			fJob= null;
+		}
+	}
+
+	/**
+	 * Returns the cached info of the given proposal.
+	 *
+	 * @param proposal the proposal
+	 * @return the cached info, possibly <code>null</code>, or {@link #NO_INFO} if there is none
+	 */
+	public synchronized Object getCachedInfo(ICompletionProposal proposal) {
+		for (int i= fCacheCount - 1; i >= 0; i--) {
+			if (fCachedProposals[i] == proposal) {
+				Object info= fCachedInfos[i];
+				// move to the most recent position
+				System.arraycopy(fCachedProposals, i + 1, fCachedProposals, i, fCacheCount - i - 1);
+				System.arraycopy(fCachedInfos, i + 1, fCachedInfos, i, fCacheCount - i - 1);
+				fCachedProposals[fCacheCount - 1]= proposal;
+				fCachedInfos[fCacheCount - 1]= info;
+				return info;
+			}
+		}
+		return NO_INFO;
+	}
+
+	/**
+	 * Caches the info of the given proposal, evicting the least recently used info if the
+	 * cache is full.
+	 *
+	 * @param proposal the proposal
+	 * @param info the info
+	 */
+	public synchronized void cacheInfo(ICompletionProposal proposal, Object info) {
+		if (getCachedInfo(proposal) != NO_INFO) {
+			fCachedInfos[fCacheCount - 1]= info;
+			return;
+		}
+		if (fCacheCount == CACHE_SIZE) {
+			System.arraycopy(fCachedProposals, 1, fCachedProposals, 0, CACHE_SIZE - 1);
+			System.arraycopy(fCachedInfos, 1, fCachedInfos, 0, CACHE_SIZE - 1);
+			--fCacheCount;
+		}
+		fCachedProposals[fCacheCount]= proposal;
+		fCachedInfos[fCacheCount++]= info;
+	}
+
+	private synchronized void loop() throws InterruptedException {
+		long current= System.currentTimeMillis();
+		Task task= currentTask();
+
+		while (task != EXIT) {
+			long delay= fNextWakeup - current;
+			if (delay <= 0) {
+				task.run();
+				task= task.nextTask();
+				schedule(task, current);
+			} else {
+				wait(delay);
+				current= System.currentTimeMillis();
+				task= currentTask();
+			}
+		}
+	}
+
+	private Task currentTask() {
+		return fTask;
+	}
+
+	private void schedule(Task task, long current) {
+		fTask= task;
+		long nextWakeup= current + task.delay();
+		if (nextWakeup <= current)
+			fNextWakeup= Long.MAX_VALUE;
+		else
+			fNextWakeup= nextWakeup;
+	}
+
+	private boolean isExt5(ICompletionProposal p) {
+		return p instanceof ICompletionProposalExtension5;
+	}
+
+	ICompletionProposal getCurrentProposal() {
+		return fCurrentProposal;
+	}
+
+	ICompletionProposalExtension5 getCurrentProposalEx() {
+		Assert.isTrue(fCurrentProposal instanceof ICompletionProposalExtension5);
+		return (ICompletionProposalExtension5) fCurrentProposal;
+	}
+
+	synchronized void setInfo(ICompletionProposal proposal, Object info) {
+		cacheInfo(proposal, info);
+		if (proposal == fCurrentProposal) {
+			fCurrentInfo= info;
+			if (fAllowShowing) {
+				triggerShowing();
+			}
+		}
+	}
+
+	private void triggerShowing() {
+		final Object info= fCurrentInfo;
+		asyncExec(() -> {
+			synchronized (AdditionalInfoTimer.this) {
+				if (info == fCurrentInfo) {
+					showInformation(fCurrentProposal, info);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Posts the given runnable into the display thread.
+	 *
+	 * @param runnable the runnable
+	 */
+	protected void asyncExec(Runnable runnable) {
+		if (!fDisplay.isDisposed())
+			fDisplay.asyncExec(runnable);
+	}
+
+	/**
+	 * Called in the display thread to show additional info.
+	 *
+	 * @param proposal the proposal to show information about
+	 * @param info the information about <code>proposal</code>
+	 */
+	protected abstract void showInformation(ICompletionProposal proposal, Object info);
+
+	void allowShowing() {
+		fAllowShowing= true;
+		triggerShowing();
+	}
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+
+/**
+ * Index over the display strings of the proposals of one content assist session. The
+ * index answers which proposals can match a typed prefix, so that the costly validation
+ * of the proposals only has to be done for these candidates.
+ * <p>
+ * A proposal is a candidate for a prefix if the characters of the prefix occur in its
+ * display string in the same order, ignoring case. Since each candidate for a prefix is
+ * also a candidate for all shorter prefixes, the candidates are narrowed incrementally:
+ * the candidates of each queried prefix are kept as long as the prefix is extended, and
+ * only the candidates of the longest kept prefix are tested for a longer one. Deleting
+ * characters from the prefix falls back to the kept candidates of the shorter prefix.
+ * </p>
+ * <p>
+ * Candidates can be ranked by their match quality, see {@link #score(String, String)}.
+ * </p>
+ *
+ * @since 3.15
+ */
+public final class CompletionProposalFilterIndex {
+
+	/** Score category of a case-sensitive prefix match. */
+	private static final int EXACT_PREFIX= 4;
+	/** Score category of a case-insensitive prefix match. */
+	private static final int PREFIX= 3;
+	/** Score category of a camel-case match. */
+	private static final int CAMEL_CASE= 2;
+	/** Score category of a subsequence match. */
+	private static final int SUBSEQUENCE= 1;
+	/** The factor separating the score categories. */
+	private static final int CATEGORY_FACTOR= 100000;
+
+	/** The indexed proposals. */
+	private final List<ICompletionProposal> fProposals;
+	/** The display strings of the proposals, <code>null</code> if unknown. */
+	private final String[] fKeys;
+	/** The lower-case display strings of the proposals, <code>null</code> if unknown. */
+	private final String[] fLowerKeys;
+
+	/** The lower-case prefixes whose candidates are kept, each extending the previous one. */
+	private final List<String> fPatterns= new ArrayList<>();
+	/** The indices of the candidates of the kept prefixes, in ascending order. */
+	private final List<int[]> fCandidates= new ArrayList<>();
+
+	/**
+	 * Creates an index over the display strings of the given proposals.
+	 *
+	 * @param proposals the proposals to index
+	 */
+	public CompletionProposalFilterIndex(List<ICompletionProposal> proposals) {
+		fProposals= proposals;
+		int size= proposals.size();
+		fKeys= new String[size];
+		fLowerKeys= new String[size];
+		for (int i= 0; i < size; i++) {
+			String key;
+			try {
+				key= proposals.get(i).getDisplayString();
+			} catch (RuntimeException e) {
+				// Make sure that poorly behaved completion proposers do not break filtering.
+				key= null;
+			}
+			fKeys[i]= key;
+			fLowerKeys[i]= key == null ? null : toLowerCase(key);
+		}
+	}
+
+	/**
+	 * Returns the indexed proposals.
+	 *
+	 * @return the indexed proposals
+	 */
+	public List<ICompletionProposal> getProposals() {
+		return fProposals;
+	}
+
+	/**
+	 * Returns the proposals which can match the given prefix, in the order of the indexed
+	 * proposals. Proposals without a display string are always candidates.
+	 *
+	 * @param prefix the typed prefix
+	 * @return the candidates for the prefix
+	 */
+	public List<ICompletionProposal> getCandidates(String prefix) {
+		int[] candidates= computeCandidates(toLowerCase(prefix));
+		List<ICompletionProposal> result= new ArrayList<>(candidates.length);
+		for (int candidate : candidates)
+			result.add(fProposals.get(candidate));
+		return result;
+	}
+
+	/**
+	 * Returns the proposals which can match the given prefix, the best matches first.
+	 * Candidates with the same score keep the order of the indexed proposals.
+	 *
+	 * @param prefix the typed prefix
+	 * @return the ranked candidates for the prefix
+	 */
+	public List<ICompletionProposal> getRankedCandidates(String prefix) {
+		int[] candidates= computeCandidates(toLowerCase(prefix));
+		long[] ranked= new long[candidates.length];
+		for (int i= 0; i < candidates.length; i++) {
+			int candidate= candidates[i];
+			int score= fKeys[candidate] == null ? 0 : score(prefix, fKeys[candidate]);
+			// sort ascending by negated score, then by index
+			ranked[i]= ((long) -score << 32) | candidate;
+		}
+		Arrays.sort(ranked);
+		List<ICompletionProposal> result= new ArrayList<>(ranked.length);
+		for (long rank : ranked)
+			result.add(fProposals.get((int) rank));
+		return result;
+	}
+
+	private int[] computeCandidates(String pattern) {
+		int last= fPatterns.size() - 1;
+		while (last >= 0 && !pattern.startsWith(fPatterns.get(last))) {
+			fPatterns.remove(last);
+			fCandidates.remove(last--);
+		}
+		if (last >= 0 && pattern.length() == fPatterns.get(last).length())
+			return fCandidates.get(last);
+
+		int[] candidates;
+		int count= 0;
+		if (last >= 0) {
+			int[] base= fCandidates.get(last);
+			candidates= new int[base.length];
+			for (int candidate : base) {
+				if (isCandidate(pattern, candidate))
+					candidates[count++]= candidate;
+			}
+		} else {
+			candidates= new int[fLowerKeys.length];
+			for (int i= 0; i < fLowerKeys.length; i++) {
+				if (isCandidate(pattern, i))
+					candidates[count++]= i;
+			}
+		}
+		candidates= Arrays.copyOf(candidates, count);
+		fPatterns.add(pattern);
+		fCandidates.add(candidates);
+		return candidates;
+	}
+
+	private boolean isCandidate(String pattern, int index) {
+		String key= fLowerKeys[index];
+		return key == null || isSubsequence(pattern, key);
+	}
+
+	/**
+	 * Returns how well the given name matches the given prefix. Case-sensitive prefix
+	 * matches score best, followed by case-insensitive prefix matches, camel-case matches
+	 * like <code>NPE</code> for <code>NullPointerException</code> and subsequence
+	 * matches. Within a category, shorter names score better.
+	 *
+	 * @param prefix the typed prefix
+	 * @param name the name to match
+	 * @return the score, <code>0</code> if the name does not match the prefix
+	 */
+	public static int score(String prefix, String name) {
+		int category;
+		if (name.startsWith(prefix))
+			category= EXACT_PREFIX;
+		else if (name.regionMatches(true, 0, prefix, 0, prefix.length()))
+			category= PREFIX;
+		else if (isCamelCaseMatch(prefix, name))
+			category= CAMEL_CASE;
+		else if (isSubsequence(toLowerCase(prefix), toLowerCase(name)))
+			category= SUBSEQUENCE;
+		else
+			return 0;
+		return category * CATEGORY_FACTOR - Math.min(name.length(), CATEGORY_FACTOR - 1);
+	}
+
+	/**
+	 * Tells whether the characters of the given pattern occur in the given name in the
+	 * same order.
+	 *
+	 * @param pattern the pattern
+	 * @param name the name
+	 * @return <code>true</code> if the pattern is a subsequence of the name
+	 */
+	private static boolean isSubsequence(String pattern, String name) {
+		int patternLength= pattern.length();
+		int nameLength= name.length();
+		if (patternLength > nameLength)
+			return false;
+		int j= 0;
+		for (int i= 0; i < patternLength; i++) {
+			char c= pattern.charAt(i);
+			while (j < nameLength && name.charAt(j) != c)
+				++j;
+			if (j++ == nameLength)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether the given pattern matches the given name as a sequence of word parts.
+	 * Each character of the pattern either continues the current word part or starts at
+	 * the beginning of a later word part of the name, ignoring case. Word parts start at
+	 * the first character, at upper-case letters and after characters which are not
+	 * letters or digits.
+	 *
+	 * @param pattern the pattern
+	 * @param name the name
+	 * @return <code>true</code> if the pattern matches the word parts of the name
+	 */
+	private static boolean isCamelCaseMatch(String pattern, String name) {
+		int patternLength= pattern.length();
+		int nameLength= name.length();
+		if (patternLength == 0 || nameLength == 0 || !equalsIgnoreCase(pattern.charAt(0), name.charAt(0)))
+			return false;
+		int j= 1;
+		for (int i= 1; i < patternLength; i++) {
+			char c= pattern.charAt(i);
+			if (j < nameLength && equalsIgnoreCase(c, name.charAt(j)) && !isWordStart(name, j)) {
+				++j;
+				continue;
+			}
+			while (j < nameLength && !(isWordStart(name, j) && equalsIgnoreCase(c, name.charAt(j))))
+				++j;
+			if (j++ == nameLength)
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isWordStart(String name, int index) {
+		char c= name.charAt(index);
+		if (index == 0 || Character.isUpperCase(c))
+			return Character.isLetterOrDigit(c);
+		return Character.isLetterOrDigit(c) && !Character.isLetterOrDigit(name.charAt(index - 1));
+	}
+
+	private static boolean equalsIgnoreCase(char c1, char c2) {
+		return c1 == c2 || Character.toLowerCase(c1) == Character.toLowerCase(c2);
+	}
+
+	private static String toLowerCase(String string) {
+		char[] chars= string.toCharArray();
+		for (int i= 0; i < chars.length; i++)
+			chars[i]= Character.toLowerCase(chars[i]);
+		return new String(chars);
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal.text;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalSorter;
+
+
+/**
+ * Collects the proposals computed by several processors while they arrive. If a sorter
+ * is given, the best proposals are kept in a bounded heap, so that the top of the list
+ * can be shown in order before all proposals have been computed, without sorting all
+ * proposals each time a processor returns. The other proposals follow in the order in
+ * which they left or bypassed the heap, until all proposals are sorted once by
+ * {@link #sortAll()}. Proposals the sorter considers equal keep the order of their
+ * arrival.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 3.15
+ */
+public final class RankedProposalBuffer {
+
+	/**
+	 * A proposal with the number of its arrival.
+	 */
+	private static final class Entry {
+
+		final ICompletionProposal fProposal;
+		final long fArrival;
+
+		Entry(ICompletionProposal proposal, long arrival) {
+			fProposal= proposal;
+			fArrival= arrival;
+		}
+	}
+
+	/** The sorter, <code>null</code> if the proposals keep the order of their arrival. */
+	private final ICompletionProposalSorter fSorter;
+	/** The maximal number of proposals in {@link #fTop}. */
+	private final int fCapacity;
+	/** The best proposals, the worst of them at the head of the queue. */
+	private final PriorityQueue<Entry> fTop;
+	/** The other proposals. */
+	private final List<Entry> fRest= new ArrayList<>();
+	/** The number of proposals added so far. */
+	private long fArrivals;
+
+	/**
+	 * Creates a new buffer.
+	 *
+	 * @param sorter the sorter, or <code>null</code> to keep the order of arrival
+	 * @param capacity the number of best proposals kept in order
+	 */
+	public RankedProposalBuffer(ICompletionProposalSorter sorter, int capacity) {
+		fSorter= sorter;
+		fCapacity= Math.max(1, capacity);
+		fTop= sorter == null ? null : new PriorityQueue<>(fCapacity + 1, getComparator().reversed());
+	}
+
+	/**
+	 * Returns the comparator ranking the entries by the sorter, and entries the sorter
+	 * considers equal by their arrival.
+	 *
+	 * @return the comparator
+	 */
+	private Comparator<Entry> getComparator() {
+		return (e1, e2) -> {
+			int result= fSorter.compare(e1.fProposal, e2.fProposal);
+			return result != 0 ? result : Long.compare(e1.fArrival, e2.fArrival);
+		};
+	}
+
+	/**
+	 * Adds the given proposals.
+	 *
+	 * @param proposals the proposals to add
+	 */
+	public synchronized void addAll(List<ICompletionProposal> proposals) {
+		for (ICompletionProposal proposal : proposals) {
+			Entry entry= new Entry(proposal, fArrivals++);
+			if (fTop == null) {
+				fRest.add(entry);
+			} else if (fTop.size() < fCapacity) {
+				fTop.add(entry);
+			} else if (fSorter.compare(proposal, fTop.peek().fProposal) < 0) {
+				fRest.add(fTop.poll());
+				fTop.add(entry);
+			} else {
+				fRest.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of proposals in this buffer.
+	 *
+	 * @return the number of proposals
+	 */
+	public synchronized int size() {
+		return (fTop == null ? 0 : fTop.size()) + fRest.size();
+	}
+
+	/**
+	 * Returns the proposals collected so far, the best ones sorted first, followed by the
+	 * others.
+	 *
+	 * @return a new list with the proposals
+	 */
+	public synchronized List<ICompletionProposal> getProposals() {
+		List<ICompletionProposal> proposals= new ArrayList<>(size());
+		if (fTop != null) {
+			List<Entry> top= new ArrayList<>(fTop);
+			top.sort(getComparator());
+			addProposals(top, proposals);
+		}
+		addProposals(fRest, proposals);
+		return proposals;
+	}
+
+	/**
+	 * Returns all proposals collected so far, sorted. Since no proposal outside the heap
+	 * ranks before a proposal in the heap, only the other proposals need to be sorted.
+	 *
+	 * @return a new list with the sorted proposals
+	 */
+	public synchronized List<ICompletionProposal> sortAll() {
+		if (fTop == null)
+			return getProposals();
+
+		List<Entry> top= new ArrayList<>(fTop);
+		top.sort(getComparator());
+		List<Entry> rest= new ArrayList<>(fRest);
+		rest.sort(getComparator());
+		List<ICompletionProposal> proposals= new ArrayList<>(size());
+		addProposals(top, proposals);
+		addProposals(rest, proposals);
+		return proposals;
+	}
+
+	private static void addProposals(List<Entry> entries, List<ICompletionProposal> proposals) {
+		for (Entry entry : entries)
+			proposals.add(entry.fProposal);
+	}
+
+	/**
+	 * Returns the index of the first proposal which differs between the given lists of
+	 * proposals. Proposals are compared by identity.
+	 *
+	 * @param oldProposals the proposals shown so far
+	 * @param newProposals the proposals to show
+	 * @return the index of the first differing proposal, the length of the shorter list if
+	 *         one list starts with the other
+	 */
+	public static int indexOfFirstChange(List<ICompletionProposal> oldProposals, List<ICompletionProposal> newProposals) {
+		int first= 0;
+		int oldLength= oldProposals.size();
+		int newLength= newProposals.size();
+		while (first < oldLength && first < newLength && oldProposals.get(first) == newProposals.get(first))
+			++first;
+		return first;
+	}
+}
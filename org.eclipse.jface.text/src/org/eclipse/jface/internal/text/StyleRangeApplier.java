@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal.text;
+
+import java.util.List;
+
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.custom.StyledText;
+
+import org.eclipse.core.runtime.Platform;
+
+
+/**
+ * Applies style ranges to a region of a styled text widget. The new style ranges are
+ * compared with the ones currently set in the widget, and only the smallest sub-region
+ * containing all differences is replaced. Style ranges with similar styles share one
+ * style instance when handed over to the widget.
+ * <p>
+ * The number of style ranges applied to the widget is counted, see
+ * {@link #getAppliedCount()} and {@link #getRequestedCount()}.
+ * </p>
+ *
+ * @since 3.15
+ */
+public final class StyleRangeApplier {
+
+	/** Debug option for tracing the number of applied style ranges. */
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jface.text/debug/TextViewer/StyleRanges")); //$NON-NLS-1$//$NON-NLS-2$
+
+	/** The number of style ranges applied to the widget by the last call of {@link #apply}. */
+	private int fAppliedCount;
+	/** The number of style ranges given to the last call of {@link #apply}. */
+	private int fRequestedCount;
+	/** The number of style ranges applied to the widget since this applier was created. */
+	private long fTotalAppliedCount;
+	/** The number of style ranges given to this applier since it was created. */
+	private long fTotalRequestedCount;
+
+	/**
+	 * Replaces the style ranges of the given widget region by the given ones, unless the
+	 * widget already shows the same styles.
+	 *
+	 * @param widget the styled text widget
+	 * @param offset the offset of the widget region
+	 * @param length the length of the widget region
+	 * @param ranges the style ranges in widget coordinates, ordered and not overlapping
+	 * @return <code>true</code> if the styles of the widget have been changed
+	 */
+	public boolean apply(StyledText widget, int offset, int length, List<StyleRange> ranges) {
+		int count= ranges.size();
+		int[] newRanges= new int[2 * count];
+		StyleRange[] newStyles= new StyleRange[count];
+		toRanges(ranges, newRanges, newStyles);
+
+		int[] oldRanges= widget.getRanges(offset, length);
+		StyleRange[] oldStyles= widget.getStyleRanges(offset, length, false);
+
+		int end= offset + length;
+		int start= firstDifference(oldRanges, oldStyles, newRanges, newStyles, offset, end);
+		if (start == -1) {
+			countApplied(count, 0);
+			return false;
+		}
+		end= lastDifference(oldRanges, oldStyles, newRanges, newStyles, start, end);
+
+		int first= 0;
+		while (first < count && newRanges[2 * first] + newRanges[2 * first + 1] <= start)
+			++first;
+		int last= first;
+		while (last < count && newRanges[2 * last] < end)
+			++last;
+
+		int[] appliedRanges= new int[2 * (last - first)];
+		StyleRange[] appliedStyles= new StyleRange[last - first];
+		for (int i= first; i < last; i++) {
+			int rangeStart= Math.max(start, newRanges[2 * i]);
+			int rangeEnd= Math.min(end, newRanges[2 * i] + newRanges[2 * i + 1]);
+			appliedRanges[2 * (i - first)]= rangeStart;
+			appliedRanges[2 * (i - first) + 1]= rangeEnd - rangeStart;
+			appliedStyles[i - first]= newStyles[i];
+		}
+		widget.setStyleRanges(start, end - start, appliedRanges, appliedStyles);
+
+		countApplied(count, last - first);
+		return true;
+	}
+
+	/**
+	 * Returns the number of style ranges applied to the widget by the last application.
+	 *
+	 * @return the number of style ranges applied by the last application
+	 */
+	public int getAppliedCount() {
+		return fAppliedCount;
+	}
+
+	/**
+	 * Returns the number of style ranges given to the last application.
+	 *
+	 * @return the number of style ranges given to the last application
+	 */
+	public int getRequestedCount() {
+		return fRequestedCount;
+	}
+
+	/**
+	 * Returns the number of style ranges applied to the widget since this applier was created.
+	 *
+	 * @return the total number of applied style ranges
+	 */
+	public long getTotalAppliedCount() {
+		return fTotalAppliedCount;
+	}
+
+	/**
+	 * Returns the number of style ranges given to this applier since it was created.
+	 *
+	 * @return the total number of requested style ranges
+	 */
+	public long getTotalRequestedCount() {
+		return fTotalRequestedCount;
+	}
+
+	private void countApplied(int requested, int applied) {
+		fRequestedCount= requested;
+		fAppliedCount= applied;
+		fTotalRequestedCount+= requested;
+		fTotalAppliedCount+= applied;
+		if (DEBUG)
+			System.out.println("StyleRangeApplier: applied " + applied + " of " + requested + " style ranges"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Converts the given style ranges into offset/length pairs and styles. Similar
+	 * consecutive styles share the same style instance.
+	 *
+	 * @param ranges the style ranges
+	 * @param offsets the array to fill with the offset/length pairs
+	 * @param styles the array to fill with the styles
+	 */
+	static void toRanges(List<StyleRange> ranges, int[] offsets, StyleRange[] styles) {
+		StyleRange[] distinct= new StyleRange[8];
+		int distinctCount= 0;
+		for (int i= 0, size= ranges.size(); i < size; i++) {
+			StyleRange range= ranges.get(i);
+			offsets[2 * i]= range.start;
+			offsets[2 * i + 1]= range.length;
+
+			StyleRange style= null;
+			for (int j= 0; j < distinctCount && style == null; j++) {
+				if (distinct[j].similarTo(range))
+					style= distinct[j];
+			}
+			if (style == null) {
+				style= range;
+				if (distinctCount == distinct.length)
+					System.arraycopy(distinct, 1, distinct, 0, --distinctCount);
+				distinct[distinctCount++]= range;
+			}
+			styles[i]= style;
+		}
+	}
+
+	/**
+	 * Returns the first offset in the given region at which the old and the new
+	 * styles differ.
+	 *
+	 * @param oldRanges the old offset/length pairs
+	 * @param oldStyles the old styles
+	 * @param newRanges the new offset/length pairs
+	 * @param newStyles the new styles
+	 * @param start the start offset of the region
+	 * @param end the end offset of the region
+	 * @return the first offset with different styles or <code>-1</code> if there is none
+	 */
+	static int firstDifference(int[] oldRanges, StyleRange[] oldStyles, int[] newRanges, StyleRange[] newStyles, int start, int end) {
+		int i= 0, j= 0;
+		int offset= start;
+		while (offset < end) {
+			while (i < oldStyles.length && oldRanges[2 * i] + oldRanges[2 * i + 1] <= offset)
+				++i;
+			while (j < newStyles.length && newRanges[2 * j] + newRanges[2 * j + 1] <= offset)
+				++j;
+
+			boolean oldCovers= i < oldStyles.length && oldRanges[2 * i] <= offset;
+			boolean newCovers= j < newStyles.length && newRanges[2 * j] <= offset;
+			if (!isSimilar(oldCovers ? oldStyles[i] : null, newCovers ? newStyles[j] : null))
+				return offset;
+
+			int next= end;
+			if (i < oldStyles.length)
+				next= Math.min(next, oldCovers ? oldRanges[2 * i] + oldRanges[2 * i + 1] : oldRanges[2 * i]);
+			if (j < newStyles.length)
+				next= Math.min(next, newCovers ? newRanges[2 * j] + newRanges[2 * j + 1] : newRanges[2 * j]);
+			offset= next;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the end offset of the last character in the given region whose old and
+	 * new styles differ.
+	 *
+	 * @param oldRanges the old offset/length pairs
+	 * @param oldStyles the old styles
+	 * @param newRanges the new offset/length pairs
+	 * @param newStyles the new styles
+	 * @param start the start offset of the region
+	 * @param end the end offset of the region
+	 * @return the end offset of the last character with different styles or <code>start</code>
+	 *         if there is none
+	 */
+	static int lastDifference(int[] oldRanges, StyleRange[] oldStyles, int[] newRanges, StyleRange[] newStyles, int start, int end) {
+		int i= oldStyles.length - 1, j= newStyles.length - 1;
+		int offset= end;
+		while (offset > start) {
+			while (i >= 0 && oldRanges[2 * i] >= offset)
+				--i;
+			while (j >= 0 && newRanges[2 * j] >= offset)
+				--j;
+
+			boolean oldCovers= i >= 0 && oldRanges[2 * i] + oldRanges[2 * i + 1] >= offset;
+			boolean newCovers= j >= 0 && newRanges[2 * j] + newRanges[2 * j + 1] >= offset;
+			if (!isSimilar(oldCovers ? oldStyles[i] : null, newCovers ? newStyles[j] : null))
+				return offset;
+
+			int previous= start;
+			if (i >= 0)
+				previous= Math.max(previous, oldCovers ? oldRanges[2 * i] : oldRanges[2 * i] + oldRanges[2 * i + 1]);
+			if (j >= 0)
+				previous= Math.max(previous, newCovers ? newRanges[2 * j] : newRanges[2 * j] + newRanges[2 * j + 1]);
+			offset= previous;
+		}
+		return start;
+	}
+
+	private static boolean isSimilar(StyleRange style1, StyleRange style2) {
+		if (style1 == null)
+			return style2 == null || style2.isUnstyled();
+		if (style2 == null)
+			return style1.isUnstyled();
+		return style1 == style2 || style1.similarTo(style2);
+	}
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal.text;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jface.text.IInformationControlCreator;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextHover;
+import org.eclipse.jface.text.Region;
+
+
+/**
+ * Caches the information computed by text hovers, keyed by the text hover, the hover region
+ * and the modification stamps of the document and of the annotation model. The least recently
+ * used hover info is evicted when the cache is full. A lookup in another state of the document
+ * evicts the hover infos computed in the old state, as they can no longer be hit.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @since 3.15
+ */
+public final class TextHoverInfoCache {
+
+	/**
+	 * The hover information computed, or being computed, by a text hover for a region of a given
+	 * document and annotation model state.
+	 */
+	public static final class HoverInfo {
+
+		private final ITextHover fHover;
+		private final IRegion fRegion;
+		private final long fDocumentStamp;
+		private final Object fAnnotationModelStamp;
+		/** Completed once the information and the control creator are set. */
+		private final CompletableFuture<HoverInfo> fComputation= new CompletableFuture<>();
+		private Object fInformation;
+		private IInformationControlCreator fControlCreator;
+
+		/**
+		 * Creates a hover info which is not yet computed.
+		 *
+		 * @param hover the text hover
+		 * @param region the hover region
+		 * @param documentStamp the modification stamp of the document
+		 * @param annotationModelStamp the modification stamp of the annotation model or
+		 *            <code>null</code>
+		 */
+		public HoverInfo(ITextHover hover, IRegion region, long documentStamp, Object annotationModelStamp) {
+			fHover= hover;
+			fRegion= new Region(region.getOffset(), region.getLength());
+			fDocumentStamp= documentStamp;
+			fAnnotationModelStamp= annotationModelStamp;
+		}
+
+		/**
+		 * Returns the text hover.
+		 *
+		 * @return the text hover
+		 */
+		public ITextHover getHover() {
+			return fHover;
+		}
+
+		/**
+		 * Returns the hover region.
+		 *
+		 * @return the hover region
+		 */
+		public IRegion getRegion() {
+			return fRegion;
+		}
+
+		/**
+		 * Returns the computation of this hover info.
+		 *
+		 * @return the future completed with this hover info once it is computed
+		 */
+		public CompletableFuture<HoverInfo> getComputation() {
+			return fComputation;
+		}
+
+		/**
+		 * Tells whether this hover info has been computed successfully.
+		 *
+		 * @return <code>true</code> if the information and the control creator are set
+		 */
+		public boolean isComputed() {
+			return fComputation.isDone() && !fComputation.isCompletedExceptionally();
+		}
+
+		/**
+		 * Sets the computed information and control creator and completes the computation.
+		 *
+		 * @param information the hover information, may be <code>null</code>
+		 * @param controlCreator the control creator, may be <code>null</code>
+		 */
+		public void complete(Object information, IInformationControlCreator controlCreator) {
+			fInformation= information;
+			fControlCreator= controlCreator;
+			fComputation.complete(this);
+		}
+
+		/**
+		 * Returns the computed information.
+		 *
+		 * @return the information or <code>null</code>
+		 */
+		public Object getInformation() {
+			return fInformation;
+		}
+
+		/**
+		 * Returns the computed control creator.
+		 *
+		 * @return the control creator or <code>null</code>
+		 */
+		public IInformationControlCreator getControlCreator() {
+			return fControlCreator;
+		}
+
+		private boolean isFor(HoverInfo other) {
+			return fHover == other.fHover
+					&& fRegion.getOffset() == other.fRegion.getOffset()
+					&& fRegion.getLength() == other.fRegion.getLength()
+					&& fDocumentStamp == other.fDocumentStamp
+					&& fAnnotationModelStamp == other.fAnnotationModelStamp;
+		}
+	}
+
+
+	/** The maximal number of cached hover infos. */
+	private final int fCapacity;
+	/** The cached hover infos, most recently used first. */
+	private final LinkedList<HoverInfo> fHoverInfos= new LinkedList<>();
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param capacity the maximal number of cached hover infos
+	 */
+	public TextHoverInfoCache(int capacity) {
+		fCapacity= Math.max(1, capacity);
+	}
+
+	/**
+	 * Returns the cached hover info for the same hover, region and state as the given one, and
+	 * marks it as most recently used. Evicts the hover infos computed in another state of the
+	 * document.
+	 *
+	 * @param key the hover info to look up
+	 * @return the cached hover info or <code>null</code>
+	 */
+	public synchronized HoverInfo get(HoverInfo key) {
+		HoverInfo found= null;
+		for (Iterator<HoverInfo> iter= fHoverInfos.iterator(); iter.hasNext();) {
+			HoverInfo info= iter.next();
+			if (info.fDocumentStamp != key.fDocumentStamp) {
+				iter.remove();
+			} else if (found == null && info.isFor(key)) {
+				iter.remove();
+				found= info;
+			}
+		}
+		if (found != null)
+			fHoverInfos.addFirst(found);
+		return found;
+	}
+
+	/**
+	 * Adds the given hover info to the cache and evicts the least recently used one if the cache
+	 * is full.
+	 *
+	 * @param info the hover info
+	 */
+	public synchronized void put(HoverInfo info) {
+		fHoverInfos.addFirst(info);
+		if (fHoverInfos.size() > fCapacity)
+			fHoverInfos.removeLast();
+	}
+
+	/**
+	 * Removes the given hover info from the cache.
+	 *
+	 * @param info the hover info
+	 */
+	public synchronized void remove(HoverInfo info) {
+		fHoverInfos.remove(info);
+	}
+
+	/**
+	 * Removes all hover infos from the cache.
+	 */
+	public synchronized void clear() {
+		fHoverInfos.clear();
+	}
+
+	/**
+	 * Returns the number of cached hover infos.
+	 *
+	 * @return the number of cached hover infos
+	 */
+	public synchronized int size() {
+		return fHoverInfos.size();
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.internal.text.codemining;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.codemining.ICodeMining;
+import org.eclipse.jface.text.codemining.ICodeMiningProvider;
+
+/**
+ * Code minings grouped by position. The groups are sorted by offset and, within a group, the code
+ * minings are sorted by the rank of their provider.
+ * <p>
+ * The rank of each provider is computed once, and the code minings are sorted by primitive keys,
+ * so grouping does not compare through the list of providers and does not box any value. The code
+ * minings of a group are a view on one sorted list.
+ * </p>
+ *
+ * @since 3.15
+ */
+public final class CodeMiningLineGroups {
+
+	/**
+	 * The code minings sorted by offset, length and provider rank.
+	 */
+	private final List<ICodeMining> fMinings;
+
+	/**
+	 * The index of the first code mining of each group, followed by the number of code minings.
+	 */
+	private final int[] fGroupStarts;
+
+	/**
+	 * The number of groups.
+	 */
+	private final int fSize;
+
+	/**
+	 * Groups the given code minings by position.
+	 *
+	 * @param codeMinings the code minings to group.
+	 * @param providers   the providers ordered by rank, code minings of unknown providers are
+	 *                        sorted last.
+	 */
+	public CodeMiningLineGroups(List<? extends ICodeMining> codeMinings, List<ICodeMiningProvider> providers) {
+		int count= codeMinings.size();
+		Map<ICodeMiningProvider, Integer> ranks= new IdentityHashMap<>(providers.size());
+		for (int i= providers.size() - 1; i >= 0; i--) {
+			ranks.put(providers.get(i), Integer.valueOf(i));
+		}
+		int[] offsets= new int[count];
+		int[] lengths= new int[count];
+		int[] providerRanks= new int[count];
+		int[] order= new int[count];
+		for (int i= 0; i < count; i++) {
+			ICodeMining mining= codeMinings.get(i);
+			Position position= mining.getPosition();
+			offsets[i]= position.getOffset();
+			lengths[i]= position.getLength();
+			Integer rank= ranks.get(mining.getProvider());
+			providerRanks[i]= rank != null ? rank.intValue() : providers.size();
+			order[i]= i;
+		}
+		sort(order, new int[count], 0, count, offsets, lengths, providerRanks);
+
+		fMinings= new ArrayList<>(count);
+		int[] groupStarts= new int[count + 1];
+		int size= 0;
+		for (int i= 0; i < count; i++) {
+			int index= order[i];
+			if (i == 0 || offsets[index] != offsets[order[i - 1]] || lengths[index] != lengths[order[i - 1]]) {
+				groupStarts[size++]= i;
+			}
+			fMinings.add(codeMinings.get(index));
+		}
+		groupStarts[size]= count;
+		fGroupStarts= groupStarts;
+		fSize= size;
+	}
+
+	/**
+	 * Returns the number of groups.
+	 *
+	 * @return the number of groups.
+	 */
+	public int size() {
+		return fSize;
+	}
+
+	/**
+	 * Returns the position of the code minings of the given group.
+	 *
+	 * @param group the index of the group
+	 * @return the position of the code minings of the given group.
+	 */
+	public Position getPosition(int group) {
+		return fMinings.get(fGroupStarts[group]).getPosition();
+	}
+
+	/**
+	 * Returns the code minings of the given group sorted by provider rank.
+	 *
+	 * @param group the index of the group
+	 * @return the code minings of the given group, must not be modified.
+	 */
+	public List<ICodeMining> getMinings(int group) {
+		return fMinings.subList(fGroupStarts[group], fGroupStarts[group + 1]);
+	}
+
+	/**
+	 * Returns all code minings sorted by offset, length and provider rank.
+	 *
+	 * @return all code minings, must not be modified.
+	 */
+	public List<ICodeMining> getMinings() {
+		return fMinings;
+	}
+
+	/**
+	 * Sorts the given range of indices by offset, length and rank with a stable merge sort.
+	 *
+	 * @param order   the indices to sort
+	 * @param buffer  a buffer with the length of <code>order</code>
+	 * @param from    the start of the range, inclusive
+	 * @param to      the end of the range, exclusive
+	 * @param offsets the offsets per index
+	 * @param lengths the lengths per index
+	 * @param ranks   the provider ranks per index
+	 */
+	private static void sort(int[] order, int[] buffer, int from, int to, int[] offsets, int[] lengths, int[] ranks) {
+		if (to - from < 2) {
+			return;
+		}
+		int mid= (from + to) >>> 1;
+		sort(order, buffer, from, mid, offsets, lengths, ranks);
+		sort(order, buffer, mid, to, offsets, lengths, ranks);
+		if (compare(order[mid - 1], order[mid], offsets, lengths, ranks) <= 0) {
+			// already in order, which is the common case of providers returning sorted minings
+			return;
+		}
+		System.arraycopy(order, from, buffer, from, to - from);
+		int i= from;
+		int j= mid;
+		for (int k= from; k < to; k++) {
+			if (j >= to || (i < mid && compare(buffer[i], buffer[j], offsets, lengths, ranks) <= 0)) {
+				order[k]= buffer[i++];
+			} else {
+				order[k]= buffer[j++];
+			}
+		}
+	}
+
+	private static int compare(int a, int b, int[] offsets, int[] lengths, int[] ranks) {
+		int result= Integer.compare(offsets[a], offsets[b]);
+		if (result == 0) {
+			result= Integer.compare(lengths[a], lengths[b]);
+			if (result == 0) {
+				result= Integer.compare(ranks[a], ranks[b]);
+			}
+		}
+		return result;
+	}
+}
@@ -1,5 +1,5 @@
 /**
- *  Copyright (c) 2017 Angelo ZERR.
+ *  Copyright (c) 2017, 2018 Angelo ZERR and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,7 @@ import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
@@ -108,7 +109,9 @@ public class CodeMiningLineHeaderAnnotation extends LineHeaderAnnotation impleme
 				fResolvedMinings[i]= mining;
 			}
 		}
-		disposeMinings();
+		// dispose the old minings which are not kept
+		fMinings.stream().filter(mining -> !minings.contains(mining)).forEach(ICodeMining::dispose);
+		fMinings.clear();
 		fMonitor= monitor;
 		fMinings.addAll(minings);
 	}
@@ -194,6 +197,10 @@ public class CodeMiningLineHeaderAnnotation extends LineHeaderAnnotation impleme
 		List<ICodeMining> minings= new ArrayList<>(fMinings);
 		for (ICodeMining mining : minings) {
 			if (!mining.isResolved()) {
+				if (!isInVisibleLines()) {
+					// the annotation is not shown, the minings are resolved when it is scrolled into view.
+					return;
+				}
 				// one of mining is not resolved, resolve it and then redraw the annotation.
 				mining.resolve(getViewer(), fMonitor).thenRunAsync(() -> {
 					this.redraw();
@@ -201,8 +208,34 @@ public class CodeMiningLineHeaderAnnotation extends LineHeaderAnnotation impleme
 				return;
 			}
 		}
-		// all minings are resolved, redraw the annotation
-		super.redraw();
+		// all minings are resolved, redraw the annotation if it draws other labels than before
+		redrawIfLabelsChanged(minings);
+	}
+
+	/**
+	 * Redraws the annotation if the given resolved minings have other labels than the last drawn
+	 * minings. The last drawn minings are updated while drawing, so they are only compared and
+	 * replaced in the UI thread.
+	 *
+	 * @param minings the resolved minings
+	 */
+	private void redrawIfLabelsChanged(List<ICodeMining> minings) {
+		StyledText text= getTextWidget();
+		if (text == null || text.isDisposed()) {
+			return;
+		}
+		Display display= text.getDisplay();
+		if (display.getThread() != Thread.currentThread()) {
+			display.asyncExec(() -> {
+				if (!text.isDisposed()) {
+					redrawIfLabelsChanged(minings);
+				}
+			});
+			return;
+		}
+		if (!CodeMiningManager.replaceIfSameLabels(minings, fResolvedMinings)) {
+			super.redraw();
+		}
 	}
 
 	@Override
@@ -215,4 +248,14 @@ public class CodeMiningLineHeaderAnnotation extends LineHeaderAnnotation impleme
 	public boolean isInVisibleLines() {
 		return super.isInVisibleLines();
 	}
+
+	@Override
+	public boolean isResolved() {
+		return new ArrayList<>(fMinings).stream().allMatch(ICodeMining::isResolved);
+	}
+
+	@Override
+	public List<ICodeMining> getMinings() {
+		return new ArrayList<>(fMinings);
+	}
 }
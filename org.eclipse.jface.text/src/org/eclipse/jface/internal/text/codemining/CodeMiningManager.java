@@ -1,11 +1,11 @@
 /**
- *  Copyright (c) 2017 Angelo ZERR.
- *
+ *  Copyright (c) 2017, 2018 Angelo ZERR and others.
+ *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
  *  which accompanies this distribution, and is available at
- *  https://www.eclipse.org/legal/epl-2.0/
- *
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
  *  SPDX-License-Identifier: EPL-2.0
  *
  *  Contributors:
@@ -13,17 +13,18 @@
  */
 package org.eclipse.jface.internal.text.codemining;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.graphics.Rectangle;
 
 import org.eclipse.core.runtime.Assert;
@@ -33,22 +34,121 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.JFaceTextUtil;
 import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.codemining.ICodeMining;
 import org.eclipse.jface.text.codemining.ICodeMiningProvider;
+import org.eclipse.jface.text.codemining.ICodeMiningProviderExtension;
 import org.eclipse.jface.text.codemining.LineHeaderCodeMining;
+import org.eclipse.jface.text.source.ILineRange;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.jface.text.source.inlined.AbstractInlinedAnnotation;
 import org.eclipse.jface.text.source.inlined.InlinedAnnotationSupport;
 
 /**
  * Code Mining manager implementation.
+ * <p>
+ * Code minings are only resolved when they are shown in the viewer. Code minings which are
+ * scrolled into view are resolved when the viewport changes. Providers which implement
+ * {@link ICodeMiningProviderExtension} are only asked for the code minings of the visible lines
+ * and a margin of one page above and below them. When the viewer is scrolled outside of that
+ * region, only these providers are asked for the code minings of the newly exposed lines, the code
+ * minings of the other providers are kept and the pending resolves are not canceled.
+ * </p>
+ * <p>
+ * If all providers implement {@link ICodeMiningProviderExtension}, an update after a small
+ * change of the document only requests the code minings of the changed lines. The code mining
+ * annotations of the other lines are kept, their positions being updated by the annotation model
+ * and the positions of their code minings being moved along, and only the annotations of the
+ * changed lines are replaced and redrawn.
+ * </p>
+ * <p>
+ * The code minings of a full update, of an incremental update and of the lines scrolled into view
+ * are rendered one at a time. A full update supersedes the pending requests of the lines scrolled
+ * into view, these lines are requested again once the full update is rendered.
+ * </p>
  *
  * @since 3.13
  */
-public class CodeMiningManager implements Runnable {
+public class CodeMiningManager implements Runnable, IViewportListener {
+
+	/**
+	 * Tracks the range of the document which changed since the code minings were last rendered.
+	 */
+	private class DocumentChangeTracker implements IDocumentListener, ITextInputListener {
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// Do nothing
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int removedEnd= offset + event.getLength();
+			int insertedEnd= offset + (event.getText() != null ? event.getText().length() : 0);
+			synchronized (fDirtyLock) {
+				if (fDirtyEnd < 0) {
+					fDirtyStart= offset;
+					fDirtyEnd= insertedEnd;
+				} else {
+					// shift the end of the changed range if it follows the change
+					int end= fDirtyEnd >= removedEnd ? fDirtyEnd + insertedEnd - removedEnd : Math.min(fDirtyEnd, offset);
+					fDirtyStart= Math.min(fDirtyStart, offset);
+					fDirtyEnd= Math.max(end, insertedEnd);
+				}
+				fChangeCount++;
+			}
+		}
+
+		@Override
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			if (oldInput != null) {
+				oldInput.removeDocumentListener(this);
+			}
+		}
+
+		@Override
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			if (newInput != null) {
+				newInput.addDocumentListener(this);
+			}
+			synchronized (fDirtyLock) {
+				fDirtyStart= -1;
+				fDirtyEnd= -1;
+				fChangeCount++;
+			}
+		}
+
+		void install() {
+			fViewer.addTextInputListener(this);
+			if (fViewer.getDocument() != null) {
+				fViewer.getDocument().addDocumentListener(this);
+			}
+		}
+
+		void uninstall() {
+			fViewer.removeTextInputListener(this);
+			if (fViewer.getDocument() != null) {
+				fViewer.getDocument().removeDocumentListener(this);
+			}
+		}
+	}
+
+	/**
+	 * The maximal ratio of the document length covered by the changed lines for which the code
+	 * minings are updated incrementally.
+	 */
+	private static final int INCREMENTAL_UPDATE_RATIO= 2;
 
 	/**
 	 * The source viewer
@@ -71,7 +171,86 @@ public class CodeMiningManager implements Runnable {
 	private IProgressMonitor fMonitor;
 
 	/**
-	 * Constructor of codemining manager with the given arguments.
+	 * The progress monitor of the current request of the code minings of the lines scrolled into
+	 * view.
+	 */
+	private IProgressMonitor fViewportMonitor;
+
+	/**
+	 * The region for which the code minings of the providers which implement
+	 * {@link ICodeMiningProviderExtension} have been rendered, <code>null</code> if the code
+	 * minings of the whole document have been rendered.
+	 */
+	private volatile IRegion fRequestedRegion;
+
+	/**
+	 * The region of the pending request of the code minings of the lines scrolled into view,
+	 * <code>null</code> if there is none.
+	 */
+	private volatile IRegion fPendingViewportRegion;
+
+	/**
+	 * Tells whether the code minings of all lines have been requested and not yet rendered.
+	 */
+	private volatile boolean fFullUpdatePending;
+
+	/**
+	 * The number of requests of the code minings of all lines, guarded by the dirty lock and used
+	 * to detect the requests which are pending when a full update is rendered.
+	 */
+	private long fFullUpdateCount;
+
+	/**
+	 * The visible lines of the viewer, updated in the UI thread and used to compute the requested
+	 * region in the other threads.
+	 */
+	private volatile ILineRange fVisibleLines;
+
+	/**
+	 * Tells whether this manager is installed.
+	 */
+	private volatile boolean fInstalled;
+
+	/**
+	 * The lock serializing the rendering of the code minings.
+	 */
+	private final Object fRenderLock= new Object();
+
+	/**
+	 * The code mining annotations of the last rendering.
+	 */
+	private volatile List<ICodeMiningAnnotation> fAnnotations= Collections.emptyList();
+
+	/**
+	 * The tracker of the document changes.
+	 */
+	private final DocumentChangeTracker fDocumentChangeTracker= new DocumentChangeTracker();
+
+	/**
+	 * The lock guarding the changed range of the document.
+	 */
+	private final Object fDirtyLock= new Object();
+
+	/**
+	 * The start offset of the range of the document which changed since the code minings were
+	 * last rendered.
+	 */
+	private int fDirtyStart= -1;
+
+	/**
+	 * The end offset of the range of the document which changed since the code minings were last
+	 * rendered, <code>-1</code> if the document did not change.
+	 */
+	private int fDirtyEnd= -1;
+
+	/**
+	 * The number of document changes, used to detect changes during an update.
+	 */
+	private long fChangeCount;
+
+	/**
+	 * Constructor of codemining manager with the given arguments. The manager must be
+	 * {@link #install() installed} to render the code minings.
 	 *
 	 * @param viewer                   the source viewer
 	 * @param inlinedAnnotationSupport the inlined annotation support used to draw code minings
@@ -87,6 +266,15 @@ public class CodeMiningManager implements Runnable {
 		setCodeMiningProviders(codeMiningProviders);
 	}
 
+	/**
+	 * Installs this codemining manager. Must be called in the UI thread.
+	 */
+	public void install() {
+		fInstalled= true;
+		fViewer.addViewportListener(this);
+		fDocumentChangeTracker.install();
+	}
+
 	/**
 	 * Set the codemining providers.
 	 *
@@ -100,46 +288,135 @@ public class CodeMiningManager implements Runnable {
 	 * Uninstalls this codemining manager.
 	 */
 	public void uninstall() {
+		fInstalled= false;
 		cancel();
-		if (fInlinedAnnotationSupport != null) {
-			fInlinedAnnotationSupport.updateAnnotations(Collections.emptySet());
+		fViewer.removeViewportListener(this);
+		fDocumentChangeTracker.uninstall();
+		synchronized (fRenderLock) {
+			fAnnotations= Collections.emptyList();
+			if (fInlinedAnnotationSupport != null) {
+				fInlinedAnnotationSupport.updateAnnotations(Collections.emptySet());
+			}
 		}
 	}
 
 	/**
-	 * Collect, resolve and render the code minings of the viewer.
+	 * Collect, resolve and render the code minings of the viewer. Only the code minings of the
+	 * lines which changed since the last rendering are updated if possible.
 	 */
 	@Override
 	public void run() {
-		if (fViewer == null || fInlinedAnnotationSupport == null || fCodeMiningProviders == null
+		if (!fInstalled || fInlinedAnnotationSupport == null || fCodeMiningProviders == null
 				|| fCodeMiningProviders.size() == 0 || fViewer.getAnnotationModel() == null) {
 			return;
 		}
 		// Cancel the last progress monitor to cancel last resolve and render of code
 		// minings
-		cancel();
+		if (fMonitor != null) {
+			fMonitor.setCanceled(true);
+		}
 		// Update the code minings
 		updateCodeMinings();
 	}
 
 	/**
-	 * Update the code minings.
+	 * Collect, resolve and render the code minings of all lines of the viewer.
+	 */
+	public void refresh() {
+		synchronized (fDirtyLock) {
+			fFullUpdatePending= true;
+			fFullUpdateCount++;
+		}
+		run();
+	}
+
+	/**
+	 * Update the code minings of the changed lines, or of all lines if a full update is pending or
+	 * the code minings can not be updated incrementally.
 	 */
 	private void updateCodeMinings() {
 		// Refresh the code minings by using the new progress monitor.
 		fMonitor= new CancellationExceptionMonitor();
 		IProgressMonitor monitor= fMonitor;
+		long changeCount;
+		long fullUpdateCount;
+		IRegion changedLines;
+		synchronized (fDirtyLock) {
+			changeCount= fChangeCount;
+			changedLines= fFullUpdatePending ? null : computeChangedLines(fDirtyStart, fDirtyEnd);
+			if (changedLines == null) {
+				// supersede the pending requests of the lines scrolled into view
+				fFullUpdatePending= true;
+				fFullUpdateCount++;
+			}
+			fullUpdateCount= fFullUpdateCount;
+		}
+		if (changedLines == null && fViewportMonitor != null) {
+			fViewportMonitor.setCanceled(true);
+		}
+		// Request only the code minings of the changed lines, or restrict the providers which
+		// support it to the visible lines and a margin
+		IRegion region= changedLines != null ? changedLines : hasViewportProviders() ? computeViewportRegion(true) : null;
 		// Collect the code minings for the viewer
-		getCodeMinings(fViewer, fCodeMiningProviders, monitor).thenAccept(symbols -> {
+		getCodeMinings(fViewer, fCodeMiningProviders, region, monitor).thenAccept(symbols -> {
 			// check if request was canceled.
 			monitor.isCanceled();
 			// then group code minings by lines position
-			Map<Position, List<ICodeMining>> groups= groupByLines(symbols, fCodeMiningProviders);
-			// resolve and render code minings
-			renderCodeMinings(groups, fViewer, monitor);
+			CodeMiningLineGroups groups= new CodeMiningLineGroups(symbols, fCodeMiningProviders);
+			synchronized (fRenderLock) {
+				// resolve and render code minings
+				if (!renderCodeMinings(groups, fViewer, changedLines, monitor)) {
+					return;
+				}
+				synchronized (fDirtyLock) {
+					// the changes known when the update started are rendered
+					if (fChangeCount == changeCount) {
+						fDirtyStart= -1;
+						fDirtyEnd= -1;
+					}
+					if (changedLines == null) {
+						fRequestedRegion= region;
+						fPendingViewportRegion= null;
+						// a later full update is still pending
+						fFullUpdatePending= fFullUpdateCount != fullUpdateCount;
+					}
+				}
+			}
+			if (changedLines == null && region != null) {
+				// request the lines scrolled into view while the code minings were requested
+				postViewportUpdate();
+			}
 		});
 	}
 
+	/**
+	 * Returns the region of the lines covering the given changed range of the document if the code
+	 * minings can be updated incrementally, and <code>null</code> if all code minings must be
+	 * updated.
+	 *
+	 * @param start the start offset of the changed range
+	 * @param end   the end offset of the changed range, <code>-1</code> if the document did not
+	 *                  change
+	 * @return the region of the changed lines or <code>null</code> to update all code minings.
+	 */
+	private IRegion computeChangedLines(int start, int end) {
+		if (end < 0 || fAnnotations.isEmpty() || !fCodeMiningProviders.stream().allMatch(provider -> provider instanceof ICodeMiningProviderExtension)) {
+			return null;
+		}
+		IDocument document= fViewer.getDocument();
+		if (document == null) {
+			return null;
+		}
+		try {
+			int offset= document.getLineOffset(document.getLineOfOffset(start));
+			IRegion last= document.getLineInformationOfOffset(Math.min(end, document.getLength()));
+			int length= last.getOffset() + last.getLength() - offset;
+			return length * INCREMENTAL_UPDATE_RATIO <= document.getLength() ? new Region(offset, length) : null;
+		} catch (BadLocationException e) {
+			return null;
+		}
+	}
+
 	/**
 	 * Cancel the codemining process.
 	 */
@@ -148,6 +425,332 @@ public class CodeMiningManager implements Runnable {
 		if (fMonitor != null) {
 			fMonitor.setCanceled(true);
 		}
+		if (fViewportMonitor != null) {
+			fViewportMonitor.setCanceled(true);
+		}
+	}
+
+	@Override
+	public void viewportChanged(int verticalOffset) {
+		updateViewport();
+	}
+
+	/**
+	 * Requests the code minings of the lines scrolled outside of the rendered region and resolves
+	 * the code minings scrolled into view. Must be called in the UI thread.
+	 */
+	private void updateViewport() {
+		IRegion visibleRegion= computeViewportRegion(false);
+		if (visibleRegion == null) {
+			return;
+		}
+		IRegion requestedRegion= fRequestedRegion;
+		if (requestedRegion != null && !fFullUpdatePending && !isCovered(visibleRegion, requestedRegion)
+				&& !isCovered(visibleRegion, fPendingViewportRegion)) {
+			// the viewer was scrolled outside of the region of the provided code minings
+			updateViewportCodeMinings(requestedRegion);
+		}
+		// resolve the code minings which are scrolled into view
+		for (ICodeMiningAnnotation ann : fAnnotations) {
+			Position pos= ((AbstractInlinedAnnotation) ann).getPosition();
+			if (!pos.isDeleted() && isInRegion(pos.getOffset(), visibleRegion) && !ann.isResolved()) {
+				ann.redraw();
+			}
+		}
+	}
+
+	/**
+	 * Posts the update of the code minings of the lines scrolled outside of the rendered region to
+	 * the UI thread, for instance after the code minings of a full update have been rendered.
+	 */
+	private void postViewportUpdate() {
+		StyledText textWidget= fViewer.getTextWidget();
+		if (textWidget == null || textWidget.isDisposed()) {
+			return;
+		}
+		textWidget.getDisplay().asyncExec(() -> {
+			if (fInstalled && !textWidget.isDisposed()) {
+				updateViewport();
+			}
+		});
+	}
+
+	/**
+	 * Returns <code>true</code> if the given region is covered by the given covering region and
+	 * <code>false</code> otherwise.
+	 *
+	 * @param region         the region
+	 * @param coveringRegion the covering region, may be <code>null</code>
+	 * @return <code>true</code> if the given region is covered by the given covering region and
+	 *         <code>false</code> otherwise.
+	 */
+	private static boolean isCovered(IRegion region, IRegion coveringRegion) {
+		return coveringRegion != null && region.getOffset() >= coveringRegion.getOffset()
+				&& region.getOffset() + region.getLength() <= coveringRegion.getOffset() + coveringRegion.getLength();
+	}
+
+	/**
+	 * Requests the code minings of the lines which are scrolled into the region of the visible
+	 * lines and its margin from the providers which implement {@link ICodeMiningProviderExtension}.
+	 * The code minings of the other providers are kept and the pending resolves are not canceled.
+	 *
+	 * @param requestedRegion the region for which the code minings have been rendered
+	 */
+	private void updateViewportCodeMinings(IRegion requestedRegion) {
+		if (fCodeMiningProviders == null || fViewer.getAnnotationModel() == null) {
+			return;
+		}
+		IRegion region= computeViewportRegion(true);
+		IRegion exposedRegion= region != null ? computeExposedRegion(region, requestedRegion) : null;
+		if (exposedRegion == null) {
+			return;
+		}
+		fPendingViewportRegion= region;
+		// cancel only the last request of the lines scrolled into view
+		if (fViewportMonitor != null) {
+			fViewportMonitor.setCanceled(true);
+		}
+		fViewportMonitor= new CancellationExceptionMonitor();
+		IProgressMonitor monitor= fViewportMonitor;
+		IProgressMonitor resolveMonitor= fMonitor;
+		List<ICodeMiningProvider> providers= fCodeMiningProviders.stream()
+				.filter(provider -> provider instanceof ICodeMiningProviderExtension)
+				.collect(Collectors.toList());
+		getCodeMinings(fViewer, providers, exposedRegion, monitor).thenAccept(symbols -> {
+			// check if request was canceled.
+			monitor.isCanceled();
+			CodeMiningLineGroups groups= new CodeMiningLineGroups(symbols, fCodeMiningProviders);
+			renderViewportCodeMinings(groups, region, exposedRegion, monitor, resolveMonitor);
+		});
+	}
+
+	/**
+	 * Returns the part of the given region which is not covered by the requested region. If the
+	 * given region exceeds the requested region on both sides, the whole given region is returned.
+	 *
+	 * @param region          the region of the visible lines and their margin
+	 * @param requestedRegion the region for which the code minings have been requested
+	 * @return the part of the given region which is not covered by the requested region, or
+	 *         <code>null</code> if it is covered.
+	 */
+	private static IRegion computeExposedRegion(IRegion region, IRegion requestedRegion) {
+		int start= region.getOffset();
+		int end= start + region.getLength();
+		int requestedStart= requestedRegion.getOffset();
+		int requestedEnd= requestedStart + requestedRegion.getLength();
+		if (end < requestedStart || start > requestedEnd || (start < requestedStart && end > requestedEnd)) {
+			return region;
+		}
+		if (start < requestedStart) {
+			// the lines above the requested region, up to the end of the line before it
+			return new Region(start, requestedStart - 1 - start);
+		}
+		if (end > requestedEnd) {
+			// the lines below the requested region, after the delimiter of its last line
+			return new Region(requestedEnd + 1, end - requestedEnd - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Renders the code minings of the providers which implement
+	 * {@link ICodeMiningProviderExtension} in the given exposed region. The code minings of the
+	 * other providers are kept in the annotations of the exposed region, and the annotations of
+	 * the other lines are kept unchanged.
+	 *
+	 * @param groups         the code minings of the exposed region grouped by lines position
+	 * @param region         the region of the visible lines and their margin
+	 * @param exposedRegion  the region of the lines scrolled into view
+	 * @param monitor        the progress monitor of the request
+	 * @param resolveMonitor the progress monitor used to resolve the code minings
+	 */
+	private void renderViewportCodeMinings(CodeMiningLineGroups groups, IRegion region, IRegion exposedRegion,
+			IProgressMonitor monitor, IProgressMonitor resolveMonitor) {
+		synchronized (fRenderLock) {
+			// check if request was canceled or superseded by a full update.
+			monitor.isCanceled();
+			if (!fInstalled || fFullUpdatePending || fViewer.getDocument() == null) {
+				// the editor is closed or the full update renders the lines scrolled into view
+				return;
+			}
+			doRenderViewportCodeMinings(groups, exposedRegion, monitor, resolveMonitor);
+			fRequestedRegion= region;
+			fPendingViewportRegion= null;
+		}
+	}
+
+	/**
+	 * Renders the code minings of the lines scrolled into view, must be called with the render
+	 * lock held.
+	 *
+	 * @param groups         the code minings of the exposed region grouped by lines position
+	 * @param exposedRegion  the region of the lines scrolled into view
+	 * @param monitor        the progress monitor of the request
+	 * @param resolveMonitor the progress monitor used to resolve the code minings
+	 */
+	private void doRenderViewportCodeMinings(CodeMiningLineGroups groups, IRegion exposedRegion, IProgressMonitor monitor,
+			IProgressMonitor resolveMonitor) {
+		List<ICodeMiningAnnotation> existingAnnotations= fAnnotations;
+		long[] existingKeys= new long[existingAnnotations.size()];
+		for (int i= 0; i < existingKeys.length; i++) {
+			Position pos= ((AbstractInlinedAnnotation) existingAnnotations.get(i)).getPosition();
+			existingKeys[i]= ((long) pos.getOffset() << 32) | i;
+		}
+		Arrays.sort(existingKeys);
+		List<ICodeMiningAnnotation> miningAnnotations= new ArrayList<>(existingAnnotations.size() + groups.size());
+		List<ICodeMiningAnnotation> annotationsToRedraw= new ArrayList<>();
+		Set<ICodeMiningAnnotation> updatedAnnotations= new HashSet<>();
+		for (int i= 0; i < groups.size(); i++) {
+			// check if request was canceled.
+			monitor.isCanceled();
+			Position groupPos= groups.getPosition(i);
+			if (!isInRegion(groupPos.getOffset(), exposedRegion)) {
+				// providers may return code minings outside of the region
+				continue;
+			}
+			List<ICodeMining> minings= new ArrayList<>(groups.getMinings(i));
+			ICodeMiningAnnotation ann= findExistingAnnotation(existingAnnotations, existingKeys, groupPos);
+			if (ann == null) {
+				Position pos= new Position(groupPos.getOffset(), groupPos.getLength());
+				boolean inLineHeader= minings.get(0) instanceof LineHeaderCodeMining;
+				ann= inLineHeader ? new CodeMiningLineHeaderAnnotation(pos, fViewer) : new CodeMiningLineContentAnnotation(pos, fViewer);
+			} else {
+				// keep the code minings of the other providers
+				reanchorMinings(ann);
+				minings.addAll(getDocumentMinings(ann));
+				minings.sort(Comparator.comparingInt(mining -> getProviderRank(mining.getProvider())));
+				if (ann.isInVisibleLines()) {
+					annotationsToRedraw.add(ann);
+				}
+			}
+			ann.update(minings, resolveMonitor);
+			updatedAnnotations.add(ann);
+			miningAnnotations.add(ann);
+		}
+		for (ICodeMiningAnnotation ann : existingAnnotations) {
+			Position pos= ((AbstractInlinedAnnotation) ann).getPosition();
+			if (pos.isDeleted() || updatedAnnotations.contains(ann)) {
+				continue;
+			}
+			reanchorMinings(ann);
+			if (isInRegion(pos.getOffset(), exposedRegion)) {
+				// the providers do not provide code minings for these lines anymore
+				List<ICodeMining> minings= getDocumentMinings(ann);
+				if (minings.isEmpty()) {
+					continue;
+				}
+				if (minings.size() < ann.getMinings().size()) {
+					ann.update(minings, resolveMonitor);
+					if (ann.isInVisibleLines()) {
+						annotationsToRedraw.add(ann);
+					}
+				}
+			}
+			miningAnnotations.add(ann);
+		}
+		// check if request was canceled.
+		monitor.isCanceled();
+		Set<AbstractInlinedAnnotation> currentAnnotations= new HashSet<>(miningAnnotations.size() * 4 / 3 + 1);
+		for (ICodeMiningAnnotation ann : miningAnnotations) {
+			currentAnnotations.add((AbstractInlinedAnnotation) ann);
+		}
+		fInlinedAnnotationSupport.updateAnnotations(currentAnnotations);
+		fAnnotations= miningAnnotations;
+		for (ICodeMiningAnnotation ann : annotationsToRedraw) {
+			ann.redraw();
+		}
+	}
+
+	/**
+	 * Moves the code minings of the given annotation to the position of the annotation. The
+	 * position of the annotation is updated by the annotation model when the document changes,
+	 * whereas the positions of the code minings are not registered with the document and are
+	 * stale after a change before them.
+	 *
+	 * @param ann the code mining annotation
+	 */
+	private static void reanchorMinings(ICodeMiningAnnotation ann) {
+		Position pos= ((AbstractInlinedAnnotation) ann).getPosition();
+		for (ICodeMining mining : ann.getMinings()) {
+			Position miningPos= mining.getPosition();
+			if (miningPos != null && miningPos != pos) {
+				miningPos.setOffset(pos.getOffset());
+				miningPos.setLength(pos.getLength());
+			}
+		}
+	}
+
+	/**
+	 * Returns the code minings of the given annotation whose providers do not implement
+	 * {@link ICodeMiningProviderExtension}, and which are provided for the whole document.
+	 *
+	 * @param ann the code mining annotation
+	 * @return the code minings of the given annotation provided for the whole document.
+	 */
+	private static List<ICodeMining> getDocumentMinings(ICodeMiningAnnotation ann) {
+		return ann.getMinings().stream()
+				.filter(mining -> !(mining.getProvider() instanceof ICodeMiningProviderExtension))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns the rank of the given provider, the providers which are unknown are ranked last.
+	 *
+	 * @param provider the code mining provider
+	 * @return the rank of the given provider.
+	 */
+	private int getProviderRank(ICodeMiningProvider provider) {
+		int rank= fCodeMiningProviders.indexOf(provider);
+		return rank >= 0 ? rank : fCodeMiningProviders.size();
+	}
+
+	/**
+	 * Returns <code>true</code> if one of the providers implements
+	 * {@link ICodeMiningProviderExtension} and <code>false</code> otherwise.
+	 *
+	 * @return <code>true</code> if one of the providers implements
+	 *         {@link ICodeMiningProviderExtension} and <code>false</code> otherwise.
+	 */
+	private boolean hasViewportProviders() {
+		return fCodeMiningProviders.stream().anyMatch(provider -> provider instanceof ICodeMiningProviderExtension);
+	}
+
+	/**
+	 * Returns the region of the document covering the visible lines of the viewer and, if
+	 * requested, a margin of one page above and below them. Outside of the UI thread, the visible
+	 * lines of the last computation in the UI thread are used.
+	 *
+	 * @param withMargin <code>true</code> to add a margin to the visible lines
+	 * @return the region of the visible lines or <code>null</code> if it can not be computed.
+	 */
+	private IRegion computeViewportRegion(boolean withMargin) {
+		StyledText textWidget= fViewer.getTextWidget();
+		if (textWidget == null || textWidget.isDisposed()) {
+			return null;
+		}
+		ILineRange lines;
+		if (textWidget.getDisplay().getThread() == Thread.currentThread()) {
+			lines= JFaceTextUtil.getVisibleModelLines(fViewer);
+			fVisibleLines= lines;
+		} else {
+			// do not block on the UI thread, the lines scrolled into view are requested when the
+			// viewport changes
+			lines= fVisibleLines;
+		}
+		IDocument document= fViewer.getDocument();
+		if (document == null || lines == null) {
+			return null;
+		}
+		int margin= withMargin ? lines.getNumberOfLines() : 0;
+		int firstLine= Math.max(0, lines.getStartLine() - margin);
+		int lastLine= Math.min(document.getNumberOfLines() - 1, lines.getStartLine() + lines.getNumberOfLines() - 1 + margin);
+		try {
+			int offset= document.getLineOffset(firstLine);
+			IRegion last= document.getLineInformation(Math.max(firstLine, lastLine));
+			return new Region(offset, last.getOffset() + last.getLength() - offset);
+		} catch (BadLocationException e) {
+			return null;
+		}
 	}
 
 	private static void logCodeMiningProviderException(Throwable e) {
@@ -162,14 +765,19 @@ public class CodeMiningManager implements Runnable {
 	 *
 	 * @param viewer    the text viewer.
 	 * @param providers the CodeMining list providers.
+	 * @param region    the region to which the providers which implement
+	 *                      {@link ICodeMiningProviderExtension} are restricted, <code>null</code>
+	 *                      for the whole document.
 	 * @param monitor   the progress monitor.
 	 * @return the list of {@link CompletableFuture} which provides the list of {@link ICodeMining}
 	 *         for the given <code>viewer</code> by using the given providers.
 	 */
 	private static CompletableFuture<List<? extends ICodeMining>> getCodeMinings(ITextViewer viewer,
-			List<ICodeMiningProvider> providers, IProgressMonitor monitor) {
+			List<ICodeMiningProvider> providers, IRegion region, IProgressMonitor monitor) {
 		List<CompletableFuture<List<? extends ICodeMining>>> com= providers.stream()
-				.map(provider -> provider.provideCodeMinings(viewer, monitor))
+				.map(provider -> region != null && provider instanceof ICodeMiningProviderExtension
+						? ((ICodeMiningProviderExtension) provider).provideCodeMinings(viewer, region, monitor)
+						: provider.provideCodeMinings(viewer, monitor))
 				.filter(c -> c != null)
 				.map(future -> future.exceptionally(e -> {
 					logCodeMiningProviderException(e);
@@ -181,76 +789,114 @@ public class CodeMiningManager implements Runnable {
 	}
 
 	/**
-	 * Returns a sorted Map which groups the given code minings by same position line.
-	 *
-	 * @param codeMinings list of code minings to group.
-	 * @param providers   CodeMining providers used to retrieve code minings.
-	 * @return a sorted Map which groups the given code minings by same position line.
-	 */
-	private static Map<Position, List<ICodeMining>> groupByLines(List<? extends ICodeMining> codeMinings,
-			List<ICodeMiningProvider> providers) {
-		// sort code minings by lineNumber and provider-rank if
-		Collections.sort(codeMinings, (a, b) -> {
-			if (a.getPosition().offset < b.getPosition().offset) {
-				return -1;
-			} else if (a.getPosition().offset > b.getPosition().offset) {
-				return 1;
-			} else if (providers.indexOf(a.getProvider()) < providers.indexOf(b.getProvider())) {
-				return -1;
-			} else if (providers.indexOf(a.getProvider()) > providers.indexOf(b.getProvider())) {
-				return 1;
-			} else {
-				return 0;
-			}
-		});
-		return codeMinings.stream().collect(Collectors.groupingBy(ICodeMining::getPosition, LinkedHashMap::new,
-				Collectors.mapping(Function.identity(), Collectors.toList())));
-	}
-
-	/**
-	 * Render the codemining grouped by line position.
+	 * Render the codemining grouped by line position, must be called with the render lock held.
 	 *
-	 * @param groups  code minings grouped by lines position
-	 * @param viewer  the viewer
-	 * @param monitor the progress monitor
+	 * @param groups       code minings grouped by lines position
+	 * @param viewer       the viewer
+	 * @param changedLines the region of the changed lines whose code minings are rendered, the
+	 *                         annotations of the other lines are kept, or <code>null</code> to
+	 *                         render the code minings of all lines.
+	 * @param monitor      the progress monitor
+	 * @return <code>true</code> if the code minings have been rendered and <code>false</code> if
+	 *         the viewer is closed.
 	 */
-	private void renderCodeMinings(Map<Position, List<ICodeMining>> groups, ISourceViewer viewer,
+	private boolean renderCodeMinings(CodeMiningLineGroups groups, ISourceViewer viewer, IRegion changedLines,
 			IProgressMonitor monitor) {
 		// check if request was canceled.
 		monitor.isCanceled();
 		IDocument document= viewer != null ? viewer.getDocument() : null;
-		if (document == null) {
+		if (!fInstalled || document == null) {
 			// this case comes from when editor is closed before codemining rendered is
 			// done.
-			return;
+			return false;
 		}
-		Set<ICodeMiningAnnotation> annotationsToRedraw= new HashSet<>();
-		Set<AbstractInlinedAnnotation> currentAnnotations= new HashSet<>();
+		List<ICodeMiningAnnotation> annotationsToRedraw= new ArrayList<>();
+		List<ICodeMiningAnnotation> miningAnnotations= new ArrayList<>(groups.size());
+		// index the existing annotations by offset to reuse the annotation of each line
+		List<ICodeMiningAnnotation> existingAnnotations= fAnnotations;
+		long[] existingKeys= new long[existingAnnotations.size()];
+		for (int i= 0; i < existingKeys.length; i++) {
+			Position pos= ((AbstractInlinedAnnotation) existingAnnotations.get(i)).getPosition();
+			existingKeys[i]= ((long) pos.getOffset() << 32) | i;
+			if (changedLines != null && !pos.isDeleted() && !isInRegion(pos.getOffset(), changedLines)) {
+				// keep the annotations of the unchanged lines, with their code minings at their position
+				reanchorMinings(existingAnnotations.get(i));
+				miningAnnotations.add(existingAnnotations.get(i));
+			}
+		}
+		Arrays.sort(existingKeys);
 		// Loop for grouped code minings
-		groups.entrySet().stream().forEach(g -> {
+		for (int i= 0; i < groups.size(); i++) {
 			// check if request was canceled.
 			monitor.isCanceled();
-
-			Position pos= new Position(g.getKey().offset, g.getKey().length);
-			List<ICodeMining> minings= g.getValue();
-			boolean inLineHeader= minings.size() > 0 ? (minings.get(0) instanceof LineHeaderCodeMining) : true;
+			Position groupPos= groups.getPosition(i);
+			if (changedLines != null && !isInRegion(groupPos.getOffset(), changedLines)) {
+				// the code minings of unchanged lines are kept
+				continue;
+			}
+			List<ICodeMining> minings= groups.getMinings(i);
 			// Try to find existing annotation
-			AbstractInlinedAnnotation ann= fInlinedAnnotationSupport.findExistingAnnotation(pos);
+			ICodeMiningAnnotation ann= findExistingAnnotation(existingAnnotations, existingKeys, groupPos);
 			if (ann == null) {
 				// The annotation doesn't exists, create it.
+				Position pos= new Position(groupPos.getOffset(), groupPos.getLength());
+				boolean inLineHeader= minings.get(0) instanceof LineHeaderCodeMining;
 				ann= inLineHeader ? new CodeMiningLineHeaderAnnotation(pos, viewer) : new CodeMiningLineContentAnnotation(pos, viewer);
-			} else if (ann instanceof ICodeMiningAnnotation && ((ICodeMiningAnnotation) ann).isInVisibleLines()) {
+			} else if (ann.isInVisibleLines()) {
 				// annotation is in visible lines
-				annotationsToRedraw.add((ICodeMiningAnnotation) ann);
+				annotationsToRedraw.add(ann);
 			}
-			((ICodeMiningAnnotation) ann).update(minings, monitor);
-			currentAnnotations.add(ann);
-		});
+			ann.update(minings, monitor);
+			miningAnnotations.add(ann);
+		}
 		// check if request was canceled.
 		monitor.isCanceled();
+		Set<AbstractInlinedAnnotation> currentAnnotations= new HashSet<>(miningAnnotations.size() * 4 / 3 + 1);
+		for (ICodeMiningAnnotation ann : miningAnnotations) {
+			currentAnnotations.add((AbstractInlinedAnnotation) ann);
+		}
 		fInlinedAnnotationSupport.updateAnnotations(currentAnnotations);
+		fAnnotations= miningAnnotations;
 		// redraw the existing codemining annotations since their content can change
-		annotationsToRedraw.stream().forEach(ann -> ann.redraw());
+		for (ICodeMiningAnnotation ann : annotationsToRedraw) {
+			ann.redraw();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the existing annotation with the given position and <code>null</code> otherwise.
+	 *
+	 * @param annotations the existing annotations
+	 * @param keys        the sorted keys of the existing annotations, composed of the offset in the
+	 *                        upper and the index of the annotation in the lower 32 bits
+	 * @param position    the position
+	 * @return the existing annotation with the given position and <code>null</code> otherwise.
+	 */
+	private static ICodeMiningAnnotation findExistingAnnotation(List<ICodeMiningAnnotation> annotations, long[] keys,
+			Position position) {
+		int index= Arrays.binarySearch(keys, (long) position.getOffset() << 32);
+		for (int i= index < 0 ? -index - 1 : index; i < keys.length && (int) (keys[i] >>> 32) == position.getOffset(); i++) {
+			ICodeMiningAnnotation ann= annotations.get((int) keys[i]);
+			Position pos= ((AbstractInlinedAnnotation) ann).getPosition();
+			if (pos.getOffset() == position.getOffset() && pos.getLength() == position.getLength() && !pos.isDeleted()) {
+				return ann;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given offset is in the given region, including its end, and
+	 * <code>false</code> otherwise.
+	 *
+	 * @param offset the offset
+	 * @param region the region
+	 * @return <code>true</code> if the given offset is in the given region and <code>false</code>
+	 *         otherwise.
+	 */
+	private static boolean isInRegion(int offset, IRegion region) {
+		return offset >= region.getOffset() && offset <= region.getOffset() + region.getLength();
 	}
 
 	/**
@@ -265,6 +911,33 @@ public class CodeMiningManager implements Runnable {
 		return mining != null && mining.getLabel() != null && !mining.getLabel().isEmpty();
 	}
 
+	/**
+	 * Replaces the last drawn minings by the given resolved minings if they have the same labels.
+	 * In this case, the annotation need not be redrawn. Must be called in the UI thread, which
+	 * draws the minings.
+	 *
+	 * @param minings      the resolved minings of a codemining annotation.
+	 * @param drawnMinings the last drawn minings of the codemining annotation, may be
+	 *                         <code>null</code>.
+	 * @return <code>true</code> if the given minings have the same labels as the last drawn
+	 *         minings and <code>false</code> otherwise.
+	 */
+	static boolean replaceIfSameLabels(List<ICodeMining> minings, ICodeMining[] drawnMinings) {
+		if (drawnMinings == null || drawnMinings.length != minings.size()) {
+			return false;
+		}
+		for (int i= 0; i < drawnMinings.length; i++) {
+			ICodeMining drawnMining= drawnMinings[i];
+			if (drawnMining == null || !Objects.equals(drawnMining.getLabel(), minings.get(i).getLabel())) {
+				return false;
+			}
+		}
+		for (int i= 0; i < drawnMinings.length; i++) {
+			drawnMinings[i]= minings.get(i);
+		}
+		return true;
+	}
+
 	/**
 	 * Returns the valid code mining at the given location by using the bounds of codemining
 	 * annotations which stores only the valid code mining.
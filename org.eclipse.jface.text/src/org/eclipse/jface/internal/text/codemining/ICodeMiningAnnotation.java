@@ -46,4 +46,21 @@ public interface ICodeMiningAnnotation {
 	 *         otherwise.
 	 */
 	boolean isInVisibleLines();
+
+	/**
+	 * Return whether all current minings of the annotation are resolved.
+	 *
+	 * @return <code>true</code> if all current minings are resolved and <code>false</code>
+	 *         otherwise.
+	 * @since 3.15
+	 */
+	boolean isResolved();
+
+	/**
+	 * Returns the current minings of the annotation.
+	 *
+	 * @return the current minings of the annotation.
+	 * @since 3.15
+	 */
+	List<ICodeMining> getMinings();
 }
@@ -15,7 +15,10 @@ package org.eclipse.jface.internal.text.html;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTError;
@@ -115,6 +118,35 @@ public class BrowserInformationControl extends AbstractInformationControl implem
 
 	private static final int MIN_HEIGHT= 50;
 
+	/**
+	 * Maximal number of cached rendered inputs.
+	 * @since 3.15
+	 */
+	private static final int RENDERED_INPUT_CACHE_SIZE= 8;
+
+
+	/**
+	 * The HTML shown in the browser for an input, and the text used to compute the size hint
+	 * for it.
+	 * @since 3.15
+	 */
+	private static final class RenderedInput {
+
+		final BrowserInformationControlInput fInput;
+		final String fHtml;
+		final boolean fHasContent;
+		/** The text rendered by {@link HTML2TextReader}, or <code>null</code> if not computed yet. */
+		String fText;
+		/** The bold ranges of {@link #fText}. */
+		List<StyleRange> fBoldRanges;
+
+		RenderedInput(BrowserInformationControlInput input, String html, boolean hasContent) {
+			fInput= input;
+			fHtml= html;
+			fHasContent= hasContent;
+		}
+	}
+
 
 	/**
 	 * Availability checking cache.
@@ -143,6 +175,18 @@ public class BrowserInformationControl extends AbstractInformationControl implem
 
 	private BrowserInformationControlInput fInput;
 
+	/**
+	 * The rendered current input.
+	 * @since 3.15
+	 */
+	private RenderedInput fRenderedInput;
+
+	/**
+	 * The recently rendered inputs, most recently used first. Inputs are compared by identity.
+	 * @since 3.15
+	 */
+	private final LinkedList<RenderedInput> fRenderedInputs= new LinkedList<>();
+
 	/**
 	 * <code>true</code> iff the browser has completed loading of the last
 	 * input set via {@link #setInformation(String)}.
@@ -275,14 +319,61 @@ public class BrowserInformationControl extends AbstractInformationControl implem
 		}
 
 		fInput= (BrowserInformationControlInput)input;
+		fRenderedInput= getRenderedInput(fInput);
+		fBrowserHasContent= fRenderedInput.fHasContent;
+
+		fCompleted= false;
+		fBrowser.setText(fRenderedInput.fHtml);
+
+		for (IInputChangedListener listener : fInputChangeListeners) {
+			listener.inputChanged(fInput);
+		}
+	}
 
+	/**
+	 * Returns the rendered input for the given input. Recently rendered inputs are taken from
+	 * the cache.
+	 *
+	 * @param input the input or <code>null</code>
+	 * @return the rendered input
+	 * @since 3.15
+	 */
+	private RenderedInput getRenderedInput(BrowserInformationControlInput input) {
+		if (input != null) {
+			for (Iterator<RenderedInput> iter= fRenderedInputs.iterator(); iter.hasNext();) {
+				RenderedInput rendered= iter.next();
+				if (rendered.fInput == input) {
+					iter.remove();
+					fRenderedInputs.addFirst(rendered);
+					return rendered;
+				}
+			}
+		}
+
+		RenderedInput rendered= render(input);
+		if (input != null) {
+			fRenderedInputs.addFirst(rendered);
+			if (fRenderedInputs.size() > RENDERED_INPUT_CACHE_SIZE)
+				fRenderedInputs.removeLast();
+		}
+		return rendered;
+	}
+
+	/**
+	 * Renders the HTML to show in the browser for the given input.
+	 *
+	 * @param input the input or <code>null</code>
+	 * @return the rendered input
+	 * @since 3.15
+	 */
+	private RenderedInput render(BrowserInformationControlInput input) {
 		String content= null;
-		if (fInput != null)
-			content= fInput.getHtml();
+		if (input != null)
+			content= input.getHtml();
 
-		fBrowserHasContent= content != null && content.length() > 0;
+		boolean hasContent= content != null && content.length() > 0;
 
-		if (!fBrowserHasContent)
+		if (!hasContent)
 			content= "<html><body ></html>"; //$NON-NLS-1$
 
 		boolean RTL= (getShell().getStyle() & SWT.RIGHT_TO_LEFT) != 0;
@@ -312,12 +403,7 @@ public class BrowserInformationControl extends AbstractInformationControl implem
 		 * with "overflow:hidden;".
 		 */
 
-		fCompleted= false;
-		fBrowser.setText(content);
-
-		for (IInputChangedListener listener : fInputChangeListeners) {
-			listener.inputChanged(fInput);
-		}
+		return new RenderedInput(input, content, hasContent);
 	}
 
 	@Override
@@ -404,6 +490,8 @@ public class BrowserInformationControl extends AbstractInformationControl implem
 			fTextLayout= null;
 		}
 		fBrowser= null;
+		fRenderedInputs.clear();
+		fRenderedInput= null;
 
 		super.handleDispose();
 	}
@@ -414,25 +502,33 @@ public class BrowserInformationControl extends AbstractInformationControl implem
 		Rectangle trim= computeTrim();
 		int height= trim.height;
 
-		//FIXME: The HTML2TextReader does not render <p> like a browser.
-		// Instead of inserting an empty line, it just adds a single line break.
-		// Furthermore, the indentation of <dl><dd> elements is too small (e.g with a long @see line)
-		TextPresentation presentation= new TextPresentation();
-		String text;
-		try (HTML2TextReader reader= new HTML2TextReader(new StringReader(fInput.getHtml()), presentation)) {
-			text= reader.getString();
-		} catch (IOException e) {
-			text= ""; //$NON-NLS-1$
+		RenderedInput rendered= fRenderedInput;
+		if (rendered.fText == null) {
+			//FIXME: The HTML2TextReader does not render <p> like a browser.
+			// Instead of inserting an empty line, it just adds a single line break.
+			// Furthermore, the indentation of <dl><dd> elements is too small (e.g with a long @see line)
+			TextPresentation presentation= new TextPresentation();
+			String text;
+			try (HTML2TextReader reader= new HTML2TextReader(new StringReader(fInput.getHtml()), presentation)) {
+				text= reader.getString();
+			} catch (IOException e) {
+				text= ""; //$NON-NLS-1$
+			}
+			List<StyleRange> boldRanges= new ArrayList<>();
+			Iterator<StyleRange> iter= presentation.getAllStyleRangeIterator();
+			while (iter.hasNext()) {
+				StyleRange sr= iter.next();
+				if (sr.fontStyle == SWT.BOLD)
+					boldRanges.add(sr);
+			}
+			rendered.fBoldRanges= boldRanges;
+			rendered.fText= text;
 		}
 
-		fTextLayout.setText(text);
+		fTextLayout.setText(rendered.fText);
 		fTextLayout.setWidth(sizeConstraints == null ? SWT.DEFAULT : sizeConstraints.x - trim.width);
-		Iterator<StyleRange> iter= presentation.getAllStyleRangeIterator();
-		while (iter.hasNext()) {
-			StyleRange sr= iter.next();
-			if (sr.fontStyle == SWT.BOLD)
-				fTextLayout.setStyle(fBoldStyle, sr.start, sr.start + sr.length - 1);
-		}
+		for (StyleRange sr : rendered.fBoldRanges)
+			fTextLayout.setStyle(fBoldStyle, sr.start, sr.start + sr.length - 1);
 
 		Rectangle bounds= fTextLayout.getBounds(); // does not return minimum width, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=217446
 		int lineCount= fTextLayout.getLineCount();
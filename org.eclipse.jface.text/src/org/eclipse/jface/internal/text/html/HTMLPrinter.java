@@ -16,6 +16,10 @@ package org.eclipse.jface.internal.text.html;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Objects;
+import java.util.regex.Pattern;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTError;
@@ -42,6 +46,50 @@ public class HTMLPrinter {
 	private static volatile RGB LINK_COLOR_RGB= new RGB(0, 0, 255); // dark blue
 	private static volatile RGB ACTIVE_LINK_COLOR_RGB= new RGB(0, 0, 128); // light blue
 
+	/** The maximal number of cached page prologs. */
+	private static final int PAGE_PROLOG_CACHE_SIZE= 8;
+
+	/** The patterns of the top level font attributes replaced by {@link #convertTopLevelFont(String, FontData)}. */
+	private static final Pattern FONT_SIZE_PATTERN= Pattern.compile("(html\\s*\\{.*(?:\\s|;)font-size:\\s*)\\d+pt(\\;?.*\\})"); //$NON-NLS-1$
+	private static final Pattern FONT_WEIGHT_PATTERN= Pattern.compile("(html\\s*\\{.*(?:\\s|;)font-weight:\\s*)\\w+(\\;?.*\\})"); //$NON-NLS-1$
+	private static final Pattern FONT_STYLE_PATTERN= Pattern.compile("(html\\s*\\{.*(?:\\s|;)font-style:\\s*)\\w+(\\;?.*\\})"); //$NON-NLS-1$
+	private static final Pattern FONT_FAMILY_PATTERN= Pattern.compile("(html\\s*\\{.*(?:\\s|;)font-family:\\s*).+?(;.*\\})"); //$NON-NLS-1$
+
+	/**
+	 * A page prolog built for a style sheet and a set of colors.
+	 */
+	private static final class PageProlog {
+
+		final String fStyleSheet;
+		final RGB fFgRGB;
+		final RGB fBgRGB;
+		final RGB fLinkRGB;
+		final RGB fActiveLinkRGB;
+		final String fProlog;
+
+		PageProlog(String styleSheet, RGB fgRGB, RGB bgRGB, RGB linkRGB, RGB activeLinkRGB, String prolog) {
+			fStyleSheet= styleSheet;
+			fFgRGB= fgRGB;
+			fBgRGB= bgRGB;
+			fLinkRGB= linkRGB;
+			fActiveLinkRGB= activeLinkRGB;
+			fProlog= prolog;
+		}
+
+		boolean isFor(String styleSheet, RGB fgRGB, RGB bgRGB, RGB linkRGB, RGB activeLinkRGB) {
+			return (fStyleSheet == styleSheet || fStyleSheet != null && fStyleSheet.equals(styleSheet))
+					&& fFgRGB.equals(fgRGB) && fBgRGB.equals(bgRGB)
+					&& Objects.equals(fLinkRGB, linkRGB) && Objects.equals(fActiveLinkRGB, activeLinkRGB);
+		}
+	}
+
+	/**
+	 * The most recently used page prologs, most recently used first. Building a prolog with a
+	 * style sheet replaces the color names in the whole style sheet, and the same style sheet is
+	 * used for every hover of a kind.
+	 */
+	private static final LinkedList<PageProlog> fgPageProlog= new LinkedList<>();
+
 	private static final String UNIT; // See https://bugs.eclipse.org/bugs/show_bug.cgi?id=155993
 	static {
 		UNIT= Util.isMac() ? "px" : "pt";   //$NON-NLS-1$//$NON-NLS-2$
@@ -176,20 +224,7 @@ public class HTMLPrinter {
 	 */
 	@Deprecated
 	public static void insertPageProlog(StringBuffer buffer, int position, RGB fgRGB, RGB bgRGB, String styleSheet) {
-		if (fgRGB == null)
-			fgRGB= FG_COLOR_RGB;
-		if (bgRGB == null)
-			bgRGB= BG_COLOR_RGB;
-
-		StringBuffer pageProlog= new StringBuffer(300);
-
-		pageProlog.append("<html>"); //$NON-NLS-1$
-
-		appendStyleSheet(pageProlog, styleSheet, fgRGB, bgRGB);
-
-		appendColors(pageProlog, fgRGB, bgRGB);
-
-		buffer.insert(position, pageProlog.toString());
+		buffer.insert(position, getPageProlog(fgRGB, bgRGB, styleSheet));
 	}
 
 	/**
@@ -201,20 +236,49 @@ public class HTMLPrinter {
 	 * @param styleSheet Stylesheet
 	 */
 	public static void insertPageProlog(StringBuilder buffer, int position, RGB fgRGB, RGB bgRGB, String styleSheet) {
+		buffer.insert(position, getPageProlog(fgRGB, bgRGB, styleSheet));
+	}
+
+	/**
+	 * Returns the page prolog for the given colors and style sheet. The prolog is built once and
+	 * reused as long as the colors and the style sheet stay the same.
+	 *
+	 * @param fgRGB Foreground-Color or <code>null</code> for the information foreground color
+	 * @param bgRGB Background-Color or <code>null</code> for the information background color
+	 * @param styleSheet Stylesheet or <code>null</code>
+	 * @return the page prolog
+	 */
+	private static String getPageProlog(RGB fgRGB, RGB bgRGB, String styleSheet) {
 		if (fgRGB == null)
 			fgRGB= FG_COLOR_RGB;
 		if (bgRGB == null)
 			bgRGB= BG_COLOR_RGB;
+		RGB linkRGB= LINK_COLOR_RGB;
+		RGB activeLinkRGB= ACTIVE_LINK_COLOR_RGB;
+
+		synchronized (fgPageProlog) {
+			for (Iterator<PageProlog> iter= fgPageProlog.iterator(); iter.hasNext();) {
+				PageProlog pageProlog= iter.next();
+				if (pageProlog.isFor(styleSheet, fgRGB, bgRGB, linkRGB, activeLinkRGB)) {
+					iter.remove();
+					fgPageProlog.addFirst(pageProlog);
+					return pageProlog.fProlog;
+				}
+			}
+		}
 
 		StringBuilder pageProlog= new StringBuilder(300);
-
 		pageProlog.append("<html>"); //$NON-NLS-1$
-
-		appendStyleSheet(pageProlog, styleSheet, fgRGB, bgRGB);
-
+		appendStyleSheet(pageProlog, styleSheet, fgRGB, bgRGB, linkRGB, activeLinkRGB);
 		appendColors(pageProlog, fgRGB, bgRGB);
+		String prolog= pageProlog.toString();
 
-		buffer.insert(position,  pageProlog.toString());
+		synchronized (fgPageProlog) {
+			fgPageProlog.addFirst(new PageProlog(styleSheet, fgRGB, bgRGB, linkRGB, activeLinkRGB, prolog));
+			if (fgPageProlog.size() > PAGE_PROLOG_CACHE_SIZE)
+				fgPageProlog.removeLast();
+		}
+		return prolog;
 	}
 
 	/**
@@ -386,62 +450,29 @@ public class HTMLPrinter {
 	 * @param styleSheet the stylesheet
 	 * @param fgRGB Foreground-Color
 	 * @param bgRGB Background-Color
+	 * @param linkRGB Hyperlink-Color
+	 * @param activeLinkRGB Active-Hyperlink-Color
 	 *
 	 */
-	private static void appendStyleSheet(StringBuilder buffer, String styleSheet, RGB fgRGB, RGB bgRGB) {
-		if (styleSheet == null)
-			return;
-
-		// workaround for https://bugs.eclipse.org/318243
-		StringBuilder fg= new StringBuilder();
-		appendColor(fg, fgRGB);
-		styleSheet= styleSheet.replaceAll("InfoText", fg.toString()); //$NON-NLS-1$
-		StringBuilder bg= new StringBuilder();
-		appendColor(bg, bgRGB);
-		styleSheet= styleSheet.replaceAll("InfoBackground", bg.toString()); //$NON-NLS-1$
-
-		// replace link colors with colors from preferences
-		StringBuilder linkColor= new StringBuilder();
-		appendColor(linkColor, LINK_COLOR_RGB);
-		styleSheet= styleSheet.replaceAll("hyperlinkColor", linkColor.toString()); //$NON-NLS-1$
-		StringBuilder activeLinkColor= new StringBuilder();
-		appendColor(activeLinkColor, ACTIVE_LINK_COLOR_RGB);
-		styleSheet= styleSheet.replaceAll("activeHyperlinkColor", activeLinkColor.toString()); //$NON-NLS-1$
-
-		buffer.append("<head><style CHARSET=\"ISO-8859-1\" TYPE=\"text/css\">"); //$NON-NLS-1$
-		buffer.append(styleSheet);
-		buffer.append("</style></head>"); //$NON-NLS-1$
-	}
-
-	/**
-	 *
-	 * @param buffer the output buffer
-	 * @param styleSheet the stylesheet
-	 * @param fgRGB Foreground-Color
-	 * @param bgRGB Background-Color
-	 *
-	 * @deprecated migrate to new StringBuilder API
-	 */
-	@Deprecated
-	private static void appendStyleSheet(StringBuffer buffer, String styleSheet, RGB fgRGB, RGB bgRGB) {
+	private static void appendStyleSheet(StringBuilder buffer, String styleSheet, RGB fgRGB, RGB bgRGB, RGB linkRGB, RGB activeLinkRGB) {
 		if (styleSheet == null)
 			return;
 
 		// workaround for https://bugs.eclipse.org/318243
 		StringBuilder fg= new StringBuilder();
 		appendColor(fg, fgRGB);
-		styleSheet= styleSheet.replaceAll("InfoText", fg.toString()); //$NON-NLS-1$
+		styleSheet= styleSheet.replace("InfoText", fg); //$NON-NLS-1$
 		StringBuilder bg= new StringBuilder();
 		appendColor(bg, bgRGB);
-		styleSheet= styleSheet.replaceAll("InfoBackground", bg.toString()); //$NON-NLS-1$
+		styleSheet= styleSheet.replace("InfoBackground", bg); //$NON-NLS-1$
 
 		// replace link colors with colors from preferences
 		StringBuilder linkColor= new StringBuilder();
-		appendColor(linkColor, LINK_COLOR_RGB);
-		styleSheet= styleSheet.replaceAll("hyperlinkColor", linkColor.toString()); //$NON-NLS-1$
+		appendColor(linkColor, linkRGB);
+		styleSheet= styleSheet.replace("hyperlinkColor", linkColor); //$NON-NLS-1$
 		StringBuilder activeLinkColor= new StringBuilder();
-		appendColor(activeLinkColor, ACTIVE_LINK_COLOR_RGB);
-		styleSheet= styleSheet.replaceAll("activeHyperlinkColor", activeLinkColor.toString()); //$NON-NLS-1$
+		appendColor(activeLinkColor, activeLinkRGB);
+		styleSheet= styleSheet.replace("activeHyperlinkColor", activeLinkColor); //$NON-NLS-1$
 
 		buffer.append("<head><style CHARSET=\"ISO-8859-1\" TYPE=\"text/css\">"); //$NON-NLS-1$
 		buffer.append(styleSheet);
@@ -496,10 +527,7 @@ public class HTMLPrinter {
 	 *
 	 */
 	public static void insertPageProlog(StringBuilder buffer, int position) {
-		StringBuilder pageProlog= new StringBuilder(60);
-		pageProlog.append("<html>"); //$NON-NLS-1$
-		appendColors(pageProlog, FG_COLOR_RGB, BG_COLOR_RGB);
-		buffer.insert(position,  pageProlog.toString());
+		buffer.insert(position, getPageProlog(null, null, null));
 	}
 
 	/**
@@ -511,10 +539,7 @@ public class HTMLPrinter {
 	 */
 	@Deprecated
 	public static void insertPageProlog(StringBuffer buffer, int position) {
-		StringBuffer pageProlog= new StringBuffer(60);
-		pageProlog.append("<html>"); //$NON-NLS-1$
-		appendColors(pageProlog, FG_COLOR_RGB, BG_COLOR_RGB);
-		buffer.insert(position,  pageProlog.toString());
+		buffer.insert(position, getPageProlog(null, null, null));
 	}
 
 	/**
@@ -841,10 +866,10 @@ public class HTMLPrinter {
 		String size= Integer.toString(fontData.getHeight()) + UNIT;
 		String family= "'" + fontData.getName() + "',sans-serif"; //$NON-NLS-1$ //$NON-NLS-2$
 
-		styles= styles.replaceFirst("(html\\s*\\{.*(?:\\s|;)font-size:\\s*)\\d+pt(\\;?.*\\})", "$1" + size + "$2"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		styles= styles.replaceFirst("(html\\s*\\{.*(?:\\s|;)font-weight:\\s*)\\w+(\\;?.*\\})", "$1" + (bold ? "bold" : "normal") + "$2"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
-		styles= styles.replaceFirst("(html\\s*\\{.*(?:\\s|;)font-style:\\s*)\\w+(\\;?.*\\})", "$1" + (italic ? "italic" : "normal") + "$2"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
-		styles= styles.replaceFirst("(html\\s*\\{.*(?:\\s|;)font-family:\\s*).+?(;.*\\})", "$1" + family + "$2"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		styles= FONT_SIZE_PATTERN.matcher(styles).replaceFirst("$1" + size + "$2"); //$NON-NLS-1$ //$NON-NLS-2$
+		styles= FONT_WEIGHT_PATTERN.matcher(styles).replaceFirst("$1" + (bold ? "bold" : "normal") + "$2"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		styles= FONT_STYLE_PATTERN.matcher(styles).replaceFirst("$1" + (italic ? "italic" : "normal") + "$2"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		styles= FONT_FAMILY_PATTERN.matcher(styles).replaceFirst("$1" + family + "$2"); //$NON-NLS-1$ //$NON-NLS-2$
 		return styles;
 	}
 }
@@ -0,0 +1,102 @@
+/**
+ *  Copyright (c) 2018 IBM Corporation and others.
+ *
+ *  This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License 2.0
+ *  which accompanies this distribution, and is available at
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
+ *  SPDX-License-Identifier: EPL-2.0
+ *
+ *  Contributors:
+ *  IBM Corporation - initial API and implementation
+ */
+package org.eclipse.jface.internal.text.source;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Point;
+
+/**
+ * Cache of the extent of one text measured by an inlined annotation. The extent is measured again
+ * only when the text, the font or the resolution of the device changes, so that redrawing lines
+ * with inlined annotations does not measure their text each time.
+ *
+ * @since 3.15
+ */
+public final class TextExtentCache {
+
+	/**
+	 * The measured text, <code>null</code> if nothing is measured.
+	 */
+	private String fText;
+
+	/**
+	 * The font used to measure the text.
+	 */
+	private Font fFont;
+
+	/**
+	 * The resolution of the device used to measure the text.
+	 */
+	private Point fDPI;
+
+	/**
+	 * The extent of the text.
+	 */
+	private Point fExtent;
+
+	/**
+	 * The width of the text padded with the average character width on both sides.
+	 */
+	private int fPaddedWidth;
+
+	/**
+	 * Returns the extent of the given text drawn with the font of the given graphics context.
+	 *
+	 * @param gc   the graphics context
+	 * @param text the text to measure
+	 * @return the extent of the text, must not be modified.
+	 */
+	public Point getExtent(GC gc, String text) {
+		update(gc, text);
+		return fExtent;
+	}
+
+	/**
+	 * Returns the width of the given text drawn with the font of the given graphics context,
+	 * padded with the average character width on both sides.
+	 *
+	 * @param gc   the graphics context
+	 * @param text the text to measure
+	 * @return the padded width of the text.
+	 */
+	public int getPaddedWidth(GC gc, String text) {
+		update(gc, text);
+		return fPaddedWidth;
+	}
+
+	/**
+	 * Returns the padded width of the given text if it was the last measured text, regardless of
+	 * the font.
+	 *
+	 * @param text the text
+	 * @return the padded width of the text or <code>-1</code> if the text was not measured.
+	 */
+	public int getLastPaddedWidth(String text) {
+		return fText != null && fText.equals(text) ? fPaddedWidth : -1;
+	}
+
+	private void update(GC gc, String text) {
+		Font font= gc.getFont();
+		Point dpi= gc.getDevice().getDPI();
+		if (fText != null && fText.equals(text) && font.equals(fFont) && dpi.equals(fDPI)) {
+			return;
+		}
+		fExtent= gc.stringExtent(text);
+		fPaddedWidth= (int) (fExtent.x + 2 * gc.getFontMetrics().getAverageCharacterWidth());
+		fText= text;
+		fFont= font;
+		fDPI= dpi;
+	}
+}
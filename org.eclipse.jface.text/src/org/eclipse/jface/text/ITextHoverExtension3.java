@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text;
+
+
+/**
+ * Extension interface for {@link org.eclipse.jface.text.ITextHover}.
+ * <p>
+ * Allows hovers to let the text viewer compute their hover information ahead of the hover event,
+ * when the mouse rests over a hover region, and reuse it when the same region is hovered again
+ * while neither the document nor the annotation model of the viewer have changed.
+ * </p>
+ *
+ * @see org.eclipse.jface.text.ITextHover
+ * @since 3.15
+ */
+public interface ITextHoverExtension3 {
+
+	/**
+	 * Returns whether the hover information of this hover can be computed ahead of the hover event
+	 * and reused for the same hover region. This is only the case if the information only depends
+	 * on the hover region, the document and the annotation model of the viewer, and if
+	 * {@link ITextHover#getHoverRegion(ITextViewer, int)} can be called while the mouse rests
+	 * before the hover event.
+	 *
+	 * @return <code>true</code> if the hover information can be computed ahead and reused,
+	 *         <code>false</code> otherwise
+	 */
+	boolean canReuseHoverInfo();
+
+}
@@ -72,6 +72,7 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.internal.text.NonDeletingPositionUpdater;
 import org.eclipse.jface.internal.text.SelectionProcessor;
 import org.eclipse.jface.internal.text.StickyHoverManager;
+import org.eclipse.jface.internal.text.StyleRangeApplier;
 import org.eclipse.jface.util.Geometry;
 import org.eclipse.jface.util.OpenStrategy;
 import org.eclipse.jface.viewers.IPostSelectionProvider;
@@ -1570,6 +1571,11 @@ public class TextViewer extends Viewer implements
 	protected IEventConsumer fEventConsumer;
 	/** Indicates whether the viewer's text presentation should be replaced are modified. */
 	protected boolean fReplaceTextPresentation= false;
+	/**
+	 * Applies text presentations to the text widget, only touching the styles that changed.
+	 * @since 3.15
+	 */
+	private final StyleRangeApplier fStyleRangeApplier= new StyleRangeApplier();
 	/**
 	 * The creator of the text hover control
 	 * @since 2.0
@@ -4651,11 +4657,8 @@ public class TextViewer extends Viewer implements
 					list.add(range);
 			}
 
-			if (!list.isEmpty()) {
-				StyleRange[] ranges= new StyleRange[list.size()];
-				list.toArray(ranges);
-				fTextWidget.replaceStyleRanges(region.getOffset(), region.getLength(), ranges);
-			}
+			if (!list.isEmpty())
+				fStyleRangeApplier.apply(fTextWidget, region.getOffset(), region.getLength(), list);
 		}
 	}
 
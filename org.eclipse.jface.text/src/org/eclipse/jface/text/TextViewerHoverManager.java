@@ -14,6 +14,9 @@
 package org.eclipse.jface.text;
 
 
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.events.MouseMoveListener;
@@ -27,6 +30,13 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.jface.internal.text.TextHoverInfoCache;
+import org.eclipse.jface.internal.text.TextHoverInfoCache.HoverInfo;
+
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.jface.text.source.ISourceViewer;
+
 
 /**
  * This manager controls the layout, content, and visibility of an information
@@ -35,6 +45,17 @@ import org.eclipse.core.runtime.Status;
  * computation is performed in a dedicated background thread. This implies
  * that the used <code>ITextHover</code> objects must be capable of
  * operating in a non-UI thread.
+ * <p>
+ * For text hovers which implement {@link ITextHoverExtension3} and can reuse their
+ * hover information, the information for the region the mouse settles over is
+ * computed ahead of the hover event. Their computed information is cached per text
+ * hover, region, document modification stamp and annotation model modification
+ * stamp, so that hovering the same region again does not compute it again.
+ * A text hover may keep state between <code>getHoverRegion</code> and
+ * <code>getHoverInfo2</code>, so a hover event for the text hover which is
+ * being computed ahead is handled once that computation is done. The information
+ * of the other text hovers is computed for each hover event.
+ * </p>
  *
  * @since 2.0
  */
@@ -48,6 +69,19 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 	 */
 	public final static int WIDGET_PRIORITY= 0;
 
+	/**
+	 * Time in milliseconds the mouse has to rest before the hover information
+	 * for the region under it is computed ahead of the hover event.
+	 * @since 3.15
+	 */
+	private static final int SPECULATION_DELAY= 100;
+
+	/**
+	 * Maximal number of cached hover infos.
+	 * @since 3.15
+	 */
+	private static final int HOVER_INFO_CACHE_SIZE= 8;
+
 
 	/** The text viewer */
 	private TextViewer fTextViewer;
@@ -75,6 +109,31 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 	 * @since 3.0
 	 */
 	private IViewportListener fViewportListener;
+	/**
+	 * The cached hover infos.
+	 * @since 3.15
+	 */
+	private final TextHoverInfoCache fHoverInfos= new TextHoverInfoCache(HOVER_INFO_CACHE_SIZE);
+	/**
+	 * The thread computing hover information ahead of the hover event. Guarded by <code>fMutex</code>.
+	 * @since 3.15
+	 */
+	private Thread fSpeculationThread;
+	/**
+	 * The hover info computed by {@link #fSpeculationThread}. Guarded by <code>fMutex</code>.
+	 * @since 3.15
+	 */
+	private HoverInfo fSpeculation;
+	/**
+	 * The location and state mask of the last mouse move event.
+	 * @since 3.15
+	 */
+	private MouseEvent fLastMouseMoveEvent;
+	/**
+	 * Computes the hover information for the last mouse move location.
+	 * @since 3.15
+	 */
+	private final Runnable fSpeculator= this::speculate;
 
 
 	/**
@@ -109,6 +168,10 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 			@Override
 			public void mouseMove(MouseEvent event) {
 				fProcessMouseHoverEvent= true;
+				if ((event.stateMask & SWT.BUTTON_MASK) == 0) {
+					fLastMouseMoveEvent= event;
+					event.display.timerExec(SPECULATION_DELAY, fSpeculator);
+				}
 			}
 		};
 		fTextViewer.getTextWidget().addMouseMoveListener(fMouseMoveListener);
@@ -139,6 +202,21 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 			return;
 		}
 
+		HoverInfo speculation;
+		synchronized (fMutex) {
+			speculation= fSpeculation;
+		}
+		if (speculation != null && speculation.getHover() == hover && !speculation.getComputation().isDone()) {
+			// the text hover must not compute another region while it computes the speculated one
+			StyledText textWidget= fTextViewer.getTextWidget();
+			Display display= textWidget.getDisplay();
+			speculation.getComputation().whenComplete((info, e) -> display.asyncExec(() -> {
+				if (fTextViewer != null && !textWidget.isDisposed())
+					computeInformation();
+			}));
+			return;
+		}
+
 		final IRegion region= hover.getHoverRegion(fTextViewer, offset);
 		if (region == null) {
 			setInformation(null, null);
@@ -156,6 +234,17 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 			return;
 		}
 
+		HoverInfo key= canReuseHoverInfo(hover) ? createHoverInfo(hover, region) : null;
+		final HoverInfo cached= key != null ? fHoverInfos.get(key) : null;
+		if (cached != null && cached.isComputed()) {
+			presentHoverInfo(cached, area);
+			return;
+		}
+
+		if (cached == null && key != null)
+			fHoverInfos.put(key);
+
+		final HoverInfo hoverInfo= key;
 		fThread= new Thread("Text Viewer Hover Presenter") { //$NON-NLS-1$
 			@Override
 			public void run() {
@@ -163,33 +252,20 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 				boolean hasFinished= false;
 				try {
 					if (fThread != null) {
-						Object information;
-						try {
-							if (hover instanceof ITextHoverExtension2)
-								information= ((ITextHoverExtension2)hover).getHoverInfo2(fTextViewer, region);
-							else
-								information= hover.getHoverInfo(fTextViewer, region);
-						} catch (ArrayIndexOutOfBoundsException x) {
-							/*
-							 * This code runs in a separate thread which can
-							 * lead to text offsets being out of bounds when
-							 * computing the hover info (see bug 32848).
-							 */
-							information= null;
+						HoverInfo info;
+						if (cached != null) {
+							info= cached.getComputation().get();
+						} else {
+							info= hoverInfo != null ? hoverInfo : new HoverInfo(hover, region, IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP, null);
+							computeHoverInfo(info);
 						}
-
-						if (hover instanceof ITextHoverExtension)
-							setCustomInformationControlCreator(((ITextHoverExtension) hover).getHoverControlCreator());
-						else
-							setCustomInformationControlCreator(null);
-
-						setInformation(information, area);
-						if (information != null)
-							fTextHover= hover;
+						presentHoverInfo(info, area);
 					} else {
 						setInformation(null, null);
 					}
 					hasFinished= true;
+				} catch (InterruptedException | ExecutionException e) {
+					// The text has changed or the speculative computation failed and has reported it
 				} catch (OperationCanceledException e) {
 					// Just swallow the exception if the operation was canceled
 				} catch (RuntimeException ex) {
@@ -217,6 +293,171 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 		}
 	}
 
+	/**
+	 * Computes the hover information for the region under the location of the
+	 * last mouse move event in a background thread, if the text hover can reuse
+	 * its hover information, unless it is cached or a computation is already
+	 * running. Runs in the UI thread.
+	 *
+	 * @since 3.15
+	 */
+	private void speculate() {
+		MouseEvent event= fLastMouseMoveEvent;
+		if (fTextViewer == null || event == null || event.widget.isDisposed() || !fProcessMouseHoverEvent)
+			return;
+
+		synchronized (fMutex) {
+			if (fThread != null || fSpeculationThread != null)
+				return;
+		}
+
+		int offset= computeOffsetAtLocation(event.x, event.y);
+		if (offset == -1)
+			return;
+
+		ITextHover hover= fTextViewer.getTextHover(offset, event.stateMask);
+		if (!canReuseHoverInfo(hover))
+			return;
+
+		IRegion region= hover.getHoverRegion(fTextViewer, offset);
+		if (region == null)
+			return;
+
+		HoverInfo key= createHoverInfo(hover, region);
+		if (key == null || fHoverInfos.get(key) != null)
+			return;
+
+		synchronized (fMutex) {
+			fHoverInfos.put(key);
+			fSpeculation= key;
+			fSpeculationThread= new Thread("Text Viewer Hover Speculator") { //$NON-NLS-1$
+				@Override
+				public void run() {
+					try {
+						computeHoverInfo(key);
+					} catch (OperationCanceledException e) {
+						// Just swallow the exception if the operation was canceled
+					} catch (RuntimeException ex) {
+						String PLUGIN_ID= "org.eclipse.jface.text"; //$NON-NLS-1$
+						ILog log= Platform.getLog(Platform.getBundle(PLUGIN_ID));
+						log.log(new Status(IStatus.ERROR, PLUGIN_ID, IStatus.OK, "Unexpected runtime error while computing a text hover", ex)); //$NON-NLS-1$
+					} finally {
+						synchronized (fMutex) {
+							fSpeculationThread= null;
+							fSpeculation= null;
+						}
+					}
+				}
+			};
+			fSpeculationThread.setDaemon(true);
+			fSpeculationThread.setPriority(Thread.MIN_PRIORITY);
+			fSpeculationThread.start();
+		}
+	}
+
+	/**
+	 * Tells whether the hover information of the given text hover can be computed
+	 * ahead of the hover event and cached.
+	 *
+	 * @param hover the text hover, may be <code>null</code>
+	 * @return <code>true</code> if the text hover can reuse its hover information
+	 * @since 3.15
+	 */
+	private static boolean canReuseHoverInfo(ITextHover hover) {
+		return hover instanceof ITextHoverExtension3 && ((ITextHoverExtension3) hover).canReuseHoverInfo();
+	}
+
+	/**
+	 * Creates a hover info for the given hover and region in the current state
+	 * of the document and of the annotation model. Runs in the UI thread.
+	 *
+	 * @param hover the text hover
+	 * @param region the hover region
+	 * @return the hover info or <code>null</code> if the document has no modification stamp
+	 * @since 3.15
+	 */
+	private HoverInfo createHoverInfo(ITextHover hover, IRegion region) {
+		IDocument document= fTextViewer.getDocument();
+		if (!(document instanceof IDocumentExtension4))
+			return null;
+
+		long documentStamp= ((IDocumentExtension4) document).getModificationStamp();
+		if (documentStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+			return null;
+
+		Object annotationModelStamp= null;
+		if (fTextViewer instanceof ISourceViewer) {
+			IAnnotationModel model= ((ISourceViewer) fTextViewer).getAnnotationModel();
+			if (model instanceof IAnnotationModelExtension)
+				annotationModelStamp= ((IAnnotationModelExtension) model).getModificationStamp();
+		}
+		return new HoverInfo(hover, region, documentStamp, annotationModelStamp);
+	}
+
+	/**
+	 * Computes the information and the control creator of the given hover info and completes
+	 * its computation. A hover info whose computation fails is removed from the cache. Runs in a
+	 * background thread.
+	 *
+	 * @param info the hover info
+	 * @since 3.15
+	 */
+	private void computeHoverInfo(HoverInfo info) {
+		try {
+			ITextHover hover= info.getHover();
+			Object information;
+			try {
+				information= getHoverInfo(hover, info.getRegion());
+			} catch (ArrayIndexOutOfBoundsException x) {
+				/*
+				 * This code runs in a separate thread which can
+				 * lead to text offsets being out of bounds when
+				 * computing the hover info (see bug 32848).
+				 */
+				information= null;
+			}
+
+			IInformationControlCreator controlCreator= null;
+			if (hover instanceof ITextHoverExtension)
+				controlCreator= ((ITextHoverExtension) hover).getHoverControlCreator();
+			info.complete(information, controlCreator);
+		} catch (RuntimeException e) {
+			fHoverInfos.remove(info);
+			info.getComputation().completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the hover information of the given text hover for the given region.
+	 *
+	 * @param hover the text hover
+	 * @param region the hover region
+	 * @return the hover information or <code>null</code>
+	 * @since 3.15
+	 */
+	@SuppressWarnings("deprecation")
+	private Object getHoverInfo(ITextHover hover, IRegion region) {
+		if (hover instanceof ITextHoverExtension2)
+			return ((ITextHoverExtension2) hover).getHoverInfo2(fTextViewer, region);
+		// text hovers which do not implement ITextHoverExtension2 only provide the deprecated method
+		return hover.getHoverInfo(fTextViewer, region);
+	}
+
+	/**
+	 * Presents the information of the given computed hover info.
+	 *
+	 * @param info the computed hover info
+	 * @param area the subject area
+	 * @since 3.15
+	 */
+	private void presentHoverInfo(HoverInfo info, Rectangle area) {
+		setCustomInformationControlCreator(info.getControlCreator());
+		setInformation(info.getInformation(), area);
+		if (info.getInformation() != null)
+			fTextHover= info.getHover();
+	}
+
 	/**
 	 * As computation is done in the background, this method is
 	 * also called in the background thread. Delegates the control
@@ -369,6 +610,7 @@ class TextViewerHoverManager extends AbstractHoverInformationControlManager impl
 
 	@Override
 	public void dispose() {
+		fHoverInfos.clear();
 		if (fTextViewer != null) {
 			fTextViewer.removeViewportListener(fViewportListener);
 			fViewportListener= null;
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.codemining;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextViewer;
+
+/**
+ * Extension interface for {@link ICodeMiningProvider}.
+ * <p>
+ * Adds the ability to compute only the code minings of the lines which are shown in the viewer.
+ * The region passed to the provider covers the visible lines and a margin of lines above and
+ * below them. When the viewer is scrolled outside of that region, the code minings are
+ * requested again for the new region.
+ * </p>
+ * <p>
+ * If all code mining providers of a viewer implement this interface, the code minings are updated
+ * incrementally after a change of the document: the providers are only asked for the code minings
+ * of the changed lines, and the code minings of the other lines are kept.
+ * </p>
+ *
+ * @since 3.15
+ */
+public interface ICodeMiningProviderExtension {
+
+	/**
+	 * Compute the list of code minings {@link ICodeMining} located in the given region. Code
+	 * minings outside of the region may be returned but are not required. As for
+	 * {@link ICodeMiningProvider#provideCodeMinings(ITextViewer, IProgressMonitor)}, expensive
+	 * content should be computed in {@link ICodeMining#resolve(ITextViewer, IProgressMonitor)},
+	 * which is only called for the code minings shown in the viewer.
+	 *
+	 * @param viewer the viewer in which the command was invoked.
+	 * @param region the region of the document covering the visible lines and a margin
+	 * @param monitor A progress monitor.
+	 * @return An array of future of code minings that resolves to such. The lack of a result can be
+	 *         signaled by returning null, or an empty array.
+	 */
+	CompletableFuture<List<? extends ICodeMining>> provideCodeMinings(ITextViewer viewer, IRegion region, IProgressMonitor monitor);
+}
@@ -13,22 +13,21 @@
  *******************************************************************************/
 package org.eclipse.jface.text.contentassist;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Control;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableItem;
 
 import org.eclipse.core.runtime.Assert;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jface.internal.text.AdditionalInfoTimer;
 import org.eclipse.jface.internal.text.InformationControlReplacer;
 
 import org.eclipse.jface.text.AbstractInformationControlManager;
@@ -46,339 +45,6 @@ import org.eclipse.jface.text.IInformationControlExtension3;
  */
 class AdditionalInfoController extends AbstractInformationControlManager {
 
-	/**
-	 * A timer thread.
-	 *
-	 * @since 3.2
-	 */
-	private static abstract class Timer {
-		private static final int DELAY_UNTIL_JOB_IS_SCHEDULED= 50;
-
-		/**
-		 * A <code>Task</code> is {@link Task#run() run} when {@link #delay()} milliseconds have
-		 * elapsed after it was scheduled without a {@link #reset(ICompletionProposal) reset}
-		 * to occur.
-		 */
-		private abstract class Task implements Runnable {
-			/**
-			 * @return the delay in milliseconds before this task should be run
-			 */
-	        public abstract long delay();
-	        /**
-	         * Runs this task.
-	         */
-	        @Override
-			public abstract void run();
-	        /**
-	         * @return the task to be scheduled after this task has been run
-	         */
-	        public abstract Task nextTask();
-		}
-
-		/**
-		 * IDLE: the initial task, and active whenever the info has been shown. It cannot be run,
-		 * but specifies an infinite delay.
-		 */
-		private final Task IDLE= new Task() {
-			@Override
-			public void run() {
-				Assert.isTrue(false);
-			}
-
-			@Override
-			public Task nextTask() {
-				Assert.isTrue(false);
-			    return null;
-			}
-
-			@Override
-			public long delay() {
-				return Long.MAX_VALUE;
-			}
-
-			@Override
-			public String toString() {
-				return "IDLE"; //$NON-NLS-1$
-			}
-		};
-		/**
-		 * FIRST_WAIT: Schedules a platform {@link Job} to fetch additional info from an {@link ICompletionProposalExtension5}.
-		 */
-		private final Task FIRST_WAIT= new Task() {
-			@Override
-			public void run() {
-				final ICompletionProposalExtension5 proposal= getCurrentProposalEx();
-				Job job= new Job(JFaceTextMessages.getString("AdditionalInfoController.job_name")) { //$NON-NLS-1$
-					@Override
-					protected IStatus run(IProgressMonitor monitor) {
-						Object info;
-                        try {
-	                        info= proposal.getAdditionalProposalInfo(monitor);
-                        } catch (RuntimeException x) {
-                        	/*
-							 * XXX: This is the safest fix at this point so close to end of 3.2.
-							 *		Will be revisited when fixing https://bugs.eclipse.org/bugs/show_bug.cgi?id=101033
-                        	 */
-                        	return new Status(IStatus.WARNING, "org.eclipse.jface.text", IStatus.OK, "", x); //$NON-NLS-1$ //$NON-NLS-2$
-                        }
-						setInfo((ICompletionProposal) proposal, info);
-						return Status.OK_STATUS;
-					}
-				};
-				job.schedule();
-			}
-
-			@Override
-			public Task nextTask() {
-				return SECOND_WAIT;
-			}
-
-			@Override
-			public long delay() {
-				return DELAY_UNTIL_JOB_IS_SCHEDULED;
-			}
-
-			@Override
-			public String toString() {
-				return "FIRST_WAIT"; //$NON-NLS-1$
-			}
-		};
-		/**
-		 * SECOND_WAIT: Allows display of additional info obtained from an
-		 * {@link ICompletionProposalExtension5}.
-		 */
-		private final Task SECOND_WAIT= new Task() {
-			@Override
-			public void run() {
-				// show the info
-				allowShowing();
-			}
-
-			@Override
-			public Task nextTask() {
-				return IDLE;
-			}
-
-			@Override
-			public long delay() {
-				return fDelay - DELAY_UNTIL_JOB_IS_SCHEDULED;
-			}
-
-			@Override
-			public String toString() {
-				return "SECOND_WAIT"; //$NON-NLS-1$
-			}
-		};
-		/**
-		 * LEGACY_WAIT: Posts a runnable into the display thread to fetch additional info from non-{@link ICompletionProposalExtension5}s.
-		 */
-		private final Task LEGACY_WAIT= new Task() {
-			@Override
-			public void run() {
-				final ICompletionProposal proposal= getCurrentProposal();
-				if (!fDisplay.isDisposed()) {
-					fDisplay.asyncExec(() -> {
-						synchronized (Timer.this) {
-							if (proposal == getCurrentProposal()) {
-								Object info= proposal.getAdditionalProposalInfo();
-								showInformation(proposal, info);
-							}
-						}
-					});
-				}
-			}
-
-			@Override
-			public Task nextTask() {
-				return IDLE;
-			}
-
-			@Override
-			public long delay() {
-				return fDelay;
-			}
-
-			@Override
-			public String toString() {
-			    return "LEGACY_WAIT"; //$NON-NLS-1$
-			}
-		};
-		/**
-		 * EXIT: The task that triggers termination of the timer thread.
-		 */
-		private final Task EXIT= new Task() {
-			@Override
-			public long delay() {
-		        return 1;
-	        }
-
-			@Override
-			public Task nextTask() {
-				Assert.isTrue(false);
-		        return EXIT;
-	        }
-
-			@Override
-			public void run() {
-				Assert.isTrue(false);
-	        }
-
-			@Override
-			public String toString() {
-				return "EXIT"; //$NON-NLS-1$
-			}
-		};
-
-		/** The timer thread. */
-		private final Thread fThread;
-
-		/** The currently waiting / active task. */
-		private Task fTask;
-		/** The next wake up time. */
-		private long fNextWakeup;
-
-		private ICompletionProposal fCurrentProposal= null;
-		private Object fCurrentInfo= null;
-		private boolean fAllowShowing= false;
-
-		private final Display fDisplay;
-		private final int fDelay;
-
-		/**
-		 * Creates a new timer.
-		 *
-		 * @param display the display to use for display thread posting.
-		 * @param delay the delay until to show additional info
-		 */
-		public Timer(Display display, int delay) {
-    		fDisplay= display;
-			fDelay= delay;
-			long current= System.currentTimeMillis();
-    		schedule(IDLE, current);
-
-			fThread= new Thread((Runnable) () -> {
-				try {
-					loop();
-				} catch (InterruptedException x) {
-				}
-			}, JFaceTextMessages.getString("InfoPopup.info_delay_timer_name")); //$NON-NLS-1$
-			fThread.start();
-		}
-
-		/**
-		 * Terminates the timer thread.
-		 */
-		public synchronized final void terminate() {
-			schedule(EXIT, System.currentTimeMillis());
-			notifyAll();
-		}
-
-		/**
-		 * Resets the timer thread as the selection has changed to a new proposal.
-		 *
-		 * @param p the new proposal
-		 */
-		public synchronized final void reset(ICompletionProposal p) {
-			if (fCurrentProposal != p) {
-				fCurrentProposal= p;
-				fCurrentInfo= null;
-				fAllowShowing= false;
-
-				long oldWakeup= fNextWakeup;
-				Task task= taskOnReset(p);
-				schedule(task, System.currentTimeMillis());
-				if (fNextWakeup < oldWakeup)
-					notifyAll();
-			}
-		}
-
-        private Task taskOnReset(ICompletionProposal p) {
-			if (p == null)
-				return IDLE;
-			if (isExt5(p))
-				return FIRST_WAIT;
-			return LEGACY_WAIT;
-        }
-
-        private synchronized void loop() throws InterruptedException {
-        	long current= System.currentTimeMillis();
-        	Task task= currentTask();
-
-        	while (task != EXIT) {
-        		long delay= fNextWakeup - current;
-        		if (delay <= 0) {
-        			task.run();
-        			task= task.nextTask();
-        			schedule(task, current);
-        		} else {
-        			wait(delay);
-        			current= System.currentTimeMillis();
-        			task= currentTask();
-        		}
-        	}
-        }
-
-        private Task currentTask() {
-        	return fTask;
-        }
-
-        private void schedule(Task task, long current) {
-        	fTask= task;
-        	long nextWakeup= current + task.delay();
-        	if (nextWakeup <= current)
-        		fNextWakeup= Long.MAX_VALUE;
-        	else
-        		fNextWakeup= nextWakeup;
-        }
-
-		private boolean isExt5(ICompletionProposal p) {
-			return p instanceof ICompletionProposalExtension5;
-		}
-
-        ICompletionProposal getCurrentProposal() {
-	        return fCurrentProposal;
-        }
-
-        ICompletionProposalExtension5 getCurrentProposalEx() {
-        	Assert.isTrue(fCurrentProposal instanceof ICompletionProposalExtension5);
-        	return (ICompletionProposalExtension5) fCurrentProposal;
-        }
-
-        synchronized void setInfo(ICompletionProposal proposal, Object info) {
-        	if (proposal == fCurrentProposal) {
-        		fCurrentInfo= info;
-        		if (fAllowShowing) {
-        			triggerShowing();
-        		}
-        	}
-        }
-
-        private void triggerShowing() {
-			final Object info= fCurrentInfo;
-			if (!fDisplay.isDisposed()) {
-				fDisplay.asyncExec(() -> {
-					synchronized (Timer.this) {
-						if (info == fCurrentInfo) {
-							showInformation(fCurrentProposal, info);
-						}
-					}
-				});
-			}
-        }
-
-        /**
-         * Called in the display thread to show additional info.
-         *
-         * @param proposal the proposal to show information about
-         * @param info the information about <code>proposal</code>
-         */
-        protected abstract void showInformation(ICompletionProposal proposal, Object info);
-
-        void allowShowing() {
-        	fAllowShowing= true;
-       		triggerShowing();
-        }
-	}
 	/**
 	 * Internal table selection listener.
 	 */
@@ -415,7 +81,7 @@ class AdditionalInfoController extends AbstractInformationControlManager {
 	 * The timer thread.
 	 * @since 3.2
 	 */
-	private Timer fTimer;
+	private AdditionalInfoTimer fTimer;
 	/**
 	 * The proposal most recently set by {@link #showInformation(ICompletionProposal, Object)},
 	 * possibly <code>null</code>.
@@ -428,6 +94,11 @@ class AdditionalInfoController extends AbstractInformationControlManager {
 	 * @since 3.2
 	 */
 	private Object fInformation;
+	/**
+	 * Tells whether the info of the proposals next to the selected one is computed in advance.
+	 * @since 3.15
+	 */
+	private boolean fIsPrefetchEnabled= false;
 
 	/**
 	 * Creates a new additional information controller.
@@ -468,7 +139,9 @@ class AdditionalInfoController extends AbstractInformationControlManager {
 		fProposalTable.addSelectionListener(fSelectionListener);
 		getInternalAccessor().getInformationControlReplacer().install(fProposalTable);
 
-		fTimer= new Timer(fProposalTable.getDisplay(), fDelay) {
+		String threadName= JFaceTextMessages.getString("InfoPopup.info_delay_timer_name"); //$NON-NLS-1$
+		String jobName= JFaceTextMessages.getString("AdditionalInfoController.job_name"); //$NON-NLS-1$
+		fTimer= new AdditionalInfoTimer(fProposalTable.getDisplay(), fDelay, threadName, jobName) {
 			@Override
 			protected void showInformation(ICompletionProposal proposal, Object info) {
 				InformationControlReplacer replacer= getInternalAccessor().getInformationControlReplacer();
@@ -512,12 +185,45 @@ class AdditionalInfoController extends AbstractInformationControlManager {
 				Object d= item.getData();
 				if (d instanceof ICompletionProposal) {
 					ICompletionProposal p= (ICompletionProposal) d;
-					fTimer.reset(p);
+					fTimer.reset(p, getNeighbors(fProposalTable.getSelectionIndex()));
 				}
 			}
 		}
 	}
 
+	/**
+	 * Enables computing the info of the proposals next to the selected one in advance, so
+	 * that it can be shown without delay when the selection moves.
+	 *
+	 * @param enabled <code>true</code> to prefetch the info of the adjacent proposals
+	 * @since 3.15
+	 */
+	void setPrefetchEnabled(boolean enabled) {
+		fIsPrefetchEnabled= enabled;
+	}
+
+	/**
+	 * Returns the proposals next to the given row whose info is prefetched.
+	 *
+	 * @param index the index of the selected row
+	 * @return the proposals to prefetch, the next one first
+	 * @since 3.15
+	 */
+	private ICompletionProposal[] getNeighbors(int index) {
+		if (!fIsPrefetchEnabled || index < 0)
+			return new ICompletionProposal[0];
+
+		List<ICompletionProposal> neighbors= new ArrayList<>(2);
+		for (int neighbor : new int[] { index + 1, index - 1 }) {
+			if (neighbor >= 0 && neighbor < fProposalTable.getItemCount()) {
+				Object data= fProposalTable.getItem(neighbor).getData();
+				if (data instanceof ICompletionProposal)
+					neighbors.add((ICompletionProposal) data);
+			}
+		}
+		return neighbors.toArray(new ICompletionProposal[neighbors.size()]);
+	}
+
 	void showInformation(ICompletionProposal proposal, Object info) {
 		if (fProposalTable == null || fProposalTable.isDisposed())
 			return;
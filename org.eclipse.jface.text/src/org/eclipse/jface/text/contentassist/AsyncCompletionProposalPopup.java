@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others.
+ * Copyright (c) 2016, 2018 Red Hat Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -40,6 +40,8 @@ import org.eclipse.core.runtime.SafeRunner;
 
 import org.eclipse.jface.contentassist.IContentAssistSubjectControl;
 
+import org.eclipse.jface.internal.text.RankedProposalBuffer;
+
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
@@ -55,8 +57,19 @@ import org.eclipse.jface.text.TextUtilities;
  */
 class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 
-	private static final int MAX_WAIT_IN_MS= 50; // TODO make it a preference
+	/**
+	 * The number of best proposals shown in order while proposals are computed.
+	 *
+	 * @since 3.15
+	 */
+	private static final int STREAMING_TOP_COUNT= 100;
 	private List<CompletableFuture<List<ICompletionProposal>>> fFutures;
+	/**
+	 * The futures of {@link #fFutures} computed by demoted processors, which are not waited for.
+	 *
+	 * @since 3.15
+	 */
+	private final Set<CompletableFuture<List<ICompletionProposal>>> fDemotedFutures= Collections.synchronizedSet(new HashSet<>());
 
 	private static final class ComputingProposal implements ICompletionProposal, ICompletionProposalExtension {
 
@@ -153,9 +166,13 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 			// when the user types fast.
 			fContentAssistSubjectControlAdapter.addKeyListener(fKeyListener);
 
+			if (reuseSession())
+				return getErrorMessage();
+
 			fInvocationOffset= fContentAssistSubjectControlAdapter.getSelectedRange().x;
 			fFilterOffset= fInvocationOffset;
 			fLastCompletionOffset= fFilterOffset;
+			fIsSessionReusable= true;
 			// start invocation of processors as Futures, and make them populate the proposals upon completion
 			fFutures= buildCompletionFuturesOrJobs(fInvocationOffset);
 			runFutures(fInvocationOffset, null, true, autoActivated, true);
@@ -175,28 +192,39 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 	}
 
 	private List<ICompletionProposal> runFutures(int offset, Consumer<List<ICompletionProposal>> callback, boolean createSelector, boolean autoActivated, boolean autoInsert) {
-		List<ICompletionProposal> computedProposals= Collections.synchronizedList(new ArrayList<>());
+		RankedProposalBuffer buffer= new RankedProposalBuffer(fSorter, STREAMING_TOP_COUNT);
 		List<CompletableFuture<Void>> populateFutures= new ArrayList<>(fFutures.size());
 		for (CompletableFuture<List<ICompletionProposal>> future : fFutures) {
-			populateFutures.add(future.thenAccept(proposals -> computedProposals.addAll(proposals)));
+			populateFutures.add(future.thenAccept(buffer::addAll));
 		}
 
 		long requestBeginningTimestamp= System.currentTimeMillis();
-		long stillRemainingThreeshold= MAX_WAIT_IN_MS;
-		for (CompletableFuture<?> future : populateFutures) {
+		int budget= fContentAssistant.getProposalLatencyBudget();
+		long stillRemainingThreeshold= budget;
+		for (int i= 0; i < populateFutures.size(); i++) {
+			if (fDemotedFutures.contains(fFutures.get(i))) {
+				// processor is known to be slow, don't wait for it
+				continue;
+			}
 			try {
-				future.get(stillRemainingThreeshold, TimeUnit.MILLISECONDS);
+				populateFutures.get(i).get(stillRemainingThreeshold, TimeUnit.MILLISECONDS);
 			} catch (TimeoutException | ExecutionException | InterruptedException ex) {
 				// future failed or took more time than we want to wait
 			}
-			stillRemainingThreeshold= MAX_WAIT_IN_MS - (System.currentTimeMillis() - requestBeginningTimestamp);
-			if (stillRemainingThreeshold < 0) {
-				// we already spent too much time (more than MAX_WAIT_IN_MS), stop waiting.
+			stillRemainingThreeshold= budget - (System.currentTimeMillis() - requestBeginningTimestamp);
+			if (stillRemainingThreeshold <= 0) {
+				// we already spent the whole latency budget, stop waiting.
 				break;
 			}
 		}
-		fComputedProposals= computedProposals;
-		if (stillRemainingThreeshold > 0) { // everything ready in time, go synchronous
+		boolean isDone= true;
+		for (CompletableFuture<?> future : populateFutures)
+			isDone&= future.isDone();
+		if (isDone) { // everything ready in time, go synchronous
+			List<ICompletionProposal> computedProposals= buffer.sortAll();
+			fComputedProposals= computedProposals;
+			if (fSorter != null)
+				fIsInitialSort= true;
 			int count= computedProposals.size();
 			if (count == 0 && hideWhenNoProposals(autoActivated))
 				return computedProposals;
@@ -215,22 +243,33 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 					displayProposals();
 				}
 			}
+			return computedProposals;
 		} else { // processors took too much time, go asynchronous
 			if (createSelector) {
 				createProposalSelector();
 			}
 			ComputingProposal computingProposal= new ComputingProposal(offset, fFutures.size());
-			computedProposals.add(0, computingProposal);
+			List<ICompletionProposal> computedProposals= new ArrayList<>(buffer.size() + 1);
+			computedProposals.add(computingProposal);
+			computedProposals.addAll(buffer.getProposals());
+			fComputedProposals= computedProposals;
+			if (fSorter != null)
+				fIsInitialSort= true;
 			setProposals(fComputedProposals, false);
 			Set<CompletableFuture<Void>> remaining= Collections.synchronizedSet(new HashSet<>(populateFutures));
 			for (CompletableFuture<Void> populateFuture : populateFutures) {
 				populateFuture.thenRun(() -> {
 					remaining.removeIf(CompletableFuture::isDone);
 					computingProposal.setRemaining(remaining.size());
+					// only the best proposals are sorted until all proposals are there
+					List<ICompletionProposal> newProposals;
 					if (remaining.isEmpty()) {
-						computedProposals.remove(computingProposal);
+						newProposals= buffer.sortAll();
+					} else {
+						newProposals= new ArrayList<>(buffer.size() + 1);
+						newProposals.add(computingProposal);
+						newProposals.addAll(buffer.getProposals());
 					}
-					List<ICompletionProposal> newProposals= new ArrayList<>(computedProposals);
 					fComputedProposals= newProposals;
 					Display.getDefault().asyncExec(() -> {
 						if (autoInsert && !autoActivated && remaining.isEmpty() && newProposals.size() == 1 && canAutoInsert(newProposals.get(0))) {
@@ -240,18 +279,20 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 							}
 							return;
 						}
+						if (fSorter != null)
+							fIsInitialSort= true;
 						if (remaining.isEmpty() && callback != null) {
 							callback.accept(newProposals);
 						} else {
-							setProposals(newProposals, false);
+							updateProposals(newProposals);
 							displayProposals();
 						}
 					});
 				});
 			}
 			displayProposals();
+			return computedProposals;
 		}
-		return computedProposals;
 	}
 
 	@Override
@@ -295,6 +336,19 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 		return fComputedProposals;
 	}
 
+	@Override
+	boolean areComputedProposalsComplete() {
+		if (fComputedProposals != null && !fComputedProposals.isEmpty() && fComputedProposals.get(0) instanceof ComputingProposal)
+			return false;
+		if (fFutures != null) {
+			for (Future<?> future : fFutures) {
+				if (!future.isDone() || future.isCancelled())
+					return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	void createProposalSelector() {
 		super.createProposalSelector();
@@ -308,6 +362,7 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 			}
 			fFutures= null;
 		}
+		fDemotedFutures.clear();
 	}
 
 	@Override
@@ -345,7 +400,10 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 		}
 		List<CompletableFuture<List<ICompletionProposal>>> futures = new ArrayList<>(processors.size());
 		for (IContentAssistProcessor processor : processors) {
-			futures.add(CompletableFuture.supplyAsync(() -> {
+			boolean isDemoted= fContentAssistant.isProcessorDemoted(processor);
+			CompletableFuture<List<ICompletionProposal>> future= CompletableFuture.supplyAsync(() -> {
+				// measured in the task, the time spent in the pool's queue is not the processor's
+				long start= System.currentTimeMillis();
 				final Collection<List<ICompletionProposal>> result= new LinkedList<>();
 				SafeRunner.run(new ISafeRunnable() {
 					@Override
@@ -357,8 +415,12 @@ class AsyncCompletionProposalPopup extends CompletionProposalPopup {
 						result.add(Arrays.asList(proposals));
 					}
 				});
+				fContentAssistant.recordProcessorLatency(processor, System.currentTimeMillis() - start);
 				return result.iterator().next();
-			}));
+			});
+			if (isDemoted)
+				fDemotedFutures.add(future);
+			futures.add(future);
 		}
 		return futures;
 	}
@@ -21,7 +21,9 @@ package org.eclipse.jface.text.contentassist;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.osgi.util.TextProcessor;
 
@@ -75,7 +77,9 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.bindings.keys.KeySequence;
 import org.eclipse.jface.bindings.keys.SWTKeySupport;
 import org.eclipse.jface.contentassist.IContentAssistSubjectControl;
+import org.eclipse.jface.internal.text.CompletionProposalFilterIndex;
 import org.eclipse.jface.internal.text.InformationControlReplacer;
+import org.eclipse.jface.internal.text.RankedProposalBuffer;
 import org.eclipse.jface.internal.text.TableOwnerDrawSupport;
 import org.eclipse.jface.preference.JFacePreferences;
 import org.eclipse.jface.resource.JFaceColors;
@@ -446,6 +450,29 @@ class CompletionProposalPopup implements IContentAssistListener {
 	 */
 	boolean fIsInitialSort;
 
+	/**
+	 * The index over the display strings of {@link #fComputedProposals}, or <code>null</code>
+	 * if none has been built.
+	 *
+	 * @since 3.15
+	 */
+	private CompletionProposalFilterIndex fFilterIndex;
+
+	/**
+	 * The proposals of the last closed session, or <code>null</code> if they cannot be reused.
+	 *
+	 * @since 3.15
+	 */
+	private ReusableCompletionSession fReusableSession;
+
+	/**
+	 * Tells whether the proposals of the current session may be reused after the popup has
+	 * been closed, i.e. whether no proposal has been inserted.
+	 *
+	 * @since 3.15
+	 */
+	boolean fIsSessionReusable;
+
 	/**
 	 * Creates a new completion proposal popup for the given elements.
 	 *
@@ -495,12 +522,16 @@ class CompletionProposalPopup implements IContentAssistListener {
 			// when the user types fast.
 			fContentAssistSubjectControlAdapter.addKeyListener(fKeyListener);
 
+			if (reuseSession())
+				return getErrorMessage();
+
 			BusyIndicator.showWhile(control.getDisplay(), () -> {
 
 				fInvocationOffset= fContentAssistSubjectControlAdapter.getSelectedRange().x;
 				fFilterOffset= fInvocationOffset;
 				fLastCompletionOffset= fFilterOffset;
 				fComputedProposals= computeProposals(fInvocationOffset);
+				fIsSessionReusable= true;
 
 				int count= (fComputedProposals == null ? 0 : fComputedProposals.size());
 				if (count == 0 && hideWhenNoProposals(autoActivated))
@@ -523,6 +554,114 @@ class CompletionProposalPopup implements IContentAssistListener {
 		return getErrorMessage();
 	}
 
+	/**
+	 * Shows the proposals of the last closed session filtered for the current offset, if the
+	 * session can be reused.
+	 *
+	 * @return <code>true</code> if the session has been reused, <code>false</code> if the
+	 *         proposals have to be computed
+	 * @see IContentAssistProcessorExtension
+	 * @since 3.15
+	 */
+	boolean reuseSession() {
+		ReusableCompletionSession session= fReusableSession;
+		if (session == null)
+			return false;
+		discardReusableSession();
+
+		IDocument document= fContentAssistSubjectControlAdapter.getDocument();
+		int offset= fContentAssistSubjectControlAdapter.getSelectedRange().x;
+		String contentType= getContentType(document, offset);
+		if (contentType == null || !session.canReuse(document, offset, contentType))
+			return false;
+
+		fInvocationOffset= session.getInvocationOffset();
+		fFilterOffset= fInvocationOffset;
+		fComputedProposals= session.getProposals();
+		fFilteredProposals= fComputedProposals;
+		List<ICompletionProposal> proposals= computeFilteredProposals(offset, null);
+		if (proposals == null || proposals.isEmpty()) {
+			fComputedProposals= null;
+			fFilteredProposals= null;
+			return false;
+		}
+
+		fFilterOffset= offset;
+		fLastCompletionOffset= offset;
+		fIsSessionReusable= true;
+		createProposalSelector();
+		setProposals(proposals, false);
+		displayProposals();
+		return true;
+	}
+
+	/**
+	 * Tells whether the computed proposals are complete, so that they may be reused after
+	 * the popup has been closed.
+	 *
+	 * @return <code>true</code> if the computed proposals are complete
+	 * @since 3.15
+	 */
+	boolean areComputedProposalsComplete() {
+		return true;
+	}
+
+	/**
+	 * Forgets the proposals of the last closed session.
+	 *
+	 * @since 3.15
+	 */
+	void discardReusableSession() {
+		if (fReusableSession != null) {
+			fReusableSession.dispose();
+			fReusableSession= null;
+		}
+	}
+
+	/**
+	 * Remembers the computed proposals of the current session, if they may be reused by the
+	 * next invocation. A session remembered before is kept if there is nothing to remember,
+	 * since this method is called again when the closed popup's shell gets disposed.
+	 *
+	 * @since 3.15
+	 */
+	private void rememberReusableSession() {
+		if (!fIsSessionReusable || fComputedProposals == null || fComputedProposals.isEmpty() || !areComputedProposalsComplete())
+			return;
+
+		IDocument document= fContentAssistSubjectControlAdapter.getDocument();
+		String contentType= getContentType(document, fInvocationOffset);
+		if (document == null || contentType == null || !fContentAssistant.isCompletionSessionReusable(contentType))
+			return;
+
+		try {
+			int offset= fContentAssistSubjectControlAdapter.getSelectedRange().x;
+			ReusableCompletionSession session= new ReusableCompletionSession(document, contentType, fInvocationOffset, offset, fComputedProposals);
+			discardReusableSession();
+			fReusableSession= session;
+		} catch (BadLocationException x) {
+			// don't reuse
+		}
+	}
+
+	/**
+	 * Returns the content type at the given offset of the given document.
+	 *
+	 * @param document the document, may be <code>null</code>
+	 * @param offset the offset
+	 * @return the content type, or <code>null</code> if the offset is not valid
+	 * @since 3.15
+	 */
+	private String getContentType(IDocument document, int offset) {
+		if (document == null)
+			return IDocument.DEFAULT_CONTENT_TYPE;
+		try {
+			return TextUtilities.getContentType(document, fContentAssistant.getDocumentPartitioning(), offset, true);
+		} catch (BadLocationException x) {
+			return null;
+		}
+	}
+
 	/**
 	 * Hides the popup and returns <code>true</code> if the popup is configured
 	 * to never display an empty list. Returns <code>false</code> otherwise.
@@ -963,6 +1102,7 @@ class CompletionProposalPopup implements IContentAssistListener {
 	void insertProposal(ICompletionProposal p, char trigger, int stateMask, final int offset) {
 
 		fInserting= true;
+		fIsSessionReusable= false;
 		IRewriteTarget target= null;
 		IEditingSupport helper= new IEditingSupport() {
 
@@ -1139,8 +1279,11 @@ class CompletionProposalPopup implements IContentAssistListener {
 			fLastProposal= null;
 		}
 
+		rememberReusableSession();
+		fIsSessionReusable= false;
 		fFilteredProposals= null;
 		fComputedProposals= null;
+		fFilterIndex= null;
 
 		fContentAssistant.possibleCompletionsClosed();
 	}
@@ -1199,6 +1342,49 @@ class CompletionProposalPopup implements IContentAssistListener {
 		}
 	}
 
+	/**
+	 * Replaces the displayed proposals by the given ones, which usually extend or re-rank
+	 * the displayed proposals while more proposals are computed. Unlike
+	 * {@link #setProposals(List, boolean)}, the proposals are not sorted, only the rows
+	 * starting at the first changed proposal are cleared, and the selected proposal stays
+	 * selected.
+	 *
+	 * @param proposals the proposals
+	 * @since 3.15
+	 */
+	void updateProposals(List<ICompletionProposal> proposals) {
+		List<ICompletionProposal> oldProposals= fFilteredProposals;
+		if (!Helper.okToUse(fProposalTable) || oldProposals == null || proposals.isEmpty()) {
+			setProposals(proposals, false);
+			return;
+		}
+
+		ICompletionProposal oldProposal= getSelectedProposal(); // may trigger filtering and a reentrant call to setProposals()
+		if (oldProposals != fFilteredProposals) // reentrant call was first - abort
+			return;
+
+		// the proposals are already ranked, later filtering has to sort them again
+		fIsInitialSort= false;
+
+		int first= RankedProposalBuffer.indexOfFirstChange(oldProposals, proposals);
+		int newLength= proposals.size();
+
+		fFilteredProposals= proposals;
+		fProposalTable.setItemCount(newLength);
+		if (first < newLength)
+			fProposalTable.clear(first, newLength - 1);
+
+		int selection= fProposalTable.getSelectionIndex();
+		if (selection < 0 || selection >= first) {
+			int index= oldProposal == null ? -1 : proposals.indexOf(oldProposal);
+			if (index != selection || index < 0) {
+				if (oldProposal instanceof ICompletionProposalExtension2 && fViewer != null)
+					((ICompletionProposalExtension2) oldProposal).unselected(fViewer);
+				selectProposal(Math.max(0, index), false);
+			}
+		}
+	}
+
 	/**
 	 * Returns the graphical location at which this popup should be made visible.
 	 *
@@ -1528,6 +1714,12 @@ class CompletionProposalPopup implements IContentAssistListener {
 		}
 
 		IDocument document= fContentAssistSubjectControlAdapter.getDocument();
+		if (fContentAssistant.isFilterIndexEnabled()) {
+			List<ICompletionProposal> candidates= computeCandidates(document, offset, proposals);
+			if (candidates != null)
+				proposals= candidates;
+		}
+
 		int length= proposals.size();
 		List<ICompletionProposal> filtered= new ArrayList<>(length);
 		for (ICompletionProposal proposal : proposals) {
@@ -1563,6 +1755,51 @@ class CompletionProposalPopup implements IContentAssistListener {
 		return filtered;
 	}
 
+	/**
+	 * Returns the given proposals which can match the identifier before the given offset
+	 * according to the filter index over the computed proposals. Unless a sorter is set,
+	 * the candidates are ranked by how well they match.
+	 *
+	 * @param document the document
+	 * @param offset the offset
+	 * @param proposals the proposals to filter, either the computed or the filtered proposals
+	 * @return the candidates, or <code>null</code> if the index cannot narrow the proposals
+	 * @since 3.15
+	 */
+	private List<ICompletionProposal> computeCandidates(IDocument document, int offset, List<ICompletionProposal> proposals) {
+		if (fComputedProposals == null)
+			return null;
+
+		if (fFilterIndex == null || fFilterIndex.getProposals() != fComputedProposals) {
+			fFilterIndex= null;
+			// proposals without validation restart the session anyway
+			for (ICompletionProposal proposal : fComputedProposals) {
+				if (!(proposal instanceof ICompletionProposalExtension2 || proposal instanceof ICompletionProposalExtension))
+					return null;
+			}
+			fFilterIndex= new CompletionProposalFilterIndex(fComputedProposals);
+		}
+
+		int start= offset;
+		try {
+			while (start > 0 && Character.isJavaIdentifierPart(document.getChar(start - 1)))
+				--start;
+			if (start == offset)
+				return null;
+
+			String prefix= document.get(start, offset - start);
+			List<ICompletionProposal> candidates= fSorter == null ? fFilterIndex.getRankedCandidates(prefix) : fFilterIndex.getCandidates(prefix);
+			if (proposals != fComputedProposals) {
+				Set<ICompletionProposal> previous= Collections.newSetFromMap(new IdentityHashMap<>(proposals.size()));
+				previous.addAll(proposals);
+				candidates.removeIf(proposal -> !previous.contains(proposal));
+			}
+			return candidates;
+		} catch (BadLocationException x) {
+			return null;
+		}
+	}
+
 	/**
 	 * Requests the proposal shell to take focus.
 	 *
@@ -23,11 +23,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 
 import org.eclipse.swt.SWT;
@@ -1058,6 +1060,37 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 
 	private boolean fCompletionProposalTriggerCharsEnabled= true;
 
+	/**
+	 * Tells whether the proposals are filtered with an index over their display strings.
+	 *
+	 * @since 3.15
+	 */
+	private boolean fIsFilterIndexEnabled= false;
+
+	/**
+	 * The time in milliseconds the proposal popup waits for asynchronously computed proposals.
+	 *
+	 * @since 3.15
+	 */
+	private int fProposalLatencyBudget= 50;
+
+	/**
+	 * Tells whether the additional info of the proposals next to the selected one is computed
+	 * in advance.
+	 *
+	 * @since 3.15
+	 */
+	private boolean fIsAdditionalInfoPrefetchEnabled= false;
+
+	/**
+	 * The latency histograms of the processors whose proposals have been computed
+	 * asynchronously. The processors are weakly referenced, and their histograms are
+	 * discarded once they are no longer registered.
+	 *
+	 * @since 3.15
+	 */
+	private final Map<IContentAssistProcessor, ProcessorLatencyHistogram> fProcessorLatencies= new WeakHashMap<>();
+
 	/**
 	 * Creates a new content assistant. The content assistant is not automatically activated,
 	 * overlays the completion proposals with context information list if necessary, and shows the
@@ -1120,6 +1153,8 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 			fProcessors.remove(contentType);
 		else
 			fProcessors.put(contentType, Collections.singleton(processor));
+
+		discardUnregisteredProcessorLatencies();
 	}
 
 	/**
@@ -1139,6 +1174,7 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 
 		if (processor == null) {
 			fProcessors.remove(contentType);
+			discardUnregisteredProcessorLatencies();
 		} else {
 			if (!fProcessors.containsKey(contentType)) {
 				fProcessors.put(contentType, new LinkedHashSet<>());
@@ -1183,6 +1219,27 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 		return res;
 	}
 
+	/**
+	 * Tells whether all content assist processors for the given content type allow to reuse the
+	 * proposals of a completion session.
+	 *
+	 * @param contentType the content type
+	 * @return <code>true</code> if the proposals may be reused
+	 * @see IContentAssistProcessorExtension#isCompletionSessionReusable()
+	 * @since 3.15
+	 */
+	boolean isCompletionSessionReusable(String contentType) {
+		Set<IContentAssistProcessor> processors= getContentAssistProcessors(contentType);
+		if (processors == null)
+			return false;
+
+		for (IContentAssistProcessor processor : processors) {
+			if (!(processor instanceof IContentAssistProcessorExtension) || !((IContentAssistProcessorExtension) processor).isCompletionSessionReusable())
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * @return whether the given char is an auto-activation trigger char
 	 * @since 3.15
@@ -1298,6 +1355,107 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 		return fAutoActivationDelay;
 	}
 
+	/**
+	 * Enables computing the additional info of the proposals next to the selected proposal in
+	 * advance, so that it can be shown without delay when the selection moves. Only the
+	 * info of proposals implementing {@link ICompletionProposalExtension5} is prefetched.
+	 * Takes effect when this content assistant is installed.
+	 *
+	 * @param enable <code>true</code> to prefetch the additional info of adjacent proposals
+	 * @since 3.15
+	 */
+	public void enableAdditionalInfoPrefetch(boolean enable) {
+		fIsAdditionalInfoPrefetchEnabled= enable;
+	}
+
+	/**
+	 * Sets the time the proposal popup waits for asynchronously computed proposals. The popup
+	 * shows the proposals computed within this latency budget and appends the proposals of
+	 * slower processors as they arrive. Processors which exceed the budget several times in a
+	 * row are not waited for until they stay within the budget again. Only used if this
+	 * content assistant is {@link #ContentAssistant(boolean) asynchronous}.
+	 *
+	 * @param budget the latency budget in milliseconds, a negative value is set to 0
+	 * @see #getProcessorLatencyHistogram(IContentAssistProcessor)
+	 * @since 3.15
+	 */
+	public void setProposalLatencyBudget(int budget) {
+		fProposalLatencyBudget= Math.max(0, budget);
+	}
+
+	/**
+	 * Returns the time the proposal popup waits for asynchronously computed proposals.
+	 *
+	 * @return the latency budget in milliseconds
+	 * @see #setProposalLatencyBudget(int)
+	 * @since 3.15
+	 */
+	public int getProposalLatencyBudget() {
+		return fProposalLatencyBudget;
+	}
+
+	/**
+	 * Returns the latency histogram of the given processor. The histogram records the time
+	 * the processor needed to compute proposals asynchronously.
+	 *
+	 * @param processor the content assist processor
+	 * @return the latency histogram of the processor, or <code>null</code> if the processor
+	 *         has not computed proposals asynchronously since it has been registered, or
+	 *         since this content assistant has been uninstalled
+	 * @since 3.15
+	 */
+	public ProcessorLatencyHistogram getProcessorLatencyHistogram(IContentAssistProcessor processor) {
+		synchronized (fProcessorLatencies) {
+			return fProcessorLatencies.get(processor);
+		}
+	}
+
+	/**
+	 * Records the time the given processor needed to compute proposals asynchronously.
+	 *
+	 * @param processor the content assist processor
+	 * @param latency the latency in milliseconds
+	 * @since 3.15
+	 */
+	void recordProcessorLatency(IContentAssistProcessor processor, long latency) {
+		ProcessorLatencyHistogram histogram;
+		synchronized (fProcessorLatencies) {
+			histogram= fProcessorLatencies.computeIfAbsent(processor, p -> new ProcessorLatencyHistogram());
+		}
+		histogram.record(latency, fProposalLatencyBudget);
+	}
+
+	/**
+	 * Discards the latency histograms of the processors which are no longer registered.
+	 *
+	 * @since 3.15
+	 */
+	private void discardUnregisteredProcessorLatencies() {
+		synchronized (fProcessorLatencies) {
+			if (fProcessorLatencies.isEmpty())
+				return;
+			Set<IContentAssistProcessor> processors= new HashSet<>();
+			if (fProcessors != null) {
+				for (Set<IContentAssistProcessor> registered : fProcessors.values())
+					processors.addAll(registered);
+			}
+			fProcessorLatencies.keySet().retainAll(processors);
+		}
+	}
+
+	/**
+	 * Tells whether the proposal popup does not wait for the proposals of the given processor
+	 * because it exceeded the latency budget several times in a row.
+	 *
+	 * @param processor the content assist processor
+	 * @return <code>true</code> if the processor is demoted
+	 * @since 3.15
+	 */
+	boolean isProcessorDemoted(IContentAssistProcessor processor) {
+		ProcessorLatencyHistogram histogram= getProcessorLatencyHistogram(processor);
+		return histogram != null && histogram.isDemoted();
+	}
+
 	/**
 	 * Sets the proposal pop-ups' orientation. The following values may be used:
 	 * <ul>
@@ -1532,6 +1690,8 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 		AdditionalInfoController controller= null;
 		if (fInformationControlCreator != null)
 			controller= new AdditionalInfoController(fInformationControlCreator, OpenStrategy.getPostSelectionDelay());
+		if (controller != null)
+			controller.setPrefetchEnabled(fIsAdditionalInfoPrefetchEnabled);
 
 		fContextInfoPopup= fContentAssistSubjectControlAdapter.createContextInfoPopup(this);
 		fProposalPopup= fContentAssistSubjectControlAdapter.createCompletionProposalPopup(this, controller, fAsynchronous);
@@ -1558,6 +1718,8 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 	@Override
 	public void uninstall() {
 		hide();
+		if (fProposalPopup != null)
+			fProposalPopup.discardReusableSession();
 
 		if (fBoldStylerProvider != null) {
 			fBoldStylerProvider.dispose();
@@ -1581,6 +1743,10 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 		fCASCSTraverseListener= null;
 		fContentAssistSubjectControlShell= null;
 
+		synchronized (fProcessorLatencies) {
+			fProcessorLatencies.clear();
+		}
+
 		fViewer= null;
 		fContentAssistSubjectControl= null;
 		fContentAssistSubjectControlAdapter= null;
@@ -2784,6 +2950,38 @@ public class ContentAssistant implements IContentAssistant, IContentAssistantExt
 		fCompletionProposalTriggerCharsEnabled= enable;
 	}
 
+	/**
+	 * Enables filtering the proposals with an index over their display strings. While the
+	 * user types, only proposals whose display string contains the characters of the
+	 * identifier before the caret in the same order, ignoring case, are validated with
+	 * {@link ICompletionProposalExtension2#validate(IDocument, int, org.eclipse.jface.text.DocumentEvent)} or
+	 * {@link ICompletionProposalExtension#isValidFor(IDocument, int)}. The candidates are
+	 * narrowed incrementally as the identifier grows. Unless a sorter is set, the valid
+	 * proposals are ranked by how well they match the identifier, with prefix matches
+	 * first, followed by camel-case and subsequence matches.
+	 * <p>
+	 * This speeds up filtering of large proposal lists, but must only be enabled if the
+	 * proposals never validate for text that does not match their display strings.
+	 * </p>
+	 *
+	 * @param enable <code>true</code> to filter the proposals with an index
+	 * @since 3.15
+	 */
+	public void enableFilterIndex(boolean enable) {
+		fIsFilterIndexEnabled= enable;
+	}
+
+	/**
+	 * Tells whether the proposals are filtered with an index over their display strings.
+	 *
+	 * @return <code>true</code> if the proposals are filtered with an index
+	 * @see #enableFilterIndex(boolean)
+	 * @since 3.15
+	 */
+	boolean isFilterIndexEnabled() {
+		return fIsFilterIndexEnabled;
+	}
+
 	boolean isAutoActivation() {
 		return fIsAutoActivated;
 	}
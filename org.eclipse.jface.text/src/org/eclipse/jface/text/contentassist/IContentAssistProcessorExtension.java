@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.contentassist;
+
+
+/**
+ * Extends {@link org.eclipse.jface.text.contentassist.IContentAssistProcessor} with the
+ * following functions:
+ * <ul>
+ *   <li>allow the proposals of a completion session to be reused</li>
+ * </ul>
+ *
+ * @since 3.15
+ */
+public interface IContentAssistProcessorExtension {
+
+	/**
+	 * Tells whether the proposals computed by this processor may be reused when content
+	 * assist is invoked again after the proposal popup has been closed without inserting a
+	 * proposal, and only identifier characters have been typed at the caret since the
+	 * proposals were computed. Instead of computing the proposals again, the previous
+	 * proposals are then filtered for the new offset like while the popup is shown, i.e. with
+	 * {@link ICompletionProposalExtension2#validate(org.eclipse.jface.text.IDocument, int, org.eclipse.jface.text.DocumentEvent)}
+	 * or {@link ICompletionProposalExtension#isValidFor(org.eclipse.jface.text.IDocument, int)}.
+	 * <p>
+	 * The proposals are only reused if all processors for the content type at the offset
+	 * allow it. Processors that do not implement this interface never allow it.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the proposals of this processor may be reused,
+	 *         <code>false</code> otherwise
+	 */
+	boolean isCompletionSessionReusable();
+}
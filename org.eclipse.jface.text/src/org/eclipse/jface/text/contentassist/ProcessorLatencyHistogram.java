@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.contentassist;
+
+
+/**
+ * Histogram of the time a content assist processor needed to compute completion proposals
+ * when the proposals are computed asynchronously. The latencies are counted in buckets
+ * whose upper bounds are given by {@link #getBucketBounds()}; the last bucket counts all
+ * latencies above the largest bound.
+ * <p>
+ * A processor which exceeds the {@link ContentAssistant#setProposalLatencyBudget(int)
+ * latency budget} several times in a row is demoted: the proposal popup no longer waits
+ * for its proposals but appends them when they arrive. The processor is promoted again as
+ * soon as it stays within the budget.
+ * </p>
+ * <p>
+ * This class is not intended to be subclassed or instantiated by clients.
+ * </p>
+ *
+ * @see ContentAssistant#getProcessorLatencyHistogram(IContentAssistProcessor)
+ * @since 3.15
+ */
+public final class ProcessorLatencyHistogram {
+
+	/** The upper bounds of the buckets in milliseconds. */
+	private static final long[] BUCKET_BOUNDS= { 10, 20, 50, 100, 200, 500, 1000, 2000 };
+	/** The number of consecutive computations over budget after which a processor is demoted. */
+	private static final int DEMOTION_THRESHOLD= 3;
+
+	/** The number of latencies per bucket. */
+	private final int[] fCounts= new int[BUCKET_BOUNDS.length + 1];
+	/** The number of recorded latencies. */
+	private int fCount;
+	/** The sum of the recorded latencies. */
+	private long fTotal;
+	/** The largest recorded latency. */
+	private long fMax;
+	/** The number of computations over budget. */
+	private int fOverBudgetCount;
+	/** The number of consecutive computations over budget. */
+	private int fConsecutiveOverBudget;
+
+	ProcessorLatencyHistogram() {
+	}
+
+	/**
+	 * Records the time needed to compute proposals.
+	 *
+	 * @param latency the latency in milliseconds
+	 * @param budget the latency budget in milliseconds
+	 */
+	synchronized void record(long latency, long budget) {
+		int bucket= 0;
+		while (bucket < BUCKET_BOUNDS.length && latency > BUCKET_BOUNDS[bucket])
+			++bucket;
+		++fCounts[bucket];
+		++fCount;
+		fTotal+= latency;
+		fMax= Math.max(fMax, latency);
+		if (latency > budget) {
+			++fOverBudgetCount;
+			++fConsecutiveOverBudget;
+		} else {
+			fConsecutiveOverBudget= 0;
+		}
+	}
+
+	/**
+	 * Returns the upper bounds of the buckets.
+	 *
+	 * @return the upper bounds of the buckets in milliseconds, in ascending order
+	 */
+	public static long[] getBucketBounds() {
+		return BUCKET_BOUNDS.clone();
+	}
+
+	/**
+	 * Returns the number of latencies per bucket. The array has one element more than
+	 * {@link #getBucketBounds()}, counting the latencies above the largest bound.
+	 *
+	 * @return the number of latencies per bucket
+	 */
+	public synchronized int[] getCounts() {
+		return fCounts.clone();
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 *
+	 * @return the number of recorded latencies
+	 */
+	public synchronized int getCount() {
+		return fCount;
+	}
+
+	/**
+	 * Returns the average latency.
+	 *
+	 * @return the average latency in milliseconds
+	 */
+	public synchronized long getAverageLatency() {
+		return fCount == 0 ? 0 : fTotal / fCount;
+	}
+
+	/**
+	 * Returns the largest latency.
+	 *
+	 * @return the largest latency in milliseconds
+	 */
+	public synchronized long getMaxLatency() {
+		return fMax;
+	}
+
+	/**
+	 * Returns the number of computations which exceeded the latency budget.
+	 *
+	 * @return the number of computations over budget
+	 */
+	public synchronized int getOverBudgetCount() {
+		return fOverBudgetCount;
+	}
+
+	/**
+	 * Tells whether the processor is demoted, i.e. whether its proposals are not waited for.
+	 *
+	 * @return <code>true</code> if the processor is demoted
+	 */
+	public synchronized boolean isDemoted() {
+		return fConsecutiveOverBudget >= DEMOTION_THRESHOLD;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder buffer= new StringBuilder();
+		for (int i= 0; i < fCounts.length; i++) {
+			if (i > 0)
+				buffer.append(", "); //$NON-NLS-1$
+			buffer.append(i < BUCKET_BOUNDS.length ? "<=" + BUCKET_BOUNDS[i] : ">" + BUCKET_BOUNDS[i - 1]).append("ms: ").append(fCounts[i]); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return buffer.toString();
+	}
+}
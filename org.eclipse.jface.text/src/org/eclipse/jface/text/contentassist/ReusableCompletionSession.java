@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.contentassist;
+
+import java.util.List;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+
+/**
+ * The proposals of a closed completion session which may be reused by the next invocation
+ * of content assist. The session stays reusable as long as the document is only changed by
+ * inserting identifier characters at the end of the text typed since the invocation.
+ *
+ * @see IContentAssistProcessorExtension
+ * @since 3.15
+ */
+class ReusableCompletionSession implements IDocumentListener {
+
+	/** The document of the session. */
+	private final IDocument fDocument;
+	/** The content type at the invocation offset. */
+	private final String fContentType;
+	/** The offset at which the proposals have been computed. */
+	private final int fInvocationOffset;
+	/** The computed proposals. */
+	private final List<ICompletionProposal> fProposals;
+	/** The end of the identifier characters typed since the invocation. */
+	private int fEnd;
+	/** Tells whether the document has been changed in any other way. */
+	private boolean fIsValid;
+
+	/**
+	 * Creates a reusable session and starts tracking the changes of its document.
+	 *
+	 * @param document the document
+	 * @param contentType the content type at the invocation offset
+	 * @param invocationOffset the offset at which the proposals have been computed
+	 * @param offset the current offset of the caret
+	 * @param proposals the computed proposals
+	 * @throws BadLocationException if the offsets are not valid in the document
+	 */
+	ReusableCompletionSession(IDocument document, String contentType, int invocationOffset, int offset, List<ICompletionProposal> proposals) throws BadLocationException {
+		fDocument= document;
+		fContentType= contentType;
+		fInvocationOffset= invocationOffset;
+		fProposals= proposals;
+		fEnd= offset;
+		fIsValid= offset >= invocationOffset && isIdentifier(document.get(invocationOffset, offset - invocationOffset));
+		if (fIsValid)
+			fDocument.addDocumentListener(this);
+	}
+
+	/**
+	 * Tells whether the session can be reused at the given offset.
+	 *
+	 * @param document the document
+	 * @param offset the offset of the new invocation
+	 * @param contentType the content type at the offset
+	 * @return <code>true</code> if the session can be reused
+	 */
+	boolean canReuse(IDocument document, int offset, String contentType) {
+		return fIsValid && document == fDocument && offset == fEnd && fContentType.equals(contentType);
+	}
+
+	/**
+	 * Returns the offset at which the proposals have been computed.
+	 *
+	 * @return the invocation offset
+	 */
+	int getInvocationOffset() {
+		return fInvocationOffset;
+	}
+
+	/**
+	 * Returns the computed proposals.
+	 *
+	 * @return the proposals
+	 */
+	List<ICompletionProposal> getProposals() {
+		return fProposals;
+	}
+
+	/**
+	 * Stops tracking the changes of the document.
+	 */
+	void dispose() {
+		fIsValid= false;
+		fDocument.removeDocumentListener(this);
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		// Do nothing
+	}
+
+	@Override
+	public void documentChanged(DocumentEvent event) {
+		String text= event.getText();
+		if (event.getOffset() == fEnd && event.getLength() == 0 && text != null && !text.isEmpty() && isIdentifier(text))
+			fEnd+= text.length();
+		else
+			dispose();
+	}
+
+	private static boolean isIdentifier(String text) {
+		for (int i= 0; i < text.length(); i++) {
+			if (!Character.isJavaIdentifierPart(text.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+}
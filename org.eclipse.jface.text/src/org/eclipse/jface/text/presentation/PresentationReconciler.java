@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,11 +14,14 @@
 
 package org.eclipse.jface.text.presentation;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.custom.StyledText;
 
 import org.eclipse.core.runtime.Assert;
 
@@ -40,6 +43,8 @@ import org.eclipse.jface.text.ITextListener;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.ITextViewerExtension5;
 import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextEvent;
 import org.eclipse.jface.text.TextPresentation;
@@ -52,10 +57,17 @@ import org.eclipse.jface.text.TypedPosition;
  * Standard implementation of <code>IPresentationReconciler</code>. This
  * implementation assumes that the tasks performed by its presentation damagers
  * and repairers are lightweight and of low cost. This presentation reconciler
- * runs in the UI thread and always repairs the complete damage caused by a
- * document change rather than just the portion overlapping with the viewer's
+ * runs in the UI thread and by default always repairs the complete damage caused
+ * by a document change rather than just the portion overlapping with the viewer's
  * viewport.
  * <p>
+ * For large documents, clients can set a threshold above which damage is
+ * repaired lazily, see {@link #setLazyRepairThreshold(int)}: the part of the
+ * damage which is visible in the viewer is repaired immediately, the rest is
+ * split into chunks which are repaired when they are scrolled into view or
+ * when the UI thread is idle, starting with the chunks closest to the viewport.
+ * </p>
+ * <p>
  * Usually, clients instantiate this class and configure it before using it.
  * </p>
  */
@@ -63,13 +75,18 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 
 	/** Prefix of the name of the position category for tracking damage regions. */
 	protected final static String TRACKED_PARTITION= "__reconciler_tracked_partition"; //$NON-NLS-1$
+	/**
+	 * Prefix of the name of the position category for tracking damage which has not yet been repaired.
+	 * @since 3.15
+	 */
+	private final static String PENDING_DAMAGE= "__reconciler_pending_damage"; //$NON-NLS-1$
 
 
 	/**
 	 * Internal listener class.
 	 */
 	class InternalListener implements
-			ITextInputListener, IDocumentListener, ITextListener,
+			ITextInputListener, IDocumentListener, ITextListener, IViewportListener,
 			IDocumentPartitioningListener, IDocumentPartitioningListenerExtension, IDocumentPartitioningListenerExtension2 {
 
 		/** Set to <code>true</code> if between a document about to be changed and a changed event. */
@@ -86,14 +103,20 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 				try {
 
 					fViewer.removeTextListener(this);
+					fViewer.removeViewportListener(this);
 					oldDocument.removeDocumentListener(this);
 					oldDocument.removeDocumentPartitioningListener(this);
 
 					oldDocument.removePositionUpdater(fPositionUpdater);
 					oldDocument.removePositionCategory(fPositionCategory);
 
+					oldDocument.removePositionUpdater(fPendingDamageUpdater);
+					oldDocument.removePositionCategory(fPendingDamageCategory);
+
 				} catch (BadPositionCategoryException x) {
 					// should not happened for former input documents;
+				} finally {
+					fPendingDamages.clear();
 				}
 			}
 		}
@@ -111,10 +134,13 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 
 				newDocument.addPositionCategory(fPositionCategory);
 				newDocument.addPositionUpdater(fPositionUpdater);
+				newDocument.addPositionCategory(fPendingDamageCategory);
+				newDocument.addPositionUpdater(fPendingDamageUpdater);
 
 				newDocument.addDocumentPartitioningListener(this);
 				newDocument.addDocumentListener(this);
 				fViewer.addTextListener(this);
+				fViewer.addViewportListener(this);
 
 				setDocumentToDamagers(newDocument);
 				setDocumentToRepairers(newDocument);
@@ -122,6 +148,12 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 			}
 		}
 
+		@Override
+		public void viewportChanged(int verticalOffset) {
+			if (!fPendingDamages.isEmpty())
+				processVisiblePendingDamage();
+		}
+
 		@Override
 		public void documentPartitioningChanged(IDocument document) {
 			if (!fDocumentChanging && fCachedRedrawState)
@@ -265,6 +297,32 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 	 * @since 3.0
 	 */
 	private String fPartitioning;
+	/**
+	 * The damage length above which damage is repaired lazily, <code>-1</code> if damage
+	 * is always repaired at once.
+	 * @since 3.15
+	 */
+	private int fLazyRepairThreshold= -1;
+	/**
+	 * The name of the position category to track the damage which has not yet been repaired.
+	 * @since 3.15
+	 */
+	private final String fPendingDamageCategory;
+	/**
+	 * The position updater for the pending damage position category.
+	 * @since 3.15
+	 */
+	private final IPositionUpdater fPendingDamageUpdater;
+	/**
+	 * The damage which has not yet been repaired, ordered by offset.
+	 * @since 3.15
+	 */
+	private final List<Position> fPendingDamages= new ArrayList<>();
+	/**
+	 * Tells whether the repair of pending damage has been scheduled.
+	 * @since 3.15
+	 */
+	private boolean fIsPendingRepairScheduled;
 
 	/**
 	 * Creates a new presentation reconciler. There are no damagers or repairers
@@ -276,6 +334,28 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 		fPartitioning= IDocumentExtension3.DEFAULT_PARTITIONING;
 		fPositionCategory= TRACKED_PARTITION + hashCode();
 		fPositionUpdater= new DefaultPositionUpdater(fPositionCategory);
+		fPendingDamageCategory= PENDING_DAMAGE + hashCode();
+		fPendingDamageUpdater= new DefaultPositionUpdater(fPendingDamageCategory);
+	}
+
+	/**
+	 * Sets the damage length above which damage is repaired lazily. The part of such
+	 * damage which is visible in the viewer is repaired immediately. The rest is split
+	 * into chunks of the given length, which are repaired when they are scrolled into
+	 * view or, starting with the chunks closest to the viewport, when the UI thread is
+	 * idle. Pending chunks are dropped when they get damaged again or when the input
+	 * document changes.
+	 * <p>
+	 * By default the complete damage is always repaired at once.
+	 * </p>
+	 *
+	 * @param threshold the damage length above which damage is repaired lazily, or
+	 *            <code>-1</code> to always repair the complete damage at once
+	 * @since 3.15
+	 */
+	public void setLazyRepairThreshold(int threshold) {
+		Assert.isTrue(threshold == -1 || threshold > 0);
+		fLazyRepairThreshold= threshold;
 	}
 
 	/**
@@ -546,12 +626,231 @@ public class PresentationReconciler implements IPresentationReconciler, IPresent
 	 */
 	private void processDamage(IRegion damage, IDocument document) {
 		if (damage != null && damage.getLength() > 0) {
+			if (fLazyRepairThreshold != -1 && damage.getLength() > fLazyRepairThreshold) {
+				processDamageLazily(damage, document);
+				return;
+			}
 			TextPresentation p= createPresentation(damage, document);
 			if (p != null)
 				applyTextRegionCollection(p);
 		}
 	}
 
+	/**
+	 * Repairs the visible part of the given damage and remembers the rest as pending damage.
+	 * Pending damage overlapping with the given damage is replaced.
+	 *
+	 * @param damage the damage to be repaired
+	 * @param document the document whose presentation must be repaired
+	 * @since 3.15
+	 */
+	private void processDamageLazily(IRegion damage, IDocument document) {
+		int start= damage.getOffset();
+		int end= start + damage.getLength();
+
+		Iterator<Position> e= fPendingDamages.iterator();
+		while (e.hasNext()) {
+			Position pending= e.next();
+			if (pending.isDeleted() || pending.getOffset() <= end && start <= pending.getOffset() + pending.getLength()) {
+				if (!pending.isDeleted()) {
+					start= Math.min(start, pending.getOffset());
+					end= Math.max(end, pending.getOffset() + pending.getLength());
+				}
+				removePendingDamage(pending, document);
+				e.remove();
+			}
+		}
+
+		try {
+			start= document.getLineInformationOfOffset(start).getOffset();
+			end= endOfLineOf(document, end);
+			addPendingDamage(start, end, document);
+		} catch (BadLocationException x) {
+			return;
+		}
+
+		processVisiblePendingDamage();
+		schedulePendingRepair();
+	}
+
+	/**
+	 * Repairs the pending damage overlapping with the viewer's viewport.
+	 *
+	 * @since 3.15
+	 */
+	private void processVisiblePendingDamage() {
+		IDocument document= fViewer.getDocument();
+		if (document == null)
+			return;
+
+		try {
+			int visibleStart= document.getLineInformationOfOffset(fViewer.getTopIndexStartOffset()).getOffset();
+			int visibleEnd= endOfLineOf(document, fViewer.getBottomIndexEndOffset());
+
+			for (Position pending : new ArrayList<>(fPendingDamages)) {
+				int start= Math.max(visibleStart, pending.getOffset());
+				int end= Math.min(visibleEnd, pending.getOffset() + pending.getLength());
+				if (start < end || pending.isDeleted())
+					repairPendingDamage(pending, start, end, document);
+			}
+		} catch (BadLocationException x) {
+			// repaired when the UI thread is idle
+		}
+	}
+
+	/**
+	 * Schedules the repair of the pending damage when the UI thread is idle.
+	 *
+	 * @since 3.15
+	 */
+	private void schedulePendingRepair() {
+		if (fIsPendingRepairScheduled || fPendingDamages.isEmpty())
+			return;
+
+		StyledText widget= fViewer.getTextWidget();
+		if (widget == null || widget.isDisposed())
+			return;
+
+		fIsPendingRepairScheduled= true;
+		widget.getDisplay().asyncExec(() -> {
+			fIsPendingRepairScheduled= false;
+			StyledText textWidget= fViewer.getTextWidget();
+			if (textWidget != null && !textWidget.isDisposed() && processPendingChunk())
+				schedulePendingRepair();
+		});
+	}
+
+	/**
+	 * Repairs the chunk of pending damage which is closest to the viewer's viewport.
+	 *
+	 * @return <code>true</code> if there is more pending damage
+	 * @since 3.15
+	 */
+	private boolean processPendingChunk() {
+		IDocument document= fViewer.getDocument();
+		if (document == null || fPendingDamages.isEmpty())
+			return false;
+
+		int topOffset= fViewer.getTopIndexStartOffset();
+		Position closest= null;
+		int distance= Integer.MAX_VALUE;
+		for (Position pending : fPendingDamages) {
+			int pendingDistance;
+			if (pending.isDeleted())
+				pendingDistance= 0;
+			else if (pending.getOffset() + pending.getLength() <= topOffset)
+				pendingDistance= topOffset - pending.getOffset() - pending.getLength();
+			else
+				pendingDistance= Math.max(0, pending.getOffset() - topOffset);
+			if (pendingDistance < distance) {
+				closest= pending;
+				distance= pendingDistance;
+			}
+		}
+
+		try {
+			int start= closest.getOffset();
+			int end= closest.getOffset() + closest.getLength();
+			if (closest.isDeleted()) {
+				end= start;
+			} else if (end - start > fLazyRepairThreshold) {
+				if (end <= topOffset)
+					start= document.getLineInformationOfOffset(end - fLazyRepairThreshold).getOffset();
+				else
+					end= endOfLineOf(document, start + fLazyRepairThreshold);
+			}
+			repairPendingDamage(closest, start, end, document);
+		} catch (BadLocationException x) {
+			removePendingDamage(closest, document);
+			fPendingDamages.remove(closest);
+		}
+
+		return !fPendingDamages.isEmpty();
+	}
+
+	/**
+	 * Repairs the given part of the given pending damage and keeps the rest pending.
+	 *
+	 * @param pending the pending damage
+	 * @param start the start offset of the part to repair
+	 * @param end the end offset of the part to repair
+	 * @param document the document whose presentation must be repaired
+	 * @throws BadLocationException if the pending damage is not valid in the document
+	 * @since 3.15
+	 */
+	private void repairPendingDamage(Position pending, int start, int end, IDocument document) throws BadLocationException {
+		int pendingStart= pending.getOffset();
+		int pendingEnd= pending.getOffset() + pending.getLength();
+		removePendingDamage(pending, document);
+		fPendingDamages.remove(pending);
+		if (pending.isDeleted())
+			return;
+
+		if (pendingStart < start)
+			addPendingDamage(pendingStart, start, document);
+		if (end < pendingEnd)
+			addPendingDamage(end, pendingEnd, document);
+
+		if (start < end) {
+			TextPresentation p= createPresentation(new Region(start, end - start), document);
+			if (p != null)
+				applyTextRegionCollection(p);
+		}
+	}
+
+	/**
+	 * Remembers the given range as pending damage.
+	 *
+	 * @param start the start offset of the pending damage
+	 * @param end the end offset of the pending damage
+	 * @param document the document
+	 * @throws BadLocationException if the range is not valid in the document
+	 * @since 3.15
+	 */
+	private void addPendingDamage(int start, int end, IDocument document) throws BadLocationException {
+		Position pending= new Position(start, end - start);
+		try {
+			document.addPosition(fPendingDamageCategory, pending);
+		} catch (BadPositionCategoryException x) {
+			return;
+		}
+		int index= 0;
+		while (index < fPendingDamages.size() && fPendingDamages.get(index).getOffset() < start)
+			++index;
+		fPendingDamages.add(index, pending);
+	}
+
+	/**
+	 * Stops tracking the given pending damage in the document.
+	 *
+	 * @param pending the pending damage
+	 * @param document the document
+	 * @since 3.15
+	 */
+	private void removePendingDamage(Position pending, IDocument document) {
+		try {
+			document.removePosition(fPendingDamageCategory, pending);
+		} catch (BadPositionCategoryException x) {
+			// the input document has changed
+		}
+	}
+
+	/**
+	 * Returns the offset behind the line containing the given offset, including its delimiter.
+	 *
+	 * @param document the document
+	 * @param offset the offset
+	 * @return the offset of the next line or the document length
+	 * @throws BadLocationException if the offset is invalid in the document
+	 * @since 3.15
+	 */
+	private static int endOfLineOf(IDocument document, int offset) throws BadLocationException {
+		int line= document.getLineOfOffset(offset);
+		if (line + 1 < document.getNumberOfLines())
+			return document.getLineOffset(line + 1);
+		return document.getLength();
+	}
+
 	/**
 	 * Applies the given text presentation to the text viewer the presentation
 	 * reconciler is installed on.
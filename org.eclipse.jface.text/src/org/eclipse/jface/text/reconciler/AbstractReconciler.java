@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,23 @@
  *******************************************************************************/
 package org.eclipse.jface.text.reconciler;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.events.FocusEvent;
+import org.eclipse.swt.events.FocusListener;
+import org.eclipse.swt.events.PaintEvent;
+import org.eclipse.swt.events.PaintListener;
+import org.eclipse.swt.widgets.Display;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -39,6 +56,15 @@ import org.eclipse.jface.text.ITextViewer;
  * It is the clients responsibility to stop a reconciler using its {@link #uninstall()}
  * method. Unstopped reconcilers do not free their resources.
  * <p>
+ * By default, every reconciler runs its background activity in a dedicated thread. Using
+ * {@link #setExecutor(Executor)}, the activity can instead be run as short tasks on an
+ * executor, e.g. the {@link #getSharedExecutor() shared reconciler executor}, so that the
+ * number of threads does not grow with the number of installed reconcilers. Tasks of
+ * reconcilers working on the same document are never run concurrently, and tasks of
+ * reconcilers installed on focused or visible viewers are preferred, see
+ * {@link ReconcilerScheduler}.
+ * </p>
+ * <p>
  * It is subclass responsibility to specify how dirty regions are processed.
  * </p>
  *
@@ -50,10 +76,67 @@ import org.eclipse.jface.text.ITextViewer;
 abstract public class AbstractReconciler implements IReconciler {
 
 
+	/**
+	 * The background activity of a reconciler.
+	 *
+	 * @since 3.15
+	 */
+	interface BackgroundActivity {
+
+		/**
+		 * Returns whether a reconciling strategy is active right now.
+		 *
+		 * @return <code>true</code> if a activity is active
+		 */
+		boolean isActive();
+
+		/**
+		 * Returns whether some changes need to be processed.
+		 *
+		 * @return <code>true</code> if changes wait to be processed
+		 */
+		boolean isDirty();
+
+		/**
+		 * Returns whether the activity has been started and not yet been terminated.
+		 *
+		 * @return <code>true</code> if the activity is alive
+		 */
+		boolean isAlive();
+
+		/**
+		 * Returns whether the caller runs in this background activity.
+		 *
+		 * @return <code>true</code> if the current thread runs this activity
+		 */
+		boolean isCurrentThread();
+
+		/**
+		 * Starts the activity.
+		 */
+		void start();
+
+		/**
+		 * Cancels the activity.
+		 */
+		void cancel();
+
+		/**
+		 * Suspends the caller of this method until this activity has
+		 * emptied the dirty region queue.
+		 */
+		void suspendCallerWhileDirty();
+
+		/**
+		 * Resets the activity as the text viewer has been changed.
+		 */
+		void reset();
+	}
+
 	/**
 	 * Background thread for the reconciling activity.
 	 */
-	class BackgroundThread extends Thread {
+	class BackgroundThread extends Thread implements BackgroundActivity {
 
 		/** Has the reconciler been canceled. */
 		private boolean fCanceled= false;
@@ -81,6 +164,7 @@ abstract public class AbstractReconciler implements IReconciler {
 		 *
 		 * @return <code>true</code> if a activity is active
 		 */
+		@Override
 		public boolean isActive() {
 			return fIsActive;
 		}
@@ -91,13 +175,20 @@ abstract public class AbstractReconciler implements IReconciler {
 		 * @return <code>true</code> if changes wait to be processed
 		 * @since 3.0
 		 */
+		@Override
 		public synchronized boolean isDirty() {
 			return fIsDirty;
 		}
 
+		@Override
+		public boolean isCurrentThread() {
+			return Thread.currentThread() == this;
+		}
+
 		/**
 		 * Cancels the background thread.
 		 */
+		@Override
 		public void cancel() {
 			fCanceled= true;
 			IProgressMonitor pm= fProgressMonitor;
@@ -112,6 +203,7 @@ abstract public class AbstractReconciler implements IReconciler {
 		 * Suspends the caller of this method until this background thread has
 		 * emptied the dirty region queue.
 		 */
+		@Override
 		public void suspendCallerWhileDirty() {
 			boolean isDirty;
 			do {
@@ -130,9 +222,10 @@ abstract public class AbstractReconciler implements IReconciler {
 		/**
 		 * Reset the background thread as the text viewer has been changed,
 		 */
+		@Override
 		public void reset() {
 
-			if (fDelay > 0) {
+			if (getCurrentDelay() > 0) {
 
 				synchronized (this) {
 					fIsDirty= true;
@@ -166,7 +259,7 @@ abstract public class AbstractReconciler implements IReconciler {
 
 			synchronized (fDirtyRegionQueue) {
 				try {
-					fDirtyRegionQueue.wait(fDelay);
+					fDirtyRegionQueue.wait(getCurrentDelay());
 				} catch (InterruptedException x) {
 				}
 			}
@@ -180,7 +273,7 @@ abstract public class AbstractReconciler implements IReconciler {
 
 				synchronized (fDirtyRegionQueue) {
 					try {
-						fDirtyRegionQueue.wait(fDelay);
+						fDirtyRegionQueue.wait(getCurrentDelay());
 					} catch (InterruptedException x) {
 					}
 				}
@@ -198,16 +291,13 @@ abstract public class AbstractReconciler implements IReconciler {
 					}
 				}
 
-				DirtyRegion r= null;
-				synchronized (fDirtyRegionQueue) {
-					r= fDirtyRegionQueue.removeNextDirtyRegion();
-				}
+				DirtyRegion[] r= removeNextDirtyRegions();
 
 				fIsActive= true;
 
 				fProgressMonitor.setCanceled(false);
 
-				process(r);
+				processMeasured(r);
 
 				synchronized (fDirtyRegionQueue) {
 					if (0 == fDirtyRegionQueue.getSize()) {
@@ -223,6 +313,295 @@ abstract public class AbstractReconciler implements IReconciler {
 		}
 	}
 
+	/**
+	 * Background activity running as tasks on an executor. A task is scheduled
+	 * after the reconciler's delay has passed without further changes and processes
+	 * one dirty region. Tasks of reconcilers working on the same document are
+	 * serialized.
+	 *
+	 * @since 3.15
+	 */
+	class BackgroundTask implements BackgroundActivity, Runnable {
+
+		/** Has the activity been started. */
+		private volatile boolean fStarted= false;
+		/** Has the activity been canceled. */
+		private volatile boolean fCanceled= false;
+		/** Some changes need to be processed. */
+		private boolean fIsDirty= false;
+		/** Is a reconciling strategy active. */
+		private volatile boolean fIsActive= false;
+		/** Has {@link AbstractReconciler#initialProcess()} been called. */
+		private boolean fInitialProcessDone= false;
+		/** Is a task pending or running. */
+		private boolean fScheduled= false;
+		/** The earliest time at which the next task may process changes. */
+		private long fDueTime;
+		/** The thread running the current task, <code>null</code> if none. */
+		private volatile Thread fRunner;
+
+		@Override
+		public boolean isActive() {
+			return fIsActive;
+		}
+
+		@Override
+		public synchronized boolean isDirty() {
+			return fIsDirty;
+		}
+
+		@Override
+		public boolean isAlive() {
+			return fStarted && !fCanceled;
+		}
+
+		@Override
+		public boolean isCurrentThread() {
+			return Thread.currentThread() == fRunner;
+		}
+
+		@Override
+		public void start() {
+			fStarted= true;
+			schedule(getCurrentDelay());
+		}
+
+		@Override
+		public void cancel() {
+			fCanceled= true;
+			IProgressMonitor pm= fProgressMonitor;
+			if (pm != null)
+				pm.setCanceled(true);
+			synchronized (fDirtyRegionQueue) {
+				fDirtyRegionQueue.notifyAll();
+			}
+		}
+
+		@Override
+		public void suspendCallerWhileDirty() {
+			boolean isDirty;
+			do {
+				synchronized (fDirtyRegionQueue) {
+					isDirty= fDirtyRegionQueue.getSize() > 0 && !fCanceled;
+					if (isDirty) {
+						try {
+							fDirtyRegionQueue.wait();
+						} catch (InterruptedException x) {
+						}
+					}
+				}
+			} while (isDirty);
+		}
+
+		@Override
+		public void reset() {
+			synchronized (this) {
+				fIsDirty= true;
+			}
+			if (fStarted)
+				schedule(getCurrentDelay());
+
+			reconcilerReset();
+		}
+
+		/**
+		 * Schedules a task that runs after the given delay, unless a task is already
+		 * pending. In that case, the pending task is postponed until the delay has passed.
+		 *
+		 * @param delay the delay in milliseconds
+		 */
+		private void schedule(long delay) {
+			synchronized (this) {
+				fDueTime= System.currentTimeMillis() + Math.max(0, delay);
+				if (fScheduled || fCanceled)
+					return;
+				fScheduled= true;
+			}
+			PriorityTracker priorityTracker= fPriorityTracker;
+			if (priorityTracker != null)
+				priorityTracker.refresh();
+			submit(delay);
+		}
+
+		/**
+		 * Called by the scheduler if the executor rejected the task, so that the next change
+		 * schedules a task again.
+		 */
+		void rejected() {
+			synchronized (this) {
+				fScheduled= false;
+			}
+		}
+
+		private void submit(long delay) {
+			IDocument document= fDocument;
+			Runnable task= () -> ReconcilerScheduler.getDefault().schedule(AbstractReconciler.this, document, this, fExecutor);
+			try {
+				if (delay > 0)
+					getTimer().schedule(task, delay, TimeUnit.MILLISECONDS);
+				else
+					task.run();
+			} catch (RejectedExecutionException x) {
+				synchronized (this) {
+					fScheduled= false;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (fCanceled) {
+					fScheduled= false;
+					return;
+				}
+				long remaining= fDueTime - System.currentTimeMillis();
+				if (remaining > 0) {
+					submit(remaining);
+					return;
+				}
+			}
+
+			fRunner= Thread.currentThread();
+			try {
+				processNext();
+			} finally {
+				fRunner= null;
+			}
+
+			boolean isDirty;
+			synchronized (this) {
+				fScheduled= false;
+				isDirty= fIsDirty;
+			}
+			if (isDirty)
+				schedule(getCurrentDelay());
+		}
+
+		/**
+		 * Calls {@link AbstractReconciler#initialProcess()} on the first run and
+		 * processes the next dirty region on later runs.
+		 */
+		private void processNext() {
+			if (!fInitialProcessDone) {
+				fInitialProcessDone= true;
+				initialProcess();
+				return;
+			}
+
+			if (fCanceled || !isDirty())
+				return;
+
+			DirtyRegion[] r= removeNextDirtyRegions();
+
+			fIsActive= true;
+			try {
+				fProgressMonitor.setCanceled(false);
+
+				processMeasured(r);
+
+				synchronized (fDirtyRegionQueue) {
+					if (0 == fDirtyRegionQueue.getSize()) {
+						synchronized (this) {
+							fIsDirty= fProgressMonitor.isCanceled() && !fCanceled;
+						}
+						fDirtyRegionQueue.notifyAll();
+					}
+				}
+			} finally {
+				fIsActive= false;
+			}
+		}
+	}
+
+	/**
+	 * Tracks the scheduling priority of the reconciler from the focus and the
+	 * visibility of the viewer's widget.
+	 *
+	 * @since 3.15
+	 */
+	class PriorityTracker implements FocusListener, PaintListener {
+
+		/** The tracked widget. */
+		private final StyledText fWidget;
+		/** The display of the widget. */
+		private final Display fDisplay;
+
+		/**
+		 * Creates a tracker for the given widget and starts tracking.
+		 *
+		 * @param widget the widget to track
+		 */
+		PriorityTracker(StyledText widget) {
+			fWidget= widget;
+			fDisplay= widget.getDisplay();
+			fWidget.addFocusListener(this);
+			fWidget.addPaintListener(this);
+			update();
+		}
+
+		/**
+		 * Stops tracking.
+		 */
+		void dispose() {
+			if (!fWidget.isDisposed()) {
+				fWidget.removeFocusListener(this);
+				fWidget.removePaintListener(this);
+			}
+		}
+
+		/**
+		 * Updates the priority from the current state of the widget before a task is
+		 * submitted. The paint events only raise the priority, so that a widget which got
+		 * hidden without losing the focus would otherwise keep its priority. May be called
+		 * from any thread.
+		 */
+		void refresh() {
+			if (fWidget.isDisposed() || fDisplay.isDisposed()) {
+				fSchedulingPriority= ReconcilerScheduler.HIDDEN;
+				return;
+			}
+			if (fDisplay.getThread() == Thread.currentThread()) {
+				update();
+			} else {
+				fDisplay.asyncExec(() -> {
+					if (fPriorityTracker == this)
+						update();
+				});
+			}
+		}
+
+		private void update() {
+			if (fWidget.isDisposed())
+				fSchedulingPriority= ReconcilerScheduler.HIDDEN;
+			else if (fWidget.isFocusControl())
+				fSchedulingPriority= ReconcilerScheduler.FOCUSED;
+			else
+				fSchedulingPriority= fWidget.isVisible() ? ReconcilerScheduler.VISIBLE : ReconcilerScheduler.HIDDEN;
+		}
+
+		@Override
+		public void focusGained(FocusEvent e) {
+			fSchedulingPriority= ReconcilerScheduler.FOCUSED;
+		}
+
+		@Override
+		public void focusLost(FocusEvent e) {
+			fSchedulingPriority= ReconcilerScheduler.VISIBLE;
+			// the widget may get hidden after it lost the focus, e.g. when switching editors
+			fWidget.getDisplay().asyncExec(() -> {
+				if (fPriorityTracker == this)
+					update();
+			});
+		}
+
+		@Override
+		public void paintControl(PaintEvent e) {
+			if (fSchedulingPriority == ReconcilerScheduler.HIDDEN)
+				fSchedulingPriority= ReconcilerScheduler.VISIBLE;
+		}
+	}
+
 	/**
 	 * Internal document listener and text input listener.
 	 */
@@ -236,7 +615,7 @@ abstract public class AbstractReconciler implements IReconciler {
 		public void documentChanged(DocumentEvent e) {
 
 			if (fThread.isActive() || !fThread.isDirty() && fThread.isAlive()) {
-				if (!fIsAllowedToModifyDocument && Thread.currentThread() == fThread)
+				if (!fIsAllowedToModifyDocument && fThread.isCurrentThread())
 					throw new UnsupportedOperationException("The reconciler thread is not allowed to modify the document"); //$NON-NLS-1$
 				aboutToBeReconciled();
 			}
@@ -248,6 +627,10 @@ abstract public class AbstractReconciler implements IReconciler {
 			if (fThread.isActive() || fThread.isDirty() && fThread.isAlive())
 				fProgressMonitor.setCanceled(true);
 
+			AdaptiveDelay adaptiveDelay= fAdaptiveDelay;
+			if (adaptiveDelay != null)
+				adaptiveDelay.documentChanged(System.currentTimeMillis());
+
 			if (fIsIncrementalReconciler)
 				createDirtyRegion(e);
 
@@ -300,12 +683,17 @@ abstract public class AbstractReconciler implements IReconciler {
 
 	/** Queue to manage the changes applied to the text viewer. */
 	private DirtyRegionQueue fDirtyRegionQueue;
-	/** The background thread. */
-	private BackgroundThread fThread;
+	/** The background activity. */
+	private BackgroundActivity fThread;
 	/** Internal document and text input listener. */
 	private Listener fListener;
 	/** The background thread delay. */
 	private int fDelay= 500;
+	/**
+	 * The cost model adapting the delay, <code>null</code> if the delay is fixed.
+	 * @since 3.15
+	 */
+	private volatile AdaptiveDelay fAdaptiveDelay;
 	/** Are there incremental reconciling strategies? */
 	private boolean fIsIncrementalReconciler= true;
 	/** The progress monitor used by this reconciler. */
@@ -315,6 +703,33 @@ abstract public class AbstractReconciler implements IReconciler {
 	 * @since 3.2
 	 */
 	private boolean fIsAllowedToModifyDocument= true;
+	/**
+	 * The executor running the background activity, <code>null</code> if a dedicated
+	 * thread is used.
+	 * @since 3.15
+	 */
+	private Executor fExecutor;
+
+	/**
+	 * The scheduling priority of this reconciler, tracked from the state of the viewer's widget.
+	 * @since 3.15
+	 */
+	private volatile int fSchedulingPriority= ReconcilerScheduler.VISIBLE;
+	/**
+	 * The tracker of the scheduling priority, <code>null</code> if not tracking.
+	 * @since 3.15
+	 */
+	private PriorityTracker fPriorityTracker;
+	/**
+	 * The shared reconciler executor, lazily created.
+	 * @since 3.15
+	 */
+	private static Executor fgSharedExecutor;
+	/**
+	 * The timer used to delay the tasks of reconcilers running on executors, lazily created.
+	 * @since 3.15
+	 */
+	private static ScheduledExecutorService fgTimer;
 
 
 	/** The text viewer's document. */
@@ -361,6 +776,128 @@ abstract public class AbstractReconciler implements IReconciler {
 		fDelay= delay;
 	}
 
+	/**
+	 * Tells the reconciler to adapt its delay to the measured cost of reconciling. The time
+	 * needed to process the whole document and single dirty regions is measured, and the
+	 * delay grows with the expected cost of the next pass between the given bounds. If the
+	 * document is changed faster than it can be reconciled, the delay is increased further.
+	 * Incremental reconcilers additionally process the whole document at once instead of
+	 * the queued dirty regions when this is expected to be cheaper.
+	 * <p>
+	 * Until the first pass has been measured, the minimal delay is used.
+	 * </p>
+	 *
+	 * @param minDelay the minimal delay in milliseconds, or a negative value to use the fixed
+	 *            delay set with {@link #setDelay(int)}
+	 * @param maxDelay the maximal delay in milliseconds
+	 * @since 3.15
+	 */
+	public void setAdaptiveDelay(int minDelay, int maxDelay) {
+		fAdaptiveDelay= minDelay < 0 ? null : new AdaptiveDelay(minDelay, maxDelay);
+	}
+
+	/**
+	 * Returns the delay the reconciler currently waits for further text changes before
+	 * activating the reconciling strategies. This is the delay set with {@link #setDelay(int)}
+	 * unless the delay is adapted, see {@link #setAdaptiveDelay(int, int)}.
+	 *
+	 * @return the current delay in milliseconds
+	 * @since 3.15
+	 */
+	protected int getCurrentDelay() {
+		AdaptiveDelay adaptiveDelay= fAdaptiveDelay;
+		if (adaptiveDelay == null)
+			return fDelay;
+		IDocument document= fDocument;
+		return adaptiveDelay.getDelay(fIsIncrementalReconciler, document != null ? document.getLength() : 0);
+	}
+
+	/**
+	 * Removes the next dirty regions to process from the queue. This is the next dirty
+	 * region, or all queued dirty regions if this is a {@link #isBatchReconciler() batch
+	 * reconciler}. If the delay is adapted and processing the whole document is expected to
+	 * be cheaper than processing the queued dirty regions, the queue is emptied and
+	 * <code>null</code> is returned.
+	 *
+	 * @return the next dirty regions, or <code>null</code> to process the whole document
+	 * @since 3.15
+	 */
+	private DirtyRegion[] removeNextDirtyRegions() {
+		AdaptiveDelay adaptiveDelay= fAdaptiveDelay;
+		IDocument document= fDocument;
+		synchronized (fDirtyRegionQueue) {
+			int size= fDirtyRegionQueue.getSize();
+			if (size == 0)
+				return null;
+			if (adaptiveDelay != null && document != null && adaptiveDelay.preferFullPass(size, document.getLength())) {
+				fDirtyRegionQueue.purgeQueue();
+				return null;
+			}
+			if (size > 1 && isBatchReconciler())
+				return fDirtyRegionQueue.removeAllDirtyRegions();
+			return new DirtyRegion[] { fDirtyRegionQueue.removeNextDirtyRegion() };
+		}
+	}
+
+	/**
+	 * Processes the given dirty regions and measures the time needed if the delay is adapted.
+	 *
+	 * @param dirtyRegions the dirty regions to be processed, <code>null</code> for the whole
+	 *            document
+	 * @since 3.15
+	 */
+	private void processMeasured(DirtyRegion[] dirtyRegions) {
+		long start= System.currentTimeMillis();
+		if (dirtyRegions == null)
+			process((DirtyRegion) null);
+		else if (dirtyRegions.length == 1)
+			process(dirtyRegions[0]);
+		else
+			processDirtyRegions(dirtyRegions);
+		long time= System.currentTimeMillis() - start;
+
+		AdaptiveDelay adaptiveDelay= fAdaptiveDelay;
+		IDocument document= fDocument;
+		if (adaptiveDelay != null && document != null && !fProgressMonitor.isCanceled()) {
+			if (dirtyRegions == null)
+				adaptiveDelay.processed(true, document.getLength(), time);
+			else
+				adaptiveDelay.processed(false, document.getLength(), time / dirtyRegions.length);
+		}
+	}
+
+	/**
+	 * Processes several dirty regions in one pass. The dirty regions are disjoint, ordered
+	 * by offset and given in the coordinates of the document at the time they were removed
+	 * from the queue. This method is only called for {@link #isBatchReconciler() batch
+	 * reconcilers}.
+	 * <p>
+	 * The default implementation calls {@link #process(DirtyRegion)} for each dirty region.
+	 * Subclasses may reimplement.
+	 * </p>
+	 *
+	 * @param dirtyRegions the dirty regions to be processed
+	 * @since 3.15
+	 */
+	protected void processDirtyRegions(DirtyRegion[] dirtyRegions) {
+		for (DirtyRegion dirtyRegion : dirtyRegions)
+			process(dirtyRegion);
+	}
+
+	/**
+	 * Tells whether all queued dirty regions are handed to
+	 * {@link #processDirtyRegions(DirtyRegion[])} at once, instead of processing them one by one.
+	 * <p>
+	 * The default implementation returns <code>false</code>.
+	 * </p>
+	 *
+	 * @return <code>true</code> if this reconciler processes dirty regions in batches
+	 * @since 3.15
+	 */
+	protected boolean isBatchReconciler() {
+		return false;
+	}
+
 	/**
 	 * Tells the reconciler whether any of the available reconciling strategies
 	 * is interested in getting detailed dirty region information or just in the
@@ -392,6 +929,80 @@ abstract public class AbstractReconciler implements IReconciler {
 		fIsAllowedToModifyDocument= isAllowedToModify;
 	}
 
+	/**
+	 * Tells the reconciler to run its background activity as tasks on the given executor
+	 * instead of in a dedicated thread. The tasks are scheduled by the
+	 * {@link ReconcilerScheduler#getDefault() reconciler scheduler}; tasks of reconcilers
+	 * working on the same document are run one after the other. This method must be called
+	 * before the reconciler is installed.
+	 *
+	 * @param executor the executor to be used, or <code>null</code> to use a dedicated thread
+	 * @see #getSharedExecutor()
+	 * @since 3.15
+	 */
+	public void setExecutor(Executor executor) {
+		fExecutor= executor;
+	}
+
+	/**
+	 * Returns the executor shared by reconcilers. The executor uses a bounded number of
+	 * low-priority daemon threads.
+	 *
+	 * @return the shared reconciler executor
+	 * @see #setExecutor(Executor)
+	 * @since 3.15
+	 */
+	public static synchronized Executor getSharedExecutor() {
+		if (fgSharedExecutor == null) {
+			int threads= Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+			ThreadPoolExecutor executor= new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), createThreadFactory("Reconciler")); //$NON-NLS-1$
+			executor.allowCoreThreadTimeOut(true);
+			fgSharedExecutor= executor;
+		}
+		return fgSharedExecutor;
+	}
+
+	/**
+	 * Returns the timer delaying the tasks of reconcilers running on executors.
+	 *
+	 * @return the timer
+	 * @since 3.15
+	 */
+	static synchronized ScheduledExecutorService getTimer() {
+		if (fgTimer == null) {
+			ScheduledThreadPoolExecutor timer= new ScheduledThreadPoolExecutor(1, createThreadFactory("Reconciler Timer")); //$NON-NLS-1$
+			timer.setKeepAliveTime(10, TimeUnit.SECONDS);
+			timer.allowCoreThreadTimeOut(true);
+			fgTimer= timer;
+		}
+		return fgTimer;
+	}
+
+	private static ThreadFactory createThreadFactory(String name) {
+		AtomicInteger count= new AtomicInteger();
+		return runnable -> {
+			Thread thread= new Thread(runnable, name + " " + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setPriority(Thread.MIN_PRIORITY);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Returns the priority with which the tasks of this reconciler are scheduled if it
+	 * runs on an executor. By default, the priority is tracked from the focus and the
+	 * visibility of the text viewer's widget. Subclasses may reimplement this method,
+	 * e.g. to take the state of the enclosing editor into account.
+	 *
+	 * @return one of {@link ReconcilerScheduler#FOCUSED}, {@link ReconcilerScheduler#VISIBLE}
+	 *         and {@link ReconcilerScheduler#HIDDEN}
+	 * @see #setExecutor(Executor)
+	 * @since 3.15
+	 */
+	protected int getSchedulingPriority() {
+		return fSchedulingPriority;
+	}
+
 	/**
 	 * Sets the progress monitor of this reconciler.
 	 *
@@ -450,7 +1061,10 @@ abstract public class AbstractReconciler implements IReconciler {
 		synchronized (this) {
 			if (fThread != null)
 				return;
-			fThread= new BackgroundThread(getClass().getName());
+			if (fExecutor != null)
+				fThread= new BackgroundTask();
+			else
+				fThread= new BackgroundThread(getClass().getName());
 		}
 
 		fDirtyRegionQueue= new DirtyRegionQueue();
@@ -458,6 +1072,10 @@ abstract public class AbstractReconciler implements IReconciler {
 		fListener= new Listener();
 		fViewer.addTextInputListener(fListener);
 
+		StyledText widget= fViewer.getTextWidget();
+		if (fExecutor != null && widget != null)
+			fPriorityTracker= new PriorityTracker(widget);
+
 		// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=67046
 		// if the reconciler gets installed on a viewer that already has a document
 		// (e.g. when reusing editors), we force the listener to register
@@ -476,6 +1094,10 @@ abstract public class AbstractReconciler implements IReconciler {
 		if (fListener != null) {
 
 			fViewer.removeTextInputListener(fListener);
+			if (fPriorityTracker != null) {
+				fPriorityTracker.dispose();
+				fPriorityTracker= null;
+			}
 			if (fDocument != null) {
 				fListener.inputDocumentAboutToBeChanged(fDocument, null);
 				fListener.inputDocumentChanged(fDocument, null);
@@ -484,7 +1106,7 @@ abstract public class AbstractReconciler implements IReconciler {
 
             synchronized (this) {
                 // http://dev.eclipse.org/bugs/show_bug.cgi?id=19135
-    			BackgroundThread bt= fThread;
+    			BackgroundActivity bt= fThread;
     			fThread= null;
     			bt.cancel();
             }
@@ -592,6 +1214,7 @@ abstract public class AbstractReconciler implements IReconciler {
 	 * @since 3.4
 	 */
 	protected boolean isRunningInReconcilerThread() {
-		return Thread.currentThread() == fThread;
+		BackgroundActivity activity= fThread;
+		return activity != null && activity.isCurrentThread();
 	}
 }
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.reconciler;
+
+
+/**
+ * Cost model used by {@link AbstractReconciler} to adapt its delay. It keeps moving
+ * averages of the time needed to process the whole document (per character), the
+ * time needed to process one dirty region and the time between two document changes.
+ * <p>
+ * The delay grows with the expected cost of the next reconciling pass and is doubled
+ * when the document is changed faster than it could be reconciled. Incremental
+ * reconcilers switch to one pass over the whole document when processing the queued
+ * dirty regions is expected to take longer.
+ * </p>
+ *
+ * @see AbstractReconciler#setAdaptiveDelay(int, int)
+ * @since 3.15
+ */
+class AdaptiveDelay {
+
+	/** The weight of a new sample in the moving averages. */
+	private static final double WEIGHT= 0.3;
+	/**
+	 * The number of queued dirty regions above which a full pass is tried while its
+	 * cost is still unknown.
+	 */
+	private static final int EXPLORE_FULL_THRESHOLD= 32;
+
+	/** The minimal delay in milliseconds. */
+	private final int fMinDelay;
+	/** The maximal delay in milliseconds. */
+	private final int fMaxDelay;
+
+	/** The average time to process the whole document per character, <code>-1</code> if unknown. */
+	private double fFullCostPerChar= -1;
+	/** The average time to process one dirty region, <code>-1</code> if unknown. */
+	private double fRegionCost= -1;
+	/** The average time between two document changes, <code>-1</code> if unknown. */
+	private double fChangeInterval= -1;
+	/** The time of the last document change, <code>0</code> if none. */
+	private long fLastChange;
+
+	/**
+	 * Creates a new cost model.
+	 *
+	 * @param minDelay the minimal delay in milliseconds
+	 * @param maxDelay the maximal delay in milliseconds
+	 */
+	AdaptiveDelay(int minDelay, int maxDelay) {
+		fMinDelay= Math.max(1, minDelay);
+		fMaxDelay= Math.max(fMinDelay, maxDelay);
+	}
+
+	/**
+	 * Records a document change.
+	 *
+	 * @param time the time of the change in milliseconds
+	 */
+	synchronized void documentChanged(long time) {
+		if (fLastChange > 0)
+			fChangeInterval= average(fChangeInterval, Math.min(time - fLastChange, 2L * fMaxDelay));
+		fLastChange= time;
+	}
+
+	/**
+	 * Records the time needed by a reconciling pass.
+	 *
+	 * @param isFull <code>true</code> if the whole document has been processed,
+	 *            <code>false</code> if one dirty region has been processed
+	 * @param documentLength the length of the document
+	 * @param millis the time needed in milliseconds
+	 */
+	synchronized void processed(boolean isFull, int documentLength, long millis) {
+		if (isFull)
+			fFullCostPerChar= average(fFullCostPerChar, (double) millis / Math.max(1, documentLength));
+		else
+			fRegionCost= average(fRegionCost, millis);
+	}
+
+	/**
+	 * Returns the delay to wait for further changes before the next reconciling pass.
+	 *
+	 * @param isIncremental <code>true</code> if the next pass processes a dirty region
+	 * @param documentLength the length of the document
+	 * @return the delay in milliseconds
+	 */
+	synchronized int getDelay(boolean isIncremental, int documentLength) {
+		double cost= isIncremental ? fRegionCost : getFullCost(documentLength);
+		if (cost < 0)
+			cost= Math.max(fRegionCost, getFullCost(documentLength));
+		if (cost < 0)
+			return fMinDelay;
+
+		double delay= fMinDelay + 2 * cost;
+		if (fChangeInterval >= 0 && fChangeInterval < delay)
+			delay*= 2;
+		return (int) Math.min(fMaxDelay, delay);
+	}
+
+	/**
+	 * Tells whether processing the whole document is expected to be cheaper than
+	 * processing the queued dirty regions one by one.
+	 *
+	 * @param queueSize the number of queued dirty regions
+	 * @param documentLength the length of the document
+	 * @return <code>true</code> if the whole document should be processed
+	 */
+	synchronized boolean preferFullPass(int queueSize, int documentLength) {
+		if (queueSize < 2)
+			return false;
+		double fullCost= getFullCost(documentLength);
+		if (fullCost < 0)
+			return queueSize >= EXPLORE_FULL_THRESHOLD;
+		return fRegionCost >= 0 && queueSize * fRegionCost > fullCost;
+	}
+
+	private double getFullCost(int documentLength) {
+		return fFullCostPerChar < 0 ? -1 : fFullCostPerChar * documentLength;
+	}
+
+	private static double average(double average, double sample) {
+		return average < 0 ? sample : average + WEIGHT * (sample - average);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,16 +19,60 @@ import java.util.List;
 
 /**
  * Queue used by {@link org.eclipse.jface.text.reconciler.AbstractReconciler} to manage
- * dirty regions. When a dirty region is inserted into the queue, the queue tries
- * to fold it into the neighboring dirty region.
+ * dirty regions. The queue keeps a sorted set of disjoint changed intervals in the
+ * coordinates of the current document. When a dirty region is inserted into the queue,
+ * the queue merges it with all overlapping or adjacent intervals, which are found by
+ * binary search, and shifts the following intervals by the length of the change.
+ * <p>
+ * Each interval is handed out as an {@link DirtyRegion#INSERT insert} region covering the
+ * text inserted into the interval, preceded by a {@link DirtyRegion#REMOVE remove} region
+ * if original text has been removed in the interval. Dirty regions are handed out in the
+ * order of their offsets. Inserted text that is removed again before it is handed out
+ * does not produce any dirty region.
+ * </p>
  *
  * @see org.eclipse.jface.text.reconciler.AbstractReconciler
  * @see org.eclipse.jface.text.reconciler.DirtyRegion
  */
 class DirtyRegionQueue {
 
-	/** The list of dirty regions. */
-	private List<DirtyRegion> fDirtyRegions= new ArrayList<>();
+	/**
+	 * A changed interval of the current document.
+	 *
+	 * @since 3.15
+	 */
+	private static class Interval {
+
+		/** The start offset of the inserted text. */
+		int fStart;
+		/** The end offset of the inserted text. */
+		int fEnd;
+		/** The inserted text, <code>null</code> if unknown. */
+		String fText;
+		/** The number of removed characters of the original text. */
+		int fRemoved;
+
+		Interval(int start, int end, String text, int removed) {
+			fStart= start;
+			fEnd= end;
+			fText= text;
+			fRemoved= removed;
+		}
+
+		/**
+		 * Returns the number of dirty regions represented by this interval.
+		 *
+		 * @return the number of dirty regions
+		 */
+		int getRegionCount() {
+			return (fRemoved > 0 ? 1 : 0) + (fEnd > fStart ? 1 : 0);
+		}
+	}
+
+	/** The disjoint, non-adjacent intervals sorted by offset. */
+	private final List<Interval> fIntervals= new ArrayList<>();
+	/** The number of dirty regions in the queue. */
+	private int fSize;
 
 	/**
 	 * Creates a new empty dirty region.
@@ -38,42 +82,128 @@ class DirtyRegionQueue {
 	}
 
 	/**
-	 * Adds a dirty region to the end of the dirty-region queue.
+	 * Adds a dirty region to the dirty-region queue. The region is merged with all
+	 * overlapping or adjacent queued regions.
 	 *
 	 * @param dr the dirty region to add
 	 */
 	public void addDirtyRegion(DirtyRegion dr) {
-		// If the dirty region being added is directly after the last dirty
-		// region on the queue then merge the two dirty regions together.
-		DirtyRegion lastDR= getLastDirtyRegion();
-		boolean wasMerged= false;
-		if (lastDR != null)
-			if (lastDR.getType() == dr.getType())
-				if (lastDR.getType() == DirtyRegion.INSERT) {
-					if (lastDR.getOffset() + lastDR.getLength() == dr.getOffset()) {
-						lastDR.mergeWith(dr);
-						wasMerged= true;
-					}
-				} else if (lastDR.getType() == DirtyRegion.REMOVE) {
-					if (dr.getOffset() + dr.getLength() == lastDR.getOffset()) {
-						lastDR.mergeWith(dr);
-						wasMerged= true;
-					}
-				}
-
-		if (!wasMerged)
-			// Don't merge- just add the new one onto the queue.
-			fDirtyRegions.add(dr);
+		if (dr.getType() == DirtyRegion.REMOVE)
+			remove(dr.getOffset(), dr.getLength());
+		else
+			insert(dr.getOffset(), dr.getLength(), dr.getText());
+	}
+
+	/**
+	 * Records the insertion of text.
+	 *
+	 * @param offset the offset of the insertion
+	 * @param length the length of the inserted text
+	 * @param text the inserted text, may be <code>null</code>
+	 */
+	private void insert(int offset, int length, String text) {
+		if (length == 0)
+			return;
+
+		int index= indexOf(offset);
+		if (index < fIntervals.size() && fIntervals.get(index).fStart <= offset) {
+			Interval interval= fIntervals.get(index);
+			fSize-= interval.getRegionCount();
+			if (interval.fText != null && text != null) {
+				int position= offset - interval.fStart;
+				interval.fText= interval.fText.substring(0, position) + text + interval.fText.substring(position);
+			} else {
+				interval.fText= null;
+			}
+			interval.fEnd+= length;
+			fSize+= interval.getRegionCount();
+		} else {
+			Interval interval= new Interval(offset, offset + length, text, 0);
+			fIntervals.add(index, interval);
+			fSize+= interval.getRegionCount();
+		}
+		shift(index + 1, length);
+	}
+
+	/**
+	 * Records the removal of text.
+	 *
+	 * @param offset the offset of the removed text
+	 * @param length the length of the removed text
+	 */
+	private void remove(int offset, int length) {
+		if (length == 0)
+			return;
+
+		int end= offset + length;
+		int first= indexOf(offset);
+		int last= first;
+
+		int start= offset;
+		int newEnd= end;
+		int removed= length;
+		String prefix= ""; //$NON-NLS-1$
+		String suffix= ""; //$NON-NLS-1$
+		boolean isTextKnown= true;
+		for (; last < fIntervals.size() && fIntervals.get(last).fStart <= end; last++) {
+			Interval interval= fIntervals.get(last);
+			// removed inserted text does not count as removed original text
+			removed-= Math.min(interval.fEnd, end) - Math.max(interval.fStart, offset);
+			removed+= interval.fRemoved;
+			isTextKnown&= interval.fText != null;
+			if (interval.fStart < offset) {
+				start= interval.fStart;
+				if (interval.fText != null)
+					prefix= interval.fText.substring(0, offset - interval.fStart);
+			}
+			if (interval.fEnd > end) {
+				newEnd= interval.fEnd;
+				if (interval.fText != null)
+					suffix= interval.fText.substring(end - interval.fStart);
+			}
+			fSize-= interval.getRegionCount();
+		}
+		fIntervals.subList(first, last).clear();
+
+		Interval merged= new Interval(start, newEnd - length, isTextKnown ? prefix + suffix : null, removed);
+		if (merged.getRegionCount() > 0) {
+			fIntervals.add(first++, merged);
+			fSize+= merged.getRegionCount();
+		}
+		shift(first, -length);
 	}
 
 	/**
-	 * Returns the last dirty region that was added to the queue.
+	 * Returns the index of the first interval which ends at or after the given offset.
 	 *
-	 * @return the last DirtyRegion on the queue
+	 * @param offset the offset
+	 * @return the index of the first interval ending at or after <code>offset</code>
 	 */
-	private DirtyRegion getLastDirtyRegion() {
-		int size= fDirtyRegions.size();
-		return (size == 0 ? null : fDirtyRegions.get(size - 1));
+	private int indexOf(int offset) {
+		int low= 0;
+		int high= fIntervals.size();
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			if (fIntervals.get(mid).fEnd < offset)
+				low= mid + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Shifts the intervals starting with the given index by the given delta.
+	 *
+	 * @param index the index of the first interval to shift
+	 * @param delta the delta
+	 */
+	private void shift(int index, int delta) {
+		for (int i= index, size= fIntervals.size(); i < size; i++) {
+			Interval interval= fIntervals.get(i);
+			interval.fStart+= delta;
+			interval.fEnd+= delta;
+		}
 	}
 
 	/**
@@ -82,14 +212,15 @@ class DirtyRegionQueue {
 	 * @return the dirty-region queue-size
 	 */
 	public int getSize() {
-		return fDirtyRegions.size();
+		return fSize;
 	}
 
 	/**
 	 * Throws away all entries in the queue.
 	 */
 	public void purgeQueue() {
-		fDirtyRegions.clear();
+		fIntervals.clear();
+		fSize= 0;
 	}
 
 	/**
@@ -98,10 +229,33 @@ class DirtyRegionQueue {
 	 * @return the next dirty region on the queue
 	 */
 	public DirtyRegion removeNextDirtyRegion() {
-		if (fDirtyRegions.size() == 0)
+		if (fIntervals.isEmpty())
 			return null;
-		DirtyRegion dr= fDirtyRegions.get(0);
-		fDirtyRegions.remove(0);
-		return dr;
+
+		--fSize;
+		Interval interval= fIntervals.get(0);
+		if (interval.fRemoved > 0) {
+			DirtyRegion dr= new DirtyRegion(interval.fStart, interval.fRemoved, DirtyRegion.REMOVE, null);
+			interval.fRemoved= 0;
+			if (interval.fEnd == interval.fStart)
+				fIntervals.remove(0);
+			return dr;
+		}
+
+		fIntervals.remove(0);
+		return new DirtyRegion(interval.fStart, interval.fEnd - interval.fStart, DirtyRegion.INSERT, interval.fText);
+	}
+
+	/**
+	 * Removes and returns all dirty regions in the queue, ordered by offset.
+	 *
+	 * @return the dirty regions on the queue
+	 * @since 3.15
+	 */
+	public DirtyRegion[] removeAllDirtyRegions() {
+		DirtyRegion[] regions= new DirtyRegion[fSize];
+		for (int i= 0; i < regions.length; i++)
+			regions[i]= removeNextDirtyRegion();
+		return regions;
 	}
 }
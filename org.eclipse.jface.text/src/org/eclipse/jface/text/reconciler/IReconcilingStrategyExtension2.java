@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.reconciler;
+
+
+/**
+ * Extends {@link org.eclipse.jface.text.reconciler.IReconcilingStrategy}
+ * with the ability to incrementally reconcile several dirty regions in one pass.
+ * <p>
+ * A {@link MonoReconciler} configured with an incremental strategy implementing this
+ * interface hands all queued dirty regions to the strategy at once.
+ * </p>
+ *
+ * @since 3.15
+ */
+public interface IReconcilingStrategyExtension2 {
+
+	/**
+	 * Incrementally reconciles the given dirty regions. The dirty regions are disjoint
+	 * and ordered by offset.
+	 *
+	 * @param dirtyRegions the document regions which have been changed
+	 */
+	void reconcile(DirtyRegion[] dirtyRegions);
+}
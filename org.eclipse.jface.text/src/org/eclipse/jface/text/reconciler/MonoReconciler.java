@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -77,6 +77,37 @@ public class MonoReconciler extends AbstractReconciler {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Hands the dirty regions at once to the reconciling strategy if it implements
+	 * {@link IReconcilingStrategyExtension2}.
+	 * </p>
+	 *
+	 * @since 3.15
+	 */
+	@Override
+	protected void processDirtyRegions(DirtyRegion[] dirtyRegions) {
+		if (fStrategy instanceof IReconcilingStrategyExtension2)
+			((IReconcilingStrategyExtension2) fStrategy).reconcile(dirtyRegions);
+		else
+			super.processDirtyRegions(dirtyRegions);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns <code>true</code> if this reconciler is incremental and its reconciling strategy
+	 * implements {@link IReconcilingStrategyExtension2}.
+	 * </p>
+	 *
+	 * @since 3.15
+	 */
+	@Override
+	protected boolean isBatchReconciler() {
+		return isIncrementalReconciler() && fStrategy instanceof IReconcilingStrategyExtension2;
+	}
+
 	@Override
 	protected void reconcilerDocumentChanged(IDocument document) {
 		fStrategy.setDocument(document);
@@ -14,10 +14,17 @@
 package org.eclipse.jface.text.reconciler;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -39,6 +46,10 @@ import org.eclipse.jface.text.TypedRegion;
  * <p>
  * Usually, clients instantiate this class and configure it before using it.
  * </p>
+ * <p>
+ * The reconciling strategies of the different content types of a dirty region are run one after
+ * the other, unless a {@linkplain #setStrategyExecutor(Executor) strategy executor} is set.
+ * </p>
  *
  * @see org.eclipse.jface.text.IDocumentListener
  * @see org.eclipse.jface.text.ITextInputListener
@@ -55,6 +66,19 @@ public class Reconciler extends AbstractReconciler implements IReconcilerExtensi
 	 */
 	private String fPartitioning;
 
+	/**
+	 * The executor running the reconciling strategies concurrently, <code>null</code> if they are
+	 * run one after the other.
+	 * @since 3.15
+	 */
+	private volatile Executor fStrategyExecutor;
+
+	/**
+	 * The durations of the reconciling strategies in the last processing of a dirty region.
+	 * @since 3.15
+	 */
+	private volatile Map<IReconcilingStrategy, Long> fStrategyTimings= Collections.emptyMap();
+
 	/**
 	 * Creates a new reconciler with the following configuration: it is
 	 * an incremental reconciler with a standard delay of 500 milliseconds. There
@@ -119,6 +143,42 @@ public class Reconciler extends AbstractReconciler implements IReconcilerExtensi
 		return fStrategies.get(contentType);
 	}
 
+	/**
+	 * Tells the reconciler to run the distinct reconciling strategies of a dirty region
+	 * concurrently on the given executor. Each strategy reconciles all its partitions of the dirty
+	 * region in one task, so a strategy registered for several content types is never run
+	 * concurrently with itself. The first strategy runs in the reconciler's thread, and a
+	 * strategy which the executor has not started when the reconciler's thread waits for it runs
+	 * in the reconciler's thread as well. Strategies which have not started when the progress
+	 * monitor is canceled are skipped. The processing of a dirty region ends when all strategies
+	 * are done.
+	 * <p>
+	 * Only reconciling strategies which are independent of each other and which can be run in
+	 * any thread should be run concurrently. By default, the strategies are run one after the
+	 * other.
+	 * </p>
+	 *
+	 * @param executor the executor to be used, or <code>null</code> to run the strategies one
+	 *            after the other
+	 * @see AbstractReconciler#getSharedExecutor()
+	 * @since 3.15
+	 */
+	public void setStrategyExecutor(Executor executor) {
+		fStrategyExecutor= executor;
+	}
+
+	/**
+	 * Returns the durations of the reconciling strategies in the last processing of a dirty
+	 * region, in the order in which they were started. Strategies which were skipped because the
+	 * processing was canceled are not included.
+	 *
+	 * @return the durations in nanoseconds by reconciling strategy
+	 * @since 3.15
+	 */
+	public Map<IReconcilingStrategy, Long> getStrategyTimings() {
+		return fStrategyTimings;
+	}
+
 	/**
 	 * Processes a dirty region. If the dirty region is <code>null</code> the whole
 	 * document is consider being dirty. The dirty region is partitioned by the
@@ -138,16 +198,123 @@ public class Reconciler extends AbstractReconciler implements IReconcilerExtensi
 
 		ITypedRegion[] regions= computePartitioning(region.getOffset(), region.getLength());
 
+		Executor executor= fStrategyExecutor;
+		if (executor != null) {
+			processConcurrently(dirtyRegion, regions, executor);
+			return;
+		}
+
+		Map<IReconcilingStrategy, Long> timings= new LinkedHashMap<>();
 		for (ITypedRegion r : regions) {
 			IReconcilingStrategy s= getReconcilingStrategy(r.getType());
 			if (s == null)
 				continue;
 
-			if(dirtyRegion != null)
-				s.reconcile(dirtyRegion, r);
-			else
-				s.reconcile(r);
+			long start= System.nanoTime();
+			reconcile(s, dirtyRegion, r);
+			timings.merge(s, Long.valueOf(System.nanoTime() - start), Long::sum);
+		}
+		fStrategyTimings= Collections.unmodifiableMap(timings);
+	}
+
+	/**
+	 * Processes a dirty region by running its distinct reconciling strategies concurrently on the
+	 * given executor.
+	 *
+	 * @param dirtyRegion the dirty region to be processed, <code>null</code> if the whole
+	 *            document is dirty
+	 * @param regions the partitions of the dirty region
+	 * @param executor the executor running the strategies
+	 * @see #setStrategyExecutor(Executor)
+	 * @since 3.15
+	 */
+	private void processConcurrently(DirtyRegion dirtyRegion, ITypedRegion[] regions, Executor executor) {
+		Map<IReconcilingStrategy, List<ITypedRegion>> strategyRegions= new LinkedHashMap<>();
+		for (ITypedRegion r : regions) {
+			IReconcilingStrategy s= getReconcilingStrategy(r.getType());
+			if (s != null)
+				strategyRegions.computeIfAbsent(s, strategy -> new ArrayList<>()).add(r);
+		}
+
+		List<Entry<IReconcilingStrategy, List<ITypedRegion>>> entries= new ArrayList<>(strategyRegions.entrySet());
+		List<FutureTask<Long>> tasks= new ArrayList<>(entries.size());
+		for (Entry<IReconcilingStrategy, List<ITypedRegion>> entry : entries)
+			tasks.add(new FutureTask<>(() -> reconcile(entry.getKey(), dirtyRegion, entry.getValue())));
+		for (int i= 1; i < tasks.size(); i++) {
+			try {
+				executor.execute(tasks.get(i));
+			} catch (RejectedExecutionException x) {
+				// the task is run in the reconciler's thread
+			}
+		}
+
+		Map<IReconcilingStrategy, Long> timings= new LinkedHashMap<>();
+		Throwable failure= null;
+		boolean interrupted= false;
+		for (int i= 0; i < tasks.size(); i++) {
+			FutureTask<Long> task= tasks.get(i);
+			// does nothing if the executor has already started the task
+			task.run();
+			while (true) {
+				try {
+					Long duration= task.get();
+					if (duration != null)
+						timings.put(entries.get(i).getKey(), duration);
+					break;
+				} catch (InterruptedException x) {
+					// skip the strategies which have not started, but wait for the running ones
+					interrupted= true;
+					getProgressMonitor().setCanceled(true);
+				} catch (ExecutionException x) {
+					if (failure == null)
+						failure= x.getCause();
+					break;
+				}
+			}
 		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		fStrategyTimings= Collections.unmodifiableMap(timings);
+
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+	}
+
+	/**
+	 * Reconciles the given partitions with the given reconciling strategy, unless the progress
+	 * monitor is canceled.
+	 *
+	 * @param strategy the reconciling strategy
+	 * @param dirtyRegion the dirty region, <code>null</code> if the whole document is dirty
+	 * @param regions the partitions to be reconciled
+	 * @return the duration in nanoseconds, or <code>null</code> if the strategy was skipped
+	 * @since 3.15
+	 */
+	private Long reconcile(IReconcilingStrategy strategy, DirtyRegion dirtyRegion, List<ITypedRegion> regions) {
+		if (getProgressMonitor().isCanceled())
+			return null;
+
+		long start= System.nanoTime();
+		for (ITypedRegion r : regions)
+			reconcile(strategy, dirtyRegion, r);
+		return Long.valueOf(System.nanoTime() - start);
+	}
+
+	/**
+	 * Reconciles the given partition with the given reconciling strategy.
+	 *
+	 * @param strategy the reconciling strategy
+	 * @param dirtyRegion the dirty region, <code>null</code> if the whole document is dirty
+	 * @param region the partition to be reconciled
+	 * @since 3.15
+	 */
+	private static void reconcile(IReconcilingStrategy strategy, DirtyRegion dirtyRegion, ITypedRegion region) {
+		if (dirtyRegion != null)
+			strategy.reconcile(dirtyRegion, region);
+		else
+			strategy.reconcile(region);
 	}
 
 	@Override
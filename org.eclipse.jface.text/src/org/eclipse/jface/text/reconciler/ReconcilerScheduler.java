@@ -0,0 +1,418 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.reconciler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jface.text.IDocument;
+
+
+/**
+ * Schedules the tasks of all reconcilers that run on executors, see
+ * {@link AbstractReconciler#setExecutor(java.util.concurrent.Executor)}.
+ * <p>
+ * Only a bounded number of tasks run at the same time, and tasks of reconcilers working
+ * on the same document are never run concurrently. Pending tasks are ranked by the
+ * scheduling priority their reconciler had when the task was submitted, and by their age:
+ * a task of the editor having the {@link #FOCUSED focus} runs before a task of a
+ * {@link #VISIBLE visible} editor, which runs before a task of a {@link #HIDDEN hidden}
+ * editor. Each {@link #getAgingInterval() aging interval} a task waits raises its rank
+ * by one priority, so that no task starves. Tasks of hidden editors are deferred for the
+ * {@link #getHiddenDeferral() hidden deferral} before they are run at all.
+ * </p>
+ * <p>
+ * The state of the queue can be inspected with {@link #getQueue()} and the counters of
+ * this scheduler. Dispatched tasks are traced if the debug option
+ * <code>org.eclipse.jface.text/debug/Reconciler/Scheduler</code> is set.
+ * </p>
+ * <p>
+ * The scheduler never calls reconcilers or executors while holding its lock.
+ * </p>
+ * <p>
+ * This class is not intended to be subclassed or instantiated by clients.
+ * </p>
+ *
+ * @since 3.15
+ */
+public final class ReconcilerScheduler {
+
+	/** Scheduling priority of a reconciler whose viewer has the focus. */
+	public static final int FOCUSED= 0;
+	/** Scheduling priority of a reconciler whose viewer is visible. */
+	public static final int VISIBLE= 1;
+	/** Scheduling priority of a reconciler whose viewer is hidden. */
+	public static final int HIDDEN= 2;
+
+	/** Debug option for tracing dispatched tasks. */
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jface.text/debug/Reconciler/Scheduler")); //$NON-NLS-1$//$NON-NLS-2$
+
+	/** The default scheduler. */
+	private static ReconcilerScheduler fgDefault;
+
+	/**
+	 * Snapshot of a pending task.
+	 */
+	public static final class TaskInfo {
+
+		private final AbstractReconciler fReconciler;
+		private final int fPriority;
+		private final long fAge;
+
+		TaskInfo(AbstractReconciler reconciler, int priority, long age) {
+			fReconciler= reconciler;
+			fPriority= priority;
+			fAge= age;
+		}
+
+		/**
+		 * Returns the reconciler that submitted the task.
+		 *
+		 * @return the reconciler
+		 */
+		public AbstractReconciler getReconciler() {
+			return fReconciler;
+		}
+
+		/**
+		 * Returns the scheduling priority of the task's reconciler, one of
+		 * {@link ReconcilerScheduler#FOCUSED}, {@link ReconcilerScheduler#VISIBLE} and
+		 * {@link ReconcilerScheduler#HIDDEN}.
+		 *
+		 * @return the scheduling priority
+		 */
+		public int getPriority() {
+			return fPriority;
+		}
+
+		/**
+		 * Returns how long the task has been waiting.
+		 *
+		 * @return the age of the task in milliseconds
+		 */
+		public long getAge() {
+			return fAge;
+		}
+
+		@Override
+		public String toString() {
+			return fReconciler.getClass().getName() + " [priority=" + fPriority + ", age=" + fAge + "ms]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * A pending task.
+	 */
+	private static class Entry {
+
+		final AbstractReconciler fReconciler;
+		final int fPriority;
+		final IDocument fDocument;
+		final AbstractReconciler.BackgroundTask fTask;
+		final Executor fExecutor;
+		final long fTime;
+		/** The time the task waited until it was dispatched */
+		long fWaitTime;
+
+		Entry(AbstractReconciler reconciler, int priority, IDocument document, AbstractReconciler.BackgroundTask task, Executor executor, long time) {
+			fReconciler= reconciler;
+			fPriority= priority;
+			fDocument= document;
+			fTask= task;
+			fExecutor= executor;
+			fTime= time;
+		}
+	}
+
+	/** The pending tasks in the order of their submission. */
+	private final List<Entry> fQueue= new ArrayList<>();
+	/** The documents for which a task is running. */
+	private final Set<IDocument> fRunningDocuments= new HashSet<>();
+	/** The maximal number of tasks running at the same time. */
+	private final int fMaxRunning;
+	/** The number of running tasks. */
+	private int fRunning;
+	/** Is a dispatch of deferred tasks scheduled. */
+	private boolean fDispatchScheduled;
+
+	/** The time a task waits to be raised by one priority. */
+	private long fAgingInterval= 1000;
+	/** The time tasks of hidden editors are deferred. */
+	private long fHiddenDeferral= 2000;
+
+	/** The number of completed tasks. */
+	private long fCompletedCount;
+	/** The total time completed tasks have been waiting. */
+	private long fTotalWaitTime;
+	/** The longest time a completed task has been waiting. */
+	private long fMaxWaitTime;
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param maxRunning the maximal number of tasks running at the same time
+	 */
+	private ReconcilerScheduler(int maxRunning) {
+		fMaxRunning= maxRunning;
+	}
+
+	/**
+	 * Returns the scheduler used by all reconcilers running on executors.
+	 *
+	 * @return the default scheduler
+	 */
+	public static synchronized ReconcilerScheduler getDefault() {
+		if (fgDefault == null)
+			fgDefault= new ReconcilerScheduler(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+		return fgDefault;
+	}
+
+	/**
+	 * Returns the maximal number of tasks running at the same time.
+	 *
+	 * @return the maximal number of running tasks
+	 */
+	public int getMaxRunning() {
+		return fMaxRunning;
+	}
+
+	/**
+	 * Sets the time a task waits before its rank is raised by one priority.
+	 *
+	 * @param interval the aging interval in milliseconds, must be positive
+	 */
+	public synchronized void setAgingInterval(long interval) {
+		Assert.isLegal(interval > 0);
+		fAgingInterval= interval;
+	}
+
+	/**
+	 * Returns the time a task waits before its rank is raised by one priority.
+	 *
+	 * @return the aging interval in milliseconds
+	 */
+	public synchronized long getAgingInterval() {
+		return fAgingInterval;
+	}
+
+	/**
+	 * Sets the time tasks of reconcilers with priority {@link #HIDDEN} are deferred.
+	 *
+	 * @param deferral the deferral in milliseconds
+	 */
+	public synchronized void setHiddenDeferral(long deferral) {
+		fHiddenDeferral= Math.max(0, deferral);
+	}
+
+	/**
+	 * Returns the time tasks of reconcilers with priority {@link #HIDDEN} are deferred.
+	 *
+	 * @return the deferral in milliseconds
+	 */
+	public synchronized long getHiddenDeferral() {
+		return fHiddenDeferral;
+	}
+
+	/**
+	 * Returns a snapshot of the pending tasks, in the order they would be run now.
+	 *
+	 * @return the pending tasks
+	 */
+	public synchronized List<TaskInfo> getQueue() {
+		long now= System.currentTimeMillis();
+		List<Entry> entries= new ArrayList<>(fQueue);
+		entries.sort((e1, e2) -> Long.compare(rank(e1, now), rank(e2, now)));
+		List<TaskInfo> infos= new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+			infos.add(new TaskInfo(entry.fReconciler, entry.fPriority, now - entry.fTime));
+		return infos;
+	}
+
+	/**
+	 * Returns the number of running tasks.
+	 *
+	 * @return the number of running tasks
+	 */
+	public synchronized int getRunningCount() {
+		return fRunning;
+	}
+
+	/**
+	 * Returns the number of tasks completed since the scheduler has been created.
+	 *
+	 * @return the number of completed tasks
+	 */
+	public synchronized long getCompletedCount() {
+		return fCompletedCount;
+	}
+
+	/**
+	 * Returns the average time completed tasks have been waiting.
+	 *
+	 * @return the average waiting time in milliseconds
+	 */
+	public synchronized long getAverageWaitTime() {
+		return fCompletedCount == 0 ? 0 : fTotalWaitTime / fCompletedCount;
+	}
+
+	/**
+	 * Returns the longest time a completed task has been waiting.
+	 *
+	 * @return the maximal waiting time in milliseconds
+	 */
+	public synchronized long getMaxWaitTime() {
+		return fMaxWaitTime;
+	}
+
+	/**
+	 * Submits a task of the given reconciler.
+	 *
+	 * @param reconciler the reconciler
+	 * @param document the document the task works on, may be <code>null</code>
+	 * @param task the task
+	 * @param executor the executor to run the task on
+	 */
+	void schedule(AbstractReconciler reconciler, IDocument document, AbstractReconciler.BackgroundTask task, Executor executor) {
+		int priority= reconciler.getSchedulingPriority();
+		synchronized (this) {
+			fQueue.add(new Entry(reconciler, priority, document, task, executor, System.currentTimeMillis()));
+		}
+		dispatch();
+	}
+
+	/**
+	 * Runs the best ranked eligible tasks while less than the maximal number of tasks run.
+	 * The tasks are picked while holding the lock of this scheduler and handed to their
+	 * executors after the lock has been released.
+	 */
+	private void dispatch() {
+		List<Entry> dispatched= new ArrayList<>();
+		long deferral= -1;
+		boolean scheduleDispatch= false;
+		synchronized (this) {
+			long now= System.currentTimeMillis();
+			while (fRunning < fMaxRunning) {
+				Entry best= null;
+				long bestRank= Long.MAX_VALUE;
+				for (Entry entry : fQueue) {
+					if (entry.fDocument != null && fRunningDocuments.contains(entry.fDocument))
+						continue;
+					long remaining= entry.fTime + fHiddenDeferral - now;
+					if (remaining > 0 && entry.fPriority >= HIDDEN) {
+						deferral= deferral == -1 ? remaining : Math.min(deferral, remaining);
+						continue;
+					}
+					long rank= rank(entry, now);
+					if (rank < bestRank) {
+						best= entry;
+						bestRank= rank;
+					}
+				}
+				if (best == null)
+					break;
+
+				fQueue.remove(best);
+				++fRunning;
+				if (best.fDocument != null)
+					fRunningDocuments.add(best.fDocument);
+				best.fWaitTime= now - best.fTime;
+				dispatched.add(best);
+			}
+
+			if (deferral != -1 && !fDispatchScheduled) {
+				fDispatchScheduled= true;
+				scheduleDispatch= true;
+			}
+		}
+
+		for (Entry entry : dispatched)
+			run(entry);
+
+		if (!scheduleDispatch)
+			return;
+
+		try {
+			AbstractReconciler.getTimer().schedule(() -> {
+				synchronized (this) {
+					fDispatchScheduled= false;
+				}
+				dispatch();
+			}, deferral, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException x) {
+			synchronized (this) {
+				fDispatchScheduled= false;
+			}
+		}
+	}
+
+	/**
+	 * Hands the given dispatched task to its executor. Must not be called while holding the
+	 * lock of this scheduler.
+	 *
+	 * @param entry the task
+	 */
+	private void run(Entry entry) {
+		if (DEBUG)
+			System.out.println("ReconcilerScheduler: running " + entry.fReconciler.getClass().getName() + " (priority " + entry.fPriority + ", waited " + entry.fWaitTime + "ms)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+		try {
+			entry.fExecutor.execute(() -> {
+				try {
+					entry.fTask.run();
+				} finally {
+					finished(entry, entry.fWaitTime);
+				}
+			});
+		} catch (RejectedExecutionException x) {
+			synchronized (this) {
+				--fRunning;
+				if (entry.fDocument != null)
+					fRunningDocuments.remove(entry.fDocument);
+			}
+			// let the reconciler schedule a task again on its next change
+			entry.fTask.rejected();
+		}
+	}
+
+	private void finished(Entry entry, long waitTime) {
+		synchronized (this) {
+			--fRunning;
+			if (entry.fDocument != null)
+				fRunningDocuments.remove(entry.fDocument);
+			++fCompletedCount;
+			fTotalWaitTime+= waitTime;
+			fMaxWaitTime= Math.max(fMaxWaitTime, waitTime);
+		}
+		dispatch();
+	}
+
+	/**
+	 * Returns the rank of the given task, lower ranks run first.
+	 *
+	 * @param entry the task
+	 * @param now the current time
+	 * @return the rank
+	 */
+	private long rank(Entry entry, long now) {
+		return entry.fPriority * fAgingInterval - (now - entry.fTime);
+	}
+}
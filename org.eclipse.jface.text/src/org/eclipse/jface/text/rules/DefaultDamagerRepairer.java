@@ -50,6 +50,21 @@ public class DefaultDamagerRepairer implements IPresentationDamager, IPresentati
 	protected ITokenScanner fScanner;
 	/** The default text attribute if non is returned as data by the current token */
 	protected TextAttribute fDefaultTextAttribute;
+	/**
+	 * Tells whether the tokens of the scanner are shared through the document's token cache.
+	 * @since 3.15
+	 */
+	private boolean fTokenCacheEnabled;
+	/**
+	 * The scanner returning the cached tokens of the scanner, <code>null</code> if the token cache is not used.
+	 * @since 3.15
+	 */
+	private ITokenScanner fCachingScanner;
+	/**
+	 * The scanner whose tokens {@link #fCachingScanner} returns.
+	 * @since 3.15
+	 */
+	private ITokenScanner fCachedScanner;
 
 	/**
 	 * Creates a damager/repairer that uses the given scanner and returns the given default
@@ -91,6 +106,39 @@ public class DefaultDamagerRepairer implements IPresentationDamager, IPresentati
 	@Override
 	public void setDocument(IDocument document) {
 		fDocument= document;
+		updateCachingScanner();
+	}
+
+	/**
+	 * Sets whether the tokens computed by this damager/repairer's scanner are shared
+	 * through the {@link TokenCache} of the document. If enabled, only the text that
+	 * changed since the last scan of the same region is scanned again, and other
+	 * clients of the token cache using the same scanner see the same tokens.
+	 * <p>
+	 * The token cache is disabled by default. The cached tokens of the scanner are
+	 * dropped when the scanner is reconfigured, see {@link TokenCache#invalidate(ITokenScanner)}.
+	 * </p>
+	 *
+	 * @param enabled <code>true</code> to use the token cache
+	 * @see TokenCache
+	 * @since 3.15
+	 */
+	public void setTokenCacheEnabled(boolean enabled) {
+		fTokenCacheEnabled= enabled;
+		updateCachingScanner();
+	}
+
+	/**
+	 * Updates the scanner returning the cached tokens of the scanner.
+	 *
+	 * @since 3.15
+	 */
+	private void updateCachingScanner() {
+		if (fTokenCacheEnabled && fDocument != null && fScanner != null)
+			fCachingScanner= TokenCache.getTokenCache(fDocument).getScanner(fScanner);
+		else
+			fCachingScanner= null;
+		fCachedScanner= fScanner;
 	}
 
 
@@ -173,16 +221,20 @@ public class DefaultDamagerRepairer implements IPresentationDamager, IPresentati
 		IToken lastToken= Token.UNDEFINED;
 		TextAttribute lastAttribute= getTokenTextAttribute(lastToken);
 
-		fScanner.setRange(fDocument, lastStart, region.getLength());
+		if (fCachedScanner != fScanner)
+			updateCachingScanner();
+
+		ITokenScanner scanner= fCachingScanner != null ? fCachingScanner : fScanner;
+		scanner.setRange(fDocument, lastStart, region.getLength());
 
 		while (true) {
-			IToken token= fScanner.nextToken();
+			IToken token= scanner.nextToken();
 			if (token.isEOF())
 				break;
 
 			TextAttribute attribute= getTokenTextAttribute(token);
 			if (lastAttribute != null && lastAttribute.equals(attribute)) {
-				length += fScanner.getTokenLength();
+				length += scanner.getTokenLength();
 				firstToken= false;
 			} else {
 				if (!firstToken)
@@ -190,8 +242,8 @@ public class DefaultDamagerRepairer implements IPresentationDamager, IPresentati
 				firstToken= false;
 				lastToken= token;
 				lastAttribute= attribute;
-				lastStart= fScanner.getTokenOffset();
-				length= fScanner.getTokenLength();
+				lastStart= scanner.getTokenOffset();
+				length= scanner.getTokenLength();
 			}
 		}
 
@@ -25,7 +25,9 @@ import org.eclipse.jface.text.BadPositionCategoryException;
 import org.eclipse.jface.text.DefaultPositionUpdater;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.DocumentRewriteSession;
+import org.eclipse.jface.text.DocumentRewriteSessionType;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.jface.text.IDocumentPartitionerExtension;
 import org.eclipse.jface.text.IDocumentPartitionerExtension2;
@@ -54,6 +56,14 @@ import org.eclipse.jface.text.TypedRegion;
  * {@link #clearPositionCache()} after modifying the partitioner's positions.
  * The cached positions may be accessed through {@link #getPositions()}.
  * </p>
+ * <p>
+ * During a document rewrite session the partitioner is not informed about the
+ * individual document changes. For all sessions except
+ * {@link DocumentRewriteSessionType#UNRESTRICTED} the partitioner tracks the
+ * region touched by the session and, when the session is stopped, only
+ * re-partitions that region. The partitioning of unrestricted sessions is
+ * recomputed from scratch.
+ * </p>
  *
  * @see IPartitionTokenScanner
  * @since 3.1
@@ -88,6 +98,11 @@ public class FastPartitioner implements IDocumentPartitioner, IDocumentPartition
 	 * The active document rewrite session.
 	 */
 	private DocumentRewriteSession fActiveRewriteSession;
+	/**
+	 * The region touched by the active rewrite session or <code>null</code> if the
+	 * partitioning is recomputed from scratch when the session is stopped.
+	 */
+	private RewriteSessionDamage fRewriteSessionDamage;
 	/**
 	 * Flag indicating whether this partitioner has been initialized.
 	 */
@@ -193,6 +208,8 @@ public class FastPartitioner implements IDocumentPartitioner, IDocumentPartition
 
 		Assert.isTrue(fDocument.containsPositionCategory(fPositionCategory));
 
+		stopTrackingRewriteSession();
+
 		try {
 			fDocument.removePositionCategory(fPositionCategory);
 		} catch (BadPositionCategoryException x) {
@@ -741,6 +758,11 @@ public class FastPartitioner implements IDocumentPartitioner, IDocumentPartition
 		if (fActiveRewriteSession != null)
 			throw new IllegalStateException();
 		fActiveRewriteSession= session;
+
+		if (fIsInitialized && session.getSessionType() != DocumentRewriteSessionType.UNRESTRICTED) {
+			fRewriteSessionDamage= new RewriteSessionDamage();
+			fDocument.addDocumentListener(fRewriteSessionDamage);
+		}
 	}
 
 	/**
@@ -751,8 +773,15 @@ public class FastPartitioner implements IDocumentPartitioner, IDocumentPartition
 	 */
 	@Override
 	public void stopRewriteSession(DocumentRewriteSession session) {
-		if (fActiveRewriteSession == session)
-			flushRewriteSession();
+		if (fActiveRewriteSession == session) {
+			RewriteSessionDamage damage= stopTrackingRewriteSession();
+			if (damage == null || !fIsInitialized || !damage.isBounded(fDocument.getLength())) {
+				flushRewriteSession();
+			} else {
+				fActiveRewriteSession= null;
+				repartition(damage);
+			}
+		}
 	}
 
 	/**
@@ -771,6 +800,7 @@ public class FastPartitioner implements IDocumentPartitioner, IDocumentPartition
 	 */
 	protected final void flushRewriteSession() {
 		fActiveRewriteSession= null;
+		stopTrackingRewriteSession();
 
 		// remove all position belonging to the partitioner position category
 		try {
@@ -782,6 +812,110 @@ public class FastPartitioner implements IDocumentPartitioner, IDocumentPartition
 		fIsInitialized= false;
 	}
 
+	/**
+	 * Stops tracking the region touched by the active rewrite session.
+	 *
+	 * @return the tracked region or <code>null</code> if none was tracked
+	 */
+	private RewriteSessionDamage stopTrackingRewriteSession() {
+		RewriteSessionDamage damage= fRewriteSessionDamage;
+		if (damage != null) {
+			fDocument.removeDocumentListener(damage);
+			fRewriteSessionDamage= null;
+		}
+		return damage;
+	}
+
+	/**
+	 * Re-partitions the region touched by a rewrite session. The partitions are still
+	 * positioned as before the session, hence the session is replayed as one single
+	 * replace of the touched region.
+	 *
+	 * @param damage the region touched by the rewrite session
+	 */
+	private void repartition(RewriteSessionDamage damage) {
+		if (!damage.isEmpty()) {
+			int length= damage.fEnd - damage.fStart;
+			String text;
+			try {
+				text= fDocument.get(damage.fStart, length);
+			} catch (BadLocationException x) {
+				flushRewriteSession();
+				return;
+			}
+			DocumentEvent event= new DocumentEvent(fDocument, damage.fStart, length - damage.fDelta, text);
+			documentAboutToBeChanged(event);
+			fPreviousDocumentLength= fDocument.getLength() - damage.fDelta;
+			documentChanged2(event);
+		}
+	}
+
+	/**
+	 * Tracks the minimal region touched by the document changes of a rewrite session.
+	 * The region is kept in the coordinates of the current document, together with
+	 * the length difference between the current and the original document. The text
+	 * outside of the region has not been changed by the session.
+	 */
+	private static class RewriteSessionDamage implements IDocumentListener {
+
+		/**
+		 * If the touched region covers more than this fraction of the document, it is
+		 * cheaper to recompute the partitioning from scratch.
+		 */
+		private static final int MAX_DAMAGE_DIVISOR= 2;
+
+		/** The start offset of the touched region, <code>-1</code> if nothing changed */
+		int fStart= -1;
+		/** The end offset of the touched region */
+		int fEnd= -1;
+		/** The length difference between the current and the original document */
+		int fDelta= 0;
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// Do nothing
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int length= event.getLength();
+			int delta= (event.getText() == null ? 0 : event.getText().length()) - length;
+
+			if (fStart == -1) {
+				fStart= offset;
+				fEnd= offset + length + delta;
+			} else {
+				fStart= Math.min(fStart, offset);
+				fEnd= Math.max(fEnd, offset + length) + delta;
+			}
+			fDelta+= delta;
+		}
+
+		/**
+		 * Returns whether no document change has been tracked.
+		 *
+		 * @return <code>true</code> if the document has not been changed
+		 */
+		boolean isEmpty() {
+			return fStart == -1;
+		}
+
+		/**
+		 * Returns whether the touched region is small enough to be re-partitioned
+		 * incrementally.
+		 *
+		 * @param documentLength the length of the current document
+		 * @return <code>true</code> if the region can be re-partitioned incrementally
+		 */
+		boolean isBounded(int documentLength) {
+			if (isEmpty())
+				return true;
+			int originalLength= documentLength - fDelta;
+			return fEnd - fStart <= documentLength / MAX_DAMAGE_DIVISOR && fEnd - fDelta - fStart <= originalLength / MAX_DAMAGE_DIVISOR;
+		}
+	}
+
 	/**
 	 * Clears the position cache. Needs to be called whenever the positions have
 	 * been updated.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -71,6 +71,7 @@ public class RuleBasedScanner implements ICharacterScanner, ITokenScanner {
 			System.arraycopy(rules, 0, fRules, 0, rules.length);
 		} else
 			fRules= null;
+		TokenCache.invalidate(this);
 	}
 
 	/**
@@ -84,6 +85,7 @@ public class RuleBasedScanner implements ICharacterScanner, ITokenScanner {
 	public void setDefaultReturnToken(IToken defaultReturnToken) {
 		Assert.isNotNull(defaultReturnToken.getData());
 		fDefaultReturnToken= defaultReturnToken;
+		TokenCache.invalidate(this);
 	}
 
 	@Override
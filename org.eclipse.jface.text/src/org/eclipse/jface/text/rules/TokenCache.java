@@ -0,0 +1,578 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.rules;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.Assert;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+
+/**
+ * Caches the tokens computed by token scanners for a document, so that the
+ * clients of the same scanner do not have to scan the same text again.
+ * <p>
+ * There is one token cache per document, see {@link #getTokenCache(IDocument)}.
+ * Clients get access to the cached tokens through the scanner returned by
+ * {@link #getScanner(ITokenScanner)}, which behaves like the given scanner but
+ * only asks it for the tokens of text that has not yet been scanned or that has
+ * been changed.
+ * </p>
+ * <p>
+ * The cache is updated incrementally on document changes. Like
+ * {@link DefaultDamagerRepairer}, it assumes that the tokens of a scanned range
+ * only depend on the text of their own line: the tokens of the lines touched by
+ * a document change are dropped and re-scanned on the next request, until the
+ * re-scan reaches a token which is still cached.
+ * </p>
+ * <p>
+ * Scanners which are reconfigured in a way that changes their tokens, e.g. whose
+ * rules are replaced, have to drop their cached tokens with
+ * {@link #invalidate(ITokenScanner)}. {@link RuleBasedScanner} does so when its
+ * rules or its default return token are set. Changing the data of a token, e.g.
+ * its text attribute after a color preference change, does not require that,
+ * since the cache keeps the token objects themselves.
+ * </p>
+ * <p>
+ * This class is thread-safe, the given scanners are however only called while
+ * holding the lock of the cache.
+ * </p>
+ *
+ * @see ITokenScanner
+ * @since 3.15
+ */
+public class TokenCache {
+
+	/** The token caches of the documents. */
+	private static final Map<IDocument, WeakReference<TokenCache>> fgTokenCaches= new WeakHashMap<>();
+
+	/**
+	 * Returns the token cache of the given document. The cache is created on the
+	 * first request and lives as long as the document.
+	 *
+	 * @param document the document, not <code>null</code>
+	 * @return the token cache of the document
+	 */
+	public static TokenCache getTokenCache(IDocument document) {
+		Assert.isNotNull(document);
+		synchronized (fgTokenCaches) {
+			WeakReference<TokenCache> reference= fgTokenCaches.get(document);
+			TokenCache cache= reference != null ? reference.get() : null;
+			if (cache == null) {
+				cache= new TokenCache();
+				document.addPrenotifiedDocumentListener(cache.fDocumentListener);
+				fgTokenCaches.put(document, new WeakReference<>(cache));
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Removes the tokens computed by the given scanner from the token caches of all
+	 * documents. The tokens are computed again on the next request.
+	 *
+	 * @param scanner the scanner which has been reconfigured, not <code>null</code>
+	 */
+	public static void invalidate(ITokenScanner scanner) {
+		Assert.isNotNull(scanner);
+		List<TokenCache> caches= new ArrayList<>();
+		synchronized (fgTokenCaches) {
+			for (WeakReference<TokenCache> reference : fgTokenCaches.values()) {
+				TokenCache cache= reference.get();
+				if (cache != null)
+					caches.add(cache);
+			}
+		}
+		for (TokenCache cache : caches)
+			cache.remove(scanner);
+	}
+
+	/**
+	 * A range scanned by a scanner and the tokens found in it. The token offsets
+	 * are relative to the start of the range. The range may contain a gap of
+	 * changed text which has to be scanned again.
+	 */
+	private static class CachedRange {
+
+		/** The start offset of the range */
+		int fStart;
+		/** The end offset of the range */
+		int fEnd;
+		/** The token offsets relative to the range start */
+		int[] fOffsets;
+		/** The token lengths */
+		int[] fLengths;
+		/** The tokens */
+		IToken[] fTokens;
+		/** The number of tokens */
+		int fCount;
+		/** The index of the token in front of which the gap is, <code>-1</code> if there is no gap */
+		int fGapIndex= -1;
+
+		CachedRange(int start, int end) {
+			fStart= start;
+			fEnd= end;
+			fOffsets= new int[16];
+			fLengths= new int[16];
+			fTokens= new IToken[16];
+		}
+
+		void add(int offset, int length, IToken token) {
+			if (fCount == fTokens.length)
+				grow(fCount * 2);
+			fOffsets[fCount]= offset - fStart;
+			fLengths[fCount]= length;
+			fTokens[fCount]= token;
+			++fCount;
+		}
+
+		private void grow(int capacity) {
+			int[] offsets= new int[capacity];
+			int[] lengths= new int[capacity];
+			IToken[] tokens= new IToken[capacity];
+			System.arraycopy(fOffsets, 0, offsets, 0, fCount);
+			System.arraycopy(fLengths, 0, lengths, 0, fCount);
+			System.arraycopy(fTokens, 0, tokens, 0, fCount);
+			fOffsets= offsets;
+			fLengths= lengths;
+			fTokens= tokens;
+		}
+
+		/**
+		 * Returns the index of the first token ending at or after the given relative offset.
+		 *
+		 * @param offset the offset relative to the range start
+		 * @return the index of the first token ending at or after the offset
+		 */
+		int indexOfFirstEndingAtOrAfter(int offset) {
+			int i= -1, j= fCount;
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (fOffsets[k] + fLengths[k] >= offset)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
+
+		/**
+		 * Returns the index of the first token starting at or after the given relative offset.
+		 *
+		 * @param offset the offset relative to the range start
+		 * @return the index of the first token starting at or after the offset
+		 */
+		int indexOfFirstStartingAtOrAfter(int offset) {
+			int i= -1, j= fCount;
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (fOffsets[k] >= offset)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
+
+		/**
+		 * Adapts this range to the given document change. The tokens of the lines touched
+		 * by the change are removed and leave a gap.
+		 *
+		 * @param offset the offset of the change
+		 * @param length the length of the replaced text
+		 * @param delta the length difference caused by the change
+		 * @param lineStart the start of the first line touched by the change
+		 * @param lineEnd the end of the last line touched by the change, including its delimiter
+		 * @return <code>false</code> if this range became invalid
+		 */
+		boolean update(int offset, int length, int delta, int lineStart, int lineEnd) {
+			if (fEnd <= offset)
+				return true;
+
+			if (fStart >= lineEnd) {
+				fStart+= delta;
+				fEnd+= delta;
+				return true;
+			}
+
+			if (offset < fStart && fStart < offset + length || offset < fEnd && fEnd < offset + length)
+				return false;
+
+			int from= indexOfFirstEndingAtOrAfter(lineStart - fStart);
+			int to= indexOfFirstStartingAtOrAfter(lineEnd - fStart);
+			if (fGapIndex != -1) {
+				from= Math.min(from, fGapIndex);
+				to= Math.max(to, fGapIndex);
+			}
+
+			int shift= fStart > offset ? delta : 0;
+			for (int i= to; i < fCount; i++)
+				fOffsets[i]+= delta - shift;
+
+			int removed= to - from;
+			if (removed > 0) {
+				System.arraycopy(fOffsets, to, fOffsets, from, fCount - to);
+				System.arraycopy(fLengths, to, fLengths, from, fCount - to);
+				System.arraycopy(fTokens, to, fTokens, from, fCount - to);
+				for (int i= fCount - removed; i < fCount; i++)
+					fTokens[i]= null;
+				fCount-= removed;
+			}
+			fGapIndex= from;
+
+			fStart+= shift;
+			fEnd+= delta;
+			return true;
+		}
+
+		/**
+		 * Scans the gap of this range again, until the scanner reaches the start of
+		 * a token following the gap.
+		 *
+		 * @param document the document
+		 * @param scanner the scanner computing the tokens of this range
+		 */
+		void fillGap(IDocument document, ITokenScanner scanner) {
+			int gapIndex= fGapIndex;
+			fGapIndex= -1;
+
+			int gapStart= gapIndex > 0 ? fStart + fOffsets[gapIndex - 1] + fLengths[gapIndex - 1] : fStart;
+			scanner.setRange(document, gapStart, fEnd - gapStart);
+
+			CachedRange scanned= new CachedRange(fStart, fEnd);
+			int suffix= gapIndex;
+			IToken token= scanner.nextToken();
+			while (!token.isEOF()) {
+				int tokenOffset= scanner.getTokenOffset() - fStart;
+				while (suffix < fCount && fOffsets[suffix] < tokenOffset)
+					++suffix;
+				if (suffix < fCount && fOffsets[suffix] == tokenOffset)
+					break; // the scanner is back in sync with the cached tokens
+				scanned.add(scanner.getTokenOffset(), scanner.getTokenLength(), token);
+				token= scanner.nextToken();
+			}
+			if (token.isEOF())
+				suffix= fCount;
+
+			int count= gapIndex + scanned.fCount + fCount - suffix;
+			if (count > fTokens.length)
+				grow(count);
+			System.arraycopy(fOffsets, suffix, fOffsets, gapIndex + scanned.fCount, fCount - suffix);
+			System.arraycopy(fLengths, suffix, fLengths, gapIndex + scanned.fCount, fCount - suffix);
+			System.arraycopy(fTokens, suffix, fTokens, gapIndex + scanned.fCount, fCount - suffix);
+			System.arraycopy(scanned.fOffsets, 0, fOffsets, gapIndex, scanned.fCount);
+			System.arraycopy(scanned.fLengths, 0, fLengths, gapIndex, scanned.fCount);
+			System.arraycopy(scanned.fTokens, 0, fTokens, gapIndex, scanned.fCount);
+			for (int i= count; i < fCount; i++)
+				fTokens[i]= null;
+			fCount= count;
+		}
+	}
+
+	/**
+	 * The ranges scanned by one scanner, sorted by offset and not overlapping.
+	 */
+	private static class TokenStore {
+
+		final List<CachedRange> fRanges= new ArrayList<>();
+
+		/**
+		 * Returns the index of the last range starting at or before the given offset.
+		 *
+		 * @param offset the offset
+		 * @return the index of the last range starting at or before the offset or <code>-1</code>
+		 */
+		int indexOfLastStartingAtOrBefore(int offset) {
+			int i= -1, j= fRanges.size();
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				if (fRanges.get(k).fStart <= offset)
+					i= k;
+				else
+					j= k;
+			}
+			return i;
+		}
+
+		/**
+		 * Returns the range containing the given range, scanning it if needed.
+		 *
+		 * @param document the document
+		 * @param scanner the scanner computing the tokens of the range
+		 * @param offset the offset of the requested range
+		 * @param length the length of the requested range
+		 * @return the range containing the requested range
+		 */
+		CachedRange getRange(IDocument document, ITokenScanner scanner, int offset, int length) {
+			int end= offset + length;
+			int index= indexOfLastStartingAtOrBefore(offset);
+			if (index != -1) {
+				CachedRange range= fRanges.get(index);
+				if (end <= range.fEnd) {
+					if (range.fGapIndex != -1)
+						range.fillGap(document, scanner);
+					return range;
+				}
+			}
+
+			// remove the ranges overlapping with the requested range
+			int first= index != -1 && fRanges.get(index).fEnd > offset ? index : index + 1;
+			int last= first;
+			while (last < fRanges.size() && fRanges.get(last).fStart < end)
+				++last;
+			fRanges.subList(first, last).clear();
+
+			CachedRange range= new CachedRange(offset, end);
+			scanner.setRange(document, offset, length);
+			IToken token= scanner.nextToken();
+			while (!token.isEOF()) {
+				range.add(scanner.getTokenOffset(), scanner.getTokenLength(), token);
+				token= scanner.nextToken();
+			}
+			fRanges.add(first, range);
+			return range;
+		}
+
+		void update(int offset, int length, int delta, int lineStart, int lineEnd) {
+			for (int i= fRanges.size() - 1; i >= 0; i--) {
+				CachedRange range= fRanges.get(i);
+				if (range.fEnd <= offset)
+					break;
+				if (!range.update(offset, length, delta, lineStart, lineEnd))
+					fRanges.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * A scanner returning the cached tokens of another scanner.
+	 */
+	private class CachingScanner implements ITokenScanner {
+
+		/** The scanner computing the tokens */
+		private final ITokenScanner fScanner;
+		/** The offsets of the tokens of the current range */
+		private int[] fOffsets= new int[0];
+		/** The lengths of the tokens of the current range */
+		private int[] fLengths= new int[0];
+		/** The tokens of the current range */
+		private IToken[] fTokens= new IToken[0];
+		/** The number of tokens of the current range */
+		private int fCount;
+		/** The index of the last returned token */
+		private int fIndex;
+		/** The end offset of the current range */
+		private int fRangeEnd;
+		/** Set if the scanner is used for another document than the one of the cache */
+		private boolean fDelegating;
+
+		CachingScanner(ITokenScanner scanner) {
+			fScanner= scanner;
+		}
+
+		@Override
+		public void setRange(IDocument document, int offset, int length) {
+			fDelegating= !isCacheOf(document);
+			if (fDelegating) {
+				fScanner.setRange(document, offset, length);
+				return;
+			}
+
+			Arrays.fill(fTokens, 0, fCount, null);
+			fCount= 0;
+			fIndex= -1;
+			fRangeEnd= offset + length;
+			if (length == 0)
+				return;
+
+			synchronized (TokenCache.this) {
+				CachedRange range= getStore(fScanner).getRange(document, fScanner, offset, length);
+				int end= offset + length;
+				int first= range.indexOfFirstEndingAtOrAfter(offset - range.fStart + 1);
+				int last= range.indexOfFirstStartingAtOrAfter(end - range.fStart);
+				ensureCapacity(last - first);
+				for (int i= first; i < last; i++) {
+					int tokenOffset= range.fStart + range.fOffsets[i];
+					int tokenEnd= tokenOffset + range.fLengths[i];
+					fOffsets[fCount]= Math.max(offset, tokenOffset);
+					fLengths[fCount]= Math.min(end, tokenEnd) - fOffsets[fCount];
+					fTokens[fCount]= range.fTokens[i];
+					++fCount;
+				}
+			}
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (fTokens.length < capacity) {
+				fOffsets= new int[capacity];
+				fLengths= new int[capacity];
+				fTokens= new IToken[capacity];
+			}
+		}
+
+		@Override
+		public IToken nextToken() {
+			if (fDelegating)
+				return fScanner.nextToken();
+			if (fIndex < fCount)
+				++fIndex;
+			return fIndex < fCount ? fTokens[fIndex] : Token.EOF;
+		}
+
+		@Override
+		public int getTokenOffset() {
+			if (fDelegating)
+				return fScanner.getTokenOffset();
+			return fIndex < fCount ? fOffsets[fIndex] : fRangeEnd;
+		}
+
+		@Override
+		public int getTokenLength() {
+			if (fDelegating)
+				return fScanner.getTokenLength();
+			return fIndex < fCount ? fLengths[fIndex] : 0;
+		}
+	}
+
+	/**
+	 * Updates the cached tokens on document changes.
+	 */
+	private class DocumentListener implements IDocumentListener {
+
+		/** The start of the first line touched by the current change */
+		private int fLineStart;
+		/** The end of the last line touched by the current change, including its delimiter */
+		private int fLineEnd;
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			IDocument document= event.getDocument();
+			try {
+				fLineStart= document.getLineInformationOfOffset(event.getOffset()).getOffset();
+				int line= document.getLineOfOffset(event.getOffset() + event.getLength());
+				if (line + 1 < document.getNumberOfLines())
+					fLineEnd= document.getLineOffset(line + 1);
+				else
+					fLineEnd= document.getLength();
+			} catch (BadLocationException x) {
+				fLineStart= -1;
+			}
+		}
+
+		@Override
+		public void documentChanged(DocumentEvent event) {
+			int length= event.getText() == null ? 0 : event.getText().length();
+			update(event.getOffset(), event.getLength(), length - event.getLength(), fLineStart, fLineEnd);
+		}
+	}
+
+	/** The ranges scanned by the scanners using this cache. */
+	private final Map<ITokenScanner, TokenStore> fStores= new WeakHashMap<>();
+	/** The listener of the cached document. */
+	private final DocumentListener fDocumentListener= new DocumentListener();
+
+	/**
+	 * Creates a new token cache.
+	 */
+	private TokenCache() {
+	}
+
+	/**
+	 * Returns a scanner that returns the tokens of the given scanner, using this cache
+	 * for the document of this cache. Scanning other documents is delegated to the given
+	 * scanner.
+	 * <p>
+	 * The returned scanner is not thread-safe. Clients scanning the document in different
+	 * threads each need their own scanner.
+	 * </p>
+	 *
+	 * @param scanner the scanner computing the tokens, not <code>null</code>
+	 * @return a scanner returning the cached tokens of the given scanner
+	 */
+	public ITokenScanner getScanner(ITokenScanner scanner) {
+		Assert.isNotNull(scanner);
+		return new CachingScanner(scanner);
+	}
+
+	/**
+	 * Removes all cached tokens.
+	 */
+	public synchronized void clear() {
+		fStores.clear();
+	}
+
+	/**
+	 * Removes the cached tokens of the given scanner.
+	 *
+	 * @param scanner the scanner
+	 */
+	private synchronized void remove(ITokenScanner scanner) {
+		fStores.remove(scanner);
+	}
+
+	/**
+	 * Returns whether this is the token cache of the given document.
+	 *
+	 * @param document the document
+	 * @return <code>true</code> if this is the token cache of the document
+	 */
+	private boolean isCacheOf(IDocument document) {
+		synchronized (fgTokenCaches) {
+			WeakReference<TokenCache> reference= fgTokenCaches.get(document);
+			return reference != null && reference.get() == this;
+		}
+	}
+
+	/**
+	 * Returns the ranges scanned by the given scanner.
+	 *
+	 * @param scanner the scanner
+	 * @return the ranges scanned by the scanner
+	 */
+	private TokenStore getStore(ITokenScanner scanner) {
+		TokenStore store= fStores.get(scanner);
+		if (store == null) {
+			store= new TokenStore();
+			fStores.put(scanner, store);
+		}
+		return store;
+	}
+
+	/**
+	 * Adapts the cached tokens to a document change.
+	 *
+	 * @param offset the offset of the change
+	 * @param length the length of the replaced text
+	 * @param delta the length difference caused by the change
+	 * @param lineStart the start of the first line touched by the change, <code>-1</code> if unknown
+	 * @param lineEnd the end of the last line touched by the change, including its delimiter
+	 */
+	private synchronized void update(int offset, int length, int delta, int lineStart, int lineEnd) {
+		if (lineStart == -1) {
+			fStores.clear();
+			return;
+		}
+		for (TokenStore store : fStores.values())
+			store.update(offset, length, delta, lineStart, lineEnd);
+	}
+}
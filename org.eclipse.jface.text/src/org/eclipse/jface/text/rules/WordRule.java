@@ -14,6 +14,7 @@
  *******************************************************************************/
 package org.eclipse.jface.text.rules;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,6 +26,11 @@ import org.eclipse.core.runtime.Assert;
  * associate a token to a word. That is, not only can the rule be used to provide tokens for exact
  * matches, but also for the generalized notion of a word in the context in which it is used. A word
  * rule uses a word detector to determine what a word is.
+ * <p>
+ * Optionally, the words can be matched with a character trie, see
+ * {@link #WordRule(IWordDetector, IToken, boolean, boolean)}. In that case the characters are
+ * matched while they are read from the scanner, and no object is allocated per detected word.
+ * </p>
  *
  * @see IWordDetector
  */
@@ -48,6 +54,114 @@ public class WordRule implements IRule {
 	 * @since 3.3
 	 */
 	private boolean fIgnoreCase= false;
+	/**
+	 * The trie of the predefined words, <code>null</code> if the words are looked up in
+	 * {@link #fWords}.
+	 * @since 3.15
+	 */
+	private WordTrie fTrie;
+	/**
+	 * The length of the last detected word if the words are matched with the trie.
+	 * @since 3.15
+	 */
+	private int fWordLength;
+
+	/**
+	 * A character trie mapping words to tokens. Each node stores the sorted characters
+	 * leading to its children.
+	 *
+	 * @since 3.15
+	 */
+	private static class WordTrie {
+
+		/** The index of the root node */
+		static final int ROOT= 0;
+
+		/** The characters leading to the children of each node, sorted */
+		private char[][] fChars= new char[16][];
+		/** The children of each node, in the order of their characters */
+		private int[][] fChildren= new int[16][];
+		/** The token of the word ending at each node, <code>null</code> if none */
+		private IToken[] fTokens= new IToken[16];
+		/** The number of nodes */
+		private int fSize= 1;
+
+		/**
+		 * Returns the child of the given node for the given character.
+		 *
+		 * @param node the node
+		 * @param c the character
+		 * @return the child node or <code>-1</code> if there is none
+		 */
+		int getChild(int node, char c) {
+			char[] chars= fChars[node];
+			if (chars == null)
+				return -1;
+			int index= Arrays.binarySearch(chars, c);
+			return index < 0 ? -1 : fChildren[node][index];
+		}
+
+		/**
+		 * Returns the token of the word ending at the given node.
+		 *
+		 * @param node the node
+		 * @return the token or <code>null</code> if no word ends at the node
+		 */
+		IToken getToken(int node) {
+			return fTokens[node];
+		}
+
+		/**
+		 * Adds the given word.
+		 *
+		 * @param word the word
+		 * @param token the token of the word
+		 * @param ignoreCase <code>true</code> if the word is added in lower case
+		 */
+		void put(String word, IToken token, boolean ignoreCase) {
+			int node= ROOT;
+			for (int i= 0; i < word.length(); i++) {
+				char c= word.charAt(i);
+				if (ignoreCase)
+					c= Character.toLowerCase(c);
+				int child= getChild(node, c);
+				if (child == -1)
+					child= addChild(node, c);
+				node= child;
+			}
+			fTokens[node]= token;
+		}
+
+		private int addChild(int node, char c) {
+			if (fSize == fTokens.length) {
+				int capacity= 2 * fSize;
+				fChars= Arrays.copyOf(fChars, capacity);
+				fChildren= Arrays.copyOf(fChildren, capacity);
+				fTokens= Arrays.copyOf(fTokens, capacity);
+			}
+			int child= fSize++;
+
+			char[] chars= fChars[node];
+			int[] children= fChildren[node];
+			if (chars == null) {
+				fChars[node]= new char[] { c };
+				fChildren[node]= new int[] { child };
+			} else {
+				int index= -Arrays.binarySearch(chars, c) - 1;
+				char[] newChars= new char[chars.length + 1];
+				int[] newChildren= new int[children.length + 1];
+				System.arraycopy(chars, 0, newChars, 0, index);
+				System.arraycopy(children, 0, newChildren, 0, index);
+				newChars[index]= c;
+				newChildren[index]= child;
+				System.arraycopy(chars, index, newChars, index + 1, chars.length - index);
+				System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+				fChars[node]= newChars;
+				fChildren[node]= newChildren;
+			}
+			return child;
+		}
+	}
 
 
 	/**
@@ -98,6 +212,33 @@ public class WordRule implements IRule {
 		fIgnoreCase= ignoreCase;
 	}
 
+	/**
+	 * Creates a rule which, with the help of a word detector, will return the token
+	 * associated with the detected word. If no token has been associated, the
+	 * specified default token will be returned.
+	 * <p>
+	 * If <code>useTrie</code> is <code>true</code>, the words added with
+	 * {@link #addWord(String, IToken)} are stored in a character trie and matched while the
+	 * characters are read from the scanner, without allocating objects per detected word.
+	 * Case-insensitive matching then converts each character with
+	 * {@link Character#toLowerCase(char)}. In this mode, words must only be added through
+	 * {@link #addWord(String, IToken)}.
+	 * </p>
+	 *
+	 * @param detector the word detector to be used by this rule, may not be <code>null</code>
+	 * @param defaultToken the default token to be returned on success
+	 *			if nothing else is specified, may not be <code>null</code>
+	 * @param ignoreCase the case sensitivity associated with this rule
+	 * @param useTrie <code>true</code> to match the words with a character trie
+	 * @see #addWord(String, IToken)
+	 * @since 3.15
+	 */
+	public WordRule(IWordDetector detector, IToken defaultToken, boolean ignoreCase, boolean useTrie) {
+		this(detector, defaultToken, ignoreCase);
+		if (useTrie)
+			fTrie= new WordTrie();
+	}
+
 	/**
 	 * Adds a word and the token to be returned if it is detected.
 	 *
@@ -108,6 +249,9 @@ public class WordRule implements IRule {
 		Assert.isNotNull(word);
 		Assert.isNotNull(token);
 
+		if (fTrie != null)
+			fTrie.put(word, token, fIgnoreCase);
+
 		// If case-insensitive, convert to lower case before adding to the map
 		if (fIgnoreCase)
 			word= word.toLowerCase();
@@ -134,6 +278,9 @@ public class WordRule implements IRule {
 		if (c != ICharacterScanner.EOF && fDetector.isWordStart((char) c)) {
 			if (fColumn == UNDEFINED || (fColumn == scanner.getColumn() - 1)) {
 
+				if (fTrie != null)
+					return evaluateWithTrie(scanner, c);
+
 				fBuffer.setLength(0);
 				do {
 					fBuffer.append((char) c);
@@ -162,13 +309,44 @@ public class WordRule implements IRule {
 		return Token.UNDEFINED;
 	}
 
+	/**
+	 * Evaluates the word starting with the given character by walking the trie of the
+	 * predefined words while reading the word.
+	 *
+	 * @param scanner the character scanner
+	 * @param c the first character of the word, already read
+	 * @return the token of the word
+	 * @since 3.15
+	 */
+	private IToken evaluateWithTrie(ICharacterScanner scanner, int c) {
+		int node= WordTrie.ROOT;
+		fWordLength= 0;
+		do {
+			if (node != -1)
+				node= fTrie.getChild(node, fIgnoreCase ? Character.toLowerCase((char) c) : (char) c);
+			++fWordLength;
+			c= scanner.read();
+		} while (c != ICharacterScanner.EOF && fDetector.isWordPart((char) c));
+		scanner.unread();
+
+		IToken token= node != -1 ? fTrie.getToken(node) : null;
+		if (token != null)
+			return token;
+
+		if (fDefaultToken.isUndefined())
+			unreadBuffer(scanner);
+
+		return fDefaultToken;
+	}
+
 	/**
 	 * Returns the characters in the buffer to the scanner.
 	 *
 	 * @param scanner the scanner to be used
 	 */
 	protected void unreadBuffer(ICharacterScanner scanner) {
-		for (int i= fBuffer.length() - 1; i >= 0; i--)
+		int length= fTrie != null ? fWordLength : fBuffer.length();
+		for (int i= length - 1; i >= 0; i--)
 			scanner.unread();
 	}
 
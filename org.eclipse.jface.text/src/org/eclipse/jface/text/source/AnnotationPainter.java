@@ -14,16 +14,15 @@
  *******************************************************************************/
 package org.eclipse.jface.text.source;
 
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
@@ -41,8 +40,13 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.Platform;
 
+import org.eclipse.text.internal.source.AnnotationIntervalIndex;
+
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IPaintPositionManager;
 import org.eclipse.jface.text.IPainter;
 import org.eclipse.jface.text.IRegion;
@@ -358,12 +362,12 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 	 * The map with decorations
 	 * @since 3.0
 	 */
-	private Map<Annotation, Decoration> fDecorationsMap= new HashMap<>(); // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=50767
+	private AnnotationIntervalIndex<Decoration> fDecorationsMap= new AnnotationIntervalIndex<>(); // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=50767
 	/**
 	 * The map with of highlighted decorations.
 	 * @since 3.0
 	 */
-	private Map<Annotation, Decoration> fHighlightedDecorationsMap= new HashMap<>(); // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=50767
+	private AnnotationIntervalIndex<Decoration> fHighlightedDecorationsMap= new AnnotationIntervalIndex<>(); // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=50767
 	/**
 	 * Mutex for highlighted decorations map.
 	 * @since 3.0
@@ -418,6 +422,16 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 	 * @since 3.0
 	 */
 	private boolean fInputDocumentAboutToBeChanged;
+	/**
+	 * The document listener which reports the changes of the document to the decoration maps.
+	 * @since 3.15
+	 */
+	private IDocumentListener fDocumentListener;
+	/**
+	 * The document with which the document listener is registered.
+	 * @since 3.15
+	 */
+	private IDocument fDocument;
 	/**
 	 * Maps annotation types to painting strategy identifiers.
 	 *
@@ -510,6 +524,7 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 		if (fModel != model) {
 			if (fModel != null)
 				fModel.removeAnnotationModelListener(this);
+			setDocument(model != null ? fSourceViewer.getDocument() : null);
 			fModel= model;
 			if (fModel != null) {
 				try {
@@ -522,6 +537,51 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 		}
 	}
 
+	/**
+	 * Registers the document listener with the given document, so that the decoration maps
+	 * need not read all positions again after a change of the document.
+	 *
+	 * @param document the document or <code>null</code>
+	 * @since 3.15
+	 */
+	private void setDocument(IDocument document) {
+		if (fDocument == document)
+			return;
+		if (fDocument != null)
+			fDocument.removeDocumentListener(fDocumentListener);
+		fDocument= document;
+		if (fDocument == null)
+			return;
+		if (fDocumentListener == null) {
+			fDocumentListener= new IDocumentListener() {
+
+				@Override
+				public void documentAboutToBeChanged(DocumentEvent event) {
+					long stamp= getModificationStamp(event.getDocument());
+					int length= event.getText() != null ? event.getText().length() : 0;
+					AnnotationIntervalIndex<Decoration> decorationsMap;
+					synchronized (fDecorationMapLock) {
+						decorationsMap= fDecorationsMap;
+					}
+					if (decorationsMap != null)
+						decorationsMap.documentAboutToBeChanged(stamp, length);
+					AnnotationIntervalIndex<Decoration> highlightedDecorationsMap;
+					synchronized (fHighlightedDecorationsMapLock) {
+						highlightedDecorationsMap= fHighlightedDecorationsMap;
+					}
+					if (highlightedDecorationsMap != null)
+						highlightedDecorationsMap.documentAboutToBeChanged(stamp, length);
+				}
+
+				@Override
+				public void documentChanged(DocumentEvent event) {
+					// Do nothing
+				}
+			};
+		}
+		fDocument.addDocumentListener(fDocumentListener);
+	}
+
 	/**
 	 * Updates the set of decorations based on the current state of
 	 * the painter's annotation model.
@@ -555,160 +615,156 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 		int drawRangeStart= Integer.MAX_VALUE;
 		int drawRangeEnd= -1;
 
-		Map<Annotation, Decoration> decorationsMap;
-		Map<Annotation, Decoration> highlightedDecorationsMap;
+		// The decorations are updated in place, the removed decorations are cleared afterwards
+		List<Entry<Annotation, Decoration>> decorationsToClear= new ArrayList<>();
 
-		// Clone decoration maps
-		synchronized (fDecorationMapLock) {
-			decorationsMap= new HashMap<>(fDecorationsMap);
-		}
-		synchronized (fHighlightedDecorationsMapLock) {
-			highlightedDecorationsMap= new HashMap<>(fHighlightedDecorationsMap);
-		}
+		boolean isWorldChange= event == null || event.isWorldChange();
 
-		boolean isWorldChange= false;
+		if (DEBUG && event == null)
+			System.out.println("AP: INTERNAL CHANGE"); //$NON-NLS-1$
 
+		// The decorations of the new annotations are computed before the maps are locked
 		Iterator<Annotation> e;
-		if (event == null || event.isWorldChange()) {
-			isWorldChange= true;
-
-			if (DEBUG && event == null)
-				System.out.println("AP: INTERNAL CHANGE"); //$NON-NLS-1$
-
-			Iterator<Entry<Annotation, Decoration>> iter= decorationsMap.entrySet().iterator();
-			while (iter.hasNext()) {
-				Entry<Annotation, Decoration> entry= iter.next();
-				Annotation annotation= entry.getKey();
-				Decoration decoration= entry.getValue();
-				drawDecoration(decoration, null, annotation, clippingRegion, document);
-			}
-
-			decorationsMap.clear();
+		if (isWorldChange)
+			e= fModel.getAnnotationIterator();
+		else
+			e= Arrays.asList(event.getAddedAnnotations()).iterator();
+		List<Entry<Annotation, Decoration>> addedDecorations= new ArrayList<>();
+		while (e.hasNext()) {
+			Annotation annotation= e.next();
+			Decoration pp= getDecoration(annotation, null);
+			if (pp != null)
+				addedDecorations.add(new SimpleEntry<>(annotation, pp));
+		}
 
-			highlightedDecorationsMap.clear();
+		synchronized (fDecorationMapLock) {
+			synchronized (fHighlightedDecorationsMapLock) {
+				AnnotationIntervalIndex<Decoration> decorationsMap= fDecorationsMap;
+				AnnotationIntervalIndex<Decoration> highlightedDecorationsMap= fHighlightedDecorationsMap;
 
-			e= fModel.getAnnotationIterator();
+				if (isWorldChange) {
 
+					decorationsToClear.addAll(decorationsMap.getEntries());
 
-		} else {
+					decorationsMap.clear();
 
-			// Remove annotations
-			Annotation[] removedAnnotations= event.getRemovedAnnotations();
-			for (Annotation annotation : removedAnnotations) {
-				Decoration decoration= highlightedDecorationsMap.remove(annotation);
-				if (decoration != null) {
-					Position position= decoration.fPosition;
-					if (position != null) {
-						highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, position.offset);
-						highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, position.offset + position.length);
-					}
-				}
-				decoration= decorationsMap.remove(annotation);
-				if (decoration != null) {
-					drawDecoration(decoration, null, annotation, clippingRegion, document);
-					Position position= decoration.fPosition;
-					if (position != null) {
-						drawRangeStart= Math.min(drawRangeStart, position.offset);
-						drawRangeEnd= Math.max(drawRangeEnd, position.offset + position.length);
-					}
-				}
+					highlightedDecorationsMap.clear();
 
-			}
+				} else {
 
-			// Update existing annotations
-			Annotation[] changedAnnotations= event.getChangedAnnotations();
-			for (Annotation annotation : changedAnnotations) {
-				boolean isHighlighting= false;
-
-				Decoration decoration= highlightedDecorationsMap.get(annotation);
-
-				if (decoration != null) {
-					isHighlighting= true;
-					// The call below updates the decoration - no need to create new decoration
-					decoration= getDecoration(annotation, decoration);
-					if (decoration == null) {
-						Decoration removedDecoration= highlightedDecorationsMap.remove(annotation);
-						if (removedDecoration != null) {
-							highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, removedDecoration.fPosition.offset);
-							highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, removedDecoration.fPosition.offset + removedDecoration.fPosition.length);
+					// Remove annotations
+					Annotation[] removedAnnotations= event.getRemovedAnnotations();
+					for (Annotation annotation : removedAnnotations) {
+						Decoration decoration= highlightedDecorationsMap.remove(annotation);
+						if (decoration != null) {
+							Position position= decoration.fPosition;
+							if (position != null) {
+								highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, position.offset);
+								highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, position.offset + position.length);
+							}
+						}
+						decoration= decorationsMap.remove(annotation);
+						if (decoration != null) {
+							decorationsToClear.add(new SimpleEntry<>(annotation, decoration));
+							Position position= decoration.fPosition;
+							if (position != null) {
+								drawRangeStart= Math.min(drawRangeStart, position.offset);
+								drawRangeEnd= Math.max(drawRangeEnd, position.offset + position.length);
+							}
 						}
-					}
 
-				} else {
-					decoration= getDecoration(annotation, decoration);
-					if (decoration != null && decoration.fPaintingStrategy instanceof ITextStyleStrategy) {
-						highlightedDecorationsMap.put(annotation, decoration);
-						isHighlighting= true;
 					}
-				}
 
-				boolean usesDrawingStrategy= !isHighlighting && decoration != null;
+					// Update existing annotations
+					Annotation[] changedAnnotations= event.getChangedAnnotations();
+					for (Annotation annotation : changedAnnotations) {
+						boolean isHighlighting= false;
+
+						Decoration decoration= highlightedDecorationsMap.get(annotation);
+
+						if (decoration != null) {
+							isHighlighting= true;
+							// The call below updates the decoration - no need to create new decoration
+							decoration= getDecoration(annotation, decoration);
+							if (decoration == null) {
+								Decoration removedDecoration= highlightedDecorationsMap.remove(annotation);
+								if (removedDecoration != null) {
+									highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, removedDecoration.fPosition.offset);
+									highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, removedDecoration.fPosition.offset + removedDecoration.fPosition.length);
+								}
+							} else {
+								// the position of the decoration may have changed
+								highlightedDecorationsMap.put(annotation, decoration, decoration.fPosition);
+							}
+
+						} else {
+							decoration= getDecoration(annotation, decoration);
+							if (decoration != null && decoration.fPaintingStrategy instanceof ITextStyleStrategy) {
+								highlightedDecorationsMap.put(annotation, decoration, decoration.fPosition);
+								isHighlighting= true;
+							}
+						}
 
-				Position position= null;
-				if (decoration == null)
-					position= fModel.getPosition(annotation);
-				else
-					position= decoration.fPosition;
+						boolean usesDrawingStrategy= !isHighlighting && decoration != null;
 
-				if (position != null && !position.isDeleted()) {
-					if (isHighlighting) {
-						highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, position.offset);
-						highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, position.offset + position.length);
-					}
-					if (usesDrawingStrategy) {
-						drawRangeStart= Math.min(drawRangeStart, position.offset);
-						drawRangeEnd= Math.max(drawRangeEnd, position.offset + position.length);
-					}
-				} else {
-					Decoration removedDecoration= highlightedDecorationsMap.remove(annotation);
-					if (removedDecoration != null) {
-						highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, removedDecoration.fPosition.offset);
-						highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, removedDecoration.fPosition.offset + removedDecoration.fPosition.length);
-					}
-				}
-
-				if (usesDrawingStrategy) {
-					Decoration oldDecoration= decorationsMap.get(annotation);
-					if (oldDecoration != null) {
-						drawDecoration(oldDecoration, null, annotation, clippingRegion, document);
-						if (decoration != null)
-							decorationsMap.put(annotation, decoration);
+						Position position= null;
+						if (decoration == null)
+							position= fModel.getPosition(annotation);
 						else
-							decorationsMap.remove(annotation);
+							position= decoration.fPosition;
+
+						if (position != null && !position.isDeleted()) {
+							if (isHighlighting) {
+								highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, position.offset);
+								highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, position.offset + position.length);
+							}
+							if (usesDrawingStrategy) {
+								drawRangeStart= Math.min(drawRangeStart, position.offset);
+								drawRangeEnd= Math.max(drawRangeEnd, position.offset + position.length);
+							}
+						} else {
+							Decoration removedDecoration= highlightedDecorationsMap.remove(annotation);
+							if (removedDecoration != null) {
+								highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, removedDecoration.fPosition.offset);
+								highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, removedDecoration.fPosition.offset + removedDecoration.fPosition.length);
+							}
+						}
+
+						if (usesDrawingStrategy) {
+							Decoration oldDecoration= decorationsMap.get(annotation);
+							if (oldDecoration != null) {
+								decorationsToClear.add(new SimpleEntry<>(annotation, oldDecoration));
+								if (decoration != null)
+									decorationsMap.put(annotation, decoration, decoration.fPosition);
+								else
+									decorationsMap.remove(annotation);
+							}
+						}
 					}
 				}
-			}
-
-			e= Arrays.asList(event.getAddedAnnotations()).iterator();
-		}
 
-		// Add new annotations
-		while (e.hasNext()) {
-			Annotation annotation= e.next();
-			Decoration pp= getDecoration(annotation, null);
-			if (pp != null) {
-				if (pp.fPaintingStrategy instanceof IDrawingStrategy) {
-					decorationsMap.put(annotation, pp);
-					drawRangeStart= Math.min(drawRangeStart, pp.fPosition.offset);
-					drawRangeEnd= Math.max(drawRangeEnd, pp.fPosition.offset + pp.fPosition.length);
-				} else if (pp.fPaintingStrategy instanceof ITextStyleStrategy) {
-					highlightedDecorationsMap.put(annotation, pp);
-					highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, pp.fPosition.offset);
-					highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, pp.fPosition.offset + pp.fPosition.length);
+				// Add new annotations
+				for (Entry<Annotation, Decoration> entry : addedDecorations) {
+					Annotation annotation= entry.getKey();
+					Decoration pp= entry.getValue();
+					if (pp.fPaintingStrategy instanceof IDrawingStrategy) {
+						decorationsMap.put(annotation, pp, pp.fPosition);
+						drawRangeStart= Math.min(drawRangeStart, pp.fPosition.offset);
+						drawRangeEnd= Math.max(drawRangeEnd, pp.fPosition.offset + pp.fPosition.length);
+					} else if (pp.fPaintingStrategy instanceof ITextStyleStrategy) {
+						highlightedDecorationsMap.put(annotation, pp, pp.fPosition);
+						highlightAnnotationRangeStart= Math.min(highlightAnnotationRangeStart, pp.fPosition.offset);
+						highlightAnnotationRangeEnd= Math.max(highlightAnnotationRangeEnd, pp.fPosition.offset + pp.fPosition.length);
+					}
 				}
 
+				updateDrawRanges(drawRangeStart, drawRangeEnd, isWorldChange);
+				updateHighlightRanges(highlightAnnotationRangeStart, highlightAnnotationRangeEnd, isWorldChange);
 			}
 		}
 
-		synchronized (fDecorationMapLock) {
-			fDecorationsMap= decorationsMap;
-			updateDrawRanges(drawRangeStart, drawRangeEnd, isWorldChange);
-		}
-
-		synchronized (fHighlightedDecorationsMapLock) {
-			fHighlightedDecorationsMap= highlightedDecorationsMap;
-			updateHighlightRanges(highlightAnnotationRangeStart, highlightAnnotationRangeEnd, isWorldChange);
-		}
+		for (Entry<Annotation, Decoration> entry : decorationsToClear)
+			drawDecoration(entry.getValue(), null, entry.getKey(), clippingRegion, document);
 	}
 
 	/**
@@ -976,17 +1032,16 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 
 	@Override
 	public void applyTextPresentation(TextPresentation tp) {
-		Set<Entry<Annotation, Decoration>> decorations;
+		List<? extends Entry<Annotation, Decoration>> decorations;
+		IRegion region= tp.getExtent();
 
 		synchronized (fHighlightedDecorationsMapLock) {
 			if (fHighlightedDecorationsMap == null || fHighlightedDecorationsMap.isEmpty())
 				return;
 
-			decorations= new HashSet<>(fHighlightedDecorationsMap.entrySet());
+			decorations= fHighlightedDecorationsMap.getEntries(region.getOffset(), region.getLength(), getModificationStamp());
 		}
 
-		IRegion region= tp.getExtent();
-
 		if (DEBUG)
 			System.out.println("AP: applying text presentation offset: " + region.getOffset() + ", length= " + region.getLength()); //$NON-NLS-1$ //$NON-NLS-2$
 
@@ -1273,6 +1328,7 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 			fAnnotationType2PaintingStrategyId= null;
 		}
 
+		setDocument(null);
 		fTextWidget= null;
 		fSourceViewer= null;
 		fAnnotationAccess= null;
@@ -1356,11 +1412,10 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 
 		final GC gc= event != null ? event.gc : null;
 
-		// Clone decorations
-		Collection<Entry<Annotation, Decoration>> decorations;
+		// Collect the decorations in the clipping region
+		List<? extends Entry<Annotation, Decoration>> decorations;
 		synchronized (fDecorationMapLock) {
-			decorations= new ArrayList<>(fDecorationsMap.size());
-			decorations.addAll(fDecorationsMap.entrySet());
+			decorations= fDecorationsMap.getEntries(vOffset, vLength, getModificationStamp());
 		}
 
 		/*
@@ -1372,7 +1427,7 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 			Annotation a= entry.getKey();
 			Decoration pp = entry.getValue();
 			// prune any annotation that is not drawable or does not need drawing
-			if (!(a.isMarkedDeleted() || skip(a) || !regionsTouchOrOverlap(pp.fPosition.getOffset(), pp.fPosition.getLength(), vOffset, vLength))) {
+			if (!(a.isMarkedDeleted() || skip(a))) {
 				// ensure sized appropriately
 				for (int i= toBeDrawn.size(); i <= pp.fLayer; i++)
 					toBeDrawn.add(new LinkedList<>());
@@ -1389,6 +1444,29 @@ public class AnnotationPainter implements IPainter, PaintListener, IAnnotationMo
 		}
 	}
 
+	/**
+	 * Returns the modification stamp of the viewer's document.
+	 *
+	 * @return the modification stamp or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP}
+	 * @since 3.15
+	 */
+	private long getModificationStamp() {
+		return getModificationStamp(fSourceViewer != null ? fSourceViewer.getDocument() : null);
+	}
+
+	/**
+	 * Returns the modification stamp of the given document.
+	 *
+	 * @param document the document or <code>null</code>
+	 * @return the modification stamp or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP}
+	 * @since 3.15
+	 */
+	private static long getModificationStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4)
+			return ((IDocumentExtension4) document).getModificationStamp();
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
 	private void drawDecoration(Decoration pp, GC gc, Annotation annotation, IRegion clippingRegion, IDocument document) {
 		if (clippingRegion == null)
 			return;
@@ -67,11 +67,38 @@ public class AnnotationRulerColumn implements IVerticalRulerColumn, IVerticalRul
 	/**
 	 * Internal listener class.
 	 */
-	class AnnotationsListener implements IAnnotationModelListener {
+	class AnnotationsListener implements IAnnotationModelListener, IAnnotationModelListenerExtension {
 		@Override
 		public void modelChanged(IAnnotationModel model) {
 			postRedraw();
 		}
+
+		@Override
+		public void modelChanged(AnnotationModelEvent event) {
+			if (!event.isValid())
+				return;
+
+			// the type of a changed annotation may have changed from a shown to a hidden one
+			if (event.isWorldChange() || event.getChangedAnnotations().length > 0 || isShown(event.getRemovedAnnotations()) || isShown(event.getAddedAnnotations()))
+				postRedraw();
+		}
+
+		/**
+		 * Tells whether any of the given annotations is shown in this column.
+		 *
+		 * @param annotations the annotations
+		 * @return <code>true</code> if any of the annotations is shown
+		 * @since 3.15
+		 */
+		private boolean isShown(Annotation[] annotations) {
+			synchronized (fConfiguredAnnotationTypes) {
+				for (Annotation annotation : annotations) {
+					if (!skip(annotation.getType()))
+						return true;
+				}
+			}
+			return false;
+		}
 	}
 
 	/**
@@ -175,6 +202,16 @@ public class AnnotationRulerColumn implements IVerticalRulerColumn, IVerticalRul
 	 * @since 3.0
 	 */
 	private MouseListener fMouseListener;
+	/**
+	 * Redraw runnable lock
+	 * @since 3.15
+	 */
+	private Object fRedrawLock= new Object();
+	/**
+	 * Tells whether a redraw has been posted and not yet run.
+	 * @since 3.15
+	 */
+	private boolean fIsRedrawPosted= false;
 
 	private Consumer<StyledText> lineHeightChangeHandler= (t) -> postRedraw();
 
@@ -826,7 +863,17 @@ public class AnnotationRulerColumn implements IVerticalRulerColumn, IVerticalRul
 		if (fCanvas != null && !fCanvas.isDisposed()) {
 			Display d= fCanvas.getDisplay();
 			if (d != null) {
-				d.asyncExec(() -> redraw());
+				synchronized (fRedrawLock) {
+					if (fIsRedrawPosted)
+						return;
+					fIsRedrawPosted= true;
+				}
+				d.asyncExec(() -> {
+					synchronized (fRedrawLock) {
+						fIsRedrawPosted= false;
+					}
+					redraw();
+				});
 			}
 		}
 	}
@@ -890,7 +937,9 @@ public class AnnotationRulerColumn implements IVerticalRulerColumn, IVerticalRul
 	 * @since 3.0
 	 */
 	public void addAnnotationType(Object annotationType) {
-		fConfiguredAnnotationTypes.add(annotationType);
+		synchronized (fConfiguredAnnotationTypes) {
+			fConfiguredAnnotationTypes.add(annotationType);
+		}
 		fAllowedAnnotationTypes.clear();
 	}
 
@@ -913,7 +962,9 @@ public class AnnotationRulerColumn implements IVerticalRulerColumn, IVerticalRul
 	 * @since 3.0
 	 */
 	public void removeAnnotationType(Object annotationType) {
-		fConfiguredAnnotationTypes.remove(annotationType);
+		synchronized (fConfiguredAnnotationTypes) {
+			fConfiguredAnnotationTypes.remove(annotationType);
+		}
 		fAllowedAnnotationTypes.clear();
 	}
 
@@ -81,14 +81,24 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 		 */
 		@Override
 		public void textChanged(TextEvent e) {
+			if (e.getDocumentEvent() == null || containsLineDelimiter(e.getText()) || containsLineDelimiter(e.getReplacedText())) {
+				// the annotations may have moved to other lines
+				invalidateAnnotationRows();
+			}
 			if (fTextViewer != null && e.getDocumentEvent() == null && e.getViewerRedrawState()) {
 				// handle only changes of visible document
 				redraw();
 			}
 		}
 
+		private boolean containsLineDelimiter(String text) {
+			return text != null && (text.indexOf('\n') != -1 || text.indexOf('\r') != -1);
+		}
+
 		@Override
 		public void modelChanged(IAnnotationModel model) {
+			invalidateCachedAnnotations();
+			invalidateAnnotationRows();
 			update();
 		}
 
@@ -98,37 +108,40 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 				return;
 
 			if (event.isWorldChange()) {
+				invalidateCachedAnnotations();
+				invalidateAnnotationRows();
 				update();
 				return;
 			}
 
-			Annotation[] annotations= event.getAddedAnnotations();
-			int length= annotations.length;
-			for (int i= 0; i < length; i++) {
-				if (!skip(annotations[i].getType())) {
-					update();
-					return;
-				}
-			}
-
-			annotations= event.getRemovedAnnotations();
-			length= annotations.length;
-			for (int i= 0; i < length; i++) {
-				if (!skip(annotations[i].getType())) {
-					update();
-					return;
-				}
+			boolean isUpdateNeeded= addChangedAnnotations(event.getAddedAnnotations());
+			isUpdateNeeded|= addChangedAnnotations(event.getRemovedAnnotations());
+			isUpdateNeeded|= addChangedAnnotations(event.getChangedAnnotations());
+			if (isUpdateNeeded) {
+				invalidateCachedAnnotations();
+				update();
 			}
+		}
 
-			annotations= event.getChangedAnnotations();
-			length= annotations.length;
-			for (int i= 0; i < length; i++) {
-				if (!skip(annotations[i].getType())) {
-					update();
-					return;
+		/**
+		 * Remembers the given annotations to be updated in the annotation rows.
+		 *
+		 * @param annotations the added, removed or changed annotations
+		 * @return <code>true</code> if any of the annotations is shown in this ruler
+		 * @since 3.15
+		 */
+		private boolean addChangedAnnotations(Annotation[] annotations) {
+			boolean isShown= false;
+			for (Annotation annotation : annotations) {
+				if (!skip(annotation.getType())) {
+					isShown= true;
+					synchronized (fRunnableLock) {
+						if (!fAreAnnotationRowsInvalid)
+							fChangedAnnotations.add(annotation);
+					}
 				}
 			}
-
+			return isShown;
 		}
 	}
 
@@ -377,6 +390,112 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 	        visibleLines= bottomIndex - topIndex;
 	        invisibleLines= maxLines - visibleLines;
 		}
+
+		/**
+		 * Tells whether the given widget infos map the text widget lines to the same rows of the
+		 * overview ruler as these infos, up to one pixel. The visible lines change by fractions of a
+		 * line while scrolling, so the rows are compared at the lines where the mapping of either
+		 * infos changes its slope, between which the rows of both infos differ linearly.
+		 *
+		 * @param infos the other widget infos, may be <code>null</code>
+		 * @return <code>true</code> if the lines are mapped to the same rows
+		 * @since 3.15
+		 */
+		boolean hasSameRows(WidgetInfos infos) {
+			if (infos == null || maxLines != infos.maxLines || thumbHeight != infos.thumbHeight
+					|| writable != infos.writable || bounds.y != infos.bounds.y || bounds.height != infos.bounds.height)
+				return false;
+
+			int[] lines= { 0, maxLines - 1,
+					(int) Math.ceil(visibleLines / 2) - 2, (int) Math.ceil(visibleLines / 2) - 1,
+					(int) Math.ceil(maxLines - visibleLines / 2) - 1, (int) Math.ceil(maxLines - visibleLines / 2),
+					(int) Math.ceil(infos.visibleLines / 2) - 2, (int) Math.ceil(infos.visibleLines / 2) - 1,
+					(int) Math.ceil(maxLines - infos.visibleLines / 2) - 1, (int) Math.ceil(maxLines - infos.visibleLines / 2) };
+			for (int line : lines) {
+				line= Math.max(0, Math.min(line, maxLines - 1));
+				if (Math.abs(computeY(line, this) - computeY(line, infos)) > 1)
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The rows of the overview ruler covered by the annotations of one annotation type and style.
+	 * The rectangles of the annotations are counted by their top row, so that drawing the
+	 * annotations does not depend on their number but only on the height of the ruler.
+	 *
+	 * @since 3.15
+	 */
+	static class AnnotationRows {
+		/** The annotation type. */
+		final Object fAnnotationType;
+		/** Tells whether the rows hold the temporary or the persistent annotations. */
+		final boolean fIsTemporary;
+		/** The number of rectangles of the default height starting at each row. */
+		final int[] fCounts;
+		/** The number of taller rectangles by their top row and height. */
+		final Map<Long, int[]> fTallCounts= new HashMap<>();
+		/** The number of rectangles in these rows. */
+		int fSize;
+
+		/**
+		 * Creates new annotation rows.
+		 *
+		 * @param annotationType the annotation type
+		 * @param isTemporary <code>true</code> for temporary annotations, <code>false</code> for
+		 *            persistent annotations
+		 * @param height the height of the ruler
+		 */
+		AnnotationRows(Object annotationType, boolean isTemporary, int height) {
+			fAnnotationType= annotationType;
+			fIsTemporary= isTemporary;
+			fCounts= new int[Math.max(0, height)];
+		}
+
+		/**
+		 * Adds or removes a rectangle.
+		 *
+		 * @param y the top row of the rectangle
+		 * @param height the height of the rectangle
+		 * @param delta <code>1</code> to add the rectangle, <code>-1</code> to remove it
+		 */
+		void add(int y, int height, int delta) {
+			fSize+= delta;
+			if (height == ANNOTATION_HEIGHT && y < fCounts.length) {
+				fCounts[y]+= delta;
+				return;
+			}
+			Long key= Long.valueOf(((long) y << 32) | height);
+			int[] count= fTallCounts.get(key);
+			if (count == null) {
+				count= new int[1];
+				fTallCounts.put(key, count);
+			}
+			count[0]+= delta;
+			if (count[0] <= 0)
+				fTallCounts.remove(key);
+		}
+	}
+
+	/**
+	 * The rectangle drawn for an annotation and the rows it is counted in.
+	 *
+	 * @since 3.15
+	 */
+	static class AnnotationRectangle {
+		/** The top row. */
+		final int fY;
+		/** The height. */
+		final int fHeight;
+		/** The rows counting the rectangle. */
+		final List<AnnotationRows> fRows;
+
+		AnnotationRectangle(int y, int height, List<AnnotationRows> rows) {
+			fY= y;
+			fHeight= height;
+			fRows= rows;
+		}
 	}
 
 	private static final boolean DEBUG_DRAW= false;
@@ -459,6 +578,39 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 	 * @since 3.0
 	 */
 	private List<Annotation> fCachedAnnotations= new ArrayList<>();
+	/**
+	 * Tells whether the annotations must be cached again because the model or the shown
+	 * annotation types changed. Guarded by {@link #fRunnableLock}.
+	 * @since 3.15
+	 */
+	private boolean fAreCachedAnnotationsInvalid= true;
+	/**
+	 * The rows covered by the annotations per shown annotation type and style, in drawing order.
+	 * @since 3.15
+	 */
+	private List<AnnotationRows> fAnnotationRows= new ArrayList<>();
+	/**
+	 * The rectangles of the annotations counted in {@link #fAnnotationRows}.
+	 * @since 3.15
+	 */
+	private Map<Annotation, AnnotationRectangle> fAnnotationRectangles= new HashMap<>();
+	/**
+	 * The widget infos used to compute {@link #fAnnotationRows}.
+	 * @since 3.15
+	 */
+	private WidgetInfos fAnnotationRowsInfos;
+	/**
+	 * Tells whether the annotation rows must be computed again.
+	 * Guarded by {@link #fRunnableLock}.
+	 * @since 3.15
+	 */
+	private boolean fAreAnnotationRowsInvalid= true;
+	/**
+	 * The annotations which have been added, removed or changed since the annotation rows have been
+	 * updated. Guarded by {@link #fRunnableLock}.
+	 * @since 3.15
+	 */
+	private Set<Annotation> fChangedAnnotations= new HashSet<>();
 
 	/**
 	 * Redraw runnable lock
@@ -552,6 +704,8 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 			if (fModel != null)
 				fModel.addAnnotationModelListener(fInternalListener);
 
+			invalidateCachedAnnotations();
+			invalidateAnnotationRows();
 			update();
 		}
 	}
@@ -648,6 +802,7 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 		fAnnotationTypes2Colors.clear();
 		fAnnotationsSortedByLayer.clear();
 		fLayersSortedByLayer.clear();
+		invalidateAnnotationRows();
 	}
 
 	/**
@@ -677,8 +832,6 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 			gc.setBackground(fCanvas.getBackground());
 			gc.fillRectangle(0, 0, size.x, size.y);
 
-			cacheAnnotations();
-
 			doPaint(gc);
 
 		} finally {
@@ -688,7 +841,23 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 		dest.drawImage(fBuffer, 0, 0);
 	}
 
+	/**
+	 * Marks the annotations to be cached again on the next update of the header.
+	 *
+	 * @since 3.15
+	 */
+	private void invalidateCachedAnnotations() {
+		synchronized (fRunnableLock) {
+			fAreCachedAnnotationsInvalid= true;
+		}
+	}
+
 	private void cacheAnnotations() {
+		synchronized (fRunnableLock) {
+			if (!fAreCachedAnnotationsInvalid)
+				return;
+			fAreCachedAnnotationsInvalid= false;
+		}
 		fCachedAnnotations.clear();
 		if (fModel != null) {
 			Iterator<Annotation> iter= fModel.getAnnotationIterator();
@@ -707,117 +876,211 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 	}
 
 	/**
-	 * Draws this overview ruler.
+	 * Marks the annotation rows to be computed again on the next paint.
 	 *
-	 * @param gc the GC to draw into
+	 * @since 3.15
 	 */
-	private void doPaint(GC gc) {
+	private void invalidateAnnotationRows() {
+		synchronized (fRunnableLock) {
+			fAreAnnotationRowsInvalid= true;
+			fChangedAnnotations.clear();
+		}
+	}
 
-		Rectangle r= new Rectangle(0, 0, 0, 0);
-		int yy, hh= ANNOTATION_HEIGHT;
+	/**
+	 * Brings the annotation rows up to date, either by updating the rectangles of the changed
+	 * annotations or, if the rows have been invalidated or the lines are mapped to other rows, by
+	 * computing all rectangles again.
+	 *
+	 * @param infos the current widget infos
+	 * @since 3.15
+	 */
+	private void updateAnnotationRows(WidgetInfos infos) {
+		boolean isInvalid;
+		Set<Annotation> changedAnnotations;
+		synchronized (fRunnableLock) {
+			isInvalid= fAreAnnotationRowsInvalid || !infos.hasSameRows(fAnnotationRowsInfos);
+			changedAnnotations= fChangedAnnotations;
+			if (!changedAnnotations.isEmpty())
+				fChangedAnnotations= new HashSet<>();
+			fAreAnnotationRowsInvalid= false;
+		}
+
+		if (!isInvalid && changedAnnotations.size() > fAnnotationRectangles.size() / 2) {
+			// cheaper to compute all rectangles again
+			isInvalid= true;
+		}
+
+		if (isInvalid) {
+			fAnnotationRowsInfos= infos;
+			fAnnotationRectangles.clear();
+			fAnnotationRows= new ArrayList<>();
+			for (Object annotationType : fAnnotationsSortedByLayer) {
+				if (skip(annotationType))
+					continue;
+				fAnnotationRows.add(new AnnotationRows(annotationType, false, infos.bounds.height));
+				fAnnotationRows.add(new AnnotationRows(annotationType, true, infos.bounds.height));
+			}
+			if (fModel != null) {
+				Iterator<Annotation> iter= fModel.getAnnotationIterator();
+				while (iter.hasNext())
+					addAnnotationRectangle(iter.next(), infos);
+			}
+			return;
+		}
+
+		// the rows may have been computed with slightly different visible lines
+		for (Annotation annotation : changedAnnotations) {
+			AnnotationRectangle rectangle= fAnnotationRectangles.remove(annotation);
+			if (rectangle != null) {
+				for (AnnotationRows rows : rectangle.fRows)
+					rows.add(rectangle.fY, rectangle.fHeight, -1);
+			}
+			addAnnotationRectangle(annotation, fAnnotationRowsInfos);
+		}
+	}
+
+	/**
+	 * Computes the rectangle of the given annotation and counts it in the rows of the matching
+	 * annotation types.
+	 *
+	 * @param annotation the annotation
+	 * @param infos the widget infos of the annotation rows
+	 * @since 3.15
+	 */
+	private void addAnnotationRectangle(Annotation annotation, WidgetInfos infos) {
+		if (annotation.isMarkedDeleted() || skip(annotation.getType()))
+			return;
+
+		List<AnnotationRows> matchingRows= null;
+		for (AnnotationRows rows : fAnnotationRows) {
+			if (isShownIn(annotation, rows)) {
+				if (matchingRows == null)
+					matchingRows= new ArrayList<>(2);
+				matchingRows.add(rows);
+			}
+		}
+		if (matchingRows == null)
+			return;
+
+		Position p= fModel.getPosition(annotation);
+		if (p == null)
+			return;
 
 		IDocument document= fTextViewer.getDocument();
 		StyledText textWidget= fTextViewer.getTextWidget();
-		ITextViewerExtension5 extension= null;
 		IRegion visible= null;
-		if (fTextViewer instanceof ITextViewerExtension5)
-			extension= (ITextViewerExtension5) fTextViewer;
-		else
+		if (!(fTextViewer instanceof ITextViewerExtension5))
 			visible= fTextViewer.getVisibleRegion(); // legacy support
 
-		WidgetInfos infos= null;
+		if (visible != null && !p.overlapsWith(visible.getOffset(), visible.getLength()))
+			return;
 
-		for (Object annotationType : fAnnotationsSortedByLayer) {
-			if (skip(annotationType))
-				continue;
+		int annotationOffset= p.getOffset();
+		int annotationLength= p.getLength();
+		IRegion widgetRegion= null;
+		if (visible != null) {
+			annotationOffset= Math.max(p.getOffset(), visible.getOffset());
+			int annotationEnd= Math.min(p.getOffset() + p.getLength(), visible.getOffset() + visible.getLength());
+			annotationLength= annotationEnd - annotationOffset;
+		} else {
+			widgetRegion= ((ITextViewerExtension5) fTextViewer).modelRange2WidgetRange(new Region(annotationOffset, annotationLength));
+			if (widgetRegion == null)
+				return;
+		}
 
-			int[] style= new int[] { FilterIterator.PERSISTENT, FilterIterator.TEMPORARY };
-			for (int element : style) {
-				boolean areColorsComputed= false;
-				Color fill= null;
-				Color stroke= null;
+		try {
+			int startOffset= visible != null ? annotationOffset - visible.getOffset() : widgetRegion.getOffset();
+			int startLine= textWidget.getLineAtOffset(startOffset);
+
+			int yy= computeY(startLine, infos);
+			int hh= ANNOTATION_HEIGHT;
+
+			if (ANNOTATION_HEIGHT_SCALABLE) {
+				int numberOfLines= document.getNumberOfLines(annotationOffset, annotationLength);
+				// don't count empty trailing line
+				IRegion lastLine= document.getLineInformationOfOffset(annotationOffset + annotationLength);
+				if (lastLine.getOffset() == annotationOffset + annotationLength) {
+					numberOfLines--;
+				}
+				if (numberOfLines > 1) {
+					int yy2= computeY(startLine + numberOfLines - 1, infos);
+					hh= Math.max(yy2 - yy, ANNOTATION_HEIGHT);
+				}
+			}
 
-				Iterator<Annotation> e= new FilterIterator(annotationType, element, fCachedAnnotations.iterator());
-				while (e.hasNext()) {
-					Annotation a= e.next();
-					Position p= fModel.getPosition(a);
+			for (AnnotationRows rows : matchingRows)
+				rows.add(yy, hh, 1);
+			fAnnotationRectangles.put(annotation, new AnnotationRectangle(yy, hh, matchingRows));
+		} catch (BadLocationException x) {
+		}
+	}
 
-					if (p == null)
-						continue;
-					if (visible != null && !p.overlapsWith(visible.getOffset(), visible.getLength()))
-						continue;
+	/**
+	 * Tells whether the given annotation is drawn in the given rows. This matches the filtering of
+	 * {@link FilterIterator}.
+	 *
+	 * @param annotation the annotation
+	 * @param rows the annotation rows
+	 * @return <code>true</code> if the annotation is drawn in the rows
+	 * @since 3.15
+	 */
+	private boolean isShownIn(Annotation annotation, AnnotationRows rows) {
+		if (rows.fIsTemporary == annotation.isPersistent())
+			return false;
+		Object annotationType= annotation.getType();
+		if (rows.fAnnotationType.equals(annotationType))
+			return true;
+		if (fConfiguredAnnotationTypes.contains(annotationType))
+			return false;
+		if (fAnnotationAccess instanceof IAnnotationAccessExtension)
+			return ((IAnnotationAccessExtension) fAnnotationAccess).isSubtype(annotationType, rows.fAnnotationType);
+		return false;
+	}
 
-					int annotationOffset= p.getOffset();
-					int annotationLength= p.getLength();
-					IRegion widgetRegion= null;
-					if (visible != null) {
-						annotationOffset= Math.max(p.getOffset(), visible.getOffset());
-						int annotationEnd= Math.min(p.getOffset() + p.getLength(), visible.getOffset() + visible.getLength());
-						annotationLength= annotationEnd - annotationOffset;
-					} else {
-						widgetRegion= extension.modelRange2WidgetRange(new Region(annotationOffset, annotationLength));
-						if (widgetRegion == null)
-							continue;
-					}
+	/**
+	 * Draws this overview ruler.
+	 * <p>
+	 * The annotations are drawn from the annotation rows, which are updated with the annotations
+	 * changed since the last paint.
+	 * </p>
+	 *
+	 * @param gc the GC to draw into
+	 */
+	private void doPaint(GC gc) {
 
-					if (infos == null) {
-						infos= new WidgetInfos(textWidget, fCanvas);
-						r.x= INSET;
-						r.width= infos.bounds.width - (2 * INSET);
-					}
+		Rectangle r= new Rectangle(0, 0, 0, 0);
+		int yy, hh;
 
-					try {
-						int startOffset= visible != null ? annotationOffset - visible.getOffset() : widgetRegion.getOffset();
-						int startLine= textWidget.getLineAtOffset(startOffset);
-
-						yy= computeY(startLine, infos);
-
-						if (ANNOTATION_HEIGHT_SCALABLE) {
-							int numberOfLines= document.getNumberOfLines(annotationOffset, annotationLength);
-							// don't count empty trailing line
-							IRegion lastLine= document.getLineInformationOfOffset(annotationOffset + annotationLength);
-							if (lastLine.getOffset() == annotationOffset + annotationLength) {
-								numberOfLines--;
-							}
-							if (numberOfLines > 1) {
-								int yy2= computeY(startLine + numberOfLines - 1, infos);
-								hh= Math.max(yy2 - yy, ANNOTATION_HEIGHT);
-							} else {
-								hh= ANNOTATION_HEIGHT;
-							}
-						}
-						fAnnotationHeight= hh;
-
-						if (!areColorsComputed) {
-							stroke= getStrokeColor(annotationType, element == FilterIterator.TEMPORARY);
-							fill= fUseSaturatedColors ? stroke : getFillColor(annotationType, element == FilterIterator.TEMPORARY);
-							areColorsComputed= true;
-						}
-
-						if (fill != null) {
-							gc.setBackground(fill);
-							gc.fillRectangle(INSET, yy, infos.bounds.width-(2*INSET), hh);
-						}
-
-						if (stroke != null) {
-							gc.setForeground(stroke);
-							r.y= yy;
-							if (yy + hh == infos.bounds.height)
-								r.y--;
-							r.height= hh;
-							gc.setLineWidth(0); // NOTE: 0 means width is 1 but with optimized performance
-							gc.drawRectangle(r);
-						}
-					} catch (BadLocationException x) {
-					}
-				}
+		StyledText textWidget= fTextViewer.getTextWidget();
+
+		WidgetInfos infos= new WidgetInfos(textWidget, fCanvas);
+		r.x= INSET;
+		r.width= infos.bounds.width - (2 * INSET);
+
+		updateAnnotationRows(infos);
+
+		for (AnnotationRows rows : fAnnotationRows) {
+			if (rows.fSize <= 0)
+				continue;
+
+			Color stroke= getStrokeColor(rows.fAnnotationType, rows.fIsTemporary);
+			Color fill= fUseSaturatedColors ? stroke : getFillColor(rows.fAnnotationType, rows.fIsTemporary);
+
+			int[] counts= rows.fCounts;
+			for (yy= 0; yy < counts.length; yy++) {
+				if (counts[yy] > 0)
+					drawAnnotationRectangle(gc, r, yy, ANNOTATION_HEIGHT, infos, fill, stroke);
+			}
+			for (Long key : rows.fTallCounts.keySet()) {
+				yy= (int) (key.longValue() >>> 32);
+				hh= (int) key.longValue();
+				drawAnnotationRectangle(gc, r, yy, hh, infos, fill, stroke);
 			}
 		}
 
 		if (DEBUG_DRAW) {
 			// draw debugging guides (boundaries):
-			if (infos == null)
-				infos= new WidgetInfos(textWidget, fCanvas);
 			gc.setForeground(gc.getDevice().getSystemColor(SWT.COLOR_DARK_MAGENTA));
 			yy= infos.thumbHeight / 2;
 			gc.drawLine(0, yy, infos.bounds.x/2, yy);
@@ -832,6 +1095,37 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 		}
 	}
 
+	/**
+	 * Draws the rectangle of an annotation.
+	 *
+	 * @param gc the GC to draw into
+	 * @param r the rectangle to reuse for drawing
+	 * @param yy the top of the rectangle
+	 * @param hh the height of the rectangle
+	 * @param infos the cached widget infos
+	 * @param fill the fill color or <code>null</code>
+	 * @param stroke the stroke color or <code>null</code>
+	 * @since 3.15
+	 */
+	private void drawAnnotationRectangle(GC gc, Rectangle r, int yy, int hh, WidgetInfos infos, Color fill, Color stroke) {
+		fAnnotationHeight= hh;
+
+		if (fill != null) {
+			gc.setBackground(fill);
+			gc.fillRectangle(INSET, yy, infos.bounds.width-(2*INSET), hh);
+		}
+
+		if (stroke != null) {
+			gc.setForeground(stroke);
+			r.y= yy;
+			if (yy + hh == infos.bounds.height)
+				r.y--;
+			r.height= hh;
+			gc.setLineWidth(0); // NOTE: 0 means width is 1 but with optimized performance
+			gc.drawRectangle(r);
+		}
+	}
+
 	/**
 	 * Computes and returns the y location of the given startLine.
 	 *
@@ -840,7 +1134,7 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 	 * @return the vertical position of the given startLine in the overview ruler
 	 * @since 3.7
 	 */
-	private int computeY(int startLine, WidgetInfos infos) {
+	private static int computeY(int startLine, WidgetInfos infos) {
 		// this is the inverse of #toLineNumbers(int)
 
 		int yy;
@@ -1151,6 +1445,8 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 			fConfiguredAnnotationTypes.add(annotationType);
 			fAllowedAnnotationTypes.clear();
 		}
+		invalidateCachedAnnotations();
+		invalidateAnnotationRows();
 	}
 
 	@Override
@@ -1159,6 +1455,8 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 			fConfiguredAnnotationTypes.remove(annotationType);
 			fAllowedAnnotationTypes.clear();
 		}
+		invalidateCachedAnnotations();
+		invalidateAnnotationRows();
 	}
 
 	@Override
@@ -1178,6 +1476,7 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 			fLayersSortedByLayer.add(i, layerObj);
 			fAnnotationsSortedByLayer.add(i, annotationType);
 		}
+		invalidateAnnotationRows();
 	}
 
 	@Override
@@ -1436,6 +1735,8 @@ public class OverviewRuler implements IOverviewRulerExtension, IOverviewRuler {
 		if (fHeader == null || fHeader.isDisposed())
 			return;
 
+		cacheAnnotations();
+
 		fHeader.setToolTipText(null);
 
 		Object colorType= null;
@@ -55,6 +55,7 @@ import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextViewer;
 import org.eclipse.jface.text.codemining.ICodeMiningProvider;
+import org.eclipse.jface.text.codemining.ICodeMiningProviderExtension;
 import org.eclipse.jface.text.contentassist.IContentAssistant;
 import org.eclipse.jface.text.contentassist.IContentAssistantExtension2;
 import org.eclipse.jface.text.contentassist.IContentAssistantExtension4;
@@ -1299,9 +1300,12 @@ public class SourceViewer extends TextViewer implements ISourceViewer, ISourceVi
 				fInlinedAnnotationSupport= new InlinedAnnotationSupport();
 				fInlinedAnnotationSupport.install(this, fAnnotationPainter);
 			}
-			fCodeMiningManager= new CodeMiningManager(this, fInlinedAnnotationSupport, fCodeMiningProviders);
-			// now trigger an update
-			updateCodeMinings();
+			if (fCodeMiningManager == null) {
+				fCodeMiningManager= new CodeMiningManager(this, fInlinedAnnotationSupport, fCodeMiningProviders);
+				fCodeMiningManager.install();
+			}
+			// now trigger an update of all code minings
+			fCodeMiningManager.refresh();
 		}
 	}
 
@@ -1310,6 +1314,14 @@ public class SourceViewer extends TextViewer implements ISourceViewer, ISourceVi
 		return fCodeMiningManager != null; // manager always has at least one provider
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If all code mining providers implement {@link ICodeMiningProviderExtension}, only the code
+	 * minings of the lines which changed since the last update are updated. Use
+	 * {@link #refreshCodeMinings()} to update the code minings of all lines.
+	 * </p>
+	 */
 	@Override
 	public void updateCodeMinings() {
 		if (hasCodeMiningProviders()) {
@@ -1317,6 +1329,19 @@ public class SourceViewer extends TextViewer implements ISourceViewer, ISourceVi
 		}
 	}
 
+	/**
+	 * Updates the code minings of all lines, for instance when the code minings of unchanged lines
+	 * are outdated by a change of the state of the code mining providers.
+	 *
+	 * @see #updateCodeMinings()
+	 * @since 3.15
+	 */
+	public void refreshCodeMinings() {
+		if (hasCodeMiningProviders()) {
+			fCodeMiningManager.refresh();
+		}
+	}
+
 	@Override
 	public void setCodeMiningAnnotationPainter(AnnotationPainter painter) {
 		fAnnotationPainter= painter;
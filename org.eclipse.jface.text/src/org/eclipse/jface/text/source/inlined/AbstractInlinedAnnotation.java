@@ -22,6 +22,8 @@ import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.GC;
 
+import org.eclipse.jface.internal.text.source.TextExtentCache;
+
 import org.eclipse.jface.text.ITextViewerExtension5;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
@@ -59,6 +61,16 @@ public abstract class AbstractInlinedAnnotation extends Annotation {
 
 	int fY;
 
+	/**
+	 * The cache of the extent of the text of the annotation.
+	 */
+	final TextExtentCache fTextExtentCache= new TextExtentCache();
+
+	/**
+	 * The cache of the extent of the character which is redrawn after the annotation.
+	 */
+	final TextExtentCache fCharacterExtentCache= new TextExtentCache();
+
 	/**
 	 * Inlined annotation constructor.
 	 *
@@ -221,10 +233,17 @@ public abstract class AbstractInlinedAnnotation extends Annotation {
 	 */
 	boolean contains(int x, int y) {
 		StyledText styledText= getTextWidget();
+		if (x < fX || y < fY || y > fY + styledText.getLineHeight(position.getOffset())) {
+			return false;
+		}
+		int width= fTextExtentCache.getLastPaddedWidth(getText());
+		if (width >= 0) {
+			return x <= fX + width;
+		}
 		GC gc= null;
 		try {
 			gc= new GC(styledText);
-			return x >= fX && y >= fY && y <= fY + styledText.getLineHeight(position.getOffset()) && x <= fX + gc.stringExtent(getText()).x + 2 * gc.getFontMetrics().getAverageCharacterWidth();
+			return x <= fX + fTextExtentCache.getPaddedWidth(gc, getText());
 		} finally {
 			if (gc != null) {
 				gc.dispose();
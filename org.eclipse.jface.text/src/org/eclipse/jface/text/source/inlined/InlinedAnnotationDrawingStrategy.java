@@ -1,5 +1,5 @@
 /**
- *  Copyright (c) 2017 Angelo ZERR.
+ *  Copyright (c) 2017, 2018 Angelo ZERR.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -111,7 +111,7 @@ class InlinedAnnotationDrawingStrategy implements IDrawingStrategy {
 				// FIXME: remove this code when we need not redraw the character (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=531769)
 				// START TO REMOVE
 				String s= textWidget.getText(offset, offset);
-				Point charBounds= gc.stringExtent(s);
+				Point charBounds= annotation.fCharacterExtentCache.getExtent(gc, s);
 				int charWidth= charBounds.x;
 				int charHeight= charBounds.y;
 				annotation.setRedrawnCharacterWidth(charWidth);
@@ -240,7 +240,7 @@ class InlinedAnnotationDrawingStrategy implements IDrawingStrategy {
 
 			// Get size of the character where GlyphMetrics width is added
 			String s= textWidget.getText(offset, offset);
-			Point charBounds= gc.stringExtent(s);
+			Point charBounds= annotation.fCharacterExtentCache.getExtent(gc, s);
 			int charWidth= charBounds.x;
 
 			// When line text has line header annotation, there is a space on the top, adjust the y by using char height
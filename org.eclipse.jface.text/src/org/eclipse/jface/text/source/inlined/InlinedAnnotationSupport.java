@@ -418,16 +418,22 @@ public class InlinedAnnotationSupport {
 			return;
 		}
 		Map<AbstractInlinedAnnotation, Position> annotationsToAdd= new HashMap<>();
-		List<AbstractInlinedAnnotation> annotationsToRemove= fInlinedAnnotations != null
-				? new ArrayList<>(fInlinedAnnotations)
-				: Collections.emptyList();
+		Set<AbstractInlinedAnnotation> previousAnnotations= fInlinedAnnotations != null
+				? fInlinedAnnotations
+				: Collections.emptySet();
+		List<AbstractInlinedAnnotation> annotationsToRemove= new ArrayList<>();
 		// Loop for annotations to update
 		for (AbstractInlinedAnnotation ann : annotations) {
-			if (!annotationsToRemove.remove(ann)) {
+			if (!previousAnnotations.contains(ann)) {
 				// The annotation was not created, add it
 				annotationsToAdd.put(ann, ann.getPosition());
 			}
 		}
+		for (AbstractInlinedAnnotation ann : previousAnnotations) {
+			if (!annotations.contains(ann)) {
+				annotationsToRemove.add(ann);
+			}
+		}
 		// Process annotations to remove
 		for (AbstractInlinedAnnotation ann : annotationsToRemove) {
 			// Mark annotation as deleted to ignore the draw
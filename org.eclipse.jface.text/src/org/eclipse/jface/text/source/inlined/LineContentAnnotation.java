@@ -1,11 +1,11 @@
 /**
  *  Copyright (c) 2017, 2018 Angelo ZERR.
- *
+ *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
  *  which accompanies this distribution, and is available at
- *  https://www.eclipse.org/legal/epl-2.0/
- *
+ *  https://www.eclipse.org/legal/epl-2.0/
+ *
  *  SPDX-License-Identifier: EPL-2.0
  *
  *  Contributors:
@@ -81,7 +81,7 @@ public class LineContentAnnotation extends AbstractInlinedAnnotation {
 	protected int drawAndComputeWidth(GC gc, StyledText textWidget, int offset, int length, Color color, int x, int y) {
 		// Draw the text annotation and returns the width
 		super.draw(gc, textWidget, offset, length, color, x, y);
-		return (int) (gc.stringExtent(getText()).x + 2 * gc.getFontMetrics().getAverageCharacterWidth());
+		return fTextExtentCache.getPaddedWidth(gc, getText());
 	}
 
 	int getRedrawnCharacterWidth() {
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.text.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.text.internal.source.AnnotationIntervalIndex;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+
+/**
+ * Tests the range queries of {@link AnnotationIntervalIndex} against a scan of all positions.
+ *
+ * @since 3.8
+ */
+public class AnnotationIntervalIndexTest {
+
+	private static final int DOCUMENT_LENGTH= 5000;
+
+	private Document fDocument;
+	private AnnotationIntervalIndex<Position> fIndex;
+	private List<Annotation> fAnnotations;
+	private List<Position> fPositions;
+	private Random fRandom;
+
+	@Before
+	public void setUp() {
+		StringBuilder content= new StringBuilder();
+		for (int i= 0; i < DOCUMENT_LENGTH; i++)
+			content.append(i % 50 == 49 ? '\n' : 'x');
+		fDocument= new Document(content.toString());
+		fIndex= new AnnotationIntervalIndex<>();
+		fAnnotations= new ArrayList<>();
+		fPositions= new ArrayList<>();
+		fRandom= new Random(42);
+	}
+
+	private void trackChanges() {
+		fDocument.addDocumentListener(new IDocumentListener() {
+
+			@Override
+			public void documentAboutToBeChanged(DocumentEvent event) {
+				fIndex.documentAboutToBeChanged(fDocument.getModificationStamp(), event.getText().length());
+			}
+
+			@Override
+			public void documentChanged(DocumentEvent event) {
+				// Do nothing
+			}
+		});
+	}
+
+	private Annotation add(int offset, int length) throws BadLocationException {
+		Position position= new Position(offset, length);
+		fDocument.addPosition(position);
+		Annotation annotation= new Annotation(false);
+		fIndex.put(annotation, position, position);
+		fAnnotations.add(annotation);
+		fPositions.add(position);
+		return annotation;
+	}
+
+	private void addRandom(int count) throws BadLocationException {
+		for (int i= 0; i < count; i++) {
+			int offset= fRandom.nextInt(fDocument.getLength());
+			int length= fRandom.nextInt(20) == 0 ? fRandom.nextInt(3000) : fRandom.nextInt(20);
+			add(offset, Math.min(length, fDocument.getLength() - offset));
+		}
+	}
+
+	private void remove(int i) {
+		fIndex.remove(fAnnotations.remove(i));
+		fDocument.removePosition(fPositions.remove(i));
+	}
+
+	private Set<Annotation> query(int offset, int length) {
+		Set<Annotation> result= new HashSet<>();
+		for (AnnotationIntervalIndex.Entry<Position> entry : fIndex.getEntries(offset, length, fDocument.getModificationStamp()))
+			assertTrue(result.add(entry.getKey()));
+		return result;
+	}
+
+	private Set<Annotation> scan(int offset, int length) {
+		Set<Annotation> result= new HashSet<>();
+		for (int i= 0; i < fAnnotations.size(); i++) {
+			Position position= fPositions.get(i);
+			if (!position.isDeleted() && position.offset <= offset + length && offset <= position.offset + position.length)
+				result.add(fAnnotations.get(i));
+		}
+		return result;
+	}
+
+	private void assertQueries() {
+		for (int i= 0; i < 50; i++) {
+			int offset= fRandom.nextInt(fDocument.getLength());
+			int length= fRandom.nextInt(200);
+			assertEquals(scan(offset, length), query(offset, length));
+		}
+		assertEquals(scan(0, fDocument.getLength()), query(0, fDocument.getLength()));
+	}
+
+	private void editRandom(int count) throws BadLocationException {
+		for (int i= 0; i < count; i++) {
+			int offset= fRandom.nextInt(fDocument.getLength());
+			int length= Math.min(fRandom.nextInt(30), fDocument.getLength() - offset);
+			int textLength= fRandom.nextInt(4) == 0 ? fRandom.nextInt(100) : fRandom.nextInt(10);
+			StringBuilder text= new StringBuilder();
+			for (int j= 0; j < textLength; j++)
+				text.append(j % 20 == 19 ? '\n' : 'y');
+			fDocument.replace(offset, length, text.toString());
+		}
+	}
+
+	@Test
+	public void testQueries() throws Exception {
+		addRandom(1000);
+		assertEquals(1000, fIndex.size());
+		assertQueries();
+	}
+
+	@Test
+	public void testTrackedChanges() throws Exception {
+		trackChanges();
+		addRandom(500);
+		assertQueries();
+		for (int i= 0; i < 20; i++) {
+			editRandom(1 + fRandom.nextInt(5));
+			assertQueries();
+		}
+	}
+
+	@Test
+	public void testUntrackedChanges() throws Exception {
+		addRandom(500);
+		assertQueries();
+		for (int i= 0; i < 20; i++) {
+			editRandom(1 + fRandom.nextInt(5));
+			assertQueries();
+		}
+	}
+
+	@Test
+	public void testAddAndRemove() throws Exception {
+		trackChanges();
+		addRandom(300);
+		for (int i= 0; i < 20; i++) {
+			addRandom(fRandom.nextInt(60));
+			for (int j= fRandom.nextInt(60); j > 0 && !fAnnotations.isEmpty(); j--)
+				remove(fRandom.nextInt(fAnnotations.size()));
+			editRandom(2);
+			assertQueries();
+		}
+		assertEquals(fAnnotations.size(), fIndex.size());
+	}
+
+	@Test
+	public void testDeletedPositions() throws Exception {
+		trackChanges();
+		Annotation deleted= add(100, 10);
+		Annotation before= add(50, 10);
+		Annotation after= add(300, 10);
+		assertQueries();
+
+		// deletes the position at 100 and moves the position at 300 before its old offset
+		fDocument.replace(80, 200, "");
+		assertEquals(scan(0, fDocument.getLength()), query(0, fDocument.getLength()));
+		// the deleted position keeps its old offset but is not returned
+		assertEquals(Collections.singleton(after), query(100, 10));
+		assertTrue(query(50, 0).contains(before));
+		assertEquals(3, fIndex.size());
+		assertSame(fPositions.get(0), fIndex.get(deleted));
+	}
+
+	@Test
+	public void testMovedPosition() throws Exception {
+		addRandom(100);
+		Annotation moved= add(10, 5);
+		assertQueries();
+
+		// a client moves the position without putting it again
+		fPositions.get(fPositions.size() - 1).setOffset(4000);
+		fDocument.replace(0, 0, "z");
+		assertQueries();
+		assertTrue(query(4001, 0).contains(moved));
+	}
+
+	@Test
+	public void testLongPositions() throws Exception {
+		trackChanges();
+		Annotation whole= add(0, DOCUMENT_LENGTH);
+		Annotation small= add(2000, 5);
+		assertQueries();
+		assertTrue(query(4000, 10).contains(whole));
+
+		// a position grows beyond the long length while the changes are tracked
+		StringBuilder text= new StringBuilder();
+		for (int i= 0; i < 3000; i++)
+			text.append('y');
+		fDocument.replace(2002, 0, text.toString());
+		assertQueries();
+		assertTrue(query(4500, 0).contains(small));
+		assertTrue(query(fDocument.getLength(), 0).contains(whole));
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		addRandom(100);
+		assertQueries();
+		fIndex.clear();
+		assertTrue(fIndex.isEmpty());
+		assertTrue(query(0, fDocument.getLength()).isEmpty());
+	}
+}
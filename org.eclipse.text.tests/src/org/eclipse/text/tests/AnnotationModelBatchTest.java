@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.text.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+import org.eclipse.jface.text.source.AnnotationModelBatch;
+import org.eclipse.jface.text.source.AnnotationModelEvent;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelListener;
+import org.eclipse.jface.text.source.IAnnotationModelListenerExtension;
+
+/**
+ * Tests {@link AnnotationModelBatch} and its commit by {@link AnnotationModel}.
+ *
+ * @since 3.8
+ */
+public class AnnotationModelBatchTest {
+
+	private static class EventCollector implements IAnnotationModelListener, IAnnotationModelListenerExtension {
+
+		final List<AnnotationModelEvent> fEvents= new ArrayList<>();
+
+		@Override
+		public void modelChanged(IAnnotationModel model) {
+		}
+
+		@Override
+		public void modelChanged(AnnotationModelEvent event) {
+			fEvents.add(event);
+		}
+	}
+
+	private Document fDocument;
+	private AnnotationModel fAnnotationModel;
+	private EventCollector fCollector;
+
+	@Before
+	public void setUp() {
+		fDocument= new Document("How much wood\nwould a woodchuck chuck\nif a woodchuck\ncould chuck wood?\n42");
+		fAnnotationModel= new AnnotationModel();
+		fAnnotationModel.connect(fDocument);
+		fCollector= new EventCollector();
+		fAnnotationModel.addAnnotationModelListener(fCollector);
+		fCollector.fEvents.clear();
+	}
+
+	@After
+	public void tearDown() {
+		fAnnotationModel.removeAnnotationModelListener(fCollector);
+		fAnnotationModel.disconnect(fDocument);
+	}
+
+	@Test
+	public void testCommitFiresOneEvent() {
+		Annotation removed= new Annotation(false);
+		Annotation changed= new Annotation(false);
+		fAnnotationModel.addAnnotation(removed, new Position(0, 3));
+		fAnnotationModel.addAnnotation(changed, new Position(4, 4));
+		fCollector.fEvents.clear();
+
+		AnnotationModelBatch batch= new AnnotationModelBatch();
+		Annotation[] added= new Annotation[100];
+		for (int i= 0; i < added.length; i++) {
+			added[i]= new Annotation(false);
+			batch.addAnnotation(added[i], new Position(i % 50, 1));
+		}
+		batch.removeAnnotation(removed);
+		batch.modifyAnnotation(changed);
+		fAnnotationModel.commit(batch);
+
+		assertEquals(1, fCollector.fEvents.size());
+		AnnotationModelEvent event= fCollector.fEvents.get(0);
+		assertEquals(added.length, event.getAddedAnnotations().length);
+		assertArrayEquals(new Annotation[] { removed }, event.getRemovedAnnotations());
+		assertArrayEquals(new Annotation[] { changed }, event.getChangedAnnotations());
+		assertNull(fAnnotationModel.getPosition(removed));
+		for (Annotation annotation : added)
+			assertTrue(fAnnotationModel.getPosition(annotation) != null);
+	}
+
+	@Test
+	public void testAddedAndRemovedIsDropped() {
+		AnnotationModelBatch batch= new AnnotationModelBatch();
+		Annotation annotation= new Annotation(false);
+		batch.addAnnotation(annotation, new Position(0, 3));
+		batch.modifyAnnotation(annotation);
+		batch.removeAnnotation(annotation);
+		assertTrue(batch.isEmpty());
+
+		fAnnotationModel.commit(batch);
+		assertTrue(fCollector.fEvents.isEmpty());
+		assertNull(fAnnotationModel.getPosition(annotation));
+	}
+
+	@Test
+	public void testRemovedAndAddedIsMoved() {
+		Annotation annotation= new Annotation(false);
+		fAnnotationModel.addAnnotation(annotation, new Position(0, 3));
+		fCollector.fEvents.clear();
+
+		AnnotationModelBatch batch= new AnnotationModelBatch();
+		batch.removeAnnotation(annotation);
+		batch.addAnnotation(annotation, new Position(14, 5));
+		fAnnotationModel.commit(batch);
+
+		assertEquals(1, fCollector.fEvents.size());
+		AnnotationModelEvent event= fCollector.fEvents.get(0);
+		assertEquals(0, event.getAddedAnnotations().length);
+		assertEquals(0, event.getRemovedAnnotations().length);
+		assertArrayEquals(new Annotation[] { annotation }, event.getChangedAnnotations());
+		assertEquals(new Position(14, 5), fAnnotationModel.getPosition(annotation));
+		assertTrue(fAnnotationModel.getAnnotationIterator(14, 5, false, false).hasNext());
+	}
+
+	@Test
+	public void testMovedAndRemovedIsRemoved() {
+		Annotation annotation= new Annotation(false);
+		fAnnotationModel.addAnnotation(annotation, new Position(0, 3));
+		fCollector.fEvents.clear();
+
+		AnnotationModelBatch batch= new AnnotationModelBatch();
+		batch.modifyAnnotationPosition(annotation, new Position(14, 5));
+		batch.removeAnnotation(annotation);
+		fAnnotationModel.commit(batch);
+
+		assertEquals(1, fCollector.fEvents.size());
+		assertArrayEquals(new Annotation[] { annotation }, fCollector.fEvents.get(0).getRemovedAnnotations());
+		assertNull(fAnnotationModel.getPosition(annotation));
+	}
+}
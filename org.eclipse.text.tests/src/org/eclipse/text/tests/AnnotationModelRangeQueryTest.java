@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.text.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+
+/**
+ * Compares the range queries of {@link AnnotationModel} with a scan of all annotations while the
+ * document and the annotations change.
+ *
+ * @since 3.8
+ */
+public class AnnotationModelRangeQueryTest {
+
+	private static final int DOCUMENT_LENGTH= 5000;
+
+	private Document fDocument;
+	private AnnotationModel fAnnotationModel;
+	private List<Annotation> fAnnotations;
+	private Random fRandom;
+
+	@Before
+	public void setUp() {
+		StringBuilder content= new StringBuilder();
+		for (int i= 0; i < DOCUMENT_LENGTH; i++)
+			content.append(i % 50 == 49 ? '\n' : 'x');
+		fDocument= new Document(content.toString());
+		fAnnotationModel= new AnnotationModel();
+		fAnnotationModel.connect(fDocument);
+		fAnnotations= new ArrayList<>();
+		fRandom= new Random(42);
+	}
+
+	@After
+	public void tearDown() {
+		fAnnotationModel.disconnect(fDocument);
+	}
+
+	private void addAnnotations(int count) {
+		for (int i= 0; i < count; i++) {
+			int offset= fRandom.nextInt(fDocument.getLength());
+			int length= fRandom.nextInt(10) == 0 ? fRandom.nextInt(2000) : fRandom.nextInt(20);
+			length= Math.min(length, fDocument.getLength() - offset);
+			Annotation annotation= new Annotation(false);
+			fAnnotationModel.addAnnotation(annotation, new Position(offset, length));
+			fAnnotations.add(annotation);
+		}
+	}
+
+	private void assertQueries() {
+		for (int i= 0; i < 50; i++) {
+			int offset= fRandom.nextInt(fDocument.getLength());
+			int length= fRandom.nextInt(300);
+			assertQuery(offset, length, true, true);
+			assertQuery(offset, length, true, false);
+			assertQuery(offset, length, false, true);
+			assertQuery(offset, length, false, false);
+		}
+	}
+
+	private void assertQuery(int offset, int length, boolean canStartBefore, boolean canEndAfter) {
+		Set<Annotation> expected= new HashSet<>();
+		Iterator<Annotation> all= fAnnotationModel.getAnnotationIterator();
+		while (all.hasNext()) {
+			Annotation annotation= all.next();
+			Position p= fAnnotationModel.getPosition(annotation);
+			if (isWithinRegion(new Position(offset, length), p.getOffset(), p.getLength(), canStartBefore, canEndAfter))
+				expected.add(annotation);
+		}
+
+		Set<Annotation> actual= new HashSet<>();
+		Iterator<Annotation> iter= fAnnotationModel.getAnnotationIterator(offset, length, canStartBefore, canEndAfter);
+		while (iter.hasNext())
+			assertEquals(true, actual.add(iter.next()));
+
+		assertEquals(expected, actual);
+	}
+
+	private static boolean isWithinRegion(Position region, int start, int length, boolean canStartBefore, boolean canEndAfter) {
+		if (canStartBefore && canEndAfter)
+			return region.overlapsWith(start, length);
+		else if (canStartBefore)
+			return region.includes(start + length - (length > 0 ? 1 : 0));
+		else if (canEndAfter)
+			return region.includes(start);
+		else
+			return region.includes(start) && region.includes(start + length - (length > 0 ? 1 : 0));
+	}
+
+	@Test
+	public void testQueries() {
+		addAnnotations(2000);
+		assertQueries();
+	}
+
+	@Test
+	public void testQueriesAfterDocumentChanges() throws BadLocationException {
+		addAnnotations(2000);
+		assertQueries();
+		for (int i= 0; i < 20; i++) {
+			int offset= fRandom.nextInt(fDocument.getLength());
+			int length= Math.min(fRandom.nextInt(100), fDocument.getLength() - offset);
+			fDocument.replace(offset, length, i % 2 == 0 ? "" : "yyyyyyyyyy\nyyyyyyyyyy");
+			assertQueries();
+		}
+	}
+
+	@Test
+	public void testQueriesAfterModelChanges() {
+		addAnnotations(1000);
+		assertQueries();
+		for (int i= 0; i < 300; i++) {
+			Annotation annotation= fAnnotations.get(fRandom.nextInt(fAnnotations.size()));
+			switch (i % 3) {
+				case 0:
+					fAnnotationModel.removeAnnotation(annotation);
+					fAnnotations.remove(annotation);
+					break;
+				case 1:
+					int offset= fRandom.nextInt(fDocument.getLength() - 50);
+					fAnnotationModel.modifyAnnotationPosition(annotation, new Position(offset, fRandom.nextInt(50)));
+					break;
+				default:
+					addAnnotations(1);
+					break;
+			}
+			if (i % 10 == 0)
+				assertQueries();
+		}
+		assertQueries();
+	}
+}
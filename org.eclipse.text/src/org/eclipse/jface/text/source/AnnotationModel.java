@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,9 +15,7 @@
 package org.eclipse.jface.text.source;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -26,11 +24,13 @@ import java.util.NoSuchElementException;
 
 import org.eclipse.core.runtime.Assert;
 
+import org.eclipse.text.internal.source.AnnotationIntervalIndex;
+
 import org.eclipse.jface.text.AbstractDocument;
 import org.eclipse.jface.text.BadLocationException;
-import org.eclipse.jface.text.BadPositionCategoryException;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ISynchronizable;
 import org.eclipse.jface.text.Position;
@@ -44,7 +44,7 @@ import org.eclipse.jface.text.Position;
  * modifications of the model's internal annotation map are synchronized using
  * the model's lock object.
  */
-public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtension, IAnnotationModelExtension2, ISynchronizable {
+public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtension, IAnnotationModelExtension2, IAnnotationModelExtension3, ISynchronizable {
 
 
 	/**
@@ -132,59 +132,6 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 		}
 	}
 
-	/**
-	 * An iterator iteration over a Positions and mapping positions to
-	 * annotations using a provided map if the provided map contains the element.
-	 *
-	 * @since 3.4
-	 */
-	private static final class AnnotationsInterator implements Iterator<Annotation> {
-
-		private Annotation fNext;
-		private final Position[] fPositions;
-		private int fIndex;
-		private final Map<Position, Annotation> fMap;
-
-		/**
-		 * @param positions positions to iterate over
-		 * @param map a map to map positions to annotations
-		 */
-		public AnnotationsInterator(Position[] positions, Map<Position, Annotation> map) {
-			fPositions= positions;
-			fIndex= 0;
-			fMap= map;
-			fNext= findNext();
-		}
-
-		@Override
-		public boolean hasNext() {
-			return fNext != null;
-		}
-
-		@Override
-		public Annotation next() {
-			Annotation result= fNext;
-			fNext= findNext();
-			return result;
-		}
-
-		@Override
-		public void remove() {
-			throw new UnsupportedOperationException();
-		}
-
-		private Annotation findNext() {
-			while (fIndex < fPositions.length) {
-				Position position= fPositions[fIndex];
-				fIndex++;
-				if (fMap.containsKey(position))
-					return fMap.get(position);
-			}
-
-			return null;
-		}
-	}
-
 	/**
 	 * A single iterator builds its behavior based on a sequence of iterators.
 	 *
@@ -263,10 +210,10 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 	@Deprecated
 	protected Map<Annotation, Position> fAnnotations;
 	/**
-	 * The map which maps {@link Position} to {@link Annotation}.
-	 * @since 3.4
+	 * The index of the annotations by their positions. Guarded by the lock object.
+	 * @since 3.8
 	 **/
-	private IdentityHashMap<Position, Annotation> fPositions;
+	private AnnotationIntervalIndex<Position> fPositionIndex;
 	/** The list of annotation model listeners */
 	protected ArrayList<IAnnotationModelListener> fAnnotationModelListeners;
 	/** The document connected with this model */
@@ -304,13 +251,19 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 	 */
 	public AnnotationModel() {
 		fAnnotations= new AnnotationMap(10);
-		fPositions= new IdentityHashMap<>(10);
+		fPositionIndex= new AnnotationIntervalIndex<>();
 		fAnnotationModelListeners= new ArrayList<>(2);
 
 		fDocumentListener= new IDocumentListener() {
 
 			@Override
 			public void documentAboutToBeChanged(DocumentEvent event) {
+				// not guarded by the lock object, the index synchronizes the reported changes itself
+				if (event.getDocument() instanceof IDocumentExtension4) {
+					long stamp= ((IDocumentExtension4) event.getDocument()).getModificationStamp();
+					String text= event.getText();
+					fPositionIndex.documentAboutToBeChanged(stamp, text != null ? text.length() : 0);
+				}
 			}
 
 			@Override
@@ -375,6 +328,37 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The annotations are removed, moved, added and changed in this order.
+	 * Annotations which are added at an invalid position are ignored.
+	 * </p>
+	 *
+	 * @since 3.8
+	 */
+	@Override
+	public void commit(AnnotationModelBatch batch) {
+		for (Annotation annotation : batch.getRemovedAnnotations())
+			removeAnnotation(annotation, false);
+
+		for (Map.Entry<Annotation, Position> entry : batch.getMovedAnnotations().entrySet())
+			modifyAnnotationPosition(entry.getKey(), entry.getValue(), false);
+
+		for (Map.Entry<Annotation, Position> entry : batch.getAddedAnnotations().entrySet()) {
+			try {
+				addAnnotation(entry.getKey(), entry.getValue(), false);
+			} catch (BadLocationException x) {
+				// ignore invalid position
+			}
+		}
+
+		for (Annotation annotation : batch.getChangedAnnotations())
+			modifyAnnotation(annotation, false);
+
+		fireModelChanged();
+	}
+
 	/**
 	 * Replaces the given annotations in this model and if advised fires a
 	 * model change event.
@@ -424,8 +408,8 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 
 			addPosition(fDocument, position);
 			fAnnotations.put(annotation, position);
-			fPositions.put(position, annotation);
 			synchronized (getLockObject()) {
+				fPositionIndex.put(annotation, position, position);
 				getAnnotationModelEvent().annotationAdded(annotation);
 			}
 
@@ -711,12 +695,33 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 		AbstractDocument document= (AbstractDocument) fDocument;
 		cleanup(true);
 
-		try {
-			Position[] positions= document.getPositions(IDocument.DEFAULT_CATEGORY, offset, length, canStartBefore, canEndAfter);
-			return new AnnotationsInterator(positions, fPositions);
-		} catch (BadPositionCategoryException e) {
-			// can happen if e.g. the document doesn't contain such a category, or when removed in a different thread
-			return Collections.<Annotation>emptyList().iterator();
+		List<Annotation> annotations;
+		synchronized (getLockObject()) {
+			if (fPositionIndex.size() != fAnnotations.size())
+				updatePositionIndex();
+
+			List<AnnotationIntervalIndex.Entry<Position>> entries= fPositionIndex.getEntries(offset, length, document.getModificationStamp());
+			annotations= new ArrayList<>(entries.size());
+			for (AnnotationIntervalIndex.Entry<Position> entry : entries)
+				annotations.add(entry.getKey());
+		}
+		return new RegionIterator(annotations.iterator(), this, offset, length, canStartBefore, canEndAfter);
+	}
+
+	/**
+	 * Builds the position index again from the annotation map, which subclasses may have changed
+	 * directly. Must be called while holding the lock object.
+	 *
+	 * @since 3.8
+	 */
+	private void updatePositionIndex() {
+		fPositionIndex.clear();
+		Iterator<Annotation> e= getAnnotationMap().keySetIterator();
+		while (e.hasNext()) {
+			Annotation annotation= e.next();
+			Position position= fAnnotations.get(annotation);
+			if (position != null)
+				fPositionIndex.put(annotation, position, position);
 		}
 	}
 
@@ -799,7 +804,9 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 		}
 
 		fAnnotations.clear();
-		fPositions.clear();
+		synchronized (getLockObject()) {
+			fPositionIndex.clear();
+		}
 
 		if (fireModelChanged)
 			fireModelChanged();
@@ -828,8 +835,8 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 			}
 
 			fAnnotations.remove(annotation);
-			fPositions.remove(p);
 			synchronized (getLockObject()) {
+				fPositionIndex.remove(annotation);
 				getAnnotationModelEvent().annotationRemoved(annotation, p);
 			}
 
@@ -875,6 +882,10 @@ public class AnnotationModel implements IAnnotationModel, IAnnotationModelExtens
 					} catch (BadLocationException e) {
 						// ignore invalid position
 					}
+					synchronized (getLockObject()) {
+						// the position has moved
+						fPositionIndex.put(annotation, p, p);
+					}
 				}
 				synchronized (getLockObject()) {
 					getAnnotationModelEvent().annotationChanged(annotation);
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.source;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+
+import org.eclipse.jface.text.Position;
+
+
+/**
+ * A batch of changes to an annotation model, applied at once by
+ * {@link IAnnotationModelExtension3#commit(AnnotationModelBatch)}.
+ * <p>
+ * A batch does not access the annotation model while the changes are
+ * recorded, so it can be prepared in any thread. The changes are compacted
+ * while they are recorded: an annotation which is added to the batch and
+ * removed again is not reported at all, and an annotation which is removed
+ * and added again is moved to its new position and reported as changed.
+ * Committing the batch therefore produces one compact annotation model event.
+ * </p>
+ * <p>
+ * A batch is not thread-safe. Clients may instantiate this class.
+ * </p>
+ *
+ * @since 3.8
+ */
+public class AnnotationModelBatch {
+
+	/** The annotations to remove. */
+	private final Set<Annotation> fRemovedAnnotations= new LinkedHashSet<>();
+	/** The annotations to move, with their new positions. */
+	private final Map<Annotation, Position> fMovedAnnotations= new LinkedHashMap<>();
+	/** The annotations to add, with their positions. */
+	private final Map<Annotation, Position> fAddedAnnotations= new LinkedHashMap<>();
+	/** The annotations to report as changed. */
+	private final Set<Annotation> fChangedAnnotations= new LinkedHashSet<>();
+
+	/**
+	 * Records that the given annotation is added at the given position. If the
+	 * annotation has been removed in this batch, it is moved to the given
+	 * position instead.
+	 *
+	 * @param annotation the annotation to add
+	 * @param position the position of the annotation
+	 */
+	public void addAnnotation(Annotation annotation, Position position) {
+		Assert.isNotNull(annotation);
+		Assert.isNotNull(position);
+		if (fRemovedAnnotations.remove(annotation))
+			fMovedAnnotations.put(annotation, position);
+		else if (!fAddedAnnotations.containsKey(annotation))
+			fAddedAnnotations.put(annotation, position);
+	}
+
+	/**
+	 * Records that the given annotation is removed. If the annotation has been
+	 * added in this batch, it is dropped from the batch instead.
+	 *
+	 * @param annotation the annotation to remove
+	 */
+	public void removeAnnotation(Annotation annotation) {
+		Assert.isNotNull(annotation);
+		fChangedAnnotations.remove(annotation);
+		if (fAddedAnnotations.remove(annotation) != null)
+			return;
+		fMovedAnnotations.remove(annotation);
+		fRemovedAnnotations.add(annotation);
+	}
+
+	/**
+	 * Records that the position of the given annotation is changed to the
+	 * given position.
+	 *
+	 * @param annotation the annotation
+	 * @param position the new position of the annotation
+	 * @see IAnnotationModelExtension#modifyAnnotationPosition(Annotation, Position)
+	 */
+	public void modifyAnnotationPosition(Annotation annotation, Position position) {
+		Assert.isNotNull(annotation);
+		Assert.isNotNull(position);
+		if (fAddedAnnotations.containsKey(annotation)) {
+			fAddedAnnotations.put(annotation, position);
+		} else {
+			fRemovedAnnotations.remove(annotation);
+			fMovedAnnotations.put(annotation, position);
+		}
+	}
+
+	/**
+	 * Records that the given annotation has changed, e.g. its text or its type.
+	 *
+	 * @param annotation the changed annotation
+	 */
+	public void modifyAnnotation(Annotation annotation) {
+		Assert.isNotNull(annotation);
+		if (!fAddedAnnotations.containsKey(annotation) && !fRemovedAnnotations.contains(annotation))
+			fChangedAnnotations.add(annotation);
+	}
+
+	/**
+	 * Returns the annotations to remove.
+	 *
+	 * @return the annotations to remove, in the order they have been recorded
+	 */
+	public Set<Annotation> getRemovedAnnotations() {
+		return Collections.unmodifiableSet(fRemovedAnnotations);
+	}
+
+	/**
+	 * Returns the annotations to move to a new position.
+	 *
+	 * @return the annotations to move mapped to their new positions, in the
+	 *         order they have been recorded
+	 */
+	public Map<Annotation, Position> getMovedAnnotations() {
+		return Collections.unmodifiableMap(fMovedAnnotations);
+	}
+
+	/**
+	 * Returns the annotations to add.
+	 *
+	 * @return the annotations to add mapped to their positions, in the order
+	 *         they have been recorded
+	 */
+	public Map<Annotation, Position> getAddedAnnotations() {
+		return Collections.unmodifiableMap(fAddedAnnotations);
+	}
+
+	/**
+	 * Returns the annotations to report as changed without moving them.
+	 *
+	 * @return the changed annotations, in the order they have been recorded
+	 */
+	public Set<Annotation> getChangedAnnotations() {
+		return Collections.unmodifiableSet(fChangedAnnotations);
+	}
+
+	/**
+	 * Tells whether this batch contains no change.
+	 *
+	 * @return <code>true</code> if this batch is empty
+	 */
+	public boolean isEmpty() {
+		return fRemovedAnnotations.isEmpty() && fMovedAnnotations.isEmpty() && fAddedAnnotations.isEmpty() && fChangedAnnotations.isEmpty();
+	}
+}
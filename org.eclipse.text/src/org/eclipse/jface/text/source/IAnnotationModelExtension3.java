@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.text.source;
+
+
+/**
+ * Extends {@link org.eclipse.jface.text.source.IAnnotationModel} with the
+ * ability to apply a batch of changes at once.
+ *
+ * @see AnnotationModelBatch
+ * @since 3.8
+ */
+public interface IAnnotationModelExtension3 {
+
+	/**
+	 * Applies the changes recorded in the given batch to this annotation model
+	 * and informs the annotation model listeners about all of them with a
+	 * single annotation model event. The batch may have been prepared in any
+	 * thread; it must not be modified while it is committed.
+	 *
+	 * @param batch the batch of changes to apply
+	 */
+	void commit(AnnotationModelBatch batch);
+}
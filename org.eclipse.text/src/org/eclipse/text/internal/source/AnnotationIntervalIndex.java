@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.text.internal.source;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+
+
+/**
+ * Index of annotations by their positions, answering which annotations touch or overlap a range
+ * of the document without visiting all annotations.
+ * <p>
+ * The entries are kept in an array sorted by offset. Positions which are longer than 1024
+ * characters are kept in a separate list which is always scanned, so that a range query
+ * only has to look at the sorted entries starting at most the longest remaining length before the
+ * range. Added entries are collected and merged into the sorted array on the next query, removed
+ * entries are dropped while merging.
+ * </p>
+ * <p>
+ * The positions are updated by the document, which preserves their order but may change their
+ * offsets and lengths. The entries are therefore searched by the current offsets of their
+ * positions, and only the length of the longest position has to be kept up to date. Clients which
+ * inform the index about every change of the document by
+ * {@link #documentAboutToBeChanged(long, int)} let the index bound the growth of the positions by
+ * the inserted text, so that a change of the document costs constant time. Otherwise queries are
+ * given the modification stamp of the document, and when the stamp changes all positions are read
+ * again. Only if the positions are no longer in order, e.g. because a client moved a position
+ * without putting it again, all entries are sorted again.
+ * </p>
+ * <p>
+ * The index is not thread-safe, except for {@link #documentAboutToBeChanged(long, int)} which may
+ * be called concurrently with the other methods.
+ * </p>
+ *
+ * @param <T> the type of the values associated with the annotations
+ * @since 3.8
+ */
+public class AnnotationIntervalIndex<T> {
+
+	/**
+	 * An annotation with its value and position.
+	 *
+	 * @param <T> the type of the value
+	 */
+	public static final class Entry<T> implements Map.Entry<Annotation, T> {
+
+		/** The annotation. */
+		private final Annotation fAnnotation;
+		/** The value of the annotation. */
+		private final T fValue;
+		/** The position of the annotation. */
+		private final Position fPosition;
+		/** Tells whether this entry has been removed from the index. */
+		private boolean fIsRemoved;
+
+		Entry(Annotation annotation, T value, Position position) {
+			fAnnotation= annotation;
+			fValue= value;
+			fPosition= position;
+		}
+
+		@Override
+		public Annotation getKey() {
+			return fAnnotation;
+		}
+
+		@Override
+		public T getValue() {
+			return fValue;
+		}
+
+		@Override
+		public T setValue(T value) {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Returns the position of the annotation.
+		 *
+		 * @return the position
+		 */
+		public Position getPosition() {
+			return fPosition;
+		}
+	}
+
+	/** Positions longer than this are not kept in the sorted array. */
+	static final int LONG_LENGTH= 1024;
+	/** The number of added entries which are scanned before they are merged into the sorted array. */
+	private static final int MAX_PENDING= 32;
+	/** The bound of the longest position above which the positions are read again. */
+	private static final int MAX_LENGTH_BOUND= 2 * LONG_LENGTH;
+
+	/** The entries by annotation. */
+	private final Map<Annotation, Entry<T>> fEntries= new HashMap<>();
+	/**
+	 * The entries sorted by the offsets of their positions, may contain removed entries whose
+	 * positions are no longer updated and therefore are skipped when searching.
+	 */
+	@SuppressWarnings("unchecked")
+	private Entry<T>[] fSorted= new Entry[0];
+	/** An upper bound of the length of the positions in {@link #fSorted}. */
+	private int fMaxLength;
+	/** The entries with long positions, may contain removed entries. */
+	private final List<Entry<T>> fLongEntries= new ArrayList<>();
+	/** The added entries which are not yet sorted. */
+	private final List<Entry<T>> fPending= new ArrayList<>();
+	/** The number of removed entries still contained in the sorted array, the long or the added entries. */
+	private int fRemovedCount;
+	/** The modification stamp of the document when the positions were read. */
+	private long fStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	/** The lock guarding the changes reported since the positions were read. */
+	private final Object fChangeLock= new Object();
+	/** The number of document changes reported since the positions were read. */
+	private int fChangeCount;
+	/** Tells whether the reported changes started at the stamp at which the positions were read. */
+	private boolean fChangesTracked;
+	/** The length of the text inserted by the reported changes. */
+	private long fInsertedLength;
+
+	/**
+	 * Associates the given value and position with the given annotation, replacing a previous
+	 * association. An annotation whose position has been changed by a client must be put again.
+	 *
+	 * @param annotation the annotation
+	 * @param value the value
+	 * @param position the position of the annotation
+	 */
+	public void put(Annotation annotation, T value, Position position) {
+		Entry<T> entry= new Entry<>(annotation, value, position);
+		markRemoved(fEntries.put(annotation, entry));
+		fPending.add(entry);
+	}
+
+	/**
+	 * Returns the value associated with the given annotation.
+	 *
+	 * @param annotation the annotation
+	 * @return the value or <code>null</code> if the annotation is not in the index
+	 */
+	public T get(Annotation annotation) {
+		Entry<T> entry= fEntries.get(annotation);
+		return entry != null ? entry.fValue : null;
+	}
+
+	/**
+	 * Removes the given annotation from the index.
+	 *
+	 * @param annotation the annotation
+	 * @return the value associated with the annotation or <code>null</code> if the annotation was
+	 *         not in the index
+	 */
+	public T remove(Annotation annotation) {
+		Entry<T> entry= fEntries.remove(annotation);
+		markRemoved(entry);
+		return entry != null ? entry.fValue : null;
+	}
+
+	private void markRemoved(Entry<T> entry) {
+		if (entry == null)
+			return;
+		entry.fIsRemoved= true;
+		++fRemovedCount;
+	}
+
+	/**
+	 * Informs the index that the document is about to be changed. A position which touches the
+	 * change grows at most by the length of the inserted text, and the document moves the other
+	 * positions in order. If a client informs the index about every change of the document, a
+	 * query after a change therefore need not read all positions again.
+	 *
+	 * @param stamp the modification stamp of the document before the change
+	 * @param textLength the length of the inserted text
+	 */
+	public void documentAboutToBeChanged(long stamp, int textLength) {
+		synchronized (fChangeLock) {
+			if (fChangeCount++ == 0)
+				fChangesTracked= stamp == fStamp && stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+			fInsertedLength+= textLength;
+		}
+	}
+
+	/**
+	 * Removes all annotations from the index.
+	 */
+	@SuppressWarnings("unchecked")
+	public void clear() {
+		fEntries.clear();
+		fSorted= new Entry[0];
+		fMaxLength= 0;
+		fLongEntries.clear();
+		fPending.clear();
+		fRemovedCount= 0;
+	}
+
+	/**
+	 * Returns the number of annotations in the index.
+	 *
+	 * @return the number of annotations
+	 */
+	public int size() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Tells whether the index is empty.
+	 *
+	 * @return <code>true</code> if the index contains no annotation
+	 */
+	public boolean isEmpty() {
+		return fEntries.isEmpty();
+	}
+
+	/**
+	 * Returns all entries of the index in no particular order.
+	 *
+	 * @return the entries, must not be modified
+	 */
+	public Collection<Entry<T>> getEntries() {
+		return Collections.unmodifiableCollection(fEntries.values());
+	}
+
+	/**
+	 * Returns the entries whose positions touch or overlap the given range, i.e. whose positions
+	 * start at or before the end of the range and end at or after the start of the range, in no
+	 * particular order.
+	 *
+	 * @param offset the offset of the range
+	 * @param length the length of the range
+	 * @param stamp the modification stamp of the document or
+	 *            {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP} if unknown
+	 * @return the entries touching or overlapping the range
+	 */
+	public List<Entry<T>> getEntries(int offset, int length, long stamp) {
+		update(stamp);
+		int end= offset + length;
+		List<Entry<T>> result= new ArrayList<>();
+		for (Entry<T> entry : fLongEntries) {
+			if (!isSkipped(entry) && touches(entry.fPosition, offset, end))
+				result.add(entry);
+		}
+		for (int i= firstIndex(offset - fMaxLength); i < fSorted.length; i++) {
+			Entry<T> entry= fSorted[i];
+			if (isSkipped(entry))
+				continue;
+			if (offsetOf(entry) > end)
+				break;
+			if (touches(entry.fPosition, offset, end))
+				result.add(entry);
+		}
+		for (Entry<T> entry : fPending) {
+			if (!isSkipped(entry) && touches(entry.fPosition, offset, end))
+				result.add(entry);
+		}
+		return result;
+	}
+
+	private static boolean touches(Position position, int offset, int end) {
+		return position.offset <= end && offset <= position.offset + position.length;
+	}
+
+	private static int offsetOf(Entry<?> entry) {
+		return Math.max(0, entry.fPosition.offset);
+	}
+
+	/**
+	 * Tells whether the position of the given entry is no longer updated by the document, because
+	 * the entry has been removed or the position has been deleted. Such an entry may be out of
+	 * order and is skipped when searching.
+	 *
+	 * @param entry the entry
+	 * @return <code>true</code> if the entry is skipped
+	 */
+	private static boolean isSkipped(Entry<?> entry) {
+		return entry.fIsRemoved || entry.fPosition.isDeleted;
+	}
+
+	/**
+	 * Returns the index of the first sorted entry with an offset not smaller than the given offset,
+	 * skipping the entries whose positions are no longer updated.
+	 *
+	 * @param offset the offset
+	 * @return the index of the first entry at or after the offset
+	 */
+	private int firstIndex(int offset) {
+		int low= 0;
+		int high= fSorted.length;
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			int probe= mid;
+			while (probe < high && isSkipped(fSorted[probe]))
+				probe++;
+			if (probe < high && offsetOf(fSorted[probe]) < offset)
+				low= probe + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Brings the sorted array up to date.
+	 *
+	 * @param stamp the modification stamp of the document
+	 */
+	private void update(long stamp) {
+		if (stamp != fStamp || stamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+			boolean tracked;
+			synchronized (fChangeLock) {
+				tracked= fChangeCount > 0 && fChangesTracked && stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+				if (tracked)
+					fMaxLength= (int) Math.min(Integer.MAX_VALUE, fMaxLength + fInsertedLength);
+				fChangeCount= 0;
+				fInsertedLength= 0;
+			}
+			// positions moved by unknown changes may have grown or moved out of order
+			if (!tracked || fMaxLength > MAX_LENGTH_BOUND) {
+				if (!refresh())
+					sort(fEntries.values());
+			}
+			synchronized (fChangeLock) {
+				fStamp= stamp;
+			}
+		}
+		if (fPending.size() > MAX_PENDING || fRemovedCount > fEntries.size() / 2)
+			merge();
+	}
+
+	/**
+	 * Reads the lengths of the sorted entries again from their positions, checks their order and
+	 * drops the removed entries.
+	 *
+	 * @return <code>false</code> if the positions are no longer in order
+	 */
+	private boolean refresh() {
+		int count= 0;
+		int maxLength= 0;
+		int lastOffset= Integer.MIN_VALUE;
+		for (int i= 0; i < fSorted.length; i++) {
+			Entry<T> entry= fSorted[i];
+			if (entry.fIsRemoved)
+				continue;
+			Position position= entry.fPosition;
+			if (position.length > LONG_LENGTH) {
+				fLongEntries.add(entry);
+				continue;
+			}
+			if (!entry.fPosition.isDeleted) {
+				int offset= offsetOf(entry);
+				if (offset < lastOffset)
+					return false;
+				lastOffset= offset;
+			}
+			fSorted[count++]= entry;
+			maxLength= Math.max(maxLength, position.length);
+		}
+		if (count < fSorted.length)
+			fSorted= Arrays.copyOf(fSorted, count);
+		fMaxLength= maxLength;
+		fLongEntries.removeIf(entry -> entry.fIsRemoved);
+		fRemovedCount= 0;
+		for (Entry<T> entry : fPending) {
+			if (entry.fIsRemoved)
+				++fRemovedCount;
+		}
+		return true;
+	}
+
+	/**
+	 * Sorts the given entries into a new sorted array.
+	 *
+	 * @param entries the entries to sort
+	 */
+	@SuppressWarnings("unchecked")
+	private void sort(Collection<Entry<T>> entries) {
+		fLongEntries.clear();
+		fPending.clear();
+		fRemovedCount= 0;
+		Entry<T>[] all= entries.toArray(new Entry[entries.size()]);
+		long[] keys= new long[all.length];
+		int count= 0;
+		for (int i= 0; i < all.length; i++) {
+			Position position= all[i].fPosition;
+			if (position.length > LONG_LENGTH)
+				fLongEntries.add(all[i]);
+			else
+				keys[count++]= ((long) offsetOf(all[i]) << 32) | i;
+		}
+		Arrays.sort(keys, 0, count);
+		fSorted= new Entry[count];
+		fMaxLength= 0;
+		for (int i= 0; i < count; i++) {
+			Entry<T> entry= all[(int) keys[i]];
+			fSorted[i]= entry;
+			fMaxLength= Math.max(fMaxLength, entry.fPosition.length);
+		}
+	}
+
+	/**
+	 * Merges the added entries into the sorted array and drops the removed entries, keeping the
+	 * order of the sorted entries.
+	 */
+	@SuppressWarnings("unchecked")
+	private void merge() {
+		List<Entry<T>> added= new ArrayList<>(fPending.size());
+		for (Entry<T> entry : fPending) {
+			if (isSkipped(entry))
+				continue;
+			if (entry.fPosition.length > LONG_LENGTH)
+				fLongEntries.add(entry);
+			else
+				added.add(entry);
+		}
+		fPending.clear();
+		added.sort((a, b) -> Integer.compare(offsetOf(a), offsetOf(b)));
+		fLongEntries.removeIf(entry -> entry.fIsRemoved);
+
+		Entry<T>[] sorted= new Entry[fSorted.length + added.size()];
+		int count= 0;
+		int j= 0;
+		for (int i= 0; i < fSorted.length; i++) {
+			Entry<T> entry= fSorted[i];
+			if (isSkipped(entry))
+				continue;
+			int offset= offsetOf(entry);
+			for (; j < added.size() && offsetOf(added.get(j)) < offset; j++) {
+				sorted[count++]= added.get(j);
+				fMaxLength= Math.max(fMaxLength, added.get(j).fPosition.length);
+			}
+			sorted[count++]= entry;
+		}
+		for (; j < added.size(); j++) {
+			sorted[count++]= added.get(j);
+			fMaxLength= Math.max(fMaxLength, added.get(j).fPosition.length);
+		}
+		fSorted= Arrays.copyOf(sorted, count);
+		fRemovedCount= 0;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 Red Hat Inc. and others
+ * Copyright (c) 2016, 2018 Red Hat Inc. and others
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -36,6 +36,7 @@ public class BlueTagsPresentationReconciler extends PresentationReconciler {
         rules[0]= new SingleLineRule("<?", "?>", new Token(headerAttribute));
         scanner.setRules(rules);
         DefaultDamagerRepairer dr= new DefaultDamagerRepairer(scanner);
+        dr.setTokenCacheEnabled(true);
         this.setDamager(dr, IDocument.DEFAULT_CONTENT_TYPE);
         this.setRepairer(dr, IDocument.DEFAULT_CONTENT_TYPE);
     }
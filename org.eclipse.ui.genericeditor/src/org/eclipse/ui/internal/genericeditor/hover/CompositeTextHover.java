@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016-2017 Red Hat Inc. and others.
+ * Copyright (c) 2016-2018 Red Hat Inc. and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,29 +17,54 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.text.IInformationControlCreator;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextHover;
 import org.eclipse.jface.text.ITextHoverExtension;
 import org.eclipse.jface.text.ITextHoverExtension2;
+import org.eclipse.jface.text.ITextHoverExtension3;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.Region;
+import org.eclipse.ui.internal.genericeditor.GenericEditorPlugin;
 
 /**
  * A text hover that delegates its operations to children
  * provided in constructor and returns the first interesting result.
+ * <p>
+ * The hover infos of the children are computed concurrently: the first child
+ * runs in the calling thread, the others on a small pool of low-priority daemon
+ * threads. A child which has not been started by the pool when the calling
+ * thread needs its result runs in the calling thread. The results keep the
+ * order of the children.
+ * </p>
+ * <p>
+ * The hover info can be reused if it can be reused for all children.
+ * </p>
  *
  * @since 1.0
  */
-public class CompositeTextHover implements ITextHover, ITextHoverExtension, ITextHoverExtension2 {
+public class CompositeTextHover implements ITextHover, ITextHoverExtension, ITextHoverExtension2, ITextHoverExtension3 {
+
+	private static Executor executor;
 
 	private final List<ITextHover> allHovers;
-	private LinkedHashMap<ITextHover, IRegion> regions = null;
-	private LinkedHashMap<ITextHover, Object> currentHovers = null;
+	private volatile LinkedHashMap<ITextHover, IRegion> regions = null;
+	private volatile LinkedHashMap<ITextHover, Object> currentHovers = null;
 
 	public CompositeTextHover(List<ITextHover> hoversToConsider) {
 		Assert.isNotNull(hoversToConsider);
@@ -49,39 +74,89 @@ public class CompositeTextHover implements ITextHover, ITextHoverExtension, ITex
 
 	@Override
 	public Object getHoverInfo2(ITextViewer textViewer, IRegion requestRegion) {
-		this.currentHovers = new LinkedHashMap<>();
-		for (ITextHover hover : this.allHovers) {
-			IRegion currentRegion = this.regions.get(hover);
-			if (currentRegion == null) {
-				continue;
+		Map<ITextHover, IRegion> hoverRegions = this.regions;
+		LinkedHashMap<ITextHover, Object> results = new LinkedHashMap<>();
+		if (hoverRegions != null && !hoverRegions.isEmpty()) {
+			List<Entry<ITextHover, IRegion>> entries = new ArrayList<>(hoverRegions.entrySet());
+			List<FutureTask<Object>> tasks = new ArrayList<>(entries.size());
+			for (Entry<ITextHover, IRegion> entry : entries.subList(1, entries.size())) {
+				FutureTask<Object> task = new FutureTask<>(() -> getHoverInfo2(entry.getKey(), textViewer, entry.getValue()));
+				tasks.add(task);
+				getExecutor().execute(task);
 			}
-			Object res = hover instanceof ITextHoverExtension2 ?
-				((ITextHoverExtension2)hover).getHoverInfo2(textViewer, currentRegion) :
-				hover.getHoverInfo(textViewer, currentRegion);
-			if (res != null) {
-				this.currentHovers.put(hover, res);
+			Entry<ITextHover, IRegion> first = entries.get(0);
+			putIfNotNull(results, first.getKey(), getHoverInfo2(first.getKey(), textViewer, first.getValue()));
+			for (int i = 0; i < tasks.size(); i++) {
+				FutureTask<Object> task = tasks.get(i);
+				// does nothing if the pool has already started the task
+				task.run();
+				try {
+					putIfNotNull(results, entries.get(i + 1).getKey(), task.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (ExecutionException e) {
+					GenericEditorPlugin.getDefault().getLog()
+							.log(new Status(IStatus.ERROR, GenericEditorPlugin.BUNDLE_ID, e.getMessage(), e.getCause()));
+				}
 			}
 		}
-		if (this.currentHovers.isEmpty()) {
+		this.currentHovers = results;
+		if (results.isEmpty()) {
 			return null;
-		} else if (this.currentHovers.size() == 1) {
-			return this.currentHovers.values().iterator().next();
+		} else if (results.size() == 1) {
+			return results.values().iterator().next();
 		} else {
-			return this.currentHovers;
+			return results;
+		}
+	}
+
+	private static synchronized Executor getExecutor() {
+		if (executor == null) {
+			int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+			AtomicInteger count = new AtomicInteger();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "Composite Text Hover " + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setPriority(Thread.MIN_PRIORITY);
+				thread.setDaemon(true);
+				return thread;
+			});
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		return executor;
+	}
+
+	private static Object getHoverInfo2(ITextHover hover, ITextViewer textViewer, IRegion region) {
+		try {
+			return hover instanceof ITextHoverExtension2 ?
+				((ITextHoverExtension2)hover).getHoverInfo2(textViewer, region) :
+				hover.getHoverInfo(textViewer, region);
+		} catch (RuntimeException e) {
+			GenericEditorPlugin.getDefault().getLog()
+					.log(new Status(IStatus.ERROR, GenericEditorPlugin.BUNDLE_ID, e.getMessage(), e));
+			return null;
+		}
+	}
+
+	private static void putIfNotNull(Map<ITextHover, Object> results, ITextHover hover, Object info) {
+		if (info != null) {
+			results.put(hover, info);
 		}
 	}
 
 	@Override
 	public IInformationControlCreator getHoverControlCreator() {
-		if (this.currentHovers == null || this.currentHovers.isEmpty()) {
+		LinkedHashMap<ITextHover, Object> currentHovers = this.currentHovers;
+		if (currentHovers == null || currentHovers.isEmpty()) {
 			return null;
 		} else if (currentHovers.size() == 1) {
-			ITextHover hover = this.currentHovers.keySet().iterator().next();
+			ITextHover hover = currentHovers.keySet().iterator().next();
 			return hover instanceof ITextHoverExtension ?
 				((ITextHoverExtension)hover).getHoverControlCreator():
 				null;
 		} else {
-			return new CompositeInformationControlCreator(new ArrayList<>(this.currentHovers.keySet()));
+			return new CompositeInformationControlCreator(new ArrayList<>(currentHovers.keySet()));
 		}
 	}
 
@@ -95,12 +170,12 @@ public class CompositeTextHover implements ITextHover, ITextHoverExtension, ITex
 
 	@Override
 	public IRegion getHoverRegion(ITextViewer textViewer, int offset) {
-		this.regions = new LinkedHashMap<>();
+		LinkedHashMap<ITextHover, IRegion> hoverRegions = new LinkedHashMap<>();
 		IRegion res = null;
 		for (ITextHover hover : this.allHovers) {
 			IRegion region = hover.getHoverRegion(textViewer, offset);
 			if (region != null) {
-				this.regions.put(hover, region);
+				hoverRegions.put(hover, region);
 				if (res == null) {
 					res = region;
 				} else {
@@ -110,7 +185,14 @@ public class CompositeTextHover implements ITextHover, ITextHoverExtension, ITex
 				}
 			}
 		}
+		this.regions = hoverRegions;
 		return res;
 	}
 
+	@Override
+	public boolean canReuseHoverInfo() {
+		return this.allHovers.stream()
+				.allMatch(hover -> hover instanceof ITextHoverExtension3 && ((ITextHoverExtension3) hover).canReuseHoverInfo());
+	}
+
 }